@@ -0,0 +1,64 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The index to resource lookups of the {@link DemoResourceCache} used by {@code DemoLayout},
+ * backed by the stand-in resources (see README.md). Compares lookups in the loaded cache with
+ * lookups right after it has been invalidated, which need to load all resources again.
+ *
+ * Located in the package of the cache, as it's package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DemoLayoutLookupBenchmark {
+
+    private DemoResourceCache resourceCache;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        resourceCache = new DemoResourceCache(new Context());
+    }
+
+    @Benchmark
+    public Drawable getIconDrawable() {
+        return resourceCache.getIconDrawable(nextIndex());
+    }
+
+    @Benchmark
+    public int getColor() {
+        return resourceCache.getColor(nextIndex());
+    }
+
+    @Benchmark
+    public Drawable getIconDrawableAfterInvalidation() {
+        resourceCache.invalidate();
+        return resourceCache.getIconDrawable(nextIndex());
+    }
+
+    @Benchmark
+    public int getColorAfterInvalidation() {
+        resourceCache.invalidate();
+        return resourceCache.getColor(nextIndex());
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % 100;
+        return index;
+    }
+
+}
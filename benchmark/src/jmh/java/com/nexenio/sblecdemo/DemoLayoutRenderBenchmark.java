@@ -0,0 +1,167 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Visualizing a burst of demo payloads with the {@link DemoPayloadRenderer} of {@code
+ * DemoLayout}, backed by the stand-in resources (see README.md) and views that count how often
+ * they have been updated (each update may cause a redraw, title updates a relayout). Compares
+ * rendering with loaded caches to rendering with caches that have been invalidated before every
+ * payload, which need to load all resources and format the title again.
+ *
+ * Located in the package of the renderer, as it's package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DemoLayoutRenderBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private static final int DEVICE_COUNT = 8;
+
+    /**
+     * Which fields change from one payload to the next: none (e.g. the same state received from
+     * multiple devices), one (icon or color) or all (icon, color and device).
+     */
+    @Param({"none", "one", "all"})
+    public String changedFields;
+
+    private DemoPayloadWrapper[] demoPayloadWrappers;
+
+    private DemoResourceCache resourceCache;
+
+    private DeviceLabelCache deviceLabelCache;
+
+    private CountingViews views;
+
+    private DemoPayloadRenderer renderer;
+
+    /**
+     * Reports the view updates per payload.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ViewUpdates {
+
+        public long viewUpdates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            viewUpdates = 0;
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int[] devices = new int[DEVICE_COUNT];
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            devices[i] = random.nextInt();
+        }
+        demoPayloadWrappers = new DemoPayloadWrapper[PAYLOAD_COUNT];
+        int iconIndex = 3;
+        int colorIndex = 5;
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            int deviceIdHashCode = devices[0];
+            switch (changedFields) {
+                case "none":
+                    break;
+                case "one":
+                    if (random.nextBoolean()) {
+                        iconIndex = (iconIndex + 1) % 7;
+                    } else {
+                        colorIndex = (colorIndex + 1) % 18;
+                    }
+                    break;
+                default:
+                    iconIndex = i % 7;
+                    colorIndex = i % 18;
+                    deviceIdHashCode = devices[i % DEVICE_COUNT];
+                    break;
+            }
+            DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(iconIndex, colorIndex);
+            demoPayloadWrapper.setDeviceIdHashCode(deviceIdHashCode);
+            demoPayloadWrappers[i] = demoPayloadWrapper;
+        }
+
+        Context context = new Context();
+        resourceCache = new DemoResourceCache(context);
+        deviceLabelCache = new DeviceLabelCache(context);
+        views = new CountingViews();
+        renderer = new DemoPayloadRenderer(views, resourceCache, deviceLabelCache);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void render(ViewUpdates viewUpdates) {
+        views.viewUpdates = viewUpdates;
+        for (DemoPayloadWrapper demoPayloadWrapper : demoPayloadWrappers) {
+            renderer.render(demoPayloadWrapper);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void renderWithInvalidatedCaches(ViewUpdates viewUpdates) {
+        views.viewUpdates = viewUpdates;
+        for (DemoPayloadWrapper demoPayloadWrapper : demoPayloadWrappers) {
+            resourceCache.invalidate();
+            deviceLabelCache.invalidate();
+            renderer.render(demoPayloadWrapper);
+        }
+    }
+
+    /**
+     * Stores the last values they have been set to, like view properties.
+     */
+    private static final class CountingViews implements DemoPayloadRenderer.Views {
+
+        private ViewUpdates viewUpdates;
+
+        private Drawable iconDrawable;
+
+        private int color;
+
+        private String title;
+
+        @Override
+        public void setIconDrawable(@NonNull Drawable iconDrawable) {
+            this.iconDrawable = iconDrawable;
+            viewUpdates.viewUpdates++;
+        }
+
+        @Override
+        public void setBackgroundColor(int color) {
+            this.color = color;
+            viewUpdates.viewUpdates++;
+        }
+
+        @Override
+        public void setTitle(@NonNull String title) {
+            this.title = title;
+            viewUpdates.viewUpdates++;
+        }
+
+    }
+
+}
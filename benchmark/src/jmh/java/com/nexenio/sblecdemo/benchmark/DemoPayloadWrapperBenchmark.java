@@ -0,0 +1,73 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a {@link DemoPayloadWrapper}, in both {@link DemoPayloadCodec}
+ * formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DemoPayloadWrapperBenchmark {
+
+    private static final long TIMESTAMP = 1556617029000L;
+
+    @Param({"" + DemoPayloadCodec.FORMAT_LEGACY, "" + DemoPayloadCodec.FORMAT_COMPACT})
+    public int format;
+
+    private DemoPayloadWrapper demoPayloadWrapper;
+
+    private DemoPayloadWrapper decodedDemoPayloadWrapper;
+
+    private ByteBuffer encodedData;
+
+    private TransportPayload transportPayload;
+
+    @Setup
+    public void setUp() {
+        demoPayloadWrapper = new DemoPayloadWrapper(3, 7);
+        demoPayloadWrapper.setTimestamp(TIMESTAMP);
+        demoPayloadWrapper.setFormat(format);
+        decodedDemoPayloadWrapper = new DemoPayloadWrapper(0, 0);
+        encodedData = demoPayloadWrapper.writeToBuffer().blockingGet();
+        transportPayload = new TransportPayload(DemoPayloadWrapper.ID, 42, encodedData);
+    }
+
+    @Benchmark
+    public ByteBuffer writeToBuffer() {
+        return demoPayloadWrapper.writeToBuffer().blockingGet();
+    }
+
+    @Benchmark
+    public DemoPayloadWrapper readFromBuffer() {
+        decodedDemoPayloadWrapper.readFromBuffer(encodedData).blockingAwait();
+        return decodedDemoPayloadWrapper;
+    }
+
+    @Benchmark
+    public DemoPayloadWrapper decode() {
+        decodedDemoPayloadWrapper.decode(encodedData, TIMESTAMP);
+        return decodedDemoPayloadWrapper;
+    }
+
+    @Benchmark
+    public DemoPayloadWrapper createFromTransportPayload() {
+        return new DemoPayloadWrapper(transportPayload, TIMESTAMP);
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.fragmentation.FountainCodec;
+import com.nexenio.sblecdemo.fragmentation.FragmentReassembler;
+import com.nexenio.sblecdemo.fragmentation.FragmentSender;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Splitting messages into fragments and reassembling them from fragments received in random
+ * order, either sequenced or coded for forward error correction. The completion time on a lossy
+ * channel depends on the advertising interval rather than on these costs, it's measured by the
+ * {@code FragmentTransferSimulationTest} of the demo module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FragmentationBenchmark {
+
+    private static final int MESSAGE_COUNT = 64;
+
+    private static final int PAYLOAD_ID = 12;
+
+    @Param({"256", "1024", "4096"})
+    public int messageLength;
+
+    private ByteBuffer message;
+
+    private FragmentSender fragmentSender;
+
+    private FragmentReassembler fragmentReassembler;
+
+    /**
+     * The shuffled fragments of {@link #MESSAGE_COUNT} messages with different message IDs.
+     */
+    private List<List<TransportPayload>> fragmentedMessages;
+
+    /**
+     * The coded fragments of {@link #MESSAGE_COUNT} messages, 30% of them lost, until enough have
+     * been received to decode the message.
+     */
+    private List<List<TransportPayload>> codedMessages;
+
+    private int nextMessageIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[messageLength];
+        random.nextBytes(bytes);
+        message = ByteBuffer.wrap(bytes);
+
+        fragmentSender = new FragmentSender(new NoOpPayloadTransport(), Schedulers.trampoline());
+        fragmentReassembler = new FragmentReassembler(Schedulers.trampoline());
+        fragmentedMessages = new ArrayList<>(MESSAGE_COUNT);
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            List<TransportPayload> fragments = new ArrayList<>();
+            for (TransportPayload fragment : fragmentSender.createFragments(PAYLOAD_ID, message)) {
+                ByteBuffer data = fragment.getData().asReadOnlyBuffer();
+                fragments.add(new TransportPayload(fragment.getId(), random.nextInt(4), data));
+            }
+            Collections.shuffle(fragments, random);
+            fragmentedMessages.add(fragments);
+        }
+
+        codedMessages = new ArrayList<>(MESSAGE_COUNT);
+        FragmentReassembler decodingReassembler = new FragmentReassembler(Schedulers.trampoline());
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            List<TransportPayload> fragments = new ArrayList<>();
+            int deviceIdHashCode = random.nextInt(4);
+            for (TransportPayload fragment : fragmentSender.createCodedFragments(PAYLOAD_ID, message).blockingIterable()) {
+                if (random.nextDouble() < 0.3) {
+                    continue;
+                }
+                TransportPayload receivedFragment = new TransportPayload(fragment.getId(), deviceIdHashCode, fragment.getData().asReadOnlyBuffer());
+                fragments.add(receivedFragment);
+                if (decodingReassembler.onFragmentReceived(receivedFragment) != null) {
+                    break;
+                }
+            }
+            codedMessages.add(fragments);
+        }
+    }
+
+    @Benchmark
+    public List<TransportPayload> fragment() {
+        return fragmentSender.createFragments(PAYLOAD_ID, message);
+    }
+
+    /**
+     * Encodes as many coded fragments as there are sequenced fragments.
+     */
+    @Benchmark
+    public List<TransportPayload> fragmentCoded() {
+        int fragmentCount = FountainCodec.getSourceSymbolCount(messageLength);
+        return fragmentSender.createCodedFragments(PAYLOAD_ID, message)
+                .take(fragmentCount)
+                .toList()
+                .blockingGet();
+    }
+
+    @Benchmark
+    public TransportPayload reassemble() {
+        return reassemble(fragmentedMessages);
+    }
+
+    @Benchmark
+    public TransportPayload reassembleCoded() {
+        return reassemble(codedMessages);
+    }
+
+    private TransportPayload reassemble(@NonNull List<List<TransportPayload>> messages) {
+        List<TransportPayload> fragments = messages.get(nextMessageIndex);
+        nextMessageIndex = (nextMessageIndex + 1) % MESSAGE_COUNT;
+        TransportPayload reassembledPayload = null;
+        for (int i = 0; i < fragments.size(); i++) {
+            TransportPayload payload = fragmentReassembler.onFragmentReceived(fragments.get(i));
+            if (payload != null) {
+                reassembledPayload = payload;
+            }
+        }
+        return reassembledPayload;
+    }
+
+    private static final class NoOpPayloadTransport implements PayloadTransport {
+
+        @Override
+        public Completable send(@NonNull TransportPayload transportPayload) {
+            return Completable.never();
+        }
+
+        @Override
+        public Observable<TransportPayload> receive() {
+            return Observable.never();
+        }
+
+        @Override
+        public int getDeviceIdHashCode() {
+            return 0;
+        }
+
+    }
+
+}
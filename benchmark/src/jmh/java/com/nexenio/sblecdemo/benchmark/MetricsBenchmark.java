@@ -0,0 +1,49 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.metrics.LatencyHistogram;
+import com.nexenio.sblecdemo.metrics.StripedCounter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recording metrics from multiple threads at once, as the receive and processing threads of the
+ * {@code DemoPresenter} do. Compares the {@link StripedCounter} to a plain {@link AtomicLong}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class MetricsBenchmark {
+
+    private final AtomicLong atomicCounter = new AtomicLong();
+
+    private final StripedCounter stripedCounter = new StripedCounter();
+
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    @Benchmark
+    public long incrementAtomicCounter() {
+        return atomicCounter.incrementAndGet();
+    }
+
+    @Benchmark
+    public void incrementStripedCounter() {
+        stripedCounter.increment();
+    }
+
+    @Benchmark
+    public void recordLatency() {
+        latencyHistogram.record(ThreadLocalRandom.current().nextInt(100_000));
+    }
+
+}
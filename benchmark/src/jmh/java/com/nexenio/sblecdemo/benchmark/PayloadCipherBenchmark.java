@@ -0,0 +1,104 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.crypto.PayloadCipher;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sealing and opening demo payloads with the {@link PayloadCipher}. Opening forged payloads (with
+ * random tags) shows the cost of rejecting them, decoding unsealed payloads is the baseline that
+ * every received demo payload costs anyway.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadCipherBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private PayloadCipher payloadCipher;
+
+    private TransportPayload[] transportPayloads;
+
+    private TransportPayload[] sealedPayloads;
+
+    private TransportPayload[] forgedPayloads;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        payloadCipher = new PayloadCipher(createKey(random));
+        PayloadCipher forgingPayloadCipher = new PayloadCipher(createKey(random));
+        transportPayloads = new TransportPayload[PAYLOAD_COUNT];
+        sealedPayloads = new TransportPayload[PAYLOAD_COUNT];
+        forgedPayloads = new TransportPayload[PAYLOAD_COUNT];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(random.nextInt(10), random.nextInt(10));
+            demoPayloadWrapper.setDeviceIdHashCode(random.nextInt());
+            // the legacy format is too long to be sealed
+            demoPayloadWrapper.setFormat(DemoPayloadCodec.FORMAT_COMPACT);
+            ByteBuffer data = demoPayloadWrapper.writeToBuffer().blockingGet().asReadOnlyBuffer();
+            transportPayloads[i] = new TransportPayload(DemoPayloadWrapper.ID, demoPayloadWrapper.getDeviceIdHashCode(), data);
+            sealedPayloads[i] = readOnly(payloadCipher.seal(transportPayloads[i]));
+            forgedPayloads[i] = readOnly(forgingPayloadCipher.seal(transportPayloads[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void seal(Blackhole blackhole) {
+        for (TransportPayload transportPayload : transportPayloads) {
+            blackhole.consume(payloadCipher.seal(transportPayload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void open(Blackhole blackhole) {
+        for (TransportPayload sealedPayload : sealedPayloads) {
+            blackhole.consume(payloadCipher.open(sealedPayload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void openForged(Blackhole blackhole) {
+        for (TransportPayload forgedPayload : forgedPayloads) {
+            blackhole.consume(payloadCipher.open(forgedPayload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void decodeUnsealed(Blackhole blackhole) {
+        for (TransportPayload transportPayload : transportPayloads) {
+            blackhole.consume(new DemoPayloadWrapper(transportPayload, 0));
+        }
+    }
+
+    private static TransportPayload readOnly(TransportPayload transportPayload) {
+        return new TransportPayload(transportPayload.getId(), transportPayload.getDeviceIdHashCode(), transportPayload.getData().asReadOnlyBuffer());
+    }
+
+    private static byte[] createKey(Random random) {
+        byte[] key = new byte[PayloadCipher.MINIMUM_GROUP_KEY_LENGTH];
+        random.nextBytes(key);
+        return key;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.receiver.PayloadDispatcher;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Routing received payloads to the pipelines of multiple payload types, either using the {@link
+ * PayloadDispatcher} or by filtering all payloads in a separate subscription for each type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadDispatcherBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private static final int FIRST_PAYLOAD_ID = 11;
+
+    @Param({"1", "4", "16"})
+    public int payloadTypeCount;
+
+    private TransportPayload[] transportPayloads;
+
+    private PublishSubject<TransportPayload> dispatchedPayloads;
+
+    private PublishSubject<TransportPayload> filteredPayloads;
+
+    private CompositeDisposable compositeDisposable;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Random random = new Random(42);
+        transportPayloads = new TransportPayload[PAYLOAD_COUNT];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            int id = FIRST_PAYLOAD_ID + random.nextInt(payloadTypeCount);
+            transportPayloads[i] = new TransportPayload(id, random.nextInt(), ByteBuffer.allocate(7));
+        }
+
+        compositeDisposable = new CompositeDisposable();
+        PayloadDispatcher payloadDispatcher = new PayloadDispatcher();
+        dispatchedPayloads = PublishSubject.create();
+        filteredPayloads = PublishSubject.create();
+        for (int i = 0; i < payloadTypeCount; i++) {
+            int id = FIRST_PAYLOAD_ID + i;
+            compositeDisposable.add(payloadDispatcher.getPayloads(id)
+                    .subscribe(blackhole::consume));
+            compositeDisposable.add(filteredPayloads
+                    .filter(transportPayload -> transportPayload.getId() == id)
+                    .subscribe(blackhole::consume));
+        }
+        compositeDisposable.add(payloadDispatcher.dispatch(dispatchedPayloads).subscribe());
+    }
+
+    @TearDown
+    public void tearDown() {
+        compositeDisposable.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void dispatchById() {
+        for (TransportPayload transportPayload : transportPayloads) {
+            dispatchedPayloads.onNext(transportPayload);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void filterPerSubscription() {
+        for (TransportPayload transportPayload : transportPayloads) {
+            filteredPayloads.onNext(transportPayload);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.receiver.DuplicatePayloadFilter;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The filter and map operators of {@code DemoPresenter.receiveDemoPayloads()}, applied to a batch
+ * of received payloads. Scheduling and coalescing are not part of the measurement.
+ *
+ * Most payloads in a crowded room are repeated advertisements of outdated states, the share of
+ * payloads that are newer than the last visualized one can be set using {@link #newerRatio}.
+ * Because the same batch is processed in every invocation, all payloads are repeats for the
+ * {@link DuplicatePayloadFilter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReceivePipelineBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private static final int OTHER_PAYLOAD_ID = 12;
+
+    private static final long LAST_TIMESTAMP = 1556617029000L;
+
+    @Param({"0.01", "0.1", "1"})
+    public double newerRatio;
+
+    private TransportPayload[] transportPayloads;
+
+    private DuplicatePayloadFilter duplicatePayloadFilter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        transportPayloads = new TransportPayload[PAYLOAD_COUNT];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            int id = random.nextInt(10) == 0 ? OTHER_PAYLOAD_ID : DemoPayloadWrapper.ID;
+            long timestamp = LAST_TIMESTAMP + (random.nextDouble() < newerRatio ? 1 : -1) * (1 + random.nextInt(1000));
+
+            ByteBuffer data = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, random.nextInt(100), random.nextInt(100), timestamp);
+
+            transportPayloads[i] = new TransportPayload(id, random.nextInt(), data);
+        }
+        duplicatePayloadFilter = new DuplicatePayloadFilter(4 * PAYLOAD_COUNT, 1, TimeUnit.DAYS, Schedulers.trampoline());
+    }
+
+    /**
+     * The previous pipeline, dropping outdated payloads before creating a wrapper.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void filterBeforeDecode(Blackhole blackhole) {
+        Flowable.fromArray(transportPayloads)
+                .filter(transportPayload -> transportPayload.getId() == DemoPayloadWrapper.ID)
+                .filter(ReceivePipelineBenchmark::isNewerThanLastDemoPayload)
+                .map(transportPayload -> new DemoPayloadWrapper(transportPayload, LAST_TIMESTAMP))
+                .subscribe(blackhole::consume);
+    }
+
+    /**
+     * The current pipeline, dropping repeated payloads before anything else. Note that the
+     * filters measured here are cheaper than the lookup (mostly reading the clock), the savings
+     * are in the queueing, thread switching and logging that repeats no longer go through.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void deduplicateBeforeFilter(Blackhole blackhole) {
+        Flowable.fromArray(transportPayloads)
+                .filter(duplicatePayloadFilter)
+                .filter(transportPayload -> transportPayload.getId() == DemoPayloadWrapper.ID)
+                .filter(ReceivePipelineBenchmark::isNewerThanLastDemoPayload)
+                .map(transportPayload -> new DemoPayloadWrapper(transportPayload, LAST_TIMESTAMP))
+                .subscribe(blackhole::consume);
+    }
+
+    /**
+     * The initial pipeline, creating a wrapper for every payload.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void decodeBeforeFilter(Blackhole blackhole) {
+        Flowable.fromArray(transportPayloads)
+                .filter(transportPayload -> transportPayload.getId() == DemoPayloadWrapper.ID)
+                .map(transportPayload -> new DemoPayloadWrapper(transportPayload, LAST_TIMESTAMP))
+                .filter(demoPayloadWrapper -> demoPayloadWrapper.getTimestamp() > LAST_TIMESTAMP)
+                .subscribe(blackhole::consume);
+    }
+
+    private static boolean isNewerThanLastDemoPayload(TransportPayload transportPayload) {
+        ByteBuffer data = transportPayload.getData();
+        return DemoPayloadCodec.isValid(data) && DemoPayloadCodec.readTimestamp(data, LAST_TIMESTAMP) > LAST_TIMESTAMP;
+    }
+
+}
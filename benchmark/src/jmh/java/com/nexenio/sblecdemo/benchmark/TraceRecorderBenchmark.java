@@ -0,0 +1,108 @@
+package com.nexenio.sblecdemo.benchmark;
+
+import com.nexenio.sblecdemo.trace.TraceReader;
+import com.nexenio.sblecdemo.trace.TraceRecord;
+import com.nexenio.sblecdemo.trace.TraceRecorder;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording received payloads with the {@link TraceRecorder} into a memory mapped file, and
+ * reading them back like the {@code TraceReplayTransport} does. Once the trace reaches {@link
+ * #MAXIMUM_TRACE_LENGTH}, a new one is started, so the cost of mapping new segments and files is
+ * included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TraceRecorderBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private static final long MAXIMUM_TRACE_LENGTH = 64 * 1024 * 1024;
+
+    private TransportPayload[] transportPayloads;
+
+    private File traceFile;
+
+    private TraceRecorder traceRecorder;
+
+    private long timestamp;
+
+    private File recordedTraceFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        transportPayloads = new TransportPayload[PAYLOAD_COUNT];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            byte[] data = new byte[7];
+            random.nextBytes(data);
+            transportPayloads[i] = new TransportPayload(11, random.nextInt(20), ByteBuffer.wrap(data).asReadOnlyBuffer());
+        }
+
+        traceFile = File.createTempFile("benchmark", ".trace");
+        startRecording();
+
+        recordedTraceFile = File.createTempFile("benchmark", ".trace");
+        try (TraceRecorder traceRecorder = new TraceRecorder(recordedTraceFile, 0)) {
+            for (int i = 0; i < PAYLOAD_COUNT; i++) {
+                traceRecorder.record(transportPayloads[i], i * 50L);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        traceRecorder.close();
+        traceFile.delete();
+        recordedTraceFile.delete();
+    }
+
+    private void startRecording() throws IOException {
+        if (traceRecorder != null) {
+            traceRecorder.close();
+            traceFile.delete();
+        }
+        traceRecorder = new TraceRecorder(traceFile, timestamp, MAXIMUM_TRACE_LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void record(Blackhole blackhole) throws IOException {
+        if (traceRecorder.isStopped()) {
+            startRecording();
+        }
+        for (TransportPayload transportPayload : transportPayloads) {
+            timestamp += 50;
+            blackhole.consume(traceRecorder.record(transportPayload, timestamp));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOAD_COUNT)
+    public void read(Blackhole blackhole) throws IOException {
+        TraceReader traceReader = new TraceReader(recordedTraceFile);
+        TraceRecord traceRecord;
+        while ((traceRecord = traceReader.next()) != null) {
+            blackhole.consume(traceRecord);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package android.content;
+
+import android.content.res.Resources;
+
+/**
+ * Stand-in for the Android class with the same name, see README.md.
+ */
+public class Context {
+
+    private final Resources resources = new Resources();
+
+    public Resources getResources() {
+        return resources;
+    }
+
+    public final String getString(int resId, Object... formatArgs) {
+        return resources.getString(resId, formatArgs);
+    }
+
+}
@@ -0,0 +1,33 @@
+package android.content.res;
+
+/**
+ * Stand-in for the Android class with the same name, see README.md. Replicates the behaviour that
+ * is relevant for the resource and label caches of {@code DemoLayout}: typed arrays and drawables
+ * are new instances for every call, int arrays are copied and strings are formatted. All arrays
+ * and strings have the size of the ones used by the demo, regardless of the requested ID.
+ */
+public class Resources {
+
+    private static final int TYPED_ARRAY_LENGTH = 7;
+
+    private static final int[] INT_ARRAY = {
+            0xFFE53935, 0xFF5E35B1, 0xFF0288D1, 0xFF2E7D32, 0xFFF57F17, 0xFFF4511E,
+            0xFF607D8B, 0xFFC2185B, 0xFF3F51B5, 0xFF00BCD4, 0xFF558B2F, 0xFFFFA000,
+            0xFF795548, 0xFF8E24AA, 0xFF1976D2, 0xFF009688, 0xFF827717, 0xFFFB8C00
+    };
+
+    private static final String STRING = "Updated by %1$s";
+
+    public TypedArray obtainTypedArray(int id) {
+        return new TypedArray(TYPED_ARRAY_LENGTH);
+    }
+
+    public int[] getIntArray(int id) {
+        return INT_ARRAY.clone();
+    }
+
+    public String getString(int id, Object... formatArgs) {
+        return String.format(STRING, formatArgs);
+    }
+
+}
@@ -0,0 +1,28 @@
+package android.content.res;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Stand-in for the Android class with the same name, see README.md.
+ */
+public class TypedArray {
+
+    private final int[] data;
+
+    TypedArray(int length) {
+        // the framework stores multiple ints per entry
+        data = new int[length * 6];
+    }
+
+    public int length() {
+        return data.length / 6;
+    }
+
+    public Drawable getDrawable(int index) {
+        return new Drawable();
+    }
+
+    public void recycle() {
+    }
+
+}
@@ -0,0 +1,12 @@
+package android.graphics.drawable;
+
+/**
+ * Stand-in for the Android class with the same name, see README.md.
+ */
+public class Drawable {
+
+    private final int[] bounds = new int[4];
+
+    private final int[] state = new int[0];
+
+}
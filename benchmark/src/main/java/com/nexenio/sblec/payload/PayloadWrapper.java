@@ -0,0 +1,46 @@
+package com.nexenio.sblec.payload;
+
+import com.nexenio.sblec.receiver.ReceiverPayload;
+import com.nexenio.sblec.sender.SenderPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+/**
+ * Stand-in for the SBLEC class with the same name, see README.md.
+ */
+public abstract class PayloadWrapper {
+
+    @Nullable
+    protected ReceiverPayload receiverPayload;
+
+    public PayloadWrapper() {
+    }
+
+    public PayloadWrapper(@NonNull ReceiverPayload receiverPayload) {
+        this.receiverPayload = receiverPayload;
+        readFromBuffer(receiverPayload.getData()).blockingAwait();
+    }
+
+    public abstract Completable readFromBuffer(@NonNull ByteBuffer byteBuffer);
+
+    public abstract Single<ByteBuffer> writeToBuffer();
+
+    public abstract int getId();
+
+    public abstract double getPriority();
+
+    public Single<SenderPayload> toSenderPayload() {
+        return Single.error(new UnsupportedOperationException());
+    }
+
+    @Nullable
+    public ReceiverPayload getReceiverPayload() {
+        return receiverPayload;
+    }
+
+}
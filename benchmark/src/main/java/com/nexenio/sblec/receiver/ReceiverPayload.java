@@ -0,0 +1,28 @@
+package com.nexenio.sblec.receiver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stand-in for the SBLEC class with the same name, see README.md.
+ */
+public class ReceiverPayload {
+
+    private int id;
+
+    private int deviceIdHashCode;
+
+    private ByteBuffer data;
+
+    public int getId() {
+        return id;
+    }
+
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    public ByteBuffer getData() {
+        return data;
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.nexenio.sblec.sender;
+
+/**
+ * Stand-in for the SBLEC class with the same name, see README.md.
+ */
+public final class PayloadPriorities {
+
+    public static final double MINIMUM = 0;
+    public static final double MEDIUM = 0.5;
+    public static final double MAXIMUM = 1;
+
+    private PayloadPriorities() {
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.nexenio.sblec.sender;
+
+/**
+ * Stand-in for the SBLEC class with the same name, see README.md.
+ */
+public class SenderPayload {
+
+}
@@ -0,0 +1,22 @@
+package com.nexenio.sblecdemo;
+
+/**
+ * Stand-in for the resource class that is generated for the demo library, see README.md. Only
+ * contains the IDs used by the benchmarked classes.
+ */
+public final class R {
+
+    public static final class array {
+
+        public static final int direction_icons = 0x7f030000;
+        public static final int material_design_colors = 0x7f030001;
+
+    }
+
+    public static final class string {
+
+        public static final int status_updated_by_device = 0x7f0f0000;
+
+    }
+
+}
@@ -6,16 +6,13 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
-import android.content.res.TypedArray;
+import android.content.res.Configuration;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.nexenio.sblec.Sblec;
-import com.nexenio.sblec.receiver.ReceiverPayload;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatImageView;
@@ -30,6 +27,12 @@ public class DemoLayout extends RelativeLayout implements DemoView<DemoPresenter
     private TextView titleTextView;
     private TextView subTitleTextView;
 
+    private DemoResourceCache resourceCache;
+
+    private DeviceLabelCache deviceLabelCache;
+
+    private DemoPayloadRenderer demoPayloadRenderer;
+
     @Nullable
     private Snackbar missingPermissionsErrorSnackbar;
 
@@ -51,11 +54,17 @@ public class DemoLayout extends RelativeLayout implements DemoView<DemoPresenter
 
     private void initialize() {
         presenter = createPresenter();
+        resourceCache = new DemoResourceCache(getContext());
+        deviceLabelCache = new DeviceLabelCache(getContext());
 
         inflate(getContext(), R.layout.demo_layout, this);
 
         iconImageView = findViewById(R.id.iconImageView);
         iconImageView.setOnClickListener(v -> presenter.onIconChangeInvoked());
+        iconImageView.setOnLongClickListener(v -> {
+            presenter.onTextMessageInvoked(getContext().getString(R.string.text_message_greeting));
+            return true;
+        });
 
         backgroundRelativeLayout = findViewById(R.id.backgroundRelativeLayout);
         backgroundRelativeLayout.setOnClickListener(v -> presenter.onColorChangeInvoked());
@@ -63,6 +72,22 @@ public class DemoLayout extends RelativeLayout implements DemoView<DemoPresenter
         titleTextView = findViewById(R.id.titleTextView);
         subTitleTextView = findViewById(R.id.subTitleTextView);
 
+        demoPayloadRenderer = new DemoPayloadRenderer(new DemoPayloadRenderer.Views() {
+            @Override
+            public void setIconDrawable(@NonNull Drawable iconDrawable) {
+                iconImageView.setImageDrawable(iconDrawable);
+            }
+
+            @Override
+            public void setBackgroundColor(int color) {
+                backgroundRelativeLayout.setBackgroundColor(color);
+            }
+
+            @Override
+            public void setTitle(@NonNull String title) {
+                titleTextView.setText(title);
+            }
+        }, resourceCache, deviceLabelCache);
     }
 
     @Override
@@ -83,46 +108,51 @@ public class DemoLayout extends RelativeLayout implements DemoView<DemoPresenter
         presenter.onActivityResult(requestCode, resultCode, data);
     }
 
-    @Override
-    public void visualizeDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
-        showIconWithIndex(demoPayloadWrapper.getIconIndex());
-        showColorWithIndex(demoPayloadWrapper.getColorIndex());
-
-        ReceiverPayload receiverPayload = demoPayloadWrapper.getReceiverPayload();
-        if (receiverPayload != null) {
-            // payload has been received from another device
-            visualizeDeviceIdHashCode(receiverPayload.getDeviceIdHashCode());
-        } else {
-            // payload has been created by this device
-            visualizeDeviceIdHashCode(Sblec.getDeviceIdHashCode(getContext()));
-        }
+    /**
+     * Should be called when the device entered the ambient mode, e.g. from {@code
+     * WearableActivity.onEnterAmbient()}.
+     */
+    public void onEnterAmbient() {
+        presenter.onAmbientModeEntered();
     }
 
-    private void showIconWithIndex(int iconIndex) {
-        iconImageView.setImageDrawable(getIconDrawable(iconIndex));
+    /**
+     * Should be called when the ambient display gets refreshed, e.g. from {@code
+     * WearableActivity.onUpdateAmbient()}.
+     */
+    public void onUpdateAmbient() {
+        presenter.onAmbientModeUpdated();
     }
 
-    private Drawable getIconDrawable(int iconIndex) {
-        TypedArray typedArray = getResources().obtainTypedArray(R.array.direction_icons);
-        iconIndex = iconIndex % typedArray.length();
-        Drawable drawable = typedArray.getDrawable(iconIndex);
-        typedArray.recycle();
-        return drawable;
+    public void onExitAmbient() {
+        presenter.onAmbientModeExited();
     }
 
-    private void showColorWithIndex(int colorIndex) {
-        backgroundRelativeLayout.setBackgroundColor(getColorResourceId(colorIndex));
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        invalidateResourceCache();
     }
 
-    private int getColorResourceId(int colorIndex) {
-        int[] colors = getResources().getIntArray(R.array.material_design_colors);
-        colorIndex = colorIndex % colors.length;
-        return colors[colorIndex];
+    /**
+     * Drops the cached icons, colors and labels. Should be called if they may have changed without
+     * a configuration change, e.g. when the theme has been changed.
+     */
+    public void invalidateResourceCache() {
+        resourceCache.invalidate();
+        deviceLabelCache.invalidate();
     }
 
-    private void visualizeDeviceIdHashCode(int deviceIdHashCode) {
-        String readableDeviceName = String.format("0x%08X", deviceIdHashCode);
-        titleTextView.setText(getContext().getString(R.string.status_updated_by_device, readableDeviceName));
+    @Override
+    public void visualizeDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        demoPayloadRenderer.render(demoPayloadWrapper);
+    }
+
+    @Override
+    public void showTextMessage(@NonNull TextPayloadWrapper textPayloadWrapper) {
+        String readableDeviceName = deviceLabelCache.getReadableDeviceName(textPayloadWrapper.getDeviceIdHashCode());
+        String message = getContext().getString(R.string.text_message_from_device, readableDeviceName, textPayloadWrapper.getText());
+        Snackbar.make(backgroundRelativeLayout, message, Snackbar.LENGTH_LONG).show();
     }
 
     @Override
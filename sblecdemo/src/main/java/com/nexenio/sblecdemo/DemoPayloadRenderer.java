@@ -0,0 +1,87 @@
+package com.nexenio.sblecdemo;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Visualizes {@link DemoPayloadWrapper}s in the views of a {@link DemoLayout}, using the cached
+ * icons, colors and labels of a {@link DemoResourceCache} and {@link DeviceLabelCache}.
+ *
+ * The currently shown icon, color and title are remembered and views are only updated if these
+ * change, as every update may cause a redraw or (for the title) a relayout. Not thread-safe,
+ * should only be used from the main thread.
+ */
+class DemoPayloadRenderer {
+
+    /**
+     * The views that show the icon, color and title of the visualized payload.
+     */
+    interface Views {
+
+        void setIconDrawable(@NonNull Drawable iconDrawable);
+
+        void setBackgroundColor(int color);
+
+        void setTitle(@NonNull String title);
+
+    }
+
+    private final Views views;
+
+    private final DemoResourceCache resourceCache;
+
+    private final DeviceLabelCache deviceLabelCache;
+
+    @Nullable
+    private Drawable renderedIconDrawable;
+
+    private boolean colorRendered;
+
+    private int renderedColor;
+
+    @Nullable
+    private String renderedTitle;
+
+    DemoPayloadRenderer(@NonNull Views views, @NonNull DemoResourceCache resourceCache, @NonNull DeviceLabelCache deviceLabelCache) {
+        this.views = views;
+        this.resourceCache = resourceCache;
+        this.deviceLabelCache = deviceLabelCache;
+    }
+
+    void render(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        renderIcon(demoPayloadWrapper.getIconIndex());
+        renderColor(demoPayloadWrapper.getColorIndex());
+        renderTitle(demoPayloadWrapper.getDeviceIdHashCode());
+    }
+
+    private void renderIcon(int iconIndex) {
+        Drawable iconDrawable = resourceCache.getIconDrawable(iconIndex);
+        if (iconDrawable == renderedIconDrawable) {
+            return;
+        }
+        views.setIconDrawable(iconDrawable);
+        renderedIconDrawable = iconDrawable;
+    }
+
+    private void renderColor(int colorIndex) {
+        int color = resourceCache.getColor(colorIndex);
+        if (colorRendered && color == renderedColor) {
+            return;
+        }
+        views.setBackgroundColor(color);
+        renderedColor = color;
+        colorRendered = true;
+    }
+
+    private void renderTitle(int deviceIdHashCode) {
+        String title = deviceLabelCache.getTitle(deviceIdHashCode);
+        if (title.equals(renderedTitle)) {
+            return;
+        }
+        views.setTitle(title);
+        renderedTitle = title;
+    }
+
+}
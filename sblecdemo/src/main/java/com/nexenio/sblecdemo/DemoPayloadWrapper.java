@@ -4,6 +4,8 @@ import com.nexenio.sblec.payload.PayloadWrapper;
 import com.nexenio.sblec.receiver.ReceiverPayload;
 import com.nexenio.sblec.sender.PayloadPriorities;
 import com.nexenio.sblec.sender.SenderPayload;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
 
 import java.nio.ByteBuffer;
 
@@ -26,11 +28,11 @@ public class DemoPayloadWrapper extends PayloadWrapper {
     public static final int ID = 11;
 
     /**
-     * The expected length of a buffer containing the bytes for this payload.
-     *
-     * 4 bytes {@link #iconIndex}, 4 bytes {@link #colorIndex} and 8 bytes {@link #timestamp}.
+     * The format used by {@link #writeToBuffer()} if not specified otherwise. Received payloads
+     * may use any format supported by the {@link DemoPayloadCodec}. This is the legacy format, as
+     * devices running older versions can't decode the others.
      */
-    private static final int BUFFER_LENGTH = 16;
+    public static final int DEFAULT_FORMAT = DemoPayloadCodec.FORMAT_LEGACY;
 
     /**
      * The icon index refers to different icons that a {@link DemoView} can show.
@@ -48,22 +50,68 @@ public class DemoPayloadWrapper extends PayloadWrapper {
      */
     private long timestamp;
 
+    /**
+     * The hash code of the ID of the device that created this payload. Not part of the encoded
+     * data, as it's provided by the transport.
+     */
+    private int deviceIdHashCode;
+
+    /**
+     * The versions of the icon and color index, consisting of the timestamp and device ID hash
+     * code of the last change. Only encoded in the {@link DemoPayloadCodec#FORMAT_REGISTERS
+     * registers format}, otherwise they match the {@link #timestamp} and {@link
+     * #deviceIdHashCode}.
+     */
+    private long iconTimestamp;
+    private int iconDeviceIdHashCode;
+    private long colorTimestamp;
+    private int colorDeviceIdHashCode;
+
+    /**
+     * The {@link DemoPayloadCodec} format used for encoding. For received payloads, this is the
+     * format that has been detected when decoding.
+     */
+    private int format = DEFAULT_FORMAT;
+
     /**
      * A constructor that can be used when receiving a {@link ReceiverPayload} with the {@link
      * ReceiverPayload#getId() ID} matching {@link #ID}.
      */
     public DemoPayloadWrapper(@NonNull ReceiverPayload receiverPayload) {
-        super(receiverPayload);
+        // not using the super constructor, it would decode the data before the fields of this
+        // class are initialized and the device ID hash code, which the field versions default to,
+        // is known
+        this.receiverPayload = receiverPayload;
+        this.deviceIdHashCode = receiverPayload.getDeviceIdHashCode();
+        decode(receiverPayload.getData());
+    }
+
+    /**
+     * A constructor that can be used when receiving a {@link TransportPayload} with the {@link
+     * TransportPayload#getId() ID} matching {@link #ID}.
+     *
+     * @param referenceTimestamp the current time of this device, see {@link #decode(ByteBuffer,
+     *                           long)}
+     */
+    public DemoPayloadWrapper(@NonNull TransportPayload transportPayload, long referenceTimestamp) {
+        this.deviceIdHashCode = transportPayload.getDeviceIdHashCode();
+        decode(transportPayload.getData(), referenceTimestamp);
     }
 
     /**
      * A constructor that can be used to create a duplicate of an existing {@link
-     * DemoPayloadWrapper}. The timestamp will be set to now.
+     * DemoPayloadWrapper}. The timestamp will be set to now, the versions of the icon and color
+     * index will be copied.
      */
     public DemoPayloadWrapper(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
         this.iconIndex = demoPayloadWrapper.getIconIndex();
         this.colorIndex = demoPayloadWrapper.getColorIndex();
         this.timestamp = System.currentTimeMillis();
+        this.iconTimestamp = demoPayloadWrapper.getIconTimestamp();
+        this.iconDeviceIdHashCode = demoPayloadWrapper.getIconDeviceIdHashCode();
+        this.colorTimestamp = demoPayloadWrapper.getColorTimestamp();
+        this.colorDeviceIdHashCode = demoPayloadWrapper.getColorDeviceIdHashCode();
+        this.format = demoPayloadWrapper.getFormat();
     }
 
     /**
@@ -75,23 +123,69 @@ public class DemoPayloadWrapper extends PayloadWrapper {
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Returns this instance if it already uses the specified format, otherwise a copy that uses
+     * it. Unlike the copy constructor, all values (including the timestamp) are kept. Should be
+     * used for instances that may be shared and must not be modified, e.g. decoded payloads.
+     */
+    @NonNull
+    public DemoPayloadWrapper withFormat(int format) {
+        if (this.format == format) {
+            return this;
+        }
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(iconIndex, colorIndex);
+        demoPayloadWrapper.timestamp = timestamp;
+        demoPayloadWrapper.iconTimestamp = iconTimestamp;
+        demoPayloadWrapper.iconDeviceIdHashCode = iconDeviceIdHashCode;
+        demoPayloadWrapper.colorTimestamp = colorTimestamp;
+        demoPayloadWrapper.colorDeviceIdHashCode = colorDeviceIdHashCode;
+        demoPayloadWrapper.deviceIdHashCode = deviceIdHashCode;
+        demoPayloadWrapper.format = format;
+        return demoPayloadWrapper;
+    }
+
     /**
      * Will be used when processing a received {@link ReceiverPayload}. All required values should
      * be parsed from the specified stream here.
      */
     @Override
     public Completable readFromBuffer(@NonNull ByteBuffer byteBuffer) {
-        return Completable.fromAction(() -> {
-            byteBuffer.rewind();
+        return Completable.fromAction(() -> decode(byteBuffer));
+    }
 
-            if (byteBuffer.remaining() != BUFFER_LENGTH) {
-                throw new IllegalArgumentException("Unexpected buffer size: " + byteBuffer.remaining());
-            }
+    /**
+     * Decodes the specified buffer relative to the current system time, see {@link
+     * #decode(ByteBuffer, long)}.
+     */
+    public void decode(@NonNull ByteBuffer byteBuffer) {
+        decode(byteBuffer, System.currentTimeMillis());
+    }
 
-            iconIndex = byteBuffer.getInt();
-            colorIndex = byteBuffer.getInt();
-            timestamp = byteBuffer.getLong();
-        });
+    /**
+     * Synchronously parses all values from the specified buffer, without allocating any objects.
+     * This allows reusing an existing instance for multiple received payloads.
+     *
+     * If the format doesn't contain versions of the icon and color index, they will be set to the
+     * {@link #getTimestamp() timestamp} and {@link #getDeviceIdHashCode() device ID hash code},
+     * so the latter should be set before decoding.
+     *
+     * @param referenceTimestamp used for restoring truncated timestamps, see {@link
+     *                           DemoPayloadCodec#restoreTimestamp(int, long)}
+     */
+    public void decode(@NonNull ByteBuffer byteBuffer, long referenceTimestamp) {
+        int format = DemoPayloadCodec.getFormat(byteBuffer);
+        if (format == DemoPayloadCodec.FORMAT_UNKNOWN) {
+            throw new IllegalArgumentException("Unexpected buffer size: " + byteBuffer.limit());
+        }
+
+        this.format = format;
+        iconIndex = DemoPayloadCodec.readIconIndex(byteBuffer);
+        colorIndex = DemoPayloadCodec.readColorIndex(byteBuffer);
+        timestamp = DemoPayloadCodec.readTimestamp(byteBuffer, referenceTimestamp);
+        iconTimestamp = DemoPayloadCodec.readIconTimestamp(byteBuffer, referenceTimestamp);
+        iconDeviceIdHashCode = DemoPayloadCodec.readIconDeviceIdHashCode(byteBuffer, deviceIdHashCode);
+        colorTimestamp = DemoPayloadCodec.readColorTimestamp(byteBuffer, referenceTimestamp);
+        colorDeviceIdHashCode = DemoPayloadCodec.readColorDeviceIdHashCode(byteBuffer, deviceIdHashCode);
     }
 
     /**
@@ -102,13 +196,10 @@ public class DemoPayloadWrapper extends PayloadWrapper {
     @Override
     public Single<ByteBuffer> writeToBuffer() {
         return Single.fromCallable(() -> {
-            ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_LENGTH);
-
-            byteBuffer.putInt(iconIndex);
-            byteBuffer.putInt(colorIndex);
-            byteBuffer.putLong(timestamp);
-
-            return byteBuffer;
+            if (format == DemoPayloadCodec.FORMAT_REGISTERS) {
+                return DemoPayloadCodec.encodeRegisters(iconIndex, colorIndex, iconTimestamp, iconDeviceIdHashCode, colorTimestamp, colorDeviceIdHashCode);
+            }
+            return DemoPayloadCodec.encode(format, iconIndex, colorIndex, timestamp);
         });
     }
 
@@ -151,12 +242,65 @@ public class DemoPayloadWrapper extends PayloadWrapper {
         this.timestamp = timestamp;
     }
 
+    public long getIconTimestamp() {
+        return iconTimestamp;
+    }
+
+    public void setIconTimestamp(long iconTimestamp) {
+        this.iconTimestamp = iconTimestamp;
+    }
+
+    public int getIconDeviceIdHashCode() {
+        return iconDeviceIdHashCode;
+    }
+
+    public void setIconDeviceIdHashCode(int iconDeviceIdHashCode) {
+        this.iconDeviceIdHashCode = iconDeviceIdHashCode;
+    }
+
+    public long getColorTimestamp() {
+        return colorTimestamp;
+    }
+
+    public void setColorTimestamp(long colorTimestamp) {
+        this.colorTimestamp = colorTimestamp;
+    }
+
+    public int getColorDeviceIdHashCode() {
+        return colorDeviceIdHashCode;
+    }
+
+    public void setColorDeviceIdHashCode(int colorDeviceIdHashCode) {
+        this.colorDeviceIdHashCode = colorDeviceIdHashCode;
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the {@link DemoPayloadCodec} format used for encoding. Devices running a version that
+     * only supports {@link DemoPayloadCodec#FORMAT_LEGACY} can't decode any other format.
+     */
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    public void setDeviceIdHashCode(int deviceIdHashCode) {
+        this.deviceIdHashCode = deviceIdHashCode;
+    }
+
     @Override
     public String toString() {
         return "DemoPayloadWrapper{" +
                 "iconIndex=" + iconIndex +
                 ", colorIndex=" + colorIndex +
                 ", timestamp=" + timestamp +
+                ", deviceIdHashCode=" + deviceIdHashCode +
                 ", receiverPayload=" + receiverPayload +
                 '}';
     }
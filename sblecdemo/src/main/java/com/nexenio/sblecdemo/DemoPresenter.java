@@ -2,35 +2,62 @@ package com.nexenio.sblecdemo;
 
 import android.Manifest;
 import android.bluetooth.BluetoothAdapter;
-import android.content.ContentResolver;
-import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.location.LocationManager;
-import android.os.Build;
 import android.provider.Settings;
 
 import com.nexenio.sblec.Sblec;
-import com.nexenio.sblec.payload.PayloadIdFilter;
-import com.nexenio.sblec.receiver.PayloadReceiver;
-import com.nexenio.sblec.receiver.ReceiverPayload;
-import com.nexenio.sblec.sender.PayloadSender;
-import com.nexenio.sblec.sender.SenderPayload;
+import com.nexenio.sblecdemo.ambient.AmbientMode;
+import com.nexenio.sblecdemo.ambient.AmbientPolicy;
+import com.nexenio.sblecdemo.ambient.RedrawThrottle;
+import com.nexenio.sblecdemo.fragmentation.FragmentCodec;
+import com.nexenio.sblecdemo.fragmentation.FountainCodec;
+import com.nexenio.sblecdemo.fragmentation.FragmentReassembler;
+import com.nexenio.sblecdemo.fragmentation.FragmentSender;
+import com.nexenio.sblecdemo.metrics.PipelineMetrics;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.persistence.FileSnapshotStore;
+import com.nexenio.sblecdemo.persistence.SnapshotStore;
+import com.nexenio.sblecdemo.persistence.SnapshotWriter;
+import com.nexenio.sblecdemo.receiver.DuplicatePayloadFilter;
+import com.nexenio.sblecdemo.receiver.PayloadCoalescer;
+import com.nexenio.sblecdemo.receiver.PayloadDispatcher;
+import com.nexenio.sblecdemo.receiver.PeerTable;
+import com.nexenio.sblecdemo.recovery.RadioAvailability;
+import com.nexenio.sblecdemo.recovery.RecoveryEngine;
+import com.nexenio.sblecdemo.recovery.RecoveryPolicy;
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.sender.AdaptiveSendPolicy;
+import com.nexenio.sblecdemo.sender.AdaptiveSendSession;
+import com.nexenio.sblecdemo.sync.HybridLogicalClockMergeStrategy;
+import com.nexenio.sblecdemo.sync.MergeStrategy;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
 import timber.log.Timber;
 
 /**
- * The presenter for a {@link DemoView}. It will use the {@link Sblec} library to send and receive
- * payloads (i.e. the {@link DemoPayloadWrapper}).
+ * The presenter for a {@link DemoView}. It will use a {@link PayloadTransport} (by default backed
+ * by the {@link Sblec} library) to send and receive payloads (i.e. the {@link
+ * DemoPayloadWrapper} and {@link TextPayloadWrapper}).
  */
 public class DemoPresenter<View extends DemoView> {
 
@@ -46,6 +73,41 @@ public class DemoPresenter<View extends DemoView> {
      */
     private static final int COMPANY_ID = Sblec.COMPANY_ID_UNASSIGNED;
 
+    /**
+     * Received payloads will be coalesced over this duration (roughly one display frame), so
+     * that the {@link DemoView} only needs to visualize the newest one.
+     */
+    private static final long DEFAULT_COALESCING_WINDOW_MILLIS = 16;
+
+    /**
+     * The maximum amount of received payloads that may be queued for processing. If payloads are
+     * received faster than they can be processed, the oldest queued ones will be dropped.
+     */
+    private static final int RECEIVED_PAYLOADS_BUFFER_CAPACITY = 128;
+
+    /**
+     * The sending priorities of demo payloads. Local changes are urgent when they are advertised
+     * for the first time, so they preempt relayed payloads and echoes if send scheduling has been
+     * enabled in the {@link DemoTransportStack}. Later advertising bursts of the same state don't
+     * need to preempt anything.
+     */
+    private static final double LOCAL_CHANGE_PRIORITY = TransportPayload.MAXIMUM_PRIORITY;
+    private static final double RESENT_STATE_PRIORITY = TransportPayload.DEFAULT_PRIORITY;
+    private static final double ECHO_PRIORITY = TransportPayload.MINIMUM_PRIORITY;
+
+    /**
+     * Text messages will be sent for this duration. Repeats of the same message will be ignored
+     * for a bit longer, so that it's only shown once.
+     */
+    private static final long TEXT_MESSAGE_SEND_DURATION_MILLIS = 5_000;
+    private static final long TEXT_MESSAGE_EXPIRATION_MILLIS = 2 * TEXT_MESSAGE_SEND_DURATION_MILLIS;
+
+    /**
+     * The name of the file in the app's files directory that the {@link DemoStatePersistence}
+     * writes to.
+     */
+    private static final String STATE_SNAPSHOT_FILE_NAME = "state_snapshot.bin";
+
     private static final int REQUEST_PERMISSIONS = 1;
     private static final int REQUEST_ENABLE_BLUETOOTH = 2;
     private static final int REQUEST_ENABLE_LOCATION_SERVICES = 3;
@@ -53,27 +115,200 @@ public class DemoPresenter<View extends DemoView> {
     private View view;
 
     /**
-     * Used for sending {@link SenderPayload}s to nearby devices.
+     * Used for sending and receiving {@link TransportPayload}s to and from nearby devices. The
+     * outermost transport of the {@link #transportStack}.
      */
-    private PayloadSender payloadSender;
+    private PayloadTransport payloadTransport;
 
     /**
-     * Used for receiving {@link ReceiverPayload} from nearby devices.
+     * Provides the decorators of the {@link #payloadTransport}, e.g. for sealing, relaying,
+     * batching, scheduling and recording payloads. Each of them may be missing.
      */
-    private PayloadReceiver payloadReceiver;
+    private DemoTransportStack transportStack;
+
+    /**
+     * Used for processing received payloads off the main thread.
+     */
+    private DemoSchedulers schedulers;
+
+    /**
+     * Used for keeping track of nearby devices and the payloads they sent.
+     */
+    private PeerTable peerTable;
+
+    /**
+     * Used for persisting the last state and the known peers, so that they can be restored when
+     * the presenter gets recreated. Null if nothing should be persisted.
+     */
+    @Nullable
+    private DemoStatePersistence statePersistence;
+
+    /**
+     * Used for dropping repeated advertisements of the same payload before they get queued for
+     * processing.
+     */
+    private DuplicatePayloadFilter duplicatePayloadFilter;
+
+    /**
+     * Used for dropping text messages that have already been shown.
+     */
+    private DuplicatePayloadFilter textMessageFilter;
+
+    /**
+     * Used for routing received payloads to the pipeline of their type.
+     */
+    private PayloadDispatcher payloadDispatcher;
+
+    /**
+     * Used for sending payloads that don't fit into a single advertisement.
+     */
+    private FragmentSender fragmentSender;
+
+    /**
+     * Used for reassembling payloads that have been sent in fragments.
+     */
+    private FragmentReassembler fragmentReassembler;
+
+    /**
+     * Used for coalescing received {@link DemoPayloadWrapper}s before they get visualized.
+     */
+    private PayloadCoalescer<DemoPayloadWrapper> demoPayloadCoalescer;
+
+    /**
+     * Used for resolving conflicts between the current and received {@link DemoPayloadWrapper}s,
+     * so that all devices converge to the same state.
+     */
+    @NonNull
+    private volatile MergeStrategy mergeStrategy = new HybridLogicalClockMergeStrategy();
+
+    /**
+     * Used for limiting how long payloads are being sent. If null, payloads will be sent until a
+     * newer one is received.
+     */
+    @Nullable
+    private volatile AdaptiveSendPolicy adaptiveSendPolicy = new AdaptiveSendPolicy();
+
+    /**
+     * The session of the payload that is currently being sent, if an {@link #adaptiveSendPolicy}
+     * is used.
+     */
+    @Nullable
+    private volatile AdaptiveSendSession adaptiveSendSession;
+
+    private final AtomicBoolean resendScheduled = new AtomicBoolean();
+
+    /**
+     * Used for reducing the receive and redraw work while the device is ambient.
+     */
+    private AmbientMode ambientMode;
+
+    /**
+     * Whether sending the {@link #lastDemoPayloadWrapper} has been suspended because the device
+     * is ambient. Only accessed from the {@link DemoSchedulers#getViewScheduler() view scheduler}.
+     */
+    private boolean demoPayloadSendingSuspended;
+
+    /**
+     * Used for visualizing states, redraws are throttled while the device is ambient. Only
+     * accessed from the {@link DemoSchedulers#getViewScheduler() view scheduler}.
+     */
+    private RedrawThrottle<DemoPayloadWrapper> demoPayloadRedrawThrottle;
+
+    /**
+     * Used for recording how the send and receive pipelines perform.
+     */
+    private PipelineMetrics pipelineMetrics;
+
+    /**
+     * Used for resubscribing to send and receive streams that failed, e.g. because of a brief
+     * radio hiccup or because Bluetooth has been disabled for a while.
+     */
+    private RecoveryEngine recoveryEngine;
 
     private CompositeDisposable compositeDisposable;
     private Disposable sendDemoPayloadDisposable;
+    private Disposable sendTextPayloadDisposable;
+    private Disposable receivePayloadsDisposable;
+    private Disposable receiveFragmentedPayloadsDisposable;
     private Disposable receiveDemoPayloadsDisposable;
+    private Disposable receiveTextPayloadsDisposable;
 
+    private final AtomicLong droppedReceivedPayloadsCount = new AtomicLong();
+
+    /**
+     * Read while processing received payloads and written from the {@link
+     * DemoSchedulers#getViewScheduler() view scheduler}.
+     */
     @Nullable
-    private DemoPayloadWrapper lastDemoPayloadWrapper;
+    private volatile DemoPayloadWrapper lastDemoPayloadWrapper;
 
     public DemoPresenter(View view) {
+        this(view, SblecPayloadTransport.getShared(view.getContext(), COMPANY_ID), DemoSchedulers.createDefault(),
+                new FileSnapshotStore(new File(view.getContext().getFilesDir(), STATE_SNAPSHOT_FILE_NAME)),
+                new RadioStateMonitor(view.getContext()));
+    }
+
+    public DemoPresenter(View view, PayloadTransport payloadTransport, DemoSchedulers schedulers) {
+        this(view, payloadTransport, schedulers, null);
+    }
+
+    /**
+     * @param snapshotStore used for persisting the last state, or null if it should not be
+     *                      persisted
+     */
+    public DemoPresenter(View view, PayloadTransport payloadTransport, DemoSchedulers schedulers, @Nullable SnapshotStore snapshotStore) {
+        this(view, payloadTransport, schedulers, snapshotStore, new SettableRadioAvailability(true));
+    }
+
+    /**
+     * @param radioAvailability used for pausing the recovery of failed streams while the radio
+     *                          required by the transport is unavailable
+     */
+    public DemoPresenter(View view, PayloadTransport payloadTransport, DemoSchedulers schedulers, @Nullable SnapshotStore snapshotStore,
+                         @NonNull RadioAvailability radioAvailability) {
+        this(view, DemoTransportStack.createDefault(payloadTransport), schedulers, snapshotStore, radioAvailability);
+    }
+
+    /**
+     * @param transportStack provides the transport used for sending and receiving payloads,
+     *                       wrapped only in the decorators that should be used
+     */
+    public DemoPresenter(View view, @NonNull DemoTransportStack transportStack, DemoSchedulers schedulers, @Nullable SnapshotStore snapshotStore,
+                         @NonNull RadioAvailability radioAvailability) {
         this.view = view;
-        Sblec sblec = Sblec.getInstance();
-        payloadSender = sblec.getOrCreatePayloadSender(view.getContext(), COMPANY_ID);
-        payloadReceiver = sblec.getOrCreatePayloadReceiver(view.getContext(), COMPANY_ID);
+        this.transportStack = transportStack;
+        this.payloadTransport = transportStack.getPayloadTransport();
+        this.schedulers = schedulers;
+        pipelineMetrics = new PipelineMetrics(schedulers.getViewScheduler());
+        recoveryEngine = new RecoveryEngine(new RecoveryPolicy(), radioAvailability, schedulers.getProcessingScheduler());
+        ambientMode = new AmbientMode(new AmbientPolicy(), schedulers.getViewScheduler());
+        demoPayloadRedrawThrottle = new RedrawThrottle<>(ambientMode, demoPayloadWrapper -> view.visualizeDemoPayload(demoPayloadWrapper),
+                schedulers.getViewScheduler());
+        peerTable = new PeerTable(schedulers.getViewScheduler());
+        duplicatePayloadFilter = new DuplicatePayloadFilter(schedulers.getViewScheduler());
+        textMessageFilter = new DuplicatePayloadFilter(DuplicatePayloadFilter.DEFAULT_CAPACITY, TEXT_MESSAGE_EXPIRATION_MILLIS, TimeUnit.MILLISECONDS, schedulers.getViewScheduler());
+        payloadDispatcher = new PayloadDispatcher();
+        if (snapshotStore != null) {
+            statePersistence = new DemoStatePersistence(snapshotStore, new DemoStatePersistence.DemoState() {
+                @Nullable
+                @Override
+                public DemoPayloadWrapper getLastDemoPayloadWrapper() {
+                    return lastDemoPayloadWrapper;
+                }
+
+                @Override
+                public void onDemoPayloadRestored(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+                    lastDemoPayloadWrapper = demoPayloadWrapper;
+                    visualizeDemoPayload(demoPayloadWrapper);
+                }
+            }, peerTable, payloadTransport.getDeviceIdHashCode(), schedulers);
+        }
+        fragmentSender = new FragmentSender(this.payloadTransport, schedulers.getProcessingScheduler());
+        fragmentReassembler = new FragmentReassembler(schedulers.getViewScheduler());
+        demoPayloadCoalescer = PayloadCoalescer.merging(
+                (first, second) -> mergeStrategy.merge(first, second),
+                DEFAULT_COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS, schedulers.getProcessingScheduler()
+        );
     }
 
     public void onViewStarted() {
@@ -81,12 +316,155 @@ public class DemoPresenter<View extends DemoView> {
         compositeDisposable = new CompositeDisposable();
 
         checkPermissions();
-        receiveDemoPayloads();
+        restoreStateSnapshot();
+        receivePayloads();
     }
 
     public void onViewStopped() {
         Timber.d("onViewStopped() called");
         compositeDisposable.dispose();
+        demoPayloadRedrawThrottle.cancel();
+        if (statePersistence != null) {
+            statePersistence.flush();
+        }
+    }
+
+    /**
+     * Changes the duration over which received payloads are coalesced before being visualized.
+     * Will be applied when receiving is (re-)started.
+     */
+    public void setCoalescingWindow(long duration, @NonNull TimeUnit timeUnit) {
+        demoPayloadCoalescer.setWindow(duration, timeUnit);
+    }
+
+    /**
+     * Provides the counts of received and actually visualized payloads.
+     */
+    @NonNull
+    public PayloadCoalescer<DemoPayloadWrapper> getDemoPayloadCoalescer() {
+        return demoPayloadCoalescer;
+    }
+
+    /**
+     * Provides receive rates, drop ratios, latencies and errors of the send and receive pipelines.
+     */
+    @NonNull
+    public PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    /**
+     * Provides the {@link AmbientPolicy} and the receive time and redraws saved while ambient.
+     */
+    @NonNull
+    public AmbientMode getAmbientMode() {
+        return ambientMode;
+    }
+
+    /**
+     * Provides outage durations, times to recover and retry counts of failed streams.
+     */
+    @NonNull
+    public RecoveryEngine getRecoveryEngine() {
+        return recoveryEngine;
+    }
+
+    /**
+     * Provides the latest payload, last seen time and receive count of each nearby device.
+     */
+    @NonNull
+    public PeerTable getPeerTable() {
+        return peerTable;
+    }
+
+    /**
+     * Provides the counts of requested and actually written state snapshots, or null if no
+     * {@link SnapshotStore} is used.
+     */
+    @Nullable
+    public SnapshotWriter getSnapshotWriter() {
+        return statePersistence != null ? statePersistence.getSnapshotWriter() : null;
+    }
+
+    /**
+     * Provides the counts of received payloads that have been routed or dropped because of their
+     * ID.
+     */
+    @NonNull
+    public PayloadDispatcher getPayloadDispatcher() {
+        return payloadDispatcher;
+    }
+
+    /**
+     * Provides the decorators of the transport used for sending and receiving payloads.
+     */
+    @NonNull
+    public DemoTransportStack getTransportStack() {
+        return transportStack;
+    }
+
+    public boolean isForwardErrorCorrectionEnabled() {
+        return fragmentSender.isForwardErrorCorrectionEnabled();
+    }
+
+    /**
+     * Enables sending repair fragments instead of repeating the same fragments when sending text
+     * messages that don't fit into a single advertisement (disabled by default). Will be applied
+     * to the next sent text messages.
+     */
+    public void setForwardErrorCorrectionEnabled(boolean forwardErrorCorrectionEnabled) {
+        fragmentSender.setForwardErrorCorrectionEnabled(forwardErrorCorrectionEnabled);
+    }
+
+    /**
+     * Provides the counts of reassembled, timed out and dropped fragmented payloads.
+     */
+    @NonNull
+    public FragmentReassembler getFragmentReassembler() {
+        return fragmentReassembler;
+    }
+
+    /**
+     * Provides the counts of received payloads that have been dropped because they were repeats.
+     */
+    @NonNull
+    public DuplicatePayloadFilter getDuplicatePayloadFilter() {
+        return duplicatePayloadFilter;
+    }
+
+    @NonNull
+    public MergeStrategy getMergeStrategy() {
+        return mergeStrategy;
+    }
+
+    /**
+     * Changes the strategy used for resolving conflicts between payloads. All nearby devices
+     * should use the same strategy (or at least the same {@link MergeStrategy#getFormat()
+     * format}), otherwise they may not converge.
+     */
+    public void setMergeStrategy(@NonNull MergeStrategy mergeStrategy) {
+        this.mergeStrategy = mergeStrategy;
+    }
+
+    @Nullable
+    public AdaptiveSendPolicy getAdaptiveSendPolicy() {
+        return adaptiveSendPolicy;
+    }
+
+    /**
+     * Changes the policy used for limiting how long payloads are being sent. Use null to send
+     * payloads until a newer one is received. Will be applied to the next sent payload.
+     */
+    public void setAdaptiveSendPolicy(@Nullable AdaptiveSendPolicy adaptiveSendPolicy) {
+        this.adaptiveSendPolicy = adaptiveSendPolicy;
+    }
+
+    /**
+     * The amount of received payloads that have been dropped because they arrived faster than
+     * they could be processed.
+     */
+    public long getDroppedReceivedPayloadsCount() {
+        return droppedReceivedPayloadsCount.get();
     }
 
     public void onRequestMissingPermissionsInvoked() {
@@ -108,14 +486,26 @@ public class DemoPresenter<View extends DemoView> {
         Timber.d("onIconChangeInvoked() called");
         DemoPayloadWrapper demoPayloadWrapper = createDemoPayloadWrapper();
         demoPayloadWrapper.setIconIndex(getRandomIconIndex());
-        sendDemoPayload(demoPayloadWrapper);
+        sendLocalChange(demoPayloadWrapper);
     }
 
     public void onColorChangeInvoked() {
         Timber.d("onColorChangeInvoked() called");
         DemoPayloadWrapper demoPayloadWrapper = createDemoPayloadWrapper();
         demoPayloadWrapper.setColorIndex(getRandomColorIndex());
-        sendDemoPayload(demoPayloadWrapper);
+        sendLocalChange(demoPayloadWrapper);
+    }
+
+    /**
+     * Sends the specified text to nearby devices for a few seconds. Texts that don't fit into a
+     * single advertisement will be sent in fragments, texts that are too long will be truncated,
+     * see {@link TextPayloadWrapper#MAXIMUM_LENGTH}.
+     */
+    public void onTextMessageInvoked(@NonNull String text) {
+        Timber.d("onTextMessageInvoked() called with: text = [%s]", text);
+        TextPayloadWrapper textPayloadWrapper = new TextPayloadWrapper(text);
+        textPayloadWrapper.setDeviceIdHashCode(payloadTransport.getDeviceIdHashCode());
+        sendTextPayload(textPayloadWrapper);
     }
 
     public void onRequestPermissionsResult(int requestCode, @NotNull String[] permissions, @NotNull int[] grantResults) {
@@ -139,31 +529,130 @@ public class DemoPresenter<View extends DemoView> {
     public void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         Timber.d("onActivityResult() called with: requestCode = [%s], resultCode = [%s], data = [%s]", requestCode, resultCode, data);
         if (requestCode == REQUEST_ENABLE_BLUETOOTH || requestCode == REQUEST_ENABLE_LOCATION_SERVICES) {
-            receiveDemoPayloads();
+            receivePayloads();
         }
     }
 
+    /**
+     * Should be called when the device entered the ambient mode. Payloads will only be received
+     * in short windows, sending will be suspended and received states will only be visualized as
+     * often as the {@link AmbientPolicy} allows.
+     */
+    public void onAmbientModeEntered() {
+        Timber.d("onAmbientModeEntered() called");
+        if (ambientMode.isAmbient()) {
+            return;
+        }
+        ambientMode.enter();
+        if (compositeDisposable == null || compositeDisposable.isDisposed()) {
+            return;
+        }
+        if (sendDemoPayloadDisposable != null && !sendDemoPayloadDisposable.isDisposed()) {
+            compositeDisposable.remove(sendDemoPayloadDisposable);
+            demoPayloadSendingSuspended = true;
+        }
+        if (sendTextPayloadDisposable != null && !sendTextPayloadDisposable.isDisposed()) {
+            compositeDisposable.remove(sendTextPayloadDisposable);
+        }
+        receivePayloads();
+    }
+
+    /**
+     * Should be called when the ambient display gets refreshed (usually once per minute), so that
+     * the latest received state can be visualized.
+     */
+    public void onAmbientModeUpdated() {
+        Timber.d("onAmbientModeUpdated() called");
+        demoPayloadRedrawThrottle.flush();
+    }
+
+    /**
+     * Should be called when the device left the ambient mode. Receiving and sending will continue
+     * at full rate.
+     */
+    public void onAmbientModeExited() {
+        Timber.d("onAmbientModeExited() called");
+        if (!ambientMode.isAmbient()) {
+            return;
+        }
+        ambientMode.exit();
+        demoPayloadRedrawThrottle.flush();
+        if (compositeDisposable == null || compositeDisposable.isDisposed()) {
+            return;
+        }
+        receivePayloads();
+        DemoPayloadWrapper demoPayloadWrapper = lastDemoPayloadWrapper;
+        if (demoPayloadSendingSuspended && demoPayloadWrapper != null) {
+            sendDemoPayload(demoPayloadWrapper, RESENT_STATE_PRIORITY);
+        }
+        demoPayloadSendingSuspended = false;
+    }
+
+    /**
+     * Lets the {@link #mergeStrategy} assign a version to the specified locally changed {@link
+     * DemoPayloadWrapper} and sends it.
+     */
+    private void sendLocalChange(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        mergeStrategy.onLocalChange(demoPayloadWrapper, lastDemoPayloadWrapper, getCurrentTimestamp());
+        sendDemoPayload(demoPayloadWrapper, LOCAL_CHANGE_PRIORITY);
+    }
+
     /**
      * Will attempt to send the specified {@link DemoPayloadWrapper} to nearby devices.
      *
      * Note that the sending will continue until the {@link #sendDemoPayloadDisposable} gets
-     * disposed or an error occurred (e.g. because Bluetooth gets disabled).
+     * disposed or the {@link #adaptiveSendPolicy} decides that enough nearby devices received it.
+     * If the transport fails (e.g. because Bluetooth gets disabled), the {@link #recoveryEngine}
+     * resumes the sending.
+     *
+     * @param priority used when advertising the payload for the first time, later advertising
+     *                 bursts use at most the {@link #RESENT_STATE_PRIORITY}
      */
-    private void sendDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+    private void sendDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper, double priority) {
         Timber.d("sendDemoPayload() called");
         if (sendDemoPayloadDisposable != null && !sendDemoPayloadDisposable.isDisposed()) {
             compositeDisposable.remove(sendDemoPayloadDisposable);
         }
 
+        if (ambientMode.isAmbient()) {
+            // will be sent when leaving the ambient mode
+            lastDemoPayloadWrapper = demoPayloadWrapper;
+            visualizeDemoPayload(demoPayloadWrapper);
+            requestStateSnapshot();
+            demoPayloadSendingSuspended = true;
+            return;
+        }
+
+        AdaptiveSendPolicy adaptiveSendPolicy = this.adaptiveSendPolicy;
+        AdaptiveSendSession adaptiveSendSession = adaptiveSendPolicy != null
+                ? new AdaptiveSendSession(adaptiveSendPolicy, schedulers.getProcessingScheduler())
+                : null;
+        this.adaptiveSendSession = adaptiveSendSession;
+
         sendDemoPayloadDisposable = demoPayloadWrapper
-                .toSenderPayload()
-                .flatMapCompletable(payload -> payloadSender.send(payload))
+                .writeToBuffer()
+                .flatMapCompletable(data -> {
+                    TransportPayload payload = new TransportPayload(demoPayloadWrapper.getId(), demoPayloadWrapper.getDeviceIdHashCode(), priority, data);
+                    TransportPayload resentPayload = new TransportPayload(demoPayloadWrapper.getId(), demoPayloadWrapper.getDeviceIdHashCode(),
+                            Math.min(priority, RESENT_STATE_PRIORITY), data);
+                    AtomicBoolean advertised = new AtomicBoolean();
+                    Completable sending = recoveryEngine.recover(Completable.defer(() -> payloadTransport.send(advertised.getAndSet(true) ? resentPayload : payload))
+                            .doOnSubscribe(disposable -> schedulers.getViewScheduler().scheduleDirect(view::hideSendingFailedError))
+                            .doOnError(this::onSendingFailed));
+                    return adaptiveSendSession != null ? sending.compose(adaptiveSendSession) : sending;
+                })
                 .doOnSubscribe(disposable -> {
+                    pipelineMetrics.onPayloadSent();
                     view.hideSendingFailedError();
-                    view.visualizeDemoPayload(demoPayloadWrapper);
+                    visualizeDemoPayload(demoPayloadWrapper);
                     lastDemoPayloadWrapper = demoPayloadWrapper;
+                    requestStateSnapshot();
+                })
+                .observeOn(schedulers.getViewScheduler())
+                .doOnError(throwable -> {
+                    pipelineMetrics.onSendError(throwable);
+                    view.showSendingFailedError(throwable);
                 })
-                .doOnError(throwable -> view.showSendingFailedError(throwable))
                 .subscribe(
                         () -> Timber.i("Demo payload sending completed"),
                         throwable -> {
@@ -176,10 +665,100 @@ public class DemoPresenter<View extends DemoView> {
     }
 
     /**
-     * Will attempt to receive {@link DemoPayloadWrapper}s sent by nearby devices.
+     * Will attempt to send the specified {@link TextPayloadWrapper} to nearby devices, for {@link
+     * #TEXT_MESSAGE_SEND_DURATION_MILLIS}. Replaces any text message that is currently being sent.
+     */
+    private void sendTextPayload(@NonNull TextPayloadWrapper textPayloadWrapper) {
+        Timber.d("sendTextPayload() called");
+        if (sendTextPayloadDisposable != null && !sendTextPayloadDisposable.isDisposed()) {
+            compositeDisposable.remove(sendTextPayloadDisposable);
+        }
+
+        sendTextPayloadDisposable = textPayloadWrapper
+                .writeToBuffer()
+                .flatMapCompletable(data -> recoveryEngine.recover(sendTextPayloadData(textPayloadWrapper, data).doOnError(this::onSendingFailed))
+                        .ambWith(Completable.timer(TEXT_MESSAGE_SEND_DURATION_MILLIS, TimeUnit.MILLISECONDS, schedulers.getProcessingScheduler())))
+                .doOnSubscribe(disposable -> pipelineMetrics.onPayloadSent())
+                .observeOn(schedulers.getViewScheduler())
+                .doOnError(throwable -> {
+                    pipelineMetrics.onSendError(throwable);
+                    view.showSendingFailedError(throwable);
+                })
+                .subscribe(
+                        () -> Timber.i("Text payload sending completed"),
+                        throwable -> {
+                            Timber.w(throwable, "Unable to send text payload");
+                            performTroubleshooting();
+                        }
+                );
+
+        compositeDisposable.add(sendTextPayloadDisposable);
+    }
+
+    private Completable sendTextPayloadData(@NonNull TextPayloadWrapper textPayloadWrapper, @NonNull ByteBuffer data) {
+        if (data.remaining() > TextPayloadWrapper.MAXIMUM_UNFRAGMENTED_LENGTH) {
+            return fragmentSender.send(textPayloadWrapper.getId(), data);
+        }
+        return payloadTransport.send(new TransportPayload(textPayloadWrapper.getId(), textPayloadWrapper.getDeviceIdHashCode(), textPayloadWrapper.getPriority(), data));
+    }
+
+    /**
+     * Will attempt to receive payloads sent by nearby devices. The {@link PayloadTransport} is
+     * only subscribed once, the {@link #payloadDispatcher} routes the received payloads to {@link
+     * #receiveDemoPayloads()} and {@link #receiveTextPayloads()}. Received payloads are counted,
+     * filtered and dispatched on the {@link DemoSchedulers#getProcessingScheduler() processing
+     * scheduler}, only the routes that update views switch to the view scheduler.
      *
-     * Note that the receiving will continue until the {@link #receiveDemoPayloadsDisposable} gets
-     * disposed or an error occurred (e.g. because Bluetooth gets disabled).
+     * Note that the receiving will continue until the {@link #receivePayloadsDisposable} gets
+     * disposed. If the transport fails (e.g. because Bluetooth gets disabled), the {@link
+     * #recoveryEngine} resumes the receiving.
+     */
+    private void receivePayloads() {
+        Timber.d("receivePayloads() called");
+        if (receivePayloadsDisposable != null && !receivePayloadsDisposable.isDisposed()) {
+            compositeDisposable.remove(receivePayloadsDisposable);
+        }
+
+        // routes need to be subscribed before payloads get dispatched
+        receiveDemoPayloads();
+        receiveTextPayloads();
+        receiveFragmentedPayloads();
+
+        // the transport may emit on the main thread, which should only be used for updating views
+        Observable<TransportPayload> transportPayloads = payloadTransport.receive()
+                .subscribeOn(schedulers.getProcessingScheduler());
+        if (ambientMode.isAmbient()) {
+            transportPayloads = ambientMode.dutyCycle(transportPayloads);
+        }
+        transportPayloads = transportPayloads
+                .observeOn(schedulers.getProcessingScheduler())
+                .doOnNext(transportPayload -> {
+                    pipelineMetrics.onPayloadReceived();
+                    peerTable.onPayloadReceived(transportPayload);
+                })
+                .filter(duplicatePayloadFilter);
+
+        Completable receiving = payloadDispatcher.dispatch(transportPayloads)
+                .observeOn(schedulers.getViewScheduler())
+                .doOnSubscribe(disposable -> view.hideReceivingFailedError())
+                .doOnError(throwable -> {
+                    Timber.w(throwable, "Unable to receive payloads");
+                    view.showReceivingFailedError(throwable);
+                    performTroubleshooting();
+                });
+
+        receivePayloadsDisposable = recoveryEngine.recover(receiving)
+                .subscribe(
+                        () -> Timber.i("Receiving payloads completed"),
+                        throwable -> Timber.w(throwable, "Unable to recover receiving payloads")
+                );
+
+        compositeDisposable.add(receivePayloadsDisposable);
+    }
+
+    /**
+     * Will process {@link DemoPayloadWrapper}s sent by nearby devices, as routed by the {@link
+     * #payloadDispatcher}.
      */
     private void receiveDemoPayloads() {
         Timber.d("receiveDemoPayloads() called");
@@ -187,25 +766,59 @@ public class DemoPresenter<View extends DemoView> {
             compositeDisposable.remove(receiveDemoPayloadsDisposable);
         }
 
-        receiveDemoPayloadsDisposable = payloadReceiver.receive()
-                .filter(new PayloadIdFilter(DemoPayloadWrapper.ID))
-                .map(DemoPayloadWrapper::new)
-                .doOnNext(demoPayloadWrapper -> Timber.v("Received demo payload: %s", demoPayloadWrapper))
-                .filter(demoPayloadWrapper -> demoPayloadWrapper.getTimestamp() > getLastDemoPayloadUpdateTimestamp())
-                .subscribeOn(AndroidSchedulers.mainThread())
-                .doOnSubscribe(disposable -> view.hideReceivingFailedError())
+        receiveDemoPayloadsDisposable = payloadDispatcher.getPayloads(DemoPayloadWrapper.ID)
+                .toFlowable(BackpressureStrategy.MISSING)
+                .onBackpressureBuffer(
+                        RECEIVED_PAYLOADS_BUFFER_CAPACITY,
+                        droppedReceivedPayloadsCount::incrementAndGet,
+                        BackpressureOverflowStrategy.DROP_OLDEST
+                )
+                .observeOn(schedulers.getProcessingScheduler())
+                .filter(this::isNewerThanLastDemoPayload)
+                .map(this::decodeDemoPayload)
+                .compose(demoPayloadCoalescer)
+                .onBackpressureLatest()
+                .observeOn(schedulers.getViewScheduler(), false, 1)
                 .doOnError(throwable -> view.showReceivingFailedError(throwable))
                 .subscribe(
                         demoPayloadWrapper -> {
+                            DemoPayloadWrapper currentDemoPayloadWrapper = lastDemoPayloadWrapper;
+                            DemoPayloadWrapper mergedDemoPayloadWrapper = currentDemoPayloadWrapper != null
+                                    ? mergeStrategy.merge(currentDemoPayloadWrapper, demoPayloadWrapper)
+                                    : demoPayloadWrapper;
+
+                            if (mergedDemoPayloadWrapper == currentDemoPayloadWrapper) {
+                                // a newer payload has been sent while this one was coalesced
+                                return;
+                            }
+
                             Timber.d("Received new demo payload: %s", demoPayloadWrapper);
+                            pipelineMetrics.onPayloadVisualized(demoPayloadWrapper.getTimestamp());
+
+                            if (mergedDemoPayloadWrapper != demoPayloadWrapper) {
+                                // the current state contains changes that the received one is
+                                // missing, the merged state needs to be sent to nearby devices
+                                mergedDemoPayloadWrapper.setDeviceIdHashCode(payloadTransport.getDeviceIdHashCode());
+                                sendDemoPayload(mergedDemoPayloadWrapper, RESENT_STATE_PRIORITY);
+                                return;
+                            }
+
+                            AdaptiveSendPolicy adaptiveSendPolicy = this.adaptiveSendPolicy;
+                            if (adaptiveSendPolicy != null && adaptiveSendPolicy.isEchoReceivedStates()) {
+                                // echo the received state, replacing the outdated payload
+                                sendDemoPayload(demoPayloadWrapper.withFormat(mergeStrategy.getFormat()), ECHO_PRIORITY);
+                                return;
+                            }
 
                             lastDemoPayloadWrapper = demoPayloadWrapper;
-                            view.visualizeDemoPayload(demoPayloadWrapper);
+                            visualizeDemoPayload(demoPayloadWrapper);
+                            requestStateSnapshot();
 
                             // no need to send an outdated payload
                             if (sendDemoPayloadDisposable != null && !sendDemoPayloadDisposable.isDisposed()) {
                                 compositeDisposable.remove(sendDemoPayloadDisposable);
                             }
+                            demoPayloadSendingSuspended = false;
                         },
                         throwable -> {
                             Timber.w(throwable, "Unable to receive demo payloads");
@@ -216,6 +829,80 @@ public class DemoPresenter<View extends DemoView> {
         compositeDisposable.add(receiveDemoPayloadsDisposable);
     }
 
+    /**
+     * Will reassemble payloads that nearby devices sent in fragments, as routed by the {@link
+     * #payloadDispatcher}. Reassembled payloads are dispatched again, so that they reach the
+     * pipeline of their type like any other payload.
+     */
+    private void receiveFragmentedPayloads() {
+        Timber.d("receiveFragmentedPayloads() called");
+        if (receiveFragmentedPayloadsDisposable != null && !receiveFragmentedPayloadsDisposable.isDisposed()) {
+            compositeDisposable.remove(receiveFragmentedPayloadsDisposable);
+        }
+
+        Observable<TransportPayload> reassembledPayloads = Observable.merge(
+                payloadDispatcher.getPayloads(FragmentCodec.PAYLOAD_ID),
+                payloadDispatcher.getPayloads(FountainCodec.PAYLOAD_ID)
+        ).compose(fragmentReassembler);
+
+        receiveFragmentedPayloadsDisposable = payloadDispatcher.dispatch(reassembledPayloads)
+                .subscribe(
+                        () -> Timber.i("Receiving fragmented payloads completed"),
+                        throwable -> Timber.w(throwable, "Unable to reassemble fragmented payloads")
+                );
+
+        compositeDisposable.add(receiveFragmentedPayloadsDisposable);
+    }
+
+    /**
+     * Will show {@link TextPayloadWrapper}s sent by nearby devices, as routed by the {@link
+     * #payloadDispatcher}.
+     */
+    private void receiveTextPayloads() {
+        Timber.d("receiveTextPayloads() called");
+        if (receiveTextPayloadsDisposable != null && !receiveTextPayloadsDisposable.isDisposed()) {
+            compositeDisposable.remove(receiveTextPayloadsDisposable);
+        }
+
+        receiveTextPayloadsDisposable = payloadDispatcher.getPayloads(TextPayloadWrapper.ID)
+                .filter(textMessageFilter)
+                .filter(transportPayload -> transportPayload.getData().remaining() <= TextPayloadWrapper.MAXIMUM_LENGTH)
+                .map(TextPayloadWrapper::new)
+                .observeOn(schedulers.getViewScheduler())
+                .subscribe(
+                        textPayloadWrapper -> {
+                            Timber.d("Received text message: %s", textPayloadWrapper);
+                            view.showTextMessage(textPayloadWrapper);
+                        },
+                        throwable -> Timber.w(throwable, "Unable to receive text payloads")
+                );
+
+        compositeDisposable.add(receiveTextPayloadsDisposable);
+    }
+
+    /**
+     * Visualizes the specified state, unless redraws are currently throttled because the device
+     * is ambient. In that case, it will be visualized when the next redraw is allowed, unless a
+     * newer state replaces it until then.
+     */
+    private void visualizeDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        demoPayloadRedrawThrottle.render(demoPayloadWrapper);
+    }
+
+    /**
+     * Called for every failed attempt to send a payload, on whatever thread the transport reported
+     * the error on (e.g. the processing scheduler while recovering), so the view gets updated on
+     * the view scheduler.
+     */
+    private void onSendingFailed(@NonNull Throwable throwable) {
+        Timber.w(throwable, "Unable to send payload");
+        pipelineMetrics.onSendError(throwable);
+        schedulers.getViewScheduler().scheduleDirect(() -> {
+            view.showSendingFailedError(throwable);
+            performTroubleshooting();
+        });
+    }
+
     private void performTroubleshooting() {
         Timber.d("performTroubleshooting() called");
         checkPermissions();
@@ -250,8 +937,7 @@ public class DemoPresenter<View extends DemoView> {
 
     private void checkBluetoothEnabled() {
         Timber.d("checkBluetoothEnabled() called");
-        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        if (bluetoothAdapter == null || !bluetoothAdapter.isEnabled()) {
+        if (!RadioStateMonitor.isBluetoothEnabled()) {
             view.showBluetoothDisabledError();
         } else {
             view.hideBluetoothDisabledError();
@@ -270,16 +956,7 @@ public class DemoPresenter<View extends DemoView> {
 
     private void checkLocationServicesEnabled() {
         Timber.d("checkLocationServicesEnabled() called");
-        boolean enabled;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-            LocationManager locationManager = (LocationManager) view.getContext().getSystemService(Context.LOCATION_SERVICE);
-            enabled = locationManager.isLocationEnabled();
-        } else {
-            ContentResolver contentResolver = view.getContext().getContentResolver();
-            int locationMode = Settings.Secure.getInt(contentResolver, Settings.Secure.LOCATION_MODE, Settings.Secure.LOCATION_MODE_OFF);
-            enabled = locationMode != Settings.Secure.LOCATION_MODE_OFF;
-        }
-        if (!enabled) {
+        if (!RadioStateMonitor.isLocationServicesEnabled(view.getContext())) {
             view.showLocationServicesDisabledError();
         } else {
             view.hideLocationServicesDisabledError();
@@ -292,18 +969,107 @@ public class DemoPresenter<View extends DemoView> {
         view.getActivity().startActivityForResult(intent, REQUEST_ENABLE_LOCATION_SERVICES);
     }
 
+    /*
+        State Snapshot
+     */
+
+    private void restoreStateSnapshot() {
+        if (statePersistence == null) {
+            return;
+        }
+        Disposable restoreStateSnapshotDisposable = statePersistence.restore();
+        if (restoreStateSnapshotDisposable != null) {
+            compositeDisposable.add(restoreStateSnapshotDisposable);
+        }
+    }
+
+    private void requestStateSnapshot() {
+        if (statePersistence != null) {
+            statePersistence.requestWrite();
+        }
+    }
+
     /*
         Demo Payload
      */
 
     private DemoPayloadWrapper createDemoPayloadWrapper() {
+        DemoPayloadWrapper demoPayloadWrapper;
         if (lastDemoPayloadWrapper != null) {
-            return new DemoPayloadWrapper(lastDemoPayloadWrapper);
+            demoPayloadWrapper = new DemoPayloadWrapper(lastDemoPayloadWrapper);
         } else {
             int iconIndex = getRandomIconIndex();
             int colorIndex = getRandomColorIndex();
-            return new DemoPayloadWrapper(iconIndex, colorIndex);
+            demoPayloadWrapper = new DemoPayloadWrapper(iconIndex, colorIndex);
+        }
+        demoPayloadWrapper.setDeviceIdHashCode(payloadTransport.getDeviceIdHashCode());
+        demoPayloadWrapper.setFormat(mergeStrategy.getFormat());
+        return demoPayloadWrapper;
+    }
+
+    /**
+     * Uses the clock of the {@link DemoSchedulers#getViewScheduler() view scheduler}, which is
+     * the system time unless a virtual time is used (e.g. when simulating multiple devices).
+     */
+    private long getCurrentTimestamp() {
+        return schedulers.getViewScheduler().now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks if the specified payload may change the last visualized state, by reading it
+     * directly from the payload data. Outdated or malformed payloads will be dropped before any
+     * {@link DemoPayloadWrapper} is created for them.
+     *
+     * Payloads with the same or an outdated state are passed to the current {@link
+     * #adaptiveSendSession}, if any.
+     *
+     * Package-private so that tests can measure the allocations of the receive filter.
+     */
+    boolean isNewerThanLastDemoPayload(@NonNull TransportPayload transportPayload) {
+        ByteBuffer data = transportPayload.getData();
+        if (!DemoPayloadCodec.isValid(data)) {
+            return false;
+        }
+        DemoPayloadWrapper currentDemoPayloadWrapper = lastDemoPayloadWrapper;
+        if (currentDemoPayloadWrapper == null) {
+            return true;
         }
+
+        int comparison = mergeStrategy.compare(transportPayload, getCurrentTimestamp(), currentDemoPayloadWrapper);
+        if (comparison > 0) {
+            return true;
+        }
+
+        AdaptiveSendSession adaptiveSendSession = this.adaptiveSendSession;
+        if (adaptiveSendSession == null) {
+            return false;
+        } else if (comparison == 0) {
+            adaptiveSendSession.onEchoReceived(transportPayload.getDeviceIdHashCode());
+        } else if (!adaptiveSendSession.isCompleted()) {
+            adaptiveSendSession.onOutdatedStateReceived();
+        } else if (resendScheduled.compareAndSet(false, true)) {
+            // a nearby device missed the current state, although sending has already stopped
+            schedulers.getViewScheduler().scheduleDirect(this::resendLastDemoPayload);
+        }
+        return false;
+    }
+
+    @NonNull
+    private DemoPayloadWrapper decodeDemoPayload(@NonNull TransportPayload transportPayload) {
+        long startTime = System.nanoTime();
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(transportPayload, getCurrentTimestamp());
+        pipelineMetrics.onPayloadDecoded(System.nanoTime() - startTime);
+        return demoPayloadWrapper;
+    }
+
+    private void resendLastDemoPayload() {
+        resendScheduled.set(false);
+        DemoPayloadWrapper demoPayloadWrapper = lastDemoPayloadWrapper;
+        AdaptiveSendSession adaptiveSendSession = this.adaptiveSendSession;
+        if (demoPayloadWrapper == null || adaptiveSendSession == null || !adaptiveSendSession.isCompleted()) {
+            return;
+        }
+        sendDemoPayload(demoPayloadWrapper, RESENT_STATE_PRIORITY);
     }
 
     private int getRandomIconIndex() {
@@ -324,8 +1090,4 @@ public class DemoPresenter<View extends DemoView> {
         return randomIndex;
     }
 
-    private long getLastDemoPayloadUpdateTimestamp() {
-        return lastDemoPayloadWrapper != null ? lastDemoPayloadWrapper.getTimestamp() : 0;
-    }
-
 }
@@ -0,0 +1,72 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Caches the icon drawables and colors that a {@link DemoLayout} can show, so that visualizing a
+ * payload doesn't require any resource loading or array copies.
+ *
+ * The resources are loaded lazily on first use and need to be {@link #invalidate() invalidated}
+ * if the configuration (e.g. theme or density) changes. Not thread-safe, should only be used from
+ * the main thread.
+ */
+class DemoResourceCache {
+
+    private final Context context;
+
+    @Nullable
+    private Drawable[] iconDrawables;
+
+    @Nullable
+    private int[] colors;
+
+    DemoResourceCache(@NonNull Context context) {
+        this.context = context;
+    }
+
+    @NonNull
+    Drawable getIconDrawable(int iconIndex) {
+        Drawable[] iconDrawables = getIconDrawables();
+        return iconDrawables[iconIndex % iconDrawables.length];
+    }
+
+    int getColor(int colorIndex) {
+        int[] colors = getColors();
+        return colors[colorIndex % colors.length];
+    }
+
+    /**
+     * Drops all cached resources, they will be loaded again when they are needed next time.
+     */
+    void invalidate() {
+        iconDrawables = null;
+        colors = null;
+    }
+
+    @NonNull
+    private Drawable[] getIconDrawables() {
+        if (iconDrawables == null) {
+            TypedArray typedArray = context.getResources().obtainTypedArray(R.array.direction_icons);
+            iconDrawables = new Drawable[typedArray.length()];
+            for (int iconIndex = 0; iconIndex < iconDrawables.length; iconIndex++) {
+                iconDrawables[iconIndex] = typedArray.getDrawable(iconIndex);
+            }
+            typedArray.recycle();
+        }
+        return iconDrawables;
+    }
+
+    @NonNull
+    private int[] getColors() {
+        if (colors == null) {
+            colors = context.getResources().getIntArray(R.array.material_design_colors);
+        }
+        return colors;
+    }
+
+}
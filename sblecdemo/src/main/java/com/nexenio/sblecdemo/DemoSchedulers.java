@@ -0,0 +1,72 @@
+package com.nexenio.sblecdemo;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The {@link Scheduler}s used by a {@link DemoPresenter}.
+ *
+ * Received payloads will be decoded and filtered on the {@link #getProcessingScheduler()
+ * processing scheduler}, only the resulting updates will be passed to the {@link DemoView} on the
+ * {@link #getViewScheduler() view scheduler}. Blocking I/O (e.g. persisting the state) happens on
+ * the {@link #getIoScheduler() I/O scheduler}.
+ */
+public class DemoSchedulers {
+
+    private final Scheduler processingScheduler;
+
+    private final Scheduler viewScheduler;
+
+    private final Scheduler ioScheduler;
+
+    /**
+     * Creates an instance that uses the processing scheduler for blocking I/O as well.
+     */
+    public DemoSchedulers(@NonNull Scheduler processingScheduler, @NonNull Scheduler viewScheduler) {
+        this(processingScheduler, viewScheduler, processingScheduler);
+    }
+
+    public DemoSchedulers(@NonNull Scheduler processingScheduler, @NonNull Scheduler viewScheduler, @NonNull Scheduler ioScheduler) {
+        this.processingScheduler = processingScheduler;
+        this.viewScheduler = viewScheduler;
+        this.ioScheduler = ioScheduler;
+    }
+
+    /**
+     * Creates an instance that processes payloads on the {@link Schedulers#computation()
+     * computation scheduler}, which is bounded to the number of available processors, updates
+     * the view on the Android main thread and performs I/O on the {@link Schedulers#io() I/O
+     * scheduler}.
+     */
+    @NonNull
+    public static DemoSchedulers createDefault() {
+        return new DemoSchedulers(Schedulers.computation(), AndroidSchedulers.mainThread(), Schedulers.io());
+    }
+
+    /**
+     * The scheduler used for decoding and filtering received payloads.
+     */
+    @NonNull
+    public Scheduler getProcessingScheduler() {
+        return processingScheduler;
+    }
+
+    /**
+     * The scheduler used for interacting with the {@link DemoView}, i.e. the Android main thread.
+     */
+    @NonNull
+    public Scheduler getViewScheduler() {
+        return viewScheduler;
+    }
+
+    /**
+     * The scheduler used for blocking I/O, like reading and writing files.
+     */
+    @NonNull
+    public Scheduler getIoScheduler() {
+        return ioScheduler;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.persistence.SnapshotStore;
+import com.nexenio.sblecdemo.persistence.SnapshotWriter;
+import com.nexenio.sblecdemo.persistence.StateSnapshot;
+import com.nexenio.sblecdemo.persistence.StateSnapshotCodec;
+import com.nexenio.sblecdemo.receiver.PeerTable;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Maybe;
+import io.reactivex.disposables.Disposable;
+import timber.log.Timber;
+
+/**
+ * Persists the last state of a {@link DemoPresenter} and its known peers as a {@link
+ * StateSnapshot}, so that they can be restored when the presenter gets recreated.
+ */
+class DemoStatePersistence {
+
+    /**
+     * Provides the state that gets persisted and takes the one that has been restored.
+     */
+    interface DemoState {
+
+        @Nullable
+        DemoPayloadWrapper getLastDemoPayloadWrapper();
+
+        /**
+         * Called on the view scheduler, only if no state has been sent or received before.
+         */
+        void onDemoPayloadRestored(@NonNull DemoPayloadWrapper demoPayloadWrapper);
+
+    }
+
+    private final SnapshotStore snapshotStore;
+
+    /**
+     * Used for writing {@link StateSnapshot}s to the {@link #snapshotStore} in the background,
+     * debounced so that frequent changes only cause a single write.
+     */
+    private final SnapshotWriter snapshotWriter;
+
+    private final DemoState demoState;
+
+    private final PeerTable peerTable;
+
+    private final int deviceIdHashCode;
+
+    private final DemoSchedulers schedulers;
+
+    DemoStatePersistence(@NonNull SnapshotStore snapshotStore, @NonNull DemoState demoState, @NonNull PeerTable peerTable, int deviceIdHashCode,
+                         @NonNull DemoSchedulers schedulers) {
+        this.snapshotStore = snapshotStore;
+        this.demoState = demoState;
+        this.peerTable = peerTable;
+        this.deviceIdHashCode = deviceIdHashCode;
+        this.schedulers = schedulers;
+        snapshotWriter = new SnapshotWriter(snapshotStore, this::createStateSnapshot, schedulers.getIoScheduler());
+    }
+
+    /**
+     * Will restore the {@link StateSnapshot} from the {@link #snapshotStore}, unless a state has
+     * already been sent or received. This avoids showing (and sending) a random state until the
+     * first payload of a nearby device is received.
+     *
+     * @return the disposable of the read, or null if nothing needs to be restored
+     */
+    @Nullable
+    Disposable restore() {
+        if (demoState.getLastDemoPayloadWrapper() != null) {
+            return null;
+        }
+
+        return Maybe.fromCallable(snapshotStore::read)
+                .map(StateSnapshotCodec::decode)
+                .subscribeOn(schedulers.getIoScheduler())
+                .observeOn(schedulers.getViewScheduler())
+                .subscribe(
+                        this::restore,
+                        throwable -> Timber.w(throwable, "Unable to restore state snapshot")
+                );
+    }
+
+    private void restore(@NonNull StateSnapshot stateSnapshot) {
+        Timber.d("Restoring state snapshot: %s", stateSnapshot);
+        ByteBuffer demoPayloadData = stateSnapshot.getDemoPayloadData();
+        if (demoState.getLastDemoPayloadWrapper() == null && demoPayloadData != null && DemoPayloadCodec.isValid(demoPayloadData)) {
+            // truncated timestamps are restored relative to the time the snapshot has been created
+            TransportPayload transportPayload = new TransportPayload(DemoPayloadWrapper.ID, stateSnapshot.getDeviceIdHashCode(), demoPayloadData);
+            DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(transportPayload, stateSnapshot.getTimestamp());
+            demoPayloadWrapper.setDeviceIdHashCode(deviceIdHashCode);
+            demoState.onDemoPayloadRestored(demoPayloadWrapper);
+        }
+        for (StateSnapshot.Peer peer : stateSnapshot.getPeers()) {
+            peerTable.restorePeer(peer.getLatestPayload(), peer.getLastSeenTimestamp(), peer.getReceiveCount());
+        }
+    }
+
+    /**
+     * Schedules writing the current state and peers after a short delay.
+     */
+    void requestWrite() {
+        snapshotWriter.requestWrite();
+    }
+
+    /**
+     * Writes the current state and peers right away, e.g. before the app may get stopped.
+     */
+    void flush() {
+        // persist the latest peers as well, even if the state didn't change
+        snapshotWriter.requestWrite();
+        snapshotWriter.flush();
+    }
+
+    @NonNull
+    SnapshotWriter getSnapshotWriter() {
+        return snapshotWriter;
+    }
+
+    /**
+     * Encodes the current state and peers, called by the {@link #snapshotWriter} on the {@link
+     * DemoSchedulers#getIoScheduler() I/O scheduler}.
+     */
+    @NonNull
+    private byte[] createStateSnapshot() {
+        DemoPayloadWrapper demoPayloadWrapper = demoState.getLastDemoPayloadWrapper();
+        ByteBuffer demoPayloadData = demoPayloadWrapper != null ? demoPayloadWrapper.writeToBuffer().blockingGet() : null;
+        List<PeerTable.Peer> peers = peerTable.getPeers();
+        List<StateSnapshot.Peer> snapshotPeers = new ArrayList<>(peers.size());
+        for (PeerTable.Peer peer : peers) {
+            snapshotPeers.add(new StateSnapshot.Peer(peer.getLatestPayload(), peer.getLastSeenTimestamp(), peer.getReceiveCount()));
+        }
+        long timestamp = schedulers.getViewScheduler().now(TimeUnit.MILLISECONDS);
+        StateSnapshot stateSnapshot = new StateSnapshot(timestamp, deviceIdHashCode, demoPayloadData, snapshotPeers);
+        return StateSnapshotCodec.encode(stateSnapshot);
+    }
+
+}
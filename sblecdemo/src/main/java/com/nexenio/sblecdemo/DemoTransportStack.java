@@ -0,0 +1,342 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.crypto.AuthenticatingPayloadTransport;
+import com.nexenio.sblecdemo.crypto.PayloadCipher;
+import com.nexenio.sblecdemo.relay.RelayPolicy;
+import com.nexenio.sblecdemo.relay.RelayingPayloadTransport;
+import com.nexenio.sblecdemo.sender.SchedulingPayloadTransport;
+import com.nexenio.sblecdemo.sender.SendSchedulingPolicy;
+import com.nexenio.sblecdemo.trace.RecordingPayloadTransport;
+import com.nexenio.sblecdemo.trace.TraceRecorder;
+import com.nexenio.sblecdemo.transport.BatchingPayloadTransport;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Scheduler;
+
+/**
+ * The {@link PayloadTransport} used by a {@link DemoPresenter}, i.e. the transport that actually
+ * sends and receives payloads, wrapped in the decorators that have been enabled using a {@link
+ * Builder}.
+ *
+ * Decorators are always stacked in the same order, regardless of the order in which they have
+ * been enabled: received payloads are recorded exactly as they have been received, before they
+ * get unbatched, unwrapped and opened. Payloads that are sent get sealed before they may be
+ * relayed, batched and finally scheduled for advertising.
+ */
+public class DemoTransportStack {
+
+    private final PayloadTransport payloadTransport;
+
+    @Nullable
+    private final RecordingPayloadTransport recordingPayloadTransport;
+
+    @Nullable
+    private final SchedulingPayloadTransport schedulingPayloadTransport;
+
+    @Nullable
+    private final BatchingPayloadTransport batchingPayloadTransport;
+
+    @Nullable
+    private final RelayingPayloadTransport relayingPayloadTransport;
+
+    @Nullable
+    private final AuthenticatingPayloadTransport authenticatingPayloadTransport;
+
+    private DemoTransportStack(@NonNull PayloadTransport payloadTransport) {
+        this.payloadTransport = payloadTransport;
+        recordingPayloadTransport = null;
+        schedulingPayloadTransport = null;
+        batchingPayloadTransport = null;
+        relayingPayloadTransport = null;
+        authenticatingPayloadTransport = null;
+    }
+
+    private DemoTransportStack(@NonNull Builder builder) {
+        PayloadTransport payloadTransport = builder.payloadTransport;
+        if (builder.traceRecordingEnabled) {
+            recordingPayloadTransport = new RecordingPayloadTransport(payloadTransport, builder.scheduler);
+            payloadTransport = recordingPayloadTransport;
+        } else {
+            recordingPayloadTransport = null;
+        }
+        if (builder.sendSchedulingEnabled) {
+            schedulingPayloadTransport = new SchedulingPayloadTransport(payloadTransport, builder.scheduler);
+            schedulingPayloadTransport.setSendSchedulingPolicy(builder.sendSchedulingPolicy);
+            payloadTransport = schedulingPayloadTransport;
+        } else {
+            schedulingPayloadTransport = null;
+        }
+        if (builder.batchingEnabled) {
+            batchingPayloadTransport = new BatchingPayloadTransport(payloadTransport, builder.scheduler);
+            payloadTransport = batchingPayloadTransport;
+        } else {
+            batchingPayloadTransport = null;
+        }
+        if (builder.relayingEnabled) {
+            relayingPayloadTransport = builder.relayingRandom != null
+                    ? new RelayingPayloadTransport(payloadTransport, builder.scheduler, builder.relayingRandom)
+                    : new RelayingPayloadTransport(payloadTransport, builder.scheduler);
+            payloadTransport = relayingPayloadTransport;
+        } else {
+            relayingPayloadTransport = null;
+        }
+        if (builder.authenticationEnabled) {
+            authenticatingPayloadTransport = new AuthenticatingPayloadTransport(payloadTransport);
+            payloadTransport = authenticatingPayloadTransport;
+        } else {
+            authenticatingPayloadTransport = null;
+        }
+        this.payloadTransport = payloadTransport;
+    }
+
+    /**
+     * Creates the instance that the {@link DemoPresenter} uses if no other stack is specified. No
+     * decorators are enabled, so payloads are sent and received exactly like devices running
+     * older versions do.
+     */
+    @NonNull
+    public static DemoTransportStack createDefault(@NonNull PayloadTransport payloadTransport) {
+        return new DemoTransportStack(payloadTransport);
+    }
+
+    /**
+     * The outermost transport, used for sending and receiving all payloads.
+     */
+    @NonNull
+    public PayloadTransport getPayloadTransport() {
+        return payloadTransport;
+    }
+
+    @Nullable
+    public RecordingPayloadTransport getRecordingPayloadTransport() {
+        return recordingPayloadTransport;
+    }
+
+    @Nullable
+    public TraceRecorder getTraceRecorder() {
+        return recordingPayloadTransport != null ? recordingPayloadTransport.getTraceRecorder() : null;
+    }
+
+    /**
+     * Starts recording all received payloads using the specified recorder, so that they can be
+     * replayed later on using a {@link com.nexenio.sblecdemo.trace.TraceReplayTransport}. Use null
+     * (the default) to stop recording. The recorder is not closed by the stack.
+     *
+     * @throws IllegalStateException if a recorder is set, but trace recording has not been enabled
+     */
+    public void setTraceRecorder(@Nullable TraceRecorder traceRecorder) {
+        if (recordingPayloadTransport != null) {
+            recordingPayloadTransport.setTraceRecorder(traceRecorder);
+        } else if (traceRecorder != null) {
+            throw new IllegalStateException("Trace recording has not been enabled");
+        }
+    }
+
+    /**
+     * Provides the counts of assigned and preempted advertising slots and the time until payloads
+     * got their first slot, by priority class, or null if send scheduling has not been enabled.
+     */
+    @Nullable
+    public SchedulingPayloadTransport getSchedulingPayloadTransport() {
+        return schedulingPayloadTransport;
+    }
+
+    @Nullable
+    public SendSchedulingPolicy getSendSchedulingPolicy() {
+        return schedulingPayloadTransport != null ? schedulingPayloadTransport.getSendSchedulingPolicy() : null;
+    }
+
+    /**
+     * Changes the policy used for sharing the advertising slots between payloads that are sent at
+     * the same time. Use null to let the transport advertise them in turns, regardless of their
+     * priority. Will be applied to the next sent payloads.
+     *
+     * @throws IllegalStateException if a policy is set, but send scheduling has not been enabled
+     */
+    public void setSendSchedulingPolicy(@Nullable SendSchedulingPolicy sendSchedulingPolicy) {
+        if (schedulingPayloadTransport != null) {
+            schedulingPayloadTransport.setSendSchedulingPolicy(sendSchedulingPolicy);
+        } else if (sendSchedulingPolicy != null) {
+            throw new IllegalStateException("Send scheduling has not been enabled");
+        }
+    }
+
+    /**
+     * Provides the counts of advertisements and of payloads that have been sent in batches, or
+     * null if batching has not been enabled.
+     */
+    @Nullable
+    public BatchingPayloadTransport getBatchingPayloadTransport() {
+        return batchingPayloadTransport;
+    }
+
+    /**
+     * Provides the counts of relayed, suppressed and rate limited payloads, or null if relaying
+     * has not been enabled.
+     */
+    @Nullable
+    public RelayingPayloadTransport getRelayingPayloadTransport() {
+        return relayingPayloadTransport;
+    }
+
+    @Nullable
+    public RelayPolicy getRelayPolicy() {
+        return relayingPayloadTransport != null ? relayingPayloadTransport.getRelayPolicy() : null;
+    }
+
+    /**
+     * Enables rebroadcasting received payloads to devices that are out of range of their origin,
+     * using the specified policy. Use null (the default) to disable relaying.
+     *
+     * @throws IllegalStateException if a policy is set, but relaying has not been enabled
+     */
+    public void setRelayPolicy(@Nullable RelayPolicy relayPolicy) {
+        if (relayingPayloadTransport != null) {
+            relayingPayloadTransport.setRelayPolicy(relayPolicy);
+        } else if (relayPolicy != null) {
+            throw new IllegalStateException("Relaying has not been enabled");
+        }
+    }
+
+    /**
+     * Provides the counts of sealed, opened and rejected payloads, or null if authentication has
+     * not been enabled.
+     */
+    @Nullable
+    public AuthenticatingPayloadTransport getAuthenticatingPayloadTransport() {
+        return authenticatingPayloadTransport;
+    }
+
+    @Nullable
+    public PayloadCipher getPayloadCipher() {
+        return authenticatingPayloadTransport != null ? authenticatingPayloadTransport.getPayloadCipher() : null;
+    }
+
+    /**
+     * Enables encrypting and authenticating demo payloads with the group key of the specified
+     * cipher, received demo payloads that haven't been sealed with the same key are ignored. Use
+     * null (the default) to disable it. Requires a {@link com.nexenio.sblecdemo.sync.MergeStrategy}
+     * that uses the compact format, e.g. {@code new
+     * HybridLogicalClockMergeStrategy(DemoPayloadCodec.FORMAT_COMPACT)}, as the other formats are
+     * too long to be sealed.
+     *
+     * @throws IllegalStateException if a cipher is set, but authentication has not been enabled
+     */
+    public void setPayloadCipher(@Nullable PayloadCipher payloadCipher) {
+        if (authenticatingPayloadTransport != null) {
+            authenticatingPayloadTransport.setPayloadCipher(payloadCipher);
+        } else if (payloadCipher != null) {
+            throw new IllegalStateException("Authentication has not been enabled");
+        }
+    }
+
+    /**
+     * Creates a {@link DemoTransportStack} with only the decorators that have been enabled.
+     */
+    public static class Builder {
+
+        private final PayloadTransport payloadTransport;
+
+        private final Scheduler scheduler;
+
+        private boolean traceRecordingEnabled;
+
+        private boolean sendSchedulingEnabled;
+
+        @Nullable
+        private SendSchedulingPolicy sendSchedulingPolicy;
+
+        private boolean batchingEnabled;
+
+        private boolean relayingEnabled;
+
+        @Nullable
+        private Random relayingRandom;
+
+        private boolean authenticationEnabled;
+
+        /**
+         * @param payloadTransport the transport that actually sends and receives payloads
+         * @param scheduler        used for timing slots, batches and relays
+         */
+        public Builder(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+            this.payloadTransport = payloadTransport;
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Allows recording received payloads exactly as they have been received, using a {@link
+         * RecordingPayloadTransport}.
+         */
+        @NonNull
+        public Builder enableTraceRecording() {
+            traceRecordingEnabled = true;
+            return this;
+        }
+
+        /**
+         * Assigns advertising slots to payloads that are sent at the same time, using a {@link
+         * SchedulingPayloadTransport}.
+         *
+         * @param sendSchedulingPolicy the initial policy, or null to advertise payloads in turns
+         *                             until a policy is set
+         */
+        @NonNull
+        public Builder enableSendScheduling(@Nullable SendSchedulingPolicy sendSchedulingPolicy) {
+            sendSchedulingEnabled = true;
+            this.sendSchedulingPolicy = sendSchedulingPolicy;
+            return this;
+        }
+
+        /**
+         * Packs payloads that are sent at the same time into shared advertisements, using a
+         * {@link BatchingPayloadTransport}.
+         */
+        @NonNull
+        public Builder enableBatching() {
+            batchingEnabled = true;
+            return this;
+        }
+
+        /**
+         * Allows rebroadcasting received payloads, using a {@link RelayingPayloadTransport}.
+         */
+        @NonNull
+        public Builder enableRelaying() {
+            relayingEnabled = true;
+            return this;
+        }
+
+        /**
+         * Like {@link #enableRelaying()}, but uses the specified {@link Random} for the relay
+         * delays and probabilities, e.g. a seeded one for reproducible simulations.
+         */
+        @NonNull
+        public Builder enableRelaying(@NonNull Random random) {
+            relayingEnabled = true;
+            relayingRandom = random;
+            return this;
+        }
+
+        /**
+         * Allows sealing and opening demo payloads, using an {@link
+         * AuthenticatingPayloadTransport}.
+         */
+        @NonNull
+        public Builder enableAuthentication() {
+            authenticationEnabled = true;
+            return this;
+        }
+
+        @NonNull
+        public DemoTransportStack build() {
+            return new DemoTransportStack(this);
+        }
+
+    }
+
+}
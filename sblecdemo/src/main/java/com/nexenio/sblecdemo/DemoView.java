@@ -9,6 +9,8 @@ public interface DemoView<Presenter extends DemoPresenter> {
 
     void visualizeDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper);
 
+    void showTextMessage(@NonNull TextPayloadWrapper textPayloadWrapper);
+
     void showMissingPermissionsError();
 
     void hideMissingPermissionsError();
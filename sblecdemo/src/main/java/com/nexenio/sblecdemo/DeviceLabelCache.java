@@ -0,0 +1,95 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Caches the labels that a {@link DemoLayout} shows for devices, so that visualizing a payload
+ * from a recently seen device doesn't require any formatting.
+ *
+ * The cache is direct mapped by device ID hash code, a device replaces whichever device occupied
+ * its slot. Labels depend on the locale and need to be {@link #invalidate() invalidated} if the
+ * configuration changes. Not thread-safe, should only be used from the main thread.
+ */
+class DeviceLabelCache {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final Context context;
+
+    private final int mask;
+
+    private final int[] deviceIdHashCodes;
+
+    private final String[] readableDeviceNames;
+
+    /**
+     * The status titles, null if not formatted yet.
+     */
+    private final String[] titles;
+
+    DeviceLabelCache(@NonNull Context context) {
+        this(context, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity will be rounded up to the next power of two
+     */
+    DeviceLabelCache(@NonNull Context context, int capacity) {
+        this.context = context;
+        int slotCount = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = slotCount - 1;
+        deviceIdHashCodes = new int[slotCount];
+        readableDeviceNames = new String[slotCount];
+        titles = new String[slotCount];
+    }
+
+    /**
+     * The hexadecimal representation of the device ID hash code, e.g. {@code 0x0000002A}.
+     */
+    @NonNull
+    String getReadableDeviceName(int deviceIdHashCode) {
+        int slot = getSlot(deviceIdHashCode);
+        String readableDeviceName = readableDeviceNames[slot];
+        if (readableDeviceName == null || deviceIdHashCodes[slot] != deviceIdHashCode) {
+            readableDeviceName = String.format("0x%08X", deviceIdHashCode);
+            deviceIdHashCodes[slot] = deviceIdHashCode;
+            readableDeviceNames[slot] = readableDeviceName;
+            titles[slot] = null;
+        }
+        return readableDeviceName;
+    }
+
+    /**
+     * The title that states that the status has been updated by the specified device.
+     */
+    @NonNull
+    String getTitle(int deviceIdHashCode) {
+        String readableDeviceName = getReadableDeviceName(deviceIdHashCode);
+        int slot = getSlot(deviceIdHashCode);
+        String title = titles[slot];
+        if (title == null) {
+            title = context.getString(R.string.status_updated_by_device, readableDeviceName);
+            titles[slot] = title;
+        }
+        return title;
+    }
+
+    /**
+     * Drops all cached labels, they will be formatted again when they are needed next time.
+     */
+    void invalidate() {
+        for (int slot = 0; slot <= mask; slot++) {
+            readableDeviceNames[slot] = null;
+            titles[slot] = null;
+        }
+    }
+
+    private int getSlot(int deviceIdHashCode) {
+        // hash codes of device IDs may not be well distributed in the lower bits
+        int hash = deviceIdHashCode * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+}
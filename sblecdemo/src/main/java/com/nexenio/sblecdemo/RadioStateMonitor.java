@@ -0,0 +1,76 @@
+package com.nexenio.sblecdemo;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.location.LocationManager;
+import android.os.Build;
+import android.provider.Settings;
+
+import com.nexenio.sblecdemo.recovery.RadioAvailability;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Observable;
+import timber.log.Timber;
+
+/**
+ * A {@link RadioAvailability} that considers the radio available if Bluetooth and location
+ * services are enabled (both are required for scanning). Changes are detected by listening for
+ * the state broadcasts of the Bluetooth adapter and the location providers, so that streams can
+ * be resumed as soon as the user enabled them again.
+ */
+public class RadioStateMonitor implements RadioAvailability {
+
+    private final Context context;
+
+    public RadioStateMonitor(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isBluetoothEnabled() && isLocationServicesEnabled(context);
+    }
+
+    /**
+     * Registers a {@link BroadcastReceiver} while subscribed.
+     */
+    @Override
+    public Observable<Boolean> getAvailabilityChanges() {
+        return Observable.<Boolean>create(emitter -> {
+            BroadcastReceiver broadcastReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    Timber.d("Radio state changed: %s", intent.getAction());
+                    emitter.onNext(isAvailable());
+                }
+            };
+            IntentFilter intentFilter = new IntentFilter();
+            intentFilter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+            intentFilter.addAction(LocationManager.PROVIDERS_CHANGED_ACTION);
+            context.registerReceiver(broadcastReceiver, intentFilter);
+            emitter.setCancellable(() -> context.unregisterReceiver(broadcastReceiver));
+            emitter.onNext(isAvailable());
+        }).distinctUntilChanged();
+    }
+
+    public static boolean isBluetoothEnabled() {
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        return bluetoothAdapter != null && bluetoothAdapter.isEnabled();
+    }
+
+    public static boolean isLocationServicesEnabled(@NonNull Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            return locationManager.isLocationEnabled();
+        } else {
+            ContentResolver contentResolver = context.getContentResolver();
+            int locationMode = Settings.Secure.getInt(contentResolver, Settings.Secure.LOCATION_MODE, Settings.Secure.LOCATION_MODE_OFF);
+            return locationMode != Settings.Secure.LOCATION_MODE_OFF;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+
+import com.nexenio.sblec.Sblec;
+import com.nexenio.sblec.receiver.PayloadReceiver;
+import com.nexenio.sblec.receiver.ReceiverPayload;
+import com.nexenio.sblec.sender.PayloadSender;
+import com.nexenio.sblec.sender.SenderPayload;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.SharedPayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The default {@link PayloadTransport}, using the {@link Sblec} library to send and receive
+ * payloads over Bluetooth Low Energy.
+ */
+public class SblecPayloadTransport implements PayloadTransport {
+
+    /**
+     * The transport shared by all presenters of this process, see {@link #getShared(Context,
+     * int)}.
+     */
+    @Nullable
+    private static SharedPayloadTransport sharedPayloadTransport;
+
+    /**
+     * Used for sending {@link SenderPayload}s to nearby devices.
+     */
+    private final PayloadSender payloadSender;
+
+    /**
+     * Used for receiving {@link ReceiverPayload} from nearby devices.
+     */
+    private final PayloadReceiver payloadReceiver;
+
+    private final int deviceIdHashCode;
+
+    public SblecPayloadTransport(@NonNull Context context, int companyId) {
+        this(
+                Sblec.getInstance().getOrCreatePayloadSender(context, companyId),
+                Sblec.getInstance().getOrCreatePayloadReceiver(context, companyId),
+                Sblec.getDeviceIdHashCode(context)
+        );
+    }
+
+    public SblecPayloadTransport(@NonNull PayloadSender payloadSender, @NonNull PayloadReceiver payloadReceiver, int deviceIdHashCode) {
+        this.payloadSender = payloadSender;
+        this.payloadReceiver = payloadReceiver;
+        this.deviceIdHashCode = deviceIdHashCode;
+    }
+
+    /**
+     * Returns a transport that is shared by all callers within this process, so that received
+     * payloads are only scanned once, no matter how many views are attached. The company ID of
+     * the first call is used.
+     */
+    @NonNull
+    public static synchronized SharedPayloadTransport getShared(@NonNull Context context, int companyId) {
+        if (sharedPayloadTransport == null) {
+            SblecPayloadTransport payloadTransport = new SblecPayloadTransport(context.getApplicationContext(), companyId);
+            sharedPayloadTransport = new SharedPayloadTransport(payloadTransport, Schedulers.computation());
+        }
+        return sharedPayloadTransport;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return new TransportPayloadWrapper(transportPayload)
+                .toSenderPayload()
+                .flatMapCompletable(payloadSender::send);
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadReceiver.receive()
+                .map(SblecPayloadTransport::toTransportPayload);
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    private static TransportPayload toTransportPayload(@NonNull ReceiverPayload receiverPayload) {
+        return new TransportPayload(receiverPayload.getId(), receiverPayload.getDeviceIdHashCode(), receiverPayload.getData());
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblec.payload.PayloadWrapper;
+import com.nexenio.sblec.receiver.ReceiverPayload;
+import com.nexenio.sblec.sender.PayloadPriorities;
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+/**
+ * A {@link PayloadWrapper} for a payload containing a short text message, encoded as UTF-8.
+ */
+public class TextPayloadWrapper extends PayloadWrapper {
+
+    /**
+     * The ID of this payload, see {@link DemoPayloadWrapper#ID}.
+     */
+    public static final int ID = 12;
+
+    /**
+     * The maximum amount of encoded bytes. Longer texts will be truncated. Texts that don't fit
+     * into a single advertisement (see {@link #MAXIMUM_UNFRAGMENTED_LENGTH}) need to be sent using
+     * a {@link com.nexenio.sblecdemo.fragmentation.FragmentSender}.
+     */
+    public static final int MAXIMUM_LENGTH = 256;
+
+    public static final int MAXIMUM_UNFRAGMENTED_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    @NonNull
+    private String text = "";
+
+    /**
+     * The hash code of the ID of the device that created this payload. Not part of the encoded
+     * data, as it's provided by the transport.
+     */
+    private int deviceIdHashCode;
+
+    /**
+     * A constructor that can be used when receiving a {@link ReceiverPayload} with the {@link
+     * ReceiverPayload#getId() ID} matching {@link #ID}.
+     */
+    public TextPayloadWrapper(@NonNull ReceiverPayload receiverPayload) {
+        super(receiverPayload);
+        this.deviceIdHashCode = receiverPayload.getDeviceIdHashCode();
+    }
+
+    /**
+     * A constructor that can be used when receiving a {@link TransportPayload} with the {@link
+     * TransportPayload#getId() ID} matching {@link #ID}.
+     */
+    public TextPayloadWrapper(@NonNull TransportPayload transportPayload) {
+        this.deviceIdHashCode = transportPayload.getDeviceIdHashCode();
+        decode(transportPayload.getData());
+    }
+
+    /**
+     * A constructor that can be used to create a new instance with the specified text.
+     */
+    public TextPayloadWrapper(@NonNull String text) {
+        this.text = text;
+    }
+
+    @Override
+    public Completable readFromBuffer(@NonNull ByteBuffer byteBuffer) {
+        return Completable.fromAction(() -> decode(byteBuffer));
+    }
+
+    /**
+     * Synchronously parses the text from the remaining bytes of the specified buffer, using
+     * absolute indices.
+     */
+    public void decode(@NonNull ByteBuffer byteBuffer) {
+        if (byteBuffer.remaining() > MAXIMUM_LENGTH) {
+            throw new IllegalArgumentException("Unexpected buffer size: " + byteBuffer.remaining());
+        }
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteBuffer.get(byteBuffer.position() + i);
+        }
+        text = new String(bytes, CHARSET);
+    }
+
+    @Override
+    public Single<ByteBuffer> writeToBuffer() {
+        return Single.fromCallable(() -> encode(text));
+    }
+
+    /**
+     * Encodes the specified text, truncated to {@link #MAXIMUM_LENGTH} bytes without splitting a
+     * character.
+     */
+    @NonNull
+    static ByteBuffer encode(@NonNull String text) {
+        byte[] bytes = text.getBytes(CHARSET);
+        int length = bytes.length;
+        if (length > MAXIMUM_LENGTH) {
+            length = MAXIMUM_LENGTH;
+            // step back to the first byte of the truncated character (not 0b10xxxxxx)
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        return ByteBuffer.wrap(bytes, 0, length).slice();
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public double getPriority() {
+        return PayloadPriorities.MEDIUM;
+    }
+
+    @NonNull
+    public String getText() {
+        return text;
+    }
+
+    public void setText(@NonNull String text) {
+        this.text = text;
+    }
+
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    public void setDeviceIdHashCode(int deviceIdHashCode) {
+        this.deviceIdHashCode = deviceIdHashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "TextPayloadWrapper{" +
+                "text='" + text + '\'' +
+                ", deviceIdHashCode=" + deviceIdHashCode +
+                ", receiverPayload=" + receiverPayload +
+                '}';
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblec.payload.PayloadWrapper;
+import com.nexenio.sblec.sender.SenderPayload;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+/**
+ * A {@link PayloadWrapper} for already encoded {@link TransportPayload}s, used for converting them
+ * into {@link SenderPayload}s.
+ *
+ * The data of transport payloads may be shared between multiple subscribers, so it's only
+ * exposed as a read-only duplicate that can be consumed without affecting the original buffer.
+ */
+class TransportPayloadWrapper extends PayloadWrapper {
+
+    private final int id;
+
+    private final double priority;
+
+    @NonNull
+    private ByteBuffer data;
+
+    TransportPayloadWrapper(@NonNull TransportPayload transportPayload) {
+        this.id = transportPayload.getId();
+        this.priority = transportPayload.getPriority();
+        this.data = transportPayload.getData();
+    }
+
+    /**
+     * Replaces the data of this wrapper with the specified buffer. The buffer is not copied and
+     * should not be modified afterwards.
+     */
+    @Override
+    public Completable readFromBuffer(@NonNull ByteBuffer byteBuffer) {
+        return Completable.fromAction(() -> data = byteBuffer);
+    }
+
+    @Override
+    public Single<ByteBuffer> writeToBuffer() {
+        return Single.fromCallable(() -> data.asReadOnlyBuffer());
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public double getPriority() {
+        return priority;
+    }
+
+}
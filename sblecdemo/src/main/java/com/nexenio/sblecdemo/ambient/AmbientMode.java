@@ -0,0 +1,220 @@
+package com.nexenio.sblecdemo.ambient;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+
+/**
+ * Keeps track of whether the device is in a low-power ambient mode (e.g. the always-on display of
+ * a watch) and provides the means to reduce the work done in it, according to an {@link
+ * AmbientPolicy}: receiving is {@link #dutyCycle(Observable) duty cycled} and redraws are
+ * {@link #getRedrawDelayMillis() throttled}.
+ *
+ * To quantify the benefit, the time spent receiving and the amount of skipped redraws are tracked
+ * relative to the time spent in ambient mode.
+ */
+public class AmbientMode {
+
+    private static final long MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final AmbientPolicy policy;
+
+    private final Scheduler scheduler;
+
+    private boolean ambient;
+
+    private long ambientStartTimestamp;
+
+    /**
+     * The time spent in ambient mode, excluding the current period.
+     */
+    private long ambientMillis;
+
+    /**
+     * The start of the current receive window, or -1 if not receiving.
+     */
+    private long receiveStartTimestamp = -1;
+
+    /**
+     * The time spent in receive windows, excluding the current one.
+     */
+    private long receiveMillis;
+
+    private long lastRedrawTimestamp;
+
+    private long redrawCount;
+
+    private long skippedRedrawCount;
+
+    /**
+     * @param scheduler provides the current time and is used for timing receive windows
+     */
+    public AmbientMode(@NonNull AmbientPolicy policy, @NonNull Scheduler scheduler) {
+        this.policy = policy;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Should be called when the device entered the ambient mode. The next redraw will be throttled
+     * as if the screen had just been drawn.
+     */
+    public synchronized void enter() {
+        if (ambient) {
+            return;
+        }
+        ambient = true;
+        ambientStartTimestamp = now();
+        lastRedrawTimestamp = ambientStartTimestamp;
+    }
+
+    /**
+     * Should be called when the device left the ambient mode.
+     */
+    public synchronized void exit() {
+        if (!ambient) {
+            return;
+        }
+        ambient = false;
+        ambientMillis += now() - ambientStartTimestamp;
+    }
+
+    public synchronized boolean isAmbient() {
+        return ambient;
+    }
+
+    /**
+     * Repeatedly subscribes to the specified stream for the receive window of each receive
+     * interval. Should only be applied while ambient, the time spent receiving is tracked.
+     */
+    @NonNull
+    public <T> Observable<T> dutyCycle(@NonNull Observable<T> upstream) {
+        return Observable.defer(() -> {
+            long receiveWindowMillis = policy.getReceiveWindowMillis();
+            long pauseMillis = policy.getReceiveIntervalMillis() - receiveWindowMillis;
+            if (pauseMillis <= 0) {
+                return upstream;
+            }
+            return upstream
+                    .doOnSubscribe(disposable -> onReceiveWindowStarted())
+                    .doFinally(this::onReceiveWindowStopped)
+                    .takeUntil(Observable.timer(receiveWindowMillis, TimeUnit.MILLISECONDS, scheduler))
+                    .concatWith(Completable.timer(pauseMillis, TimeUnit.MILLISECONDS, scheduler))
+                    .repeat();
+        });
+    }
+
+    private synchronized void onReceiveWindowStarted() {
+        receiveStartTimestamp = now();
+    }
+
+    private synchronized void onReceiveWindowStopped() {
+        if (receiveStartTimestamp >= 0) {
+            receiveMillis += now() - receiveStartTimestamp;
+            receiveStartTimestamp = -1;
+        }
+    }
+
+    /**
+     * The time to wait before the screen may be redrawn, 0 if it may be redrawn right away (e.g.
+     * because the device is not ambient).
+     */
+    public synchronized long getRedrawDelayMillis() {
+        if (!ambient) {
+            return 0;
+        }
+        return Math.max(0, lastRedrawTimestamp + policy.getMinimumRedrawIntervalMillis() - now());
+    }
+
+    /**
+     * Should be called when the screen has been redrawn.
+     */
+    public synchronized void onRedrawn() {
+        lastRedrawTimestamp = now();
+        redrawCount++;
+    }
+
+    /**
+     * Should be called when a redraw has been skipped, e.g. because a newer state became available
+     * before the previous one could be drawn.
+     */
+    public synchronized void onRedrawSkipped() {
+        skippedRedrawCount++;
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    @NonNull
+    public AmbientPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * The time spent in ambient mode, including the current period.
+     */
+    public synchronized long getAmbientMillis() {
+        return ambient ? ambientMillis + now() - ambientStartTimestamp : ambientMillis;
+    }
+
+    /**
+     * The time spent in duty cycled receive windows, including the current one.
+     */
+    public synchronized long getReceiveMillis() {
+        return receiveStartTimestamp >= 0 ? receiveMillis + now() - receiveStartTimestamp : receiveMillis;
+    }
+
+    /**
+     * The time in ambient mode during which no payloads have been received.
+     */
+    public long getSavedReceiveMillis() {
+        return Math.max(0, getAmbientMillis() - getReceiveMillis());
+    }
+
+    /**
+     * The time not spent receiving per hour in ambient mode.
+     */
+    public double getSavedReceiveMillisPerHour() {
+        return perAmbientHour(getSavedReceiveMillis());
+    }
+
+    public synchronized long getRedrawCount() {
+        return redrawCount;
+    }
+
+    public synchronized long getSkippedRedrawCount() {
+        return skippedRedrawCount;
+    }
+
+    /**
+     * The amount of skipped redraws per hour in ambient mode.
+     */
+    public double getSkippedRedrawsPerHour() {
+        return perAmbientHour(getSkippedRedrawCount());
+    }
+
+    private double perAmbientHour(long value) {
+        long ambientMillis = getAmbientMillis();
+        return ambientMillis > 0 ? (double) value * MILLIS_PER_HOUR / ambientMillis : 0;
+    }
+
+    /**
+     * Resets all counts and durations, the current ambient period and receive window are counted
+     * from now on.
+     */
+    public synchronized void resetCounts() {
+        long now = now();
+        ambientMillis = 0;
+        ambientStartTimestamp = now;
+        receiveMillis = 0;
+        if (receiveStartTimestamp >= 0) {
+            receiveStartTimestamp = now;
+        }
+        redrawCount = 0;
+        skippedRedrawCount = 0;
+    }
+
+}
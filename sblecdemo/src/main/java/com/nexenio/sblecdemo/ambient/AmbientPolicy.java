@@ -0,0 +1,65 @@
+package com.nexenio.sblecdemo.ambient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parameters of an {@link AmbientMode}.
+ *
+ * While ambient, payloads are only received during a {@link #getReceiveWindowMillis() short
+ * window} of each {@link #getReceiveIntervalMillis() receive interval} and received states are
+ * visualized at most once per {@link #getMinimumRedrawIntervalMillis() redraw interval}, which
+ * defaults to the once-per-minute refresh of ambient displays.
+ */
+public class AmbientPolicy {
+
+    public static final long DEFAULT_RECEIVE_WINDOW_MILLIS = 2_000;
+    public static final long DEFAULT_RECEIVE_INTERVAL_MILLIS = 20_000;
+    public static final long DEFAULT_MINIMUM_REDRAW_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private volatile long receiveWindowMillis = DEFAULT_RECEIVE_WINDOW_MILLIS;
+
+    private volatile long receiveIntervalMillis = DEFAULT_RECEIVE_INTERVAL_MILLIS;
+
+    private volatile long minimumRedrawIntervalMillis = DEFAULT_MINIMUM_REDRAW_INTERVAL_MILLIS;
+
+    public long getReceiveWindowMillis() {
+        return receiveWindowMillis;
+    }
+
+    /**
+     * Sets how long payloads are received per interval. Should cover a few advertising intervals
+     * of nearby devices.
+     */
+    public void setReceiveWindowMillis(long receiveWindowMillis) {
+        this.receiveWindowMillis = receiveWindowMillis;
+    }
+
+    public long getReceiveIntervalMillis() {
+        return receiveIntervalMillis;
+    }
+
+    /**
+     * Sets the time from the start of one receive window to the start of the next one. Use a
+     * value not larger than the receive window to receive continuously.
+     */
+    public void setReceiveIntervalMillis(long receiveIntervalMillis) {
+        this.receiveIntervalMillis = receiveIntervalMillis;
+    }
+
+    public long getMinimumRedrawIntervalMillis() {
+        return minimumRedrawIntervalMillis;
+    }
+
+    public void setMinimumRedrawIntervalMillis(long minimumRedrawIntervalMillis) {
+        this.minimumRedrawIntervalMillis = minimumRedrawIntervalMillis;
+    }
+
+    /**
+     * The share of time during which payloads are received, in range [0, 1].
+     */
+    public double getReceiveDutyCycle() {
+        long receiveIntervalMillis = this.receiveIntervalMillis;
+        return receiveIntervalMillis > 0 ? Math.min(1, (double) receiveWindowMillis / receiveIntervalMillis) : 1;
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.nexenio.sblecdemo.ambient;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Renders values right away, unless redraws are currently throttled by the {@link AmbientMode}.
+ * In that case, only the latest value is rendered once the next redraw is allowed, values that
+ * are replaced until then are counted as skipped redraws.
+ *
+ * Not thread-safe, all methods should be called from the scheduler used for rendering.
+ */
+public class RedrawThrottle<T> {
+
+    /**
+     * Renders the values that passed the throttle.
+     */
+    public interface Renderer<T> {
+
+        void render(@NonNull T value);
+
+    }
+
+    private final AmbientMode ambientMode;
+
+    private final Renderer<T> renderer;
+
+    private final Scheduler scheduler;
+
+    /**
+     * The latest value that has not been rendered yet.
+     */
+    @Nullable
+    private T pendingValue;
+
+    @Nullable
+    private Disposable scheduledRedrawDisposable;
+
+    /**
+     * @param scheduler used for rendering pending values once the next redraw is allowed
+     */
+    public RedrawThrottle(@NonNull AmbientMode ambientMode, @NonNull Renderer<T> renderer, @NonNull Scheduler scheduler) {
+        this.ambientMode = ambientMode;
+        this.renderer = renderer;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Renders the specified value now or when the next redraw is allowed, unless a newer value
+     * replaces it until then.
+     */
+    public void render(@NonNull T value) {
+        if (pendingValue != null) {
+            ambientMode.onRedrawSkipped();
+        }
+        pendingValue = value;
+        renderPendingValue(false);
+    }
+
+    /**
+     * Renders the pending value, if any, regardless of the throttling, e.g. because the ambient
+     * display is being refreshed anyway.
+     */
+    public void flush() {
+        renderPendingValue(true);
+    }
+
+    /**
+     * Cancels the scheduled redraw, if any. The pending value will be rendered with the next
+     * {@link #render(Object)} or {@link #flush()}.
+     */
+    public void cancel() {
+        if (scheduledRedrawDisposable != null) {
+            scheduledRedrawDisposable.dispose();
+            scheduledRedrawDisposable = null;
+        }
+    }
+
+    private void renderPendingValue(boolean force) {
+        T value = pendingValue;
+        if (value == null) {
+            return;
+        }
+        long redrawDelayMillis = force ? 0 : ambientMode.getRedrawDelayMillis();
+        if (redrawDelayMillis > 0) {
+            if (scheduledRedrawDisposable == null) {
+                scheduledRedrawDisposable = Completable.timer(redrawDelayMillis, TimeUnit.MILLISECONDS, scheduler)
+                        .subscribe(() -> {
+                            scheduledRedrawDisposable = null;
+                            renderPendingValue(false);
+                        });
+            }
+            return;
+        }
+        pendingValue = null;
+        renderer.render(value);
+        ambientMode.onRedrawn();
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.nexenio.sblecdemo.crypto;
+
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+
+/**
+ * A {@link PayloadTransport} that seals sent payloads and opens received ones using a {@link
+ * PayloadCipher}, if one has been {@link #setPayloadCipher(PayloadCipher) set}. Otherwise, all
+ * payloads are passed through unchanged.
+ *
+ * Received payloads with a sealed ID that fail the verification (e.g. because they have been sent
+ * by a device without the group key) are dropped, before any subscriber gets to decode them.
+ * Payloads with other IDs are passed through. Verification happens on buffers reused per thread,
+ * so dropping a payload doesn't allocate anything.
+ */
+public class AuthenticatingPayloadTransport implements PayloadTransport {
+
+    /**
+     * Returned by {@link #onPayloadReceived(TransportPayload)} instead of payloads that should be
+     * dropped, as mapping to null isn't allowed.
+     */
+    private static final TransportPayload REJECTED_PAYLOAD = new TransportPayload(0, 0, ByteBuffer.allocate(0));
+
+    private final PayloadTransport payloadTransport;
+
+    private final AtomicLong sealedCount = new AtomicLong();
+
+    private final AtomicLong openedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Nullable
+    private volatile PayloadCipher payloadCipher;
+
+    public AuthenticatingPayloadTransport(@NonNull PayloadTransport payloadTransport) {
+        this.payloadTransport = payloadTransport;
+    }
+
+    /**
+     * Fails with an {@link IllegalArgumentException} if the payload should be sealed but is
+     * longer than {@link PayloadCipher#MAXIMUM_DATA_LENGTH}.
+     */
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return Completable.defer(() -> {
+            PayloadCipher payloadCipher = this.payloadCipher;
+            if (payloadCipher == null || !payloadCipher.isSealed(transportPayload.getId())) {
+                return payloadTransport.send(transportPayload);
+            }
+            TransportPayload sealedPayload = payloadCipher.seal(transportPayload);
+            sealedCount.incrementAndGet();
+            return payloadTransport.send(sealedPayload);
+        });
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadTransport.receive()
+                .map(this::onPayloadReceived)
+                .filter(transportPayload -> transportPayload != REJECTED_PAYLOAD);
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    /**
+     * @return the opened payload, the specified one if it isn't sealed or {@link
+     * #REJECTED_PAYLOAD} if it should be dropped
+     */
+    @NonNull
+    private TransportPayload onPayloadReceived(@NonNull TransportPayload transportPayload) {
+        PayloadCipher payloadCipher = this.payloadCipher;
+        if (payloadCipher == null || !payloadCipher.isSealed(transportPayload.getId())) {
+            return transportPayload;
+        }
+        TransportPayload openedPayload = payloadCipher.open(transportPayload);
+        if (openedPayload == null) {
+            rejectedCount.incrementAndGet();
+            return REJECTED_PAYLOAD;
+        }
+        openedCount.incrementAndGet();
+        return openedPayload;
+    }
+
+    @Nullable
+    public PayloadCipher getPayloadCipher() {
+        return payloadCipher;
+    }
+
+    /**
+     * Enables sealing and opening payloads using the specified cipher, or disables it if null.
+     * Payloads that are currently being sent are not affected.
+     */
+    public void setPayloadCipher(@Nullable PayloadCipher payloadCipher) {
+        this.payloadCipher = payloadCipher;
+    }
+
+    /**
+     * The amount of payloads that have been sealed before sending them.
+     */
+    public long getSealedCount() {
+        return sealedCount.get();
+    }
+
+    /**
+     * The amount of received sealed payloads that have been verified and decrypted.
+     */
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    /**
+     * The amount of received payloads that have been dropped, because they failed the
+     * verification.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public void resetCounts() {
+        sealedCount.set(0);
+        openedCount.set(0);
+        rejectedCount.set(0);
+    }
+
+}
@@ -0,0 +1,390 @@
+package com.nexenio.sblecdemo.crypto;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.persistence.SnapshotStore;
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Encrypts and authenticates payloads with a key shared by a group of devices, so that devices
+ * without the key can neither read nor forge them. Only payloads with one of the {@link
+ * #isSealed(int) sealed IDs} are affected, all devices of a group need to use the same key and
+ * IDs.
+ *
+ * A sealed payload keeps its ID and wraps the original data with a nonce and a truncated tag:
+ *
+ * <pre>
+ * | nonce (4) | encrypted data (0..15) | tag (8) |
+ * </pre>
+ *
+ * The data is encrypted with AES in counter mode and authenticated with a HMAC-SHA256 (truncated
+ * to {@link #TAG_LENGTH} bytes) of the payload ID, the device ID hash code of the sender, the
+ * nonce and the encrypted data. Both keys are derived from the group key. AEAD modes like GCM are
+ * not used, because their shortest supported tags would not leave enough room for the data in a
+ * single advertisement.
+ *
+ * The key stream depends on the device ID hash code of the sender, the nonce and the payload ID,
+ * so devices of a group don't need to coordinate their nonces. Each device must not reuse a
+ * nonce though, which a random start value only makes unlikely for a few restarts. With a {@link
+ * SnapshotStore nonce store}, nonces are reserved in blocks of {@link #NONCE_RESERVATION_LENGTH}
+ * and continue after the last reserved block when the app is restarted.
+ *
+ * The tag is verified before anything gets decrypted, without allocating. Cipher and MAC
+ * instances are reused per thread, so that instances of this class can be used concurrently.
+ */
+public class PayloadCipher {
+
+    public static final int NONCE_LENGTH = 4;
+
+    public static final int TAG_LENGTH = 8;
+
+    /**
+     * The amount of bytes that sealing adds to a payload.
+     */
+    public static final int OVERHEAD_LENGTH = NONCE_LENGTH + TAG_LENGTH;
+
+    /**
+     * The maximum data length of a payload that can be sealed, equal to the {@link
+     * com.nexenio.sblecdemo.payload.DemoPayloadCodec#MAXIMUM_COMPACT_BUFFER_LENGTH maximum length}
+     * of compact demo payloads.
+     */
+    public static final int MAXIMUM_DATA_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH - OVERHEAD_LENGTH;
+
+    public static final int MINIMUM_GROUP_KEY_LENGTH = 16;
+
+    /**
+     * The amount of nonces that are reserved at once, so that the nonce store only needs to be
+     * written once for that many sealed payloads.
+     */
+    public static final int NONCE_RESERVATION_LENGTH = 1 << 16;
+
+    private static final String CIPHER_ALGORITHM = "AES/ECB/NoPadding";
+    private static final String CIPHER_KEY_ALGORITHM = "AES";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int CIPHER_KEY_LENGTH = 16;
+    private static final int BLOCK_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+
+    private static final String CIPHER_KEY_LABEL = "sblecdemo payload encryption";
+    private static final String MAC_KEY_LABEL = "sblecdemo payload authentication";
+
+    /**
+     * The payload ID and the device ID hash code, which are authenticated but not transmitted as
+     * part of the data.
+     */
+    private static final int ASSOCIATED_DATA_LENGTH = 1 + 4;
+
+    private static final int NONCE_INDEX = 0;
+    private static final int DATA_INDEX = NONCE_INDEX + NONCE_LENGTH;
+
+    private final SecretKeySpec cipherKey;
+
+    private final SecretKeySpec macKey;
+
+    private final Set<Integer> sealedPayloadIds;
+
+    @Nullable
+    private final SnapshotStore nonceStore;
+
+    /**
+     * The nonce used for the next sealed payload. Guarded by {@code this}, like the following
+     * field.
+     */
+    private int nextNonce;
+
+    /**
+     * The first nonce that hasn't been reserved in the {@link #nonceStore}.
+     */
+    private int reservedNonceLimit;
+
+    private final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context(cipherKey, macKey);
+        }
+    };
+
+    /**
+     * Creates a cipher that seals {@link DemoPayloadWrapper demo payloads}.
+     */
+    public PayloadCipher(@NonNull byte[] groupKey) {
+        this(groupKey, Collections.singleton(DemoPayloadWrapper.ID));
+    }
+
+    /**
+     * @param groupKey         the key shared by all devices of the group, at least {@link
+     *                         #MINIMUM_GROUP_KEY_LENGTH} bytes
+     * @param sealedPayloadIds the IDs of payloads that should be sealed, payloads with other IDs
+     *                         are not affected
+     */
+    public PayloadCipher(@NonNull byte[] groupKey, @NonNull Set<Integer> sealedPayloadIds) {
+        this(groupKey, sealedPayloadIds, null, null);
+    }
+
+    /**
+     * Creates a cipher that continues with the nonces after the ones reserved in the specified
+     * store, e.g. a {@link com.nexenio.sblecdemo.persistence.FileSnapshotStore}. Reads and writes
+     * the store, so this should not be called on the main thread.
+     *
+     * @param nonceStore the store that is used for reserving nonces, exclusively
+     * @throws IOException if the reserved nonces can't be read or written
+     */
+    public PayloadCipher(@NonNull byte[] groupKey, @NonNull Set<Integer> sealedPayloadIds, @NonNull SnapshotStore nonceStore) throws IOException {
+        this(groupKey, sealedPayloadIds, nonceStore, nonceStore.read());
+        reserveNonces();
+    }
+
+    private PayloadCipher(@NonNull byte[] groupKey, @NonNull Set<Integer> sealedPayloadIds, @Nullable SnapshotStore nonceStore, @Nullable byte[] reservedNonceLimit) {
+        if (groupKey.length < MINIMUM_GROUP_KEY_LENGTH) {
+            throw new IllegalArgumentException("Group key too short: " + groupKey.length);
+        }
+        byte[] macKeyBytes = deriveKey(groupKey, MAC_KEY_LABEL);
+        byte[] cipherKeyBytes = deriveKey(groupKey, CIPHER_KEY_LABEL);
+        this.cipherKey = new SecretKeySpec(cipherKeyBytes, 0, CIPHER_KEY_LENGTH, CIPHER_KEY_ALGORITHM);
+        this.macKey = new SecretKeySpec(macKeyBytes, MAC_ALGORITHM);
+        this.sealedPayloadIds = new HashSet<>(sealedPayloadIds);
+        this.nonceStore = nonceStore;
+        if (reservedNonceLimit != null && reservedNonceLimit.length == NONCE_LENGTH) {
+            this.nextNonce = readInt(reservedNonceLimit, 0);
+        } else {
+            // a random start makes reusing a nonce after a restart unlikely
+            this.nextNonce = new SecureRandom().nextInt();
+        }
+    }
+
+    /**
+     * @return true if payloads with the specified ID should be sealed
+     */
+    public boolean isSealed(int payloadId) {
+        return sealedPayloadIds.contains(payloadId);
+    }
+
+    /**
+     * Encrypts and authenticates the specified payload.
+     *
+     * @return a payload with the same ID, device ID hash code and priority
+     * @throws IllegalArgumentException if the data is longer than {@link #MAXIMUM_DATA_LENGTH}
+     */
+    @NonNull
+    public TransportPayload seal(@NonNull TransportPayload transportPayload) {
+        ByteBuffer data = transportPayload.getData();
+        int dataLength = data.limit();
+        if (dataLength > MAXIMUM_DATA_LENGTH) {
+            throw new IllegalArgumentException("Payload too long to be sealed: " + dataLength);
+        }
+
+        Context context = contexts.get();
+        byte[] sealedData = new byte[dataLength + OVERHEAD_LENGTH];
+        int nonce = getNextNonce();
+        writeInt(nonce, sealedData, NONCE_INDEX);
+        for (int index = 0; index < dataLength; index++) {
+            sealedData[DATA_INDEX + index] = data.get(index);
+        }
+
+        context.applyKeyStream(transportPayload, nonce, sealedData, DATA_INDEX, dataLength);
+        context.computeTag(transportPayload, sealedData, DATA_INDEX + dataLength);
+        System.arraycopy(context.tag, 0, sealedData, DATA_INDEX + dataLength, TAG_LENGTH);
+
+        return new TransportPayload(transportPayload.getId(), transportPayload.getDeviceIdHashCode(),
+                transportPayload.getPriority(), ByteBuffer.wrap(sealedData));
+    }
+
+    /**
+     * Verifies and decrypts the specified sealed payload. The data of the specified payload is not
+     * modified, as it may be shared.
+     *
+     * @return a payload with the original data, or null if the payload has not been sealed with
+     * the same key (or has been modified)
+     */
+    @Nullable
+    public TransportPayload open(@NonNull TransportPayload transportPayload) {
+        if (!verify(transportPayload)) {
+            return null;
+        }
+        Context context = contexts.get();
+        int dataLength = transportPayload.getData().limit() - OVERHEAD_LENGTH;
+        byte[] data = new byte[dataLength];
+        System.arraycopy(context.input, DATA_INDEX, data, 0, dataLength);
+        int nonce = readInt(context.input, NONCE_INDEX);
+        context.applyKeyStream(transportPayload, nonce, data, 0, dataLength);
+        return new TransportPayload(transportPayload.getId(), transportPayload.getDeviceIdHashCode(),
+                transportPayload.getPriority(), ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Checks the tag of the specified sealed payload, without decrypting it.
+     *
+     * @return true if the payload has been sealed with the same key and hasn't been modified
+     */
+    public boolean verify(@NonNull TransportPayload transportPayload) {
+        // the copy of the sealed data is kept in the context, so that open() can decrypt it
+        ByteBuffer data = transportPayload.getData();
+        int sealedLength = data.limit();
+        if (sealedLength < OVERHEAD_LENGTH || sealedLength > AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH) {
+            return false;
+        }
+
+        Context context = contexts.get();
+        byte[] input = context.input;
+        for (int index = 0; index < sealedLength; index++) {
+            input[index] = data.get(index);
+        }
+        int tagIndex = sealedLength - TAG_LENGTH;
+        context.computeTag(transportPayload, input, tagIndex);
+
+        // constant time, so that the timing doesn't reveal how much of a forged tag was correct
+        int difference = 0;
+        for (int index = 0; index < TAG_LENGTH; index++) {
+            difference |= context.tag[index] ^ input[tagIndex + index];
+        }
+        return difference == 0;
+    }
+
+    private synchronized int getNextNonce() {
+        if (nonceStore != null && nextNonce == reservedNonceLimit) {
+            try {
+                reserveNonces();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to reserve nonces", e);
+            }
+        }
+        return nextNonce++;
+    }
+
+    /**
+     * Reserves the next {@link #NONCE_RESERVATION_LENGTH} nonces, starting with the {@link
+     * #nextNonce}.
+     */
+    private synchronized void reserveNonces() throws IOException {
+        byte[] reservedNonceLimit = new byte[NONCE_LENGTH];
+        writeInt(nextNonce + NONCE_RESERVATION_LENGTH, reservedNonceLimit, 0);
+        nonceStore.write(reservedNonceLimit);
+        this.reservedNonceLimit = nextNonce + NONCE_RESERVATION_LENGTH;
+    }
+
+    @NonNull
+    private static byte[] deriveKey(@NonNull byte[] groupKey, @NonNull String label) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(groupKey, MAC_ALGORITHM));
+            return mac.doFinal(label.getBytes(Charset.forName("UTF-8")));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive key", e);
+        }
+    }
+
+    private static void writeInt(int value, @NonNull byte[] bytes, int index) {
+        bytes[index] = (byte) (value >>> 24);
+        bytes[index + 1] = (byte) (value >>> 16);
+        bytes[index + 2] = (byte) (value >>> 8);
+        bytes[index + 3] = (byte) value;
+    }
+
+    private static int readInt(@NonNull byte[] bytes, int index) {
+        return (bytes[index] & 0xFF) << 24 | (bytes[index + 1] & 0xFF) << 16
+                | (bytes[index + 2] & 0xFF) << 8 | bytes[index + 3] & 0xFF;
+    }
+
+    /**
+     * The cipher and MAC instances and buffers used by a single thread.
+     */
+    private static final class Context {
+
+        private final Cipher cipher;
+
+        private final Mac mac;
+
+        private final byte[] associatedData = new byte[ASSOCIATED_DATA_LENGTH];
+
+        private final byte[] counterBlock = new byte[BLOCK_LENGTH];
+
+        private final byte[] keyStreamBlock = new byte[BLOCK_LENGTH];
+
+        /**
+         * The most recently verified sealed data.
+         */
+        private final byte[] input = new byte[AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH];
+
+        /**
+         * The most recently computed MAC, of which the first {@link #TAG_LENGTH} bytes are used.
+         */
+        private final byte[] tag = new byte[MAC_LENGTH];
+
+        private Context(@NonNull SecretKeySpec cipherKey, @NonNull SecretKeySpec macKey) {
+            try {
+                // counter mode is implemented here, so that the cipher doesn't need to be
+                // initialized for each nonce
+                cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+                cipher.init(Cipher.ENCRYPT_MODE, cipherKey);
+                mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(macKey);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize cipher", e);
+            }
+        }
+
+        /**
+         * XORs the specified range with the key stream of the specified payload and nonce. The
+         * counter blocks are unique per sender, nonce and payload ID:
+         *
+         * <pre>
+         * | device ID hash code (4) | nonce (4) | payload ID (1) | zeros (5) | block index (2) |
+         * </pre>
+         */
+        private void applyKeyStream(@NonNull TransportPayload transportPayload, int nonce, @NonNull byte[] bytes, int offset, int length) {
+            writeInt(transportPayload.getDeviceIdHashCode(), counterBlock, 0);
+            writeInt(nonce, counterBlock, 4);
+            counterBlock[8] = (byte) transportPayload.getId();
+            for (int blockIndex = 0; blockIndex * BLOCK_LENGTH < length; blockIndex++) {
+                counterBlock[BLOCK_LENGTH - 2] = (byte) (blockIndex >>> 8);
+                counterBlock[BLOCK_LENGTH - 1] = (byte) blockIndex;
+                try {
+                    cipher.doFinal(counterBlock, 0, BLOCK_LENGTH, keyStreamBlock, 0);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Unable to encrypt counter block", e);
+                }
+                int blockOffset = blockIndex * BLOCK_LENGTH;
+                int blockLength = Math.min(BLOCK_LENGTH, length - blockOffset);
+                for (int index = 0; index < blockLength; index++) {
+                    bytes[offset + blockOffset + index] ^= keyStreamBlock[index];
+                }
+            }
+        }
+
+        /**
+         * Computes the MAC of the specified payload's ID and device ID hash code and the specified
+         * nonce and encrypted data, i.e. the first bytes of the sealed data. The result is written
+         * to {@link #tag}.
+         */
+        private void computeTag(@NonNull TransportPayload transportPayload, @NonNull byte[] sealedData, int length) {
+            associatedData[0] = (byte) transportPayload.getId();
+            writeInt(transportPayload.getDeviceIdHashCode(), associatedData, 1);
+            mac.update(associatedData, 0, ASSOCIATED_DATA_LENGTH);
+            mac.update(sealedData, 0, length);
+            try {
+                mac.doFinal(tag, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to compute tag", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Keeps released byte arrays of a fixed length, so that they can be reused instead of allocating
+ * new ones. At most {@code capacity} arrays are kept, additional released arrays are left to the
+ * garbage collector.
+ *
+ * Acquired arrays are not cleared, callers need to keep track of which bytes they have written.
+ */
+public class BufferPool {
+
+    private final int bufferLength;
+
+    private final int capacity;
+
+    private final Deque<byte[]> buffers;
+
+    private long allocatedCount;
+
+    private long reusedCount;
+
+    public BufferPool(int bufferLength, int capacity) {
+        this.bufferLength = bufferLength;
+        this.capacity = capacity;
+        this.buffers = new ArrayDeque<>(capacity);
+    }
+
+    @NonNull
+    public synchronized byte[] acquire() {
+        byte[] buffer = buffers.pollFirst();
+        if (buffer != null) {
+            reusedCount++;
+            return buffer;
+        }
+        allocatedCount++;
+        return new byte[bufferLength];
+    }
+
+    public synchronized void release(@NonNull byte[] buffer) {
+        if (buffer.length != bufferLength || buffers.size() >= capacity) {
+            return;
+        }
+        buffers.offerFirst(buffer);
+    }
+
+    public int getBufferLength() {
+        return bufferLength;
+    }
+
+    /**
+     * The amount of arrays that are currently available for reuse.
+     */
+    public synchronized int getAvailableCount() {
+        return buffers.size();
+    }
+
+    /**
+     * The amount of arrays that had to be allocated, because none was available.
+     */
+    public synchronized long getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    /**
+     * The amount of arrays that have been reused.
+     */
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+
+}
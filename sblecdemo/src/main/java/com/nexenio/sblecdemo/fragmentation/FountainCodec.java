@@ -0,0 +1,169 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes and decodes fragments of messages using a systematic random linear fountain code over
+ * GF(2^8). The message is split into {@link #getSourceSymbolCount(int) source symbols} of {@link
+ * #SYMBOL_LENGTH} bytes (the last one padded with zeros). Fragments with an index below the source
+ * symbol count contain the source symbols, all following fragments contain repair symbols: linear
+ * combinations of all source symbols, with coefficients derived from the fragment index.
+ *
+ * Receivers can reconstruct the message from any set of fragments that contains as many linearly
+ * independent symbols as there are source symbols. With random coefficients in GF(2^8), that's
+ * usually the case for the first set of that size, regardless of which fragments have been lost.
+ *
+ * All fragments are sent with the {@link #PAYLOAD_ID} and have the maximum length:
+ *
+ * <pre>
+ * | payload ID (1) | message ID (2) | message length (2) | fragment index (2) | symbol (20) |
+ * </pre>
+ */
+public final class FountainCodec {
+
+    /**
+     * The ID of coded fragment payloads, see {@link FragmentCodec#PAYLOAD_ID}.
+     */
+    public static final int PAYLOAD_ID = 14;
+
+    public static final int HEADER_LENGTH = 7;
+
+    public static final int FRAGMENT_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH;
+
+    public static final int SYMBOL_LENGTH = FRAGMENT_LENGTH - HEADER_LENGTH;
+
+    /**
+     * Limits the size of the matrix that receivers need to solve.
+     */
+    public static final int MAXIMUM_SOURCE_SYMBOL_COUNT = 255;
+
+    public static final int MAXIMUM_MESSAGE_LENGTH = MAXIMUM_SOURCE_SYMBOL_COUNT * SYMBOL_LENGTH;
+
+    /**
+     * Fragment indices wrap around after this value, repair symbols are repeated after that.
+     */
+    public static final int MAXIMUM_FRAGMENT_INDEX = 0xFFFF;
+
+    private static final int PAYLOAD_ID_INDEX = 0;
+    private static final int MESSAGE_ID_INDEX = 1;
+    private static final int MESSAGE_LENGTH_INDEX = 3;
+    private static final int FRAGMENT_INDEX_INDEX = 5;
+
+    private FountainCodec() {
+    }
+
+    /**
+     * The amount of source symbols of a message with the specified length, which is also the
+     * minimum amount of fragments required to decode it.
+     */
+    public static int getSourceSymbolCount(int messageLength) {
+        return Math.max(1, (messageLength + SYMBOL_LENGTH - 1) / SYMBOL_LENGTH);
+    }
+
+    public static boolean isValid(@NonNull ByteBuffer buffer) {
+        return buffer.limit() == FRAGMENT_LENGTH && getMessageLength(buffer) <= MAXIMUM_MESSAGE_LENGTH;
+    }
+
+    public static int getPayloadId(@NonNull ByteBuffer buffer) {
+        return buffer.get(PAYLOAD_ID_INDEX) & 0xFF;
+    }
+
+    public static int getMessageId(@NonNull ByteBuffer buffer) {
+        return buffer.getShort(MESSAGE_ID_INDEX) & 0xFFFF;
+    }
+
+    public static int getMessageLength(@NonNull ByteBuffer buffer) {
+        return buffer.getShort(MESSAGE_LENGTH_INDEX) & 0xFFFF;
+    }
+
+    public static int getFragmentIndex(@NonNull ByteBuffer buffer) {
+        return buffer.getShort(FRAGMENT_INDEX_INDEX) & 0xFFFF;
+    }
+
+    /**
+     * Copies the symbol contained in the specified fragment to the specified array.
+     */
+    public static void readSymbol(@NonNull ByteBuffer buffer, @NonNull byte[] symbol, int offset) {
+        for (int i = 0; i < SYMBOL_LENGTH; i++) {
+            symbol[offset + i] = buffer.get(HEADER_LENGTH + i);
+        }
+    }
+
+    /**
+     * Writes the coefficients of the symbol with the specified fragment index to the specified
+     * array, one for each source symbol.
+     */
+    public static void getCoefficients(int fragmentIndex, int sourceSymbolCount, @NonNull byte[] coefficients, int offset) {
+        if (fragmentIndex < sourceSymbolCount) {
+            for (int i = 0; i < sourceSymbolCount; i++) {
+                coefficients[offset + i] = (byte) (i == fragmentIndex ? 1 : 0);
+            }
+            return;
+        }
+        // xorshift, seeded with the fragment index
+        int state = 0x9E3779B9 * (fragmentIndex + 1);
+        for (int i = 0; i < sourceSymbolCount; i++) {
+            state ^= state << 13;
+            state ^= state >>> 17;
+            state ^= state << 5;
+            // never zero, so that each repair symbol depends on all source symbols
+            coefficients[offset + i] = (byte) (1 + ((state >>> 8) % 255));
+        }
+    }
+
+    /**
+     * Encodes the fragment with the specified index of the remaining bytes of the specified
+     * message. The message buffer will not be modified.
+     */
+    @NonNull
+    public static ByteBuffer encode(int payloadId, int messageId, int fragmentIndex, @NonNull ByteBuffer message) {
+        int messageLength = message.remaining();
+        if (messageLength > MAXIMUM_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("Message too long: " + messageLength);
+        }
+        if (payloadId < 0 || payloadId > 0xFF) {
+            throw new IllegalArgumentException("Payload ID out of range: " + payloadId);
+        }
+        if (fragmentIndex < 0 || fragmentIndex > MAXIMUM_FRAGMENT_INDEX) {
+            throw new IllegalArgumentException("Fragment index out of range: " + fragmentIndex);
+        }
+
+        byte[] fragment = new byte[FRAGMENT_LENGTH];
+        ByteBuffer buffer = ByteBuffer.wrap(fragment);
+        buffer.put((byte) payloadId);
+        buffer.putShort((short) messageId);
+        buffer.putShort((short) messageLength);
+        buffer.putShort((short) fragmentIndex);
+
+        int sourceSymbolCount = getSourceSymbolCount(messageLength);
+        if (fragmentIndex < sourceSymbolCount) {
+            int offset = fragmentIndex * SYMBOL_LENGTH;
+            int length = Math.min(SYMBOL_LENGTH, messageLength - offset);
+            for (int i = 0; i < length; i++) {
+                fragment[HEADER_LENGTH + i] = message.get(message.position() + offset + i);
+            }
+        } else {
+            byte[] coefficients = new byte[sourceSymbolCount];
+            getCoefficients(fragmentIndex, sourceSymbolCount, coefficients, 0);
+            byte[] symbol = new byte[SYMBOL_LENGTH];
+            for (int sourceSymbolIndex = 0; sourceSymbolIndex < sourceSymbolCount; sourceSymbolIndex++) {
+                int offset = sourceSymbolIndex * SYMBOL_LENGTH;
+                int length = Math.min(SYMBOL_LENGTH, messageLength - offset);
+                for (int i = 0; i < length; i++) {
+                    symbol[i] = message.get(message.position() + offset + i);
+                }
+                for (int i = length; i < SYMBOL_LENGTH; i++) {
+                    symbol[i] = 0;
+                }
+                GaloisField.multiplyAndAdd(coefficients[sourceSymbolIndex] & 0xFF, symbol, 0, fragment, HEADER_LENGTH, SYMBOL_LENGTH);
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+}
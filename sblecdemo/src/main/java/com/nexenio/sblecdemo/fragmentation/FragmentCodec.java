@@ -0,0 +1,145 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes and decodes fragments of messages that are too large for a single advertisement. All
+ * fragments are sent with the {@link #PAYLOAD_ID}, the ID of the fragmented payload is part of the
+ * header.
+ *
+ * Each fragment consists of a 5 byte header and up to {@link #FRAGMENT_DATA_LENGTH} bytes of the
+ * message:
+ *
+ * <pre>
+ * | payload ID (1) | message ID (2) | fragment index (1) | fragment count (1) | data (0..22) |
+ * </pre>
+ *
+ * All fragments except the last one contain exactly {@link #FRAGMENT_DATA_LENGTH} bytes, so that
+ * receivers can place each fragment at its offset without knowing the message length in advance.
+ *
+ * Like the {@link com.nexenio.sblecdemo.payload.DemoPayloadCodec}, readers use absolute indices
+ * and never modify the buffer position.
+ */
+public final class FragmentCodec {
+
+    /**
+     * The ID of fragment payloads. IDs in range [0, 9] are reserved for the SBLEC protocol.
+     */
+    public static final int PAYLOAD_ID = 13;
+
+    public static final int HEADER_LENGTH = 5;
+
+    public static final int MAXIMUM_FRAGMENT_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH;
+
+    public static final int FRAGMENT_DATA_LENGTH = MAXIMUM_FRAGMENT_LENGTH - HEADER_LENGTH;
+
+    public static final int MAXIMUM_FRAGMENT_COUNT = 255;
+
+    public static final int MAXIMUM_MESSAGE_LENGTH = MAXIMUM_FRAGMENT_COUNT * FRAGMENT_DATA_LENGTH;
+
+    private static final int PAYLOAD_ID_INDEX = 0;
+    private static final int MESSAGE_ID_INDEX = 1;
+    private static final int FRAGMENT_INDEX_INDEX = 3;
+    private static final int FRAGMENT_COUNT_INDEX = 4;
+
+    private FragmentCodec() {
+    }
+
+    /**
+     * The amount of fragments required for a message with the specified length. Empty messages
+     * still require one fragment.
+     */
+    public static int getFragmentCount(int messageLength) {
+        return Math.max(1, (messageLength + FRAGMENT_DATA_LENGTH - 1) / FRAGMENT_DATA_LENGTH);
+    }
+
+    /**
+     * Checks if the specified buffer contains a well-formed fragment, i.e. if the header is
+     * consistent with the amount of data.
+     */
+    public static boolean isValid(@NonNull ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < HEADER_LENGTH || length > MAXIMUM_FRAGMENT_LENGTH) {
+            return false;
+        }
+        int fragmentIndex = getFragmentIndex(buffer);
+        int fragmentCount = getFragmentCount(buffer);
+        if (fragmentCount == 0 || fragmentIndex >= fragmentCount) {
+            return false;
+        }
+        boolean lastFragment = fragmentIndex == fragmentCount - 1;
+        return lastFragment || length == MAXIMUM_FRAGMENT_LENGTH;
+    }
+
+    public static int getPayloadId(@NonNull ByteBuffer buffer) {
+        return buffer.get(PAYLOAD_ID_INDEX) & 0xFF;
+    }
+
+    public static int getMessageId(@NonNull ByteBuffer buffer) {
+        return buffer.getShort(MESSAGE_ID_INDEX) & 0xFFFF;
+    }
+
+    public static int getFragmentIndex(@NonNull ByteBuffer buffer) {
+        return buffer.get(FRAGMENT_INDEX_INDEX) & 0xFF;
+    }
+
+    public static int getFragmentCount(@NonNull ByteBuffer buffer) {
+        return buffer.get(FRAGMENT_COUNT_INDEX) & 0xFF;
+    }
+
+    /**
+     * The amount of message bytes contained in the specified fragment.
+     */
+    public static int getDataLength(@NonNull ByteBuffer buffer) {
+        return buffer.limit() - HEADER_LENGTH;
+    }
+
+    /**
+     * Copies the message bytes contained in the specified fragment to the specified array, at the
+     * offset of the fragment within the message.
+     */
+    public static void readData(@NonNull ByteBuffer buffer, @NonNull byte[] message) {
+        int offset = getFragmentIndex(buffer) * FRAGMENT_DATA_LENGTH;
+        int length = getDataLength(buffer);
+        for (int i = 0; i < length; i++) {
+            message[offset + i] = buffer.get(HEADER_LENGTH + i);
+        }
+    }
+
+    /**
+     * Encodes the fragment with the specified index of the remaining bytes of the specified
+     * message. The message buffer will not be modified.
+     */
+    @NonNull
+    public static ByteBuffer encode(int payloadId, int messageId, int fragmentIndex, @NonNull ByteBuffer message) {
+        int messageLength = message.remaining();
+        if (messageLength > MAXIMUM_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("Message too long: " + messageLength);
+        }
+        if (payloadId < 0 || payloadId > 0xFF) {
+            throw new IllegalArgumentException("Payload ID out of range: " + payloadId);
+        }
+        int fragmentCount = getFragmentCount(messageLength);
+        if (fragmentIndex < 0 || fragmentIndex >= fragmentCount) {
+            throw new IllegalArgumentException("Fragment index out of range: " + fragmentIndex);
+        }
+
+        int offset = fragmentIndex * FRAGMENT_DATA_LENGTH;
+        int dataLength = Math.min(FRAGMENT_DATA_LENGTH, messageLength - offset);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + dataLength);
+        buffer.put((byte) payloadId);
+        buffer.putShort((short) messageId);
+        buffer.put((byte) fragmentIndex);
+        buffer.put((byte) fragmentCount);
+        for (int i = 0; i < dataLength; i++) {
+            buffer.put(message.get(message.position() + offset + i));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+}
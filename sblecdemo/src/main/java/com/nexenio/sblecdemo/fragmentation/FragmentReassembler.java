@@ -0,0 +1,449 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+
+/**
+ * Reassembles messages sent by a {@link FragmentSender}. Transforms received fragments (encoded by
+ * the {@link FragmentCodec} or the {@link FountainCodec}) into {@link TransportPayload}s with the
+ * ID and data of the original message, sent by the device that sent the fragments.
+ *
+ * Fragments may be received in any order and multiple times, missing fragments will be picked up
+ * in the next cycle of the sender. Partial messages that don't receive any fragment within a
+ * timeout are dropped. At most a fixed amount of partial messages is kept, if more are received
+ * at the same time the least recently updated one is dropped.
+ *
+ * Sequenced messages are assembled in pooled arrays, so that receiving a message only allocates
+ * the resulting payload. Coded messages are decoded incrementally using Gaussian elimination, in
+ * arrays sized for the amount of source symbols. Completed messages are remembered until the
+ * timeout expires, so that fragments of the next cycles don't emit the same message again.
+ */
+public class FragmentReassembler implements ObservableTransformer<TransportPayload, TransportPayload> {
+
+    public static final int DEFAULT_MAXIMUM_PARTIAL_MESSAGE_COUNT = 16;
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final Scheduler scheduler;
+
+    private final int maximumPartialMessageCount;
+
+    private final long timeoutMillis;
+
+    private final BufferPool bufferPool;
+
+    /**
+     * Partial and completed messages by their key (see {@link #getKey(int, boolean, int)}),
+     * ordered from least to most recently updated.
+     */
+    private final LinkedHashMap<Long, PartialMessage> partialMessages;
+
+    private long completedCount;
+
+    private long timedOutCount;
+
+    private long droppedCount;
+
+    private long duplicateFragmentCount;
+
+    private long invalidFragmentCount;
+
+    public FragmentReassembler(@NonNull Scheduler scheduler) {
+        this(DEFAULT_MAXIMUM_PARTIAL_MESSAGE_COUNT, DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param scheduler provides the current time
+     */
+    public FragmentReassembler(int maximumPartialMessageCount, long timeout, @NonNull TimeUnit timeoutTimeUnit, @NonNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+        this.maximumPartialMessageCount = maximumPartialMessageCount;
+        this.timeoutMillis = timeoutTimeUnit.toMillis(timeout);
+        this.bufferPool = new BufferPool(FragmentCodec.MAXIMUM_MESSAGE_LENGTH, maximumPartialMessageCount);
+        this.partialMessages = new LinkedHashMap<>(maximumPartialMessageCount * 2, 0.75f, true);
+    }
+
+    @Override
+    public ObservableSource<TransportPayload> apply(Observable<TransportPayload> upstream) {
+        return upstream.concatMapMaybe(fragment -> Maybe.fromCallable(() -> onFragmentReceived(fragment)));
+    }
+
+    /**
+     * Adds the specified fragment to its message.
+     *
+     * @return the reassembled message, if the fragment completed it
+     */
+    @Nullable
+    public synchronized TransportPayload onFragmentReceived(@NonNull TransportPayload fragment) {
+        ByteBuffer data = fragment.getData();
+        boolean coded = fragment.getId() == FountainCodec.PAYLOAD_ID;
+        if (!(coded ? FountainCodec.isValid(data) : fragment.getId() == FragmentCodec.PAYLOAD_ID && FragmentCodec.isValid(data))) {
+            invalidFragmentCount++;
+            return null;
+        }
+
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        evictExpiredMessages(now);
+
+        int messageId = coded ? FountainCodec.getMessageId(data) : FragmentCodec.getMessageId(data);
+        long key = getKey(fragment.getDeviceIdHashCode(), coded, messageId);
+        PartialMessage partialMessage = partialMessages.get(key);
+        if (partialMessage != null && !partialMessage.matches(data)) {
+            // the message ID has been reused for a different message
+            partialMessages.remove(key);
+            partialMessage.release();
+            partialMessage = null;
+        }
+        if (partialMessage == null) {
+            if (partialMessages.size() >= maximumPartialMessageCount) {
+                dropLeastRecentlyUpdatedMessage();
+            }
+            partialMessage = coded ? new CodedPartialMessage(data) : new SequencedPartialMessage(data, bufferPool);
+            partialMessages.put(key, partialMessage);
+        }
+        partialMessage.lastUpdateTimestamp = now;
+
+        if (partialMessage.isCompleted() || !partialMessage.add(data)) {
+            duplicateFragmentCount++;
+            return null;
+        }
+        if (!partialMessage.isCompleted()) {
+            return null;
+        }
+
+        completedCount++;
+        ByteBuffer message = ByteBuffer.wrap(partialMessage.getMessage());
+        partialMessage.release();
+        return new TransportPayload(partialMessage.payloadId, fragment.getDeviceIdHashCode(), message);
+    }
+
+    /**
+     * Drops partial messages that haven't received any fragment within the timeout.
+     *
+     * @return the amount of dropped messages
+     */
+    public synchronized int evictExpiredMessages() {
+        return evictExpiredMessages(scheduler.now(TimeUnit.MILLISECONDS));
+    }
+
+    private int evictExpiredMessages(long now) {
+        int evictedCount = 0;
+        Iterator<PartialMessage> iterator = partialMessages.values().iterator();
+        while (iterator.hasNext()) {
+            PartialMessage partialMessage = iterator.next();
+            if (now - partialMessage.lastUpdateTimestamp < timeoutMillis) {
+                // all following messages have been updated more recently
+                break;
+            }
+            iterator.remove();
+            if (!partialMessage.isCompleted()) {
+                timedOutCount++;
+                evictedCount++;
+            }
+            partialMessage.release();
+        }
+        return evictedCount;
+    }
+
+    private void dropLeastRecentlyUpdatedMessage() {
+        Iterator<PartialMessage> iterator = partialMessages.values().iterator();
+        PartialMessage partialMessage = iterator.next();
+        iterator.remove();
+        if (!partialMessage.isCompleted()) {
+            droppedCount++;
+        }
+        partialMessage.release();
+    }
+
+    private static long getKey(int deviceIdHashCode, boolean coded, int messageId) {
+        return ((long) deviceIdHashCode << 32) | (coded ? 0x10000 : 0) | messageId;
+    }
+
+    /**
+     * The amount of partial messages, including recently completed ones.
+     */
+    public synchronized int getPartialMessageCount() {
+        return partialMessages.size();
+    }
+
+    /**
+     * The amount of messages that have been reassembled.
+     */
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * The amount of partial messages that have been dropped because they didn't receive any
+     * fragment within the timeout.
+     */
+    public synchronized long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    /**
+     * The amount of partial messages that have been dropped because too many messages were being
+     * reassembled at the same time.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * The amount of fragments that didn't add any information, because they have already been
+     * received before or because they were linear combinations of received coded fragments.
+     */
+    public synchronized long getDuplicateFragmentCount() {
+        return duplicateFragmentCount;
+    }
+
+    /**
+     * The amount of payloads that were no valid fragments.
+     */
+    public synchronized long getInvalidFragmentCount() {
+        return invalidFragmentCount;
+    }
+
+    @NonNull
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * A message that is being reassembled.
+     */
+    private abstract static class PartialMessage {
+
+        final int payloadId;
+
+        long lastUpdateTimestamp;
+
+        PartialMessage(int payloadId) {
+            this.payloadId = payloadId;
+        }
+
+        /**
+         * Checks if the specified fragment belongs to this message, assuming that it has the same
+         * message ID.
+         */
+        abstract boolean matches(@NonNull ByteBuffer fragment);
+
+        /**
+         * @return true if the specified fragment added any information
+         */
+        abstract boolean add(@NonNull ByteBuffer fragment);
+
+        abstract boolean isCompleted();
+
+        /**
+         * Creates a copy of the reassembled message, only available while completed and not
+         * released.
+         */
+        @NonNull
+        abstract byte[] getMessage();
+
+        /**
+         * Releases the arrays used for reassembling. Called once the message is completed or
+         * dropped.
+         */
+        abstract void release();
+
+    }
+
+    /**
+     * A message encoded by the {@link FragmentCodec}. The buffer is only acquired when the first
+     * fragment gets added.
+     */
+    private static final class SequencedPartialMessage extends PartialMessage {
+
+        private final BufferPool bufferPool;
+
+        private final int fragmentCount;
+
+        /**
+         * One bit per fragment, set if the fragment has been received.
+         */
+        private final long[] receivedFragments = new long[(FragmentCodec.MAXIMUM_FRAGMENT_COUNT + 63) / 64];
+
+        private int receivedFragmentCount;
+
+        /**
+         * The message length, only known once the last fragment has been received.
+         */
+        private int length;
+
+        @Nullable
+        private byte[] buffer;
+
+        private SequencedPartialMessage(@NonNull ByteBuffer fragment, @NonNull BufferPool bufferPool) {
+            super(FragmentCodec.getPayloadId(fragment));
+            this.fragmentCount = FragmentCodec.getFragmentCount(fragment);
+            this.bufferPool = bufferPool;
+        }
+
+        @Override
+        boolean matches(@NonNull ByteBuffer fragment) {
+            return FragmentCodec.getPayloadId(fragment) == payloadId
+                    && FragmentCodec.getFragmentCount(fragment) == fragmentCount;
+        }
+
+        @Override
+        boolean add(@NonNull ByteBuffer fragment) {
+            int fragmentIndex = FragmentCodec.getFragmentIndex(fragment);
+            long mask = 1L << (fragmentIndex & 63);
+            if ((receivedFragments[fragmentIndex >>> 6] & mask) != 0) {
+                return false;
+            }
+            receivedFragments[fragmentIndex >>> 6] |= mask;
+            receivedFragmentCount++;
+
+            if (buffer == null) {
+                buffer = bufferPool.acquire();
+            }
+            FragmentCodec.readData(fragment, buffer);
+            if (fragmentIndex == fragmentCount - 1) {
+                length = fragmentIndex * FragmentCodec.FRAGMENT_DATA_LENGTH + FragmentCodec.getDataLength(fragment);
+            }
+            return true;
+        }
+
+        @Override
+        boolean isCompleted() {
+            return receivedFragmentCount == fragmentCount;
+        }
+
+        @NonNull
+        @Override
+        byte[] getMessage() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        @Override
+        void release() {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+                buffer = null;
+            }
+        }
+
+    }
+
+    /**
+     * A message encoded by the {@link FountainCodec}. Received symbols are kept as rows of an
+     * augmented matrix (coefficients followed by the symbol) in row echelon form: the row at index
+     * {@code i}, if present, has a coefficient of 1 at column {@code i} and 0 at all columns
+     * before. Once all rows are present, back substitution turns the symbols into the source
+     * symbols.
+     */
+    private static final class CodedPartialMessage extends PartialMessage {
+
+        private final int length;
+
+        private final int sourceSymbolCount;
+
+        private final int rowLength;
+
+        private final boolean[] presentRows;
+
+        private int presentRowCount;
+
+        @Nullable
+        private byte[] rows;
+
+        @Nullable
+        private byte[] receivedRow;
+
+        private CodedPartialMessage(@NonNull ByteBuffer fragment) {
+            super(FountainCodec.getPayloadId(fragment));
+            this.length = FountainCodec.getMessageLength(fragment);
+            this.sourceSymbolCount = FountainCodec.getSourceSymbolCount(length);
+            this.rowLength = sourceSymbolCount + FountainCodec.SYMBOL_LENGTH;
+            this.presentRows = new boolean[sourceSymbolCount];
+            this.rows = new byte[sourceSymbolCount * rowLength];
+            this.receivedRow = new byte[rowLength];
+        }
+
+        @Override
+        boolean matches(@NonNull ByteBuffer fragment) {
+            return FountainCodec.getPayloadId(fragment) == payloadId
+                    && FountainCodec.getMessageLength(fragment) == length;
+        }
+
+        @Override
+        boolean add(@NonNull ByteBuffer fragment) {
+            byte[] row = receivedRow;
+            FountainCodec.getCoefficients(FountainCodec.getFragmentIndex(fragment), sourceSymbolCount, row, 0);
+            FountainCodec.readSymbol(fragment, row, sourceSymbolCount);
+
+            for (int column = 0; column < sourceSymbolCount; column++) {
+                int coefficient = row[column] & 0xFF;
+                if (coefficient == 0) {
+                    continue;
+                }
+                if (presentRows[column]) {
+                    // eliminate the column, the present row has no coefficients before it
+                    GaloisField.multiplyAndAdd(coefficient, rows, column * rowLength + column, row, column, rowLength - column);
+                    continue;
+                }
+                GaloisField.multiply(GaloisField.inverse(coefficient), row, column, rowLength - column);
+                System.arraycopy(row, 0, rows, column * rowLength, rowLength);
+                presentRows[column] = true;
+                presentRowCount++;
+                if (isCompleted()) {
+                    substituteBack();
+                }
+                return true;
+            }
+            // linear combination of the present rows
+            return false;
+        }
+
+        private void substituteBack() {
+            for (int row = sourceSymbolCount - 2; row >= 0; row--) {
+                int rowOffset = row * rowLength;
+                for (int column = row + 1; column < sourceSymbolCount; column++) {
+                    int coefficient = rows[rowOffset + column] & 0xFF;
+                    GaloisField.multiplyAndAdd(coefficient, rows, column * rowLength + column, rows, rowOffset + column, rowLength - column);
+                }
+            }
+        }
+
+        @Override
+        boolean isCompleted() {
+            return presentRowCount == sourceSymbolCount;
+        }
+
+        @NonNull
+        @Override
+        byte[] getMessage() {
+            byte[] message = new byte[length];
+            for (int row = 0; row < sourceSymbolCount; row++) {
+                int offset = row * FountainCodec.SYMBOL_LENGTH;
+                int symbolLength = Math.min(FountainCodec.SYMBOL_LENGTH, length - offset);
+                System.arraycopy(rows, row * rowLength + sourceSymbolCount, message, offset, symbolLength);
+            }
+            return message;
+        }
+
+        @Override
+        void release() {
+            rows = null;
+            receivedRow = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblec.payload.PayloadWrapper;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+
+/**
+ * Sends messages that are too large for a single advertisement, by splitting them into fragments
+ * (see {@link FragmentCodec}) that can be reassembled by a {@link FragmentReassembler}.
+ *
+ * The fragments are sent in cycles: a window of a few fragments is advertised at the same time,
+ * each one for a fixed duration before it's replaced by the next one. Other payloads that are
+ * sent using the same {@link PayloadTransport} are advertised in between, so they don't need to
+ * wait until the whole message has been sent.
+ *
+ * By default, the same fragments are repeated in each cycle, so a receiver that missed a fragment
+ * needs to wait for exactly that fragment. With {@link #setForwardErrorCorrectionEnabled(boolean)
+ * forward error correction}, the source fragments are only sent in the first cycle and followed by
+ * an endless sequence of different repair fragments (see {@link FountainCodec}), so that any
+ * missed fragment can be replaced by the next one.
+ */
+public class FragmentSender {
+
+    public static final int DEFAULT_CONCURRENT_FRAGMENT_COUNT = 4;
+
+    public static final long DEFAULT_FRAGMENT_DURATION_MILLIS = 400;
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    private final AtomicInteger nextMessageId = new AtomicInteger(new Random().nextInt(0x10000));
+
+    private volatile int concurrentFragmentCount = DEFAULT_CONCURRENT_FRAGMENT_COUNT;
+
+    private volatile long fragmentDurationMillis = DEFAULT_FRAGMENT_DURATION_MILLIS;
+
+    private volatile boolean forwardErrorCorrectionEnabled;
+
+    /**
+     * @param scheduler used for timing how long each fragment is advertised
+     */
+    public FragmentSender(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this.payloadTransport = payloadTransport;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sends the encoded data of the specified wrapper, see {@link #send(int, ByteBuffer)}.
+     */
+    @NonNull
+    public Completable send(@NonNull PayloadWrapper payloadWrapper) {
+        return payloadWrapper.writeToBuffer()
+                .flatMapCompletable(data -> send(payloadWrapper.getId(), data));
+    }
+
+    /**
+     * Splits the remaining bytes of the specified message into fragments and advertises them in
+     * cycles, until the returned {@link Completable} gets disposed or an error occurs.
+     *
+     * @param payloadId the ID that the message will have when being reassembled
+     */
+    @NonNull
+    public Completable send(int payloadId, @NonNull ByteBuffer message) {
+        return Completable.defer(() -> {
+            Flowable<TransportPayload> fragments;
+            if (forwardErrorCorrectionEnabled) {
+                fragments = createCodedFragments(payloadId, message);
+            } else {
+                fragments = Flowable.fromIterable(createFragments(payloadId, message)).repeat();
+            }
+            long fragmentDurationMillis = this.fragmentDurationMillis;
+            return fragments.flatMapCompletable(fragment -> payloadTransport.send(fragment)
+                    .ambWith(Completable.timer(fragmentDurationMillis, TimeUnit.MILLISECONDS, scheduler)), false, concurrentFragmentCount);
+        });
+    }
+
+    /**
+     * Creates all fragments of the specified message, using a new message ID.
+     */
+    @NonNull
+    public List<TransportPayload> createFragments(int payloadId, @NonNull ByteBuffer message) {
+        int messageId = nextMessageId.getAndIncrement() & 0xFFFF;
+        int fragmentCount = FragmentCodec.getFragmentCount(message.remaining());
+        List<TransportPayload> fragments = new ArrayList<>(fragmentCount);
+        for (int fragmentIndex = 0; fragmentIndex < fragmentCount; fragmentIndex++) {
+            ByteBuffer data = FragmentCodec.encode(payloadId, messageId, fragmentIndex, message);
+            fragments.add(new TransportPayload(FragmentCodec.PAYLOAD_ID, payloadTransport.getDeviceIdHashCode(), data));
+        }
+        return fragments;
+    }
+
+    /**
+     * Creates an endless sequence of fragments of the specified message using the {@link
+     * FountainCodec}, starting with the source fragments. Fragments are encoded when requested.
+     */
+    @NonNull
+    public Flowable<TransportPayload> createCodedFragments(int payloadId, @NonNull ByteBuffer message) {
+        if (message.remaining() > FountainCodec.MAXIMUM_MESSAGE_LENGTH) {
+            return Flowable.error(new IllegalArgumentException("Message too long: " + message.remaining()));
+        }
+        int messageId = nextMessageId.getAndIncrement() & 0xFFFF;
+        int deviceIdHashCode = payloadTransport.getDeviceIdHashCode();
+        return Flowable.range(0, FountainCodec.MAXIMUM_FRAGMENT_INDEX + 1)
+                .map(fragmentIndex -> new TransportPayload(FountainCodec.PAYLOAD_ID, deviceIdHashCode,
+                        FountainCodec.encode(payloadId, messageId, fragmentIndex, message)))
+                .repeat();
+    }
+
+    public int getConcurrentFragmentCount() {
+        return concurrentFragmentCount;
+    }
+
+    /**
+     * Changes the amount of fragments that are advertised at the same time. Will be applied to
+     * messages sent after this call.
+     */
+    public void setConcurrentFragmentCount(int concurrentFragmentCount) {
+        this.concurrentFragmentCount = concurrentFragmentCount;
+    }
+
+    public long getFragmentDurationMillis() {
+        return fragmentDurationMillis;
+    }
+
+    /**
+     * Changes how long each fragment is advertised per cycle. Will be applied to messages sent
+     * after this call.
+     */
+    public void setFragmentDurationMillis(long fragmentDurationMillis) {
+        this.fragmentDurationMillis = fragmentDurationMillis;
+    }
+
+    public boolean isForwardErrorCorrectionEnabled() {
+        return forwardErrorCorrectionEnabled;
+    }
+
+    /**
+     * Enables or disables sending repair fragments instead of repeating the source fragments. Will
+     * be applied to messages sent after this call. Receivers need to support both encodings, which
+     * the {@link FragmentReassembler} does.
+     */
+    public void setForwardErrorCorrectionEnabled(boolean forwardErrorCorrectionEnabled) {
+        this.forwardErrorCorrectionEnabled = forwardErrorCorrectionEnabled;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Arithmetic in GF(2^8), using the primitive polynomial x^8 + x^4 + x^3 + x^2 + 1 (0x11D) and
+ * logarithm tables. Addition and subtraction are both XOR.
+ */
+final class GaloisField {
+
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+
+    /**
+     * Powers of the generator 2, repeated once so that the sum of two logarithms can be used as
+     * index without reducing it.
+     */
+    private static final byte[] EXP = new byte[2 * 255];
+
+    private static final int[] LOG = new int[256];
+
+    static {
+        int value = 1;
+        for (int exponent = 0; exponent < 255; exponent++) {
+            EXP[exponent] = (byte) value;
+            EXP[exponent + 255] = (byte) value;
+            LOG[value] = exponent;
+            value <<= 1;
+            if (value > 0xFF) {
+                value ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+    }
+
+    private GaloisField() {
+    }
+
+    static int multiply(int a, int b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return EXP[LOG[a] + LOG[b]] & 0xFF;
+    }
+
+    static int inverse(int a) {
+        if (a == 0) {
+            throw new ArithmeticException("Zero has no inverse");
+        }
+        return EXP[255 - LOG[a]] & 0xFF;
+    }
+
+    /**
+     * Adds the specified range of the source array, multiplied by the specified factor, to the
+     * target array: {@code target[targetOffset + i] += factor * source[sourceOffset + i]}.
+     */
+    static void multiplyAndAdd(int factor, @NonNull byte[] source, int sourceOffset, @NonNull byte[] target, int targetOffset, int length) {
+        if (factor == 0) {
+            return;
+        }
+        int factorLog = LOG[factor];
+        for (int i = 0; i < length; i++) {
+            int value = source[sourceOffset + i] & 0xFF;
+            if (value != 0) {
+                target[targetOffset + i] ^= EXP[factorLog + LOG[value]];
+            }
+        }
+    }
+
+    /**
+     * Multiplies the specified range of the array by the specified non-zero factor.
+     */
+    static void multiply(int factor, @NonNull byte[] array, int offset, int length) {
+        int factorLog = LOG[factor];
+        for (int i = offset; i < offset + length; i++) {
+            int value = array[i] & 0xFF;
+            if (value != 0) {
+                array[i] = EXP[factorLog + LOG[value]];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.nexenio.sblecdemo.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A histogram of non-negative values (e.g. latencies) with a fixed memory footprint, inspired by
+ * the HdrHistogram. Values are counted in buckets with a width relative to their magnitude:
+ * values below {@code 2 * SUB_BUCKET_COUNT} are counted exactly, larger ones with a relative error
+ * of less than {@code 1 / SUB_BUCKET_COUNT} (about 3%).
+ *
+ * Recording a value is lock free and doesn't allocate. Use {@link #getSnapshot()} to read
+ * percentiles.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    static final int BUCKET_COUNT = getBucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final StripedCounter count = new StripedCounter();
+
+    private final StripedCounter sum = new StripedCounter();
+
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records the specified value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        bucketCounts.incrementAndGet(getBucketIndex(value));
+        count.increment();
+        sum.add(value);
+
+        long currentMaximum = maximum.get();
+        while (value > currentMaximum && !maximum.compareAndSet(currentMaximum, value)) {
+            currentMaximum = maximum.get();
+        }
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucketIndex = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucketIndex;
+    }
+
+    /**
+     * The largest value that is counted in the bucket with the specified index.
+     */
+    static long getBucketUpperBound(int bucketIndex) {
+        if (bucketIndex < 2 * SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long subBucketValue = bucketIndex % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        // doesn't overflow for the last bucket, unlike ((subBucketValue + 1) << shift) - 1
+        return (subBucketValue << shift) + ((1L << shift) - 1);
+    }
+
+    /**
+     * Creates a copy of the current state. Values that are recorded concurrently may or may not be
+     * included.
+     */
+    @NonNull
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+        return new Snapshot(counts, count.sum(), sum.sum(), maximum.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        maximum.set(0);
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+
+        private final long[] bucketCounts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final long maximum;
+
+        Snapshot(@NonNull long[] bucketCounts, long count, long sum, long maximum) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sum = sum;
+            this.maximum = maximum;
+        }
+
+        /**
+         * The amount of recorded values.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        public long getMaximum() {
+            return maximum;
+        }
+
+        /**
+         * The value that the specified percentage of recorded values are less than or equal to,
+         * rounded up to the bucket width. Returns 0 if no values have been recorded.
+         *
+         * @param percentile between 0 and 100
+         */
+        public long getValueAtPercentile(double percentile) {
+            long total = 0;
+            for (long bucketCount : bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long targetCount = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+            long cumulativeCount = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulativeCount += bucketCounts[i];
+                if (cumulativeCount >= targetCount) {
+                    return Math.min(getBucketUpperBound(i), maximum);
+                }
+            }
+            return maximum;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "count=" + count +
+                    ", mean=" + getMean() +
+                    ", p50=" + getValueAtPercentile(50) +
+                    ", p99=" + getValueAtPercentile(99) +
+                    ", maximum=" + maximum +
+                    '}';
+        }
+
+    }
+
+}
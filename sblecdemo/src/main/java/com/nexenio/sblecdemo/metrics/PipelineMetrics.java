@@ -0,0 +1,135 @@
+package com.nexenio.sblecdemo.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+
+/**
+ * Records how the send and receive pipelines of a {@link com.nexenio.sblecdemo.DemoPresenter}
+ * perform. All recording methods are cheap enough to be called for every received payload and
+ * can be called from any thread.
+ *
+ * Use {@link #getSnapshot()} to read the current values, e.g. in tests or a debug overlay.
+ */
+public class PipelineMetrics {
+
+    private final Scheduler scheduler;
+
+    private final StripedCounter receivedCount = new StripedCounter();
+
+    private final StripedCounter processedCount = new StripedCounter();
+
+    private final StripedCounter visualizedCount = new StripedCounter();
+
+    private final StripedCounter sentCount = new StripedCounter();
+
+    private final LatencyHistogram decodeLatencyNanos = new LatencyHistogram();
+
+    private final LatencyHistogram endToEndLatencyMillis = new LatencyHistogram();
+
+    private final ConcurrentMap<String, StripedCounter> sendErrorCounts = new ConcurrentHashMap<>();
+
+    private volatile long startTimestamp;
+
+    /**
+     * @param scheduler provides the current time, used for calculating rates
+     */
+    public PipelineMetrics(@NonNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+        startTimestamp = scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Should be called for every payload received from the transport, before any filtering.
+     */
+    public void onPayloadReceived() {
+        receivedCount.increment();
+    }
+
+    /**
+     * Should be called for every received payload that passed all filters and got decoded.
+     *
+     * @param decodeDurationNanos the time it took to decode the payload
+     */
+    public void onPayloadDecoded(long decodeDurationNanos) {
+        processedCount.increment();
+        decodeLatencyNanos.record(decodeDurationNanos);
+    }
+
+    /**
+     * Should be called when a received payload got visualized.
+     *
+     * @param payloadTimestamp the timestamp of the payload, i.e. when it has been created by the
+     *                         sender
+     */
+    public void onPayloadVisualized(long payloadTimestamp) {
+        visualizedCount.increment();
+        endToEndLatencyMillis.record(scheduler.now(TimeUnit.MILLISECONDS) - payloadTimestamp);
+    }
+
+    /**
+     * Should be called when sending a payload has been started.
+     */
+    public void onPayloadSent() {
+        sentCount.increment();
+    }
+
+    /**
+     * Counts the specified error by its type.
+     */
+    public void onSendError(@NonNull Throwable throwable) {
+        String errorType = throwable.getClass().getSimpleName();
+        StripedCounter errorCount = sendErrorCounts.get(errorType);
+        if (errorCount == null) {
+            StripedCounter newErrorCount = new StripedCounter(1);
+            errorCount = sendErrorCounts.putIfAbsent(errorType, newErrorCount);
+            if (errorCount == null) {
+                errorCount = newErrorCount;
+            }
+        }
+        errorCount.increment();
+    }
+
+    /**
+     * Creates a copy of the current values. Values that are recorded concurrently may or may not
+     * be included.
+     */
+    @NonNull
+    public PipelineMetricsSnapshot getSnapshot() {
+        Map<String, Long> sendErrorCounts = new HashMap<>();
+        for (Map.Entry<String, StripedCounter> entry : this.sendErrorCounts.entrySet()) {
+            sendErrorCounts.put(entry.getKey(), entry.getValue().sum());
+        }
+        long duration = scheduler.now(TimeUnit.MILLISECONDS) - startTimestamp;
+        return new PipelineMetricsSnapshot(
+                duration,
+                receivedCount.sum(),
+                processedCount.sum(),
+                visualizedCount.sum(),
+                sentCount.sum(),
+                decodeLatencyNanos.getSnapshot(),
+                endToEndLatencyMillis.getSnapshot(),
+                sendErrorCounts
+        );
+    }
+
+    /**
+     * Resets all values. Rates will be calculated relative to the time of this call.
+     */
+    public void reset() {
+        receivedCount.reset();
+        processedCount.reset();
+        visualizedCount.reset();
+        sentCount.reset();
+        decodeLatencyNanos.reset();
+        endToEndLatencyMillis.reset();
+        sendErrorCounts.clear();
+        startTimestamp = scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.nexenio.sblecdemo.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An immutable copy of the values recorded by {@link PipelineMetrics}.
+ */
+public final class PipelineMetricsSnapshot {
+
+    private final long durationMillis;
+
+    private final long receivedCount;
+
+    private final long processedCount;
+
+    private final long visualizedCount;
+
+    private final long sentCount;
+
+    @NonNull
+    private final LatencyHistogram.Snapshot decodeLatencyNanos;
+
+    @NonNull
+    private final LatencyHistogram.Snapshot endToEndLatencyMillis;
+
+    @NonNull
+    private final Map<String, Long> sendErrorCounts;
+
+    PipelineMetricsSnapshot(long durationMillis, long receivedCount, long processedCount, long visualizedCount, long sentCount,
+                            @NonNull LatencyHistogram.Snapshot decodeLatencyNanos, @NonNull LatencyHistogram.Snapshot endToEndLatencyMillis,
+                            @NonNull Map<String, Long> sendErrorCounts) {
+        this.durationMillis = durationMillis;
+        this.receivedCount = receivedCount;
+        this.processedCount = processedCount;
+        this.visualizedCount = visualizedCount;
+        this.sentCount = sentCount;
+        this.decodeLatencyNanos = decodeLatencyNanos;
+        this.endToEndLatencyMillis = endToEndLatencyMillis;
+        this.sendErrorCounts = Collections.unmodifiableMap(sendErrorCounts);
+    }
+
+    /**
+     * The duration over which the values have been recorded.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * The amount of payloads received from the transport, including repeated and outdated ones.
+     */
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * The average amount of payloads received per second.
+     */
+    public double getReceivedPerSecond() {
+        return durationMillis > 0 ? receivedCount * 1000d / durationMillis : 0;
+    }
+
+    /**
+     * The amount of received payloads that passed all filters and got decoded.
+     */
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * The share of received payloads that have been dropped before decoding, e.g. because they
+     * were repeated, outdated or of a different type.
+     */
+    public double getFilterDropRatio() {
+        return receivedCount > 0 ? 1 - (double) processedCount / receivedCount : 0;
+    }
+
+    /**
+     * The amount of received payloads that got visualized.
+     */
+    public long getVisualizedCount() {
+        return visualizedCount;
+    }
+
+    /**
+     * The amount of payloads that have been sent.
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * The time it took to decode received payloads, in nanoseconds.
+     */
+    @NonNull
+    public LatencyHistogram.Snapshot getDecodeLatencyNanos() {
+        return decodeLatencyNanos;
+    }
+
+    /**
+     * The time between the creation of received payloads (according to their timestamp) and
+     * their visualization, in milliseconds. Includes the difference between the clocks of the
+     * sending and receiving device.
+     */
+    @NonNull
+    public LatencyHistogram.Snapshot getEndToEndLatencyMillis() {
+        return endToEndLatencyMillis;
+    }
+
+    /**
+     * The amount of errors that occurred while sending, by the simple class name of the error.
+     */
+    @NonNull
+    public Map<String, Long> getSendErrorCounts() {
+        return sendErrorCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineMetricsSnapshot{" +
+                "durationMillis=" + durationMillis +
+                ", receivedPerSecond=" + getReceivedPerSecond() +
+                ", filterDropRatio=" + getFilterDropRatio() +
+                ", visualizedCount=" + visualizedCount +
+                ", sentCount=" + sentCount +
+                ", decodeLatencyNanos=" + decodeLatencyNanos +
+                ", endToEndLatencyMillis=" + endToEndLatencyMillis +
+                ", sendErrorCounts=" + sendErrorCounts +
+                '}';
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.nexenio.sblecdemo.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that can be incremented by multiple threads without contending on a single memory
+ * location. Each thread updates one of multiple stripes (selected by its ID), which are summed up
+ * when reading the value.
+ *
+ * Similar to {@code java.util.concurrent.atomic.LongAdder}, which is not available before API
+ * level 24. Stripes are spaced by a cache line to avoid false sharing.
+ */
+public class StripedCounter {
+
+    /**
+     * The amount of longs between two stripes, so that each stripe uses its own 128 byte cache
+     * line (or pair of adjacent 64 byte lines).
+     */
+    private static final int PADDING = 16;
+
+    private static final int MAXIMUM_STRIPE_COUNT = 64;
+
+    private final AtomicLongArray stripes;
+
+    private final int stripeMask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param stripeCount the amount of stripes, will be rounded up to a power of two
+     */
+    public StripedCounter(int stripeCount) {
+        int roundedStripeCount = Math.min(MAXIMUM_STRIPE_COUNT, Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1);
+        stripes = new AtomicLongArray(roundedStripeCount * PADDING);
+        stripeMask = roundedStripeCount - 1;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        stripes.getAndAdd(getStripeIndex(), delta);
+    }
+
+    private int getStripeIndex() {
+        long threadId = Thread.currentThread().getId();
+        int hash = (int) (threadId * 0x9E3779B97F4A7C15L >>> 32);
+        return (hash & stripeMask) * PADDING;
+    }
+
+    /**
+     * The sum of all stripes. Not an atomic snapshot if the counter is updated concurrently.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < stripes.length(); i += PADDING) {
+            sum += stripes.get(i);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < stripes.length(); i += PADDING) {
+            stripes.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+
+}
@@ -0,0 +1,351 @@
+package com.nexenio.sblecdemo.payload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes and decodes the fields of a demo payload.
+ *
+ * Three formats are supported:
+ *
+ * <ul>
+ * <li>{@link #FORMAT_LEGACY}: 4 bytes icon index, 4 bytes color index and 8 bytes timestamp (in
+ * milliseconds since epoch), {@link #LEGACY_BUFFER_LENGTH} bytes in total.</li>
+ * <li>{@link #FORMAT_COMPACT}: 1 byte {@link #COMPACT_VERSION version}, the icon and color index
+ * as unsigned variable length integers (1 byte for indices below 128) and the lowest 4 bytes of
+ * the timestamp. Usually 7 bytes, never more than {@link #MAXIMUM_COMPACT_BUFFER_LENGTH}.</li>
+ * <li>{@link #FORMAT_REGISTERS}: 1 byte {@link #REGISTERS_VERSION version}, the icon and color
+ * index like in the compact format, followed by a version of each index: the lowest 4 bytes of
+ * the timestamp and 4 bytes device ID hash code of the device that changed it. Usually 19 bytes,
+ * never more than {@link #MAXIMUM_REGISTERS_BUFFER_LENGTH}.</li>
+ * </ul>
+ *
+ * Buffers with a length of {@link #LEGACY_BUFFER_LENGTH} are in the legacy format, all other
+ * formats can be detected by their first byte.
+ *
+ * All reads use absolute indices, so they neither allocate nor modify the position of the
+ * specified {@link ByteBuffer}. This allows checking a received payload (e.g. if it's outdated)
+ * before creating any wrapper object for it.
+ */
+public final class DemoPayloadCodec {
+
+    public static final int FORMAT_UNKNOWN = -1;
+    public static final int FORMAT_LEGACY = 0;
+    public static final int FORMAT_COMPACT = 1;
+    public static final int FORMAT_REGISTERS = 2;
+
+    /**
+     * The length of a buffer containing a demo payload in the {@link #FORMAT_LEGACY legacy
+     * format}.
+     */
+    public static final int LEGACY_BUFFER_LENGTH = 16;
+
+    /**
+     * The first byte of a buffer containing a demo payload in the {@link #FORMAT_COMPACT compact
+     * format}.
+     */
+    public static final byte COMPACT_VERSION = 1;
+
+    /**
+     * Version byte, two variable length integers of up to 5 bytes and 4 timestamp bytes.
+     */
+    public static final int MAXIMUM_COMPACT_BUFFER_LENGTH = 1 + 5 + 5 + 4;
+
+    /**
+     * The first byte of a buffer containing a demo payload in the {@link #FORMAT_REGISTERS
+     * registers format}.
+     */
+    public static final byte REGISTERS_VERSION = 2;
+
+    /**
+     * Version byte, two variable length integers of up to 5 bytes and two versions of 8 bytes.
+     */
+    public static final int MAXIMUM_REGISTERS_BUFFER_LENGTH = 1 + 5 + 5 + 8 + 8;
+
+    private static final int LEGACY_ICON_INDEX_OFFSET = 0;
+    private static final int LEGACY_COLOR_INDEX_OFFSET = 4;
+    private static final int LEGACY_TIMESTAMP_OFFSET = 8;
+
+    private static final int COMPACT_ICON_INDEX_OFFSET = 1;
+    private static final int COMPACT_TIMESTAMP_LENGTH = 4;
+
+    /**
+     * Offsets of the versions, relative to the end of the buffer.
+     */
+    private static final int REGISTERS_ICON_TIMESTAMP_OFFSET = 16;
+    private static final int REGISTERS_ICON_DEVICE_ID_HASH_CODE_OFFSET = 12;
+    private static final int REGISTERS_COLOR_TIMESTAMP_OFFSET = 8;
+    private static final int REGISTERS_COLOR_DEVICE_ID_HASH_CODE_OFFSET = 4;
+    private static final int REGISTERS_VERSIONS_LENGTH = 16;
+
+    private static final int VARINT_MAXIMUM_LENGTH = 5;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final int VARINT_VALUE_BITS = 0x7F;
+
+    private DemoPayloadCodec() {
+    }
+
+    /**
+     * Detects the format of the specified buffer.
+     *
+     * @return {@link #FORMAT_LEGACY}, {@link #FORMAT_COMPACT} or {@link #FORMAT_UNKNOWN} if the
+     *         buffer doesn't contain a valid demo payload
+     */
+    public static int getFormat(@NonNull ByteBuffer byteBuffer) {
+        int length = byteBuffer.limit();
+        if (length == LEGACY_BUFFER_LENGTH) {
+            return FORMAT_LEGACY;
+        }
+        if (length < 1) {
+            return FORMAT_UNKNOWN;
+        }
+        int format;
+        int trailingLength;
+        switch (byteBuffer.get(0)) {
+            case COMPACT_VERSION:
+                format = FORMAT_COMPACT;
+                trailingLength = COMPACT_TIMESTAMP_LENGTH;
+                break;
+            case REGISTERS_VERSION:
+                format = FORMAT_REGISTERS;
+                trailingLength = REGISTERS_VERSIONS_LENGTH;
+                break;
+            default:
+                return FORMAT_UNKNOWN;
+        }
+        int iconIndexLength = getVarIntLength(byteBuffer, COMPACT_ICON_INDEX_OFFSET);
+        if (iconIndexLength < 0) {
+            return FORMAT_UNKNOWN;
+        }
+        int colorIndexLength = getVarIntLength(byteBuffer, COMPACT_ICON_INDEX_OFFSET + iconIndexLength);
+        if (colorIndexLength < 0) {
+            return FORMAT_UNKNOWN;
+        }
+        int expectedLength = COMPACT_ICON_INDEX_OFFSET + iconIndexLength + colorIndexLength + trailingLength;
+        return length == expectedLength ? format : FORMAT_UNKNOWN;
+    }
+
+    /**
+     * Checks if the specified buffer contains a demo payload in any supported format.
+     */
+    public static boolean isValid(@NonNull ByteBuffer byteBuffer) {
+        return getFormat(byteBuffer) != FORMAT_UNKNOWN;
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer.
+     */
+    public static int readIconIndex(@NonNull ByteBuffer byteBuffer) {
+        if (byteBuffer.limit() == LEGACY_BUFFER_LENGTH) {
+            return byteBuffer.getInt(LEGACY_ICON_INDEX_OFFSET);
+        }
+        return readVarInt(byteBuffer, COMPACT_ICON_INDEX_OFFSET);
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer.
+     */
+    public static int readColorIndex(@NonNull ByteBuffer byteBuffer) {
+        if (byteBuffer.limit() == LEGACY_BUFFER_LENGTH) {
+            return byteBuffer.getInt(LEGACY_COLOR_INDEX_OFFSET);
+        }
+        int offset = COMPACT_ICON_INDEX_OFFSET + getVarIntLength(byteBuffer, COMPACT_ICON_INDEX_OFFSET);
+        return readVarInt(byteBuffer, offset);
+    }
+
+    /**
+     * Reads the timestamp relative to the current system time, see {@link
+     * #readTimestamp(ByteBuffer, long)}.
+     */
+    public static long readTimestamp(@NonNull ByteBuffer byteBuffer) {
+        return readTimestamp(byteBuffer, System.currentTimeMillis());
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer. For the registers format, this is the
+     * newer timestamp of both versions.
+     *
+     * @param referenceTimestamp used for restoring truncated timestamps, usually the current time
+     *                           of the receiving device. See {@link #restoreTimestamp(int,
+     *                           long)}.
+     */
+    public static long readTimestamp(@NonNull ByteBuffer byteBuffer, long referenceTimestamp) {
+        if (byteBuffer.limit() == LEGACY_BUFFER_LENGTH) {
+            return byteBuffer.getLong(LEGACY_TIMESTAMP_OFFSET);
+        }
+        if (byteBuffer.get(0) == REGISTERS_VERSION) {
+            return Math.max(
+                    readTimestamp(byteBuffer, REGISTERS_ICON_TIMESTAMP_OFFSET, referenceTimestamp),
+                    readTimestamp(byteBuffer, REGISTERS_COLOR_TIMESTAMP_OFFSET, referenceTimestamp)
+            );
+        }
+        return readTimestamp(byteBuffer, COMPACT_TIMESTAMP_LENGTH, referenceTimestamp);
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer. For formats without per-index
+     * versions, this is the {@link #readTimestamp(ByteBuffer, long) timestamp} of the payload.
+     */
+    public static long readIconTimestamp(@NonNull ByteBuffer byteBuffer, long referenceTimestamp) {
+        if (byteBuffer.limit() != LEGACY_BUFFER_LENGTH && byteBuffer.get(0) == REGISTERS_VERSION) {
+            return readTimestamp(byteBuffer, REGISTERS_ICON_TIMESTAMP_OFFSET, referenceTimestamp);
+        }
+        return readTimestamp(byteBuffer, referenceTimestamp);
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer. For formats without per-index
+     * versions, this is the {@link #readTimestamp(ByteBuffer, long) timestamp} of the payload.
+     */
+    public static long readColorTimestamp(@NonNull ByteBuffer byteBuffer, long referenceTimestamp) {
+        if (byteBuffer.limit() != LEGACY_BUFFER_LENGTH && byteBuffer.get(0) == REGISTERS_VERSION) {
+            return readTimestamp(byteBuffer, REGISTERS_COLOR_TIMESTAMP_OFFSET, referenceTimestamp);
+        }
+        return readTimestamp(byteBuffer, referenceTimestamp);
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer.
+     *
+     * @param senderDeviceIdHashCode returned for formats without per-index versions
+     */
+    public static int readIconDeviceIdHashCode(@NonNull ByteBuffer byteBuffer, int senderDeviceIdHashCode) {
+        if (byteBuffer.limit() != LEGACY_BUFFER_LENGTH && byteBuffer.get(0) == REGISTERS_VERSION) {
+            return byteBuffer.getInt(byteBuffer.limit() - REGISTERS_ICON_DEVICE_ID_HASH_CODE_OFFSET);
+        }
+        return senderDeviceIdHashCode;
+    }
+
+    /**
+     * Expects a {@link #isValid(ByteBuffer) valid} buffer.
+     *
+     * @param senderDeviceIdHashCode returned for formats without per-index versions
+     */
+    public static int readColorDeviceIdHashCode(@NonNull ByteBuffer byteBuffer, int senderDeviceIdHashCode) {
+        if (byteBuffer.limit() != LEGACY_BUFFER_LENGTH && byteBuffer.get(0) == REGISTERS_VERSION) {
+            return byteBuffer.getInt(byteBuffer.limit() - REGISTERS_COLOR_DEVICE_ID_HASH_CODE_OFFSET);
+        }
+        return senderDeviceIdHashCode;
+    }
+
+    private static long readTimestamp(@NonNull ByteBuffer byteBuffer, int offsetFromEnd, long referenceTimestamp) {
+        int truncatedTimestamp = byteBuffer.getInt(byteBuffer.limit() - offsetFromEnd);
+        return restoreTimestamp(truncatedTimestamp, referenceTimestamp);
+    }
+
+    /**
+     * Restores a timestamp from its lowest 32 bits, by picking the value closest to the specified
+     * reference timestamp. This is wraparound-safe as long as the actual timestamp is within
+     * about 24 days of the reference.
+     */
+    public static long restoreTimestamp(int truncatedTimestamp, long referenceTimestamp) {
+        int difference = truncatedTimestamp - (int) referenceTimestamp;
+        return referenceTimestamp + difference;
+    }
+
+    /**
+     * Encodes the specified values into a new buffer, ready to be read from. Use {@link
+     * #encodeRegisters(int, int, long, int, long, int)} for the registers format.
+     */
+    @NonNull
+    public static ByteBuffer encode(int format, int iconIndex, int colorIndex, long timestamp) {
+        switch (format) {
+            case FORMAT_LEGACY: {
+                ByteBuffer byteBuffer = ByteBuffer.allocate(LEGACY_BUFFER_LENGTH);
+                byteBuffer.putInt(LEGACY_ICON_INDEX_OFFSET, iconIndex);
+                byteBuffer.putInt(LEGACY_COLOR_INDEX_OFFSET, colorIndex);
+                byteBuffer.putLong(LEGACY_TIMESTAMP_OFFSET, timestamp);
+                return byteBuffer;
+            }
+            case FORMAT_COMPACT: {
+                ByteBuffer byteBuffer = ByteBuffer.allocate(getEncodedLength(FORMAT_COMPACT, iconIndex, colorIndex));
+                byteBuffer.put(COMPACT_VERSION);
+                putVarInt(byteBuffer, iconIndex);
+                putVarInt(byteBuffer, colorIndex);
+                byteBuffer.putInt((int) timestamp);
+                byteBuffer.rewind();
+                return byteBuffer;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+    /**
+     * Encodes the specified values in the {@link #FORMAT_REGISTERS registers format} into a new
+     * buffer, ready to be read from.
+     */
+    @NonNull
+    public static ByteBuffer encodeRegisters(int iconIndex, int colorIndex, long iconTimestamp, int iconDeviceIdHashCode, long colorTimestamp, int colorDeviceIdHashCode) {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(getEncodedLength(FORMAT_REGISTERS, iconIndex, colorIndex));
+        byteBuffer.put(REGISTERS_VERSION);
+        putVarInt(byteBuffer, iconIndex);
+        putVarInt(byteBuffer, colorIndex);
+        byteBuffer.putInt((int) iconTimestamp);
+        byteBuffer.putInt(iconDeviceIdHashCode);
+        byteBuffer.putInt((int) colorTimestamp);
+        byteBuffer.putInt(colorDeviceIdHashCode);
+        byteBuffer.rewind();
+        return byteBuffer;
+    }
+
+    /**
+     * The amount of bytes required to encode the specified values in the specified format.
+     */
+    public static int getEncodedLength(int format, int iconIndex, int colorIndex) {
+        if (format == FORMAT_LEGACY) {
+            return LEGACY_BUFFER_LENGTH;
+        }
+        int trailingLength = format == FORMAT_REGISTERS ? REGISTERS_VERSIONS_LENGTH : COMPACT_TIMESTAMP_LENGTH;
+        return COMPACT_ICON_INDEX_OFFSET + getVarIntLength(iconIndex) + getVarIntLength(colorIndex) + trailingLength;
+    }
+
+    /*
+        Variable length integers (unsigned LEB128)
+     */
+
+    private static int getVarIntLength(int value) {
+        int length = 1;
+        while ((value & ~VARINT_VALUE_BITS) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return the amount of bytes of the variable length integer starting at the specified
+     *         offset or -1 if it's not terminated within the buffer
+     */
+    private static int getVarIntLength(@NonNull ByteBuffer byteBuffer, int offset) {
+        int maximumLength = Math.min(VARINT_MAXIMUM_LENGTH, byteBuffer.limit() - offset);
+        for (int length = 1; length <= maximumLength; length++) {
+            if ((byteBuffer.get(offset + length - 1) & VARINT_CONTINUATION_BIT) == 0) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    private static int readVarInt(@NonNull ByteBuffer byteBuffer, int offset) {
+        int value = 0;
+        int shift = 0;
+        byte currentByte;
+        do {
+            currentByte = byteBuffer.get(offset++);
+            value |= (currentByte & VARINT_VALUE_BITS) << shift;
+            shift += 7;
+        } while ((currentByte & VARINT_CONTINUATION_BIT) != 0);
+        return value;
+    }
+
+    private static void putVarInt(@NonNull ByteBuffer byteBuffer, int value) {
+        while ((value & ~VARINT_VALUE_BITS) != 0) {
+            byteBuffer.put((byte) ((value & VARINT_VALUE_BITS) | VARINT_CONTINUATION_BIT));
+            value >>>= 7;
+        }
+        byteBuffer.put((byte) value);
+    }
+
+}
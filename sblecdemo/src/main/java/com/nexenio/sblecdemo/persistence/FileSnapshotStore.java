@@ -0,0 +1,71 @@
+package com.nexenio.sblecdemo.persistence;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A {@link SnapshotStore} backed by a file. Snapshots are written to a temporary file first and
+ * then renamed, so that a crash while writing never leaves a partially written snapshot behind.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+
+    /**
+     * Snapshots are expected to be small, larger files are not read.
+     */
+    public static final int MAXIMUM_LENGTH = 64 * 1024;
+
+    private final File file;
+
+    private final File temporaryFile;
+
+    public FileSnapshotStore(@NonNull File file) {
+        this.file = file;
+        this.temporaryFile = new File(file.getPath() + ".tmp");
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] read() throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        long length = file.length();
+        if (length > MAXIMUM_LENGTH) {
+            throw new IOException("Snapshot too long: " + length);
+        }
+        byte[] snapshot = new byte[(int) length];
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < snapshot.length) {
+                int readCount = inputStream.read(snapshot, offset, snapshot.length - offset);
+                if (readCount < 0) {
+                    throw new IOException("Snapshot truncated at " + offset + " of " + snapshot.length + " bytes");
+                }
+                offset += readCount;
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public synchronized void write(@NonNull byte[] snapshot) throws IOException {
+        try (FileOutputStream outputStream = new FileOutputStream(temporaryFile)) {
+            outputStream.write(snapshot);
+            outputStream.getFD().sync();
+        }
+        if (!temporaryFile.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.nexenio.sblecdemo.persistence;
+
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Persists a single snapshot, replacing the previous one. Implementations may block, callers
+ * should not use them on the main thread.
+ */
+public interface SnapshotStore {
+
+    /**
+     * Reads the last written snapshot.
+     *
+     * @return the snapshot, or null if none has been written yet
+     */
+    @Nullable
+    byte[] read() throws IOException;
+
+    /**
+     * Replaces the persisted snapshot with the specified one.
+     */
+    void write(@NonNull byte[] snapshot) throws IOException;
+
+}
@@ -0,0 +1,113 @@
+package com.nexenio.sblecdemo.persistence;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Writes snapshots to a {@link SnapshotStore} in the background. Write requests are debounced:
+ * the first request schedules a write after a fixed delay, further requests in between don't
+ * schedule additional writes. The snapshot is created when the write happens, so it always
+ * reflects the latest state.
+ */
+public class SnapshotWriter {
+
+    public static final long DEFAULT_DELAY_MILLIS = 1_000;
+
+    private final SnapshotStore snapshotStore;
+
+    private final Callable<byte[]> snapshotFactory;
+
+    private final Scheduler scheduler;
+
+    private final long delayMillis;
+
+    private final AtomicLong requestedCount = new AtomicLong();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * Guarded by {@code this}.
+     */
+    @Nullable
+    private Disposable scheduledWriteDisposable;
+
+    public SnapshotWriter(@NonNull SnapshotStore snapshotStore, @NonNull Callable<byte[]> snapshotFactory, @NonNull Scheduler scheduler) {
+        this(snapshotStore, snapshotFactory, DEFAULT_DELAY_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param snapshotFactory creates the snapshot that should be written, called on the specified
+     *                        scheduler
+     * @param scheduler       used for creating and writing snapshots, should allow blocking I/O
+     */
+    public SnapshotWriter(@NonNull SnapshotStore snapshotStore, @NonNull Callable<byte[]> snapshotFactory, long delay, @NonNull TimeUnit delayTimeUnit, @NonNull Scheduler scheduler) {
+        this.snapshotStore = snapshotStore;
+        this.snapshotFactory = snapshotFactory;
+        this.delayMillis = delayTimeUnit.toMillis(delay);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Schedules a write after the delay, unless one is already scheduled.
+     */
+    public synchronized void requestWrite() {
+        requestedCount.incrementAndGet();
+        if (scheduledWriteDisposable == null) {
+            scheduledWriteDisposable = scheduler.scheduleDirect(this::write, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes a scheduled snapshot without waiting for the delay, e.g. before the app may get
+     * stopped. Does nothing if no write has been requested.
+     */
+    public synchronized void flush() {
+        if (scheduledWriteDisposable == null) {
+            return;
+        }
+        scheduledWriteDisposable.dispose();
+        scheduledWriteDisposable = scheduler.scheduleDirect(this::write);
+    }
+
+    private void write() {
+        synchronized (this) {
+            scheduledWriteDisposable = null;
+        }
+        try {
+            snapshotStore.write(snapshotFactory.call());
+            writtenCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * The amount of times a write has been requested.
+     */
+    public long getRequestedCount() {
+        return requestedCount.get();
+    }
+
+    /**
+     * The amount of snapshots that have actually been written.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * The amount of snapshots that couldn't be created or written.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+}
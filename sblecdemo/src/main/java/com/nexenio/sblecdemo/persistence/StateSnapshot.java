@@ -0,0 +1,107 @@
+package com.nexenio.sblecdemo.persistence;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The state of a device that should survive restarts: the last demo payload, as encoded by {@link
+ * com.nexenio.sblecdemo.DemoPayloadWrapper#writeToBuffer()}, and optionally the known peers.
+ */
+public class StateSnapshot {
+
+    private final long timestamp;
+
+    private final int deviceIdHashCode;
+
+    @Nullable
+    private final ByteBuffer demoPayloadData;
+
+    @NonNull
+    private final List<Peer> peers;
+
+    /**
+     * @param timestamp        the time at which the snapshot has been created, also used as
+     *                         reference for restoring truncated timestamps of the demo payload
+     * @param deviceIdHashCode the hash code of the device ID that the demo payload has been sent
+     *                         with
+     */
+    public StateSnapshot(long timestamp, int deviceIdHashCode, @Nullable ByteBuffer demoPayloadData, @NonNull List<Peer> peers) {
+        this.timestamp = timestamp;
+        this.deviceIdHashCode = deviceIdHashCode;
+        this.demoPayloadData = demoPayloadData;
+        this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    /**
+     * The encoded demo payload, or null if no state has been sent or received yet.
+     */
+    @Nullable
+    public ByteBuffer getDemoPayloadData() {
+        return demoPayloadData;
+    }
+
+    @NonNull
+    public List<Peer> getPeers() {
+        return peers;
+    }
+
+    @Override
+    public String toString() {
+        return "StateSnapshot{" +
+                "timestamp=" + timestamp +
+                ", deviceIdHashCode=" + deviceIdHashCode +
+                ", demoPayloadLength=" + (demoPayloadData != null ? demoPayloadData.remaining() : -1) +
+                ", peerCount=" + peers.size() +
+                '}';
+    }
+
+    /**
+     * A peer as known when the snapshot has been created, see {@link
+     * com.nexenio.sblecdemo.receiver.PeerTable}.
+     */
+    public static final class Peer {
+
+        @NonNull
+        private final TransportPayload latestPayload;
+
+        private final long lastSeenTimestamp;
+
+        private final long receiveCount;
+
+        public Peer(@NonNull TransportPayload latestPayload, long lastSeenTimestamp, long receiveCount) {
+            this.latestPayload = latestPayload;
+            this.lastSeenTimestamp = lastSeenTimestamp;
+            this.receiveCount = receiveCount;
+        }
+
+        @NonNull
+        public TransportPayload getLatestPayload() {
+            return latestPayload;
+        }
+
+        public long getLastSeenTimestamp() {
+            return lastSeenTimestamp;
+        }
+
+        public long getReceiveCount() {
+            return receiveCount;
+        }
+
+    }
+
+}
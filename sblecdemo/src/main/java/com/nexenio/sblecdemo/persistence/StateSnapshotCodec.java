@@ -0,0 +1,148 @@
+package com.nexenio.sblecdemo.persistence;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes and decodes {@link StateSnapshot}s:
+ *
+ * <pre>
+ * | version (1) | timestamp (8) | device ID hash code (4) | demo payload length (1) | demo payload |
+ * | peer count (2) | peers |
+ * </pre>
+ *
+ * Each peer is encoded as:
+ *
+ * <pre>
+ * | device ID hash code (4) | last seen timestamp (8) | receive count (4) | payload ID (1) |
+ * | payload length (2) | payload |
+ * </pre>
+ *
+ * The demo payload is stored exactly as it has been sent, a length of 0 means that there is none.
+ * Snapshots with an unknown version are rejected, so that the format can be changed later on.
+ */
+public final class StateSnapshotCodec {
+
+    public static final byte VERSION = 1;
+
+    /**
+     * Only the most recently seen peers are stored.
+     */
+    public static final int MAXIMUM_PEER_COUNT = 256;
+
+    private static final int HEADER_LENGTH = 1 + 8 + 4 + 1;
+    private static final int PEER_HEADER_LENGTH = 4 + 8 + 4 + 1 + 2;
+
+    private StateSnapshotCodec() {
+    }
+
+    @NonNull
+    public static byte[] encode(@NonNull StateSnapshot stateSnapshot) {
+        ByteBuffer demoPayloadData = stateSnapshot.getDemoPayloadData();
+        int demoPayloadLength = demoPayloadData != null ? demoPayloadData.remaining() : 0;
+        if (demoPayloadLength > 0xFF) {
+            throw new IllegalArgumentException("Demo payload too long: " + demoPayloadLength);
+        }
+
+        List<StateSnapshot.Peer> peers = getMostRecentPeers(stateSnapshot.getPeers());
+        int length = HEADER_LENGTH + demoPayloadLength + 2;
+        for (StateSnapshot.Peer peer : peers) {
+            length += PEER_HEADER_LENGTH + peer.getLatestPayload().getData().remaining();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(VERSION);
+        buffer.putLong(stateSnapshot.getTimestamp());
+        buffer.putInt(stateSnapshot.getDeviceIdHashCode());
+        buffer.put((byte) demoPayloadLength);
+        if (demoPayloadData != null) {
+            put(buffer, demoPayloadData);
+        }
+        buffer.putShort((short) peers.size());
+        for (StateSnapshot.Peer peer : peers) {
+            TransportPayload latestPayload = peer.getLatestPayload();
+            buffer.putInt(latestPayload.getDeviceIdHashCode());
+            buffer.putLong(peer.getLastSeenTimestamp());
+            buffer.putInt((int) Math.min(peer.getReceiveCount(), Integer.MAX_VALUE));
+            buffer.put((byte) latestPayload.getId());
+            buffer.putShort((short) latestPayload.getData().remaining());
+            put(buffer, latestPayload.getData());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the snapshot is malformed or has an unknown version
+     */
+    @NonNull
+    public static StateSnapshot decode(@NonNull byte[] snapshot) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown version: " + version);
+            }
+            long timestamp = buffer.getLong();
+            int deviceIdHashCode = buffer.getInt();
+            int demoPayloadLength = buffer.get() & 0xFF;
+            ByteBuffer demoPayloadData = demoPayloadLength > 0 ? get(buffer, demoPayloadLength) : null;
+
+            int peerCount = buffer.getShort() & 0xFFFF;
+            List<StateSnapshot.Peer> peers = new ArrayList<>(peerCount);
+            for (int i = 0; i < peerCount; i++) {
+                int peerDeviceIdHashCode = buffer.getInt();
+                long lastSeenTimestamp = buffer.getLong();
+                long receiveCount = buffer.getInt() & 0xFFFFFFFFL;
+                int payloadId = buffer.get() & 0xFF;
+                int payloadLength = buffer.getShort() & 0xFFFF;
+                TransportPayload latestPayload = new TransportPayload(payloadId, peerDeviceIdHashCode, get(buffer, payloadLength));
+                peers.add(new StateSnapshot.Peer(latestPayload, lastSeenTimestamp, receiveCount));
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected trailing bytes: " + buffer.remaining());
+            }
+            return new StateSnapshot(timestamp, deviceIdHashCode, demoPayloadData, peers);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Snapshot truncated", e);
+        }
+    }
+
+    @NonNull
+    private static List<StateSnapshot.Peer> getMostRecentPeers(@NonNull List<StateSnapshot.Peer> peers) {
+        List<StateSnapshot.Peer> mostRecentPeers = new ArrayList<>(peers.size());
+        for (StateSnapshot.Peer peer : peers) {
+            if (peer.getLatestPayload().getData().remaining() <= 0xFFFF) {
+                mostRecentPeers.add(peer);
+            }
+        }
+        if (mostRecentPeers.size() > MAXIMUM_PEER_COUNT) {
+            Collections.sort(mostRecentPeers, (first, second) -> Long.compare(second.getLastSeenTimestamp(), first.getLastSeenTimestamp()));
+            mostRecentPeers = mostRecentPeers.subList(0, MAXIMUM_PEER_COUNT);
+        }
+        return mostRecentPeers;
+    }
+
+    /**
+     * Copies the remaining bytes of the source without modifying its position.
+     */
+    private static void put(@NonNull ByteBuffer buffer, @NonNull ByteBuffer source) {
+        for (int i = source.position(); i < source.limit(); i++) {
+            buffer.put(source.get(i));
+        }
+    }
+
+    @NonNull
+    private static ByteBuffer get(@NonNull ByteBuffer buffer, int length) {
+        byte[] data = new byte[length];
+        buffer.get(data);
+        return ByteBuffer.wrap(data);
+    }
+
+}
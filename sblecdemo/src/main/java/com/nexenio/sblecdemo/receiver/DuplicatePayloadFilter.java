@@ -0,0 +1,192 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.PayloadFingerprint;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Predicate;
+
+/**
+ * Drops {@link TransportPayload}s that have already been received recently. Nearby devices
+ * advertise the same payload over and over, so most received payloads are exact repeats that
+ * don't need to be decoded again.
+ *
+ * Payloads are identified by the hash code of the device ID of the sender, the payload ID and a
+ * 64 bit fingerprint of the data (which includes the timestamp, if the payload has one). Entries
+ * expire after a configurable duration, so that repeats get processed again from time to time
+ * (e.g. because the local state changed in the meantime).
+ *
+ * The entries are stored in preallocated arrays with a fixed capacity, no matter how many devices
+ * are nearby. The cache is set associative: each payload can only be stored in one of {@link
+ * #WAYS} slots, if all of them are occupied the oldest entry gets evicted.
+ */
+public class DuplicatePayloadFilter implements Predicate<TransportPayload> {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public static final long DEFAULT_EXPIRATION_MILLIS = 2_000;
+
+    /**
+     * The amount of slots that a payload can be stored in.
+     */
+    private static final int WAYS = 4;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+
+    private final Scheduler scheduler;
+
+    private final int setMask;
+
+    private final int[] deviceIdHashCodes;
+
+    private final int[] payloadIds;
+
+    private final long[] fingerprints;
+
+    /**
+     * The time at which the entry has been stored, {@link #EMPTY} if the slot is empty.
+     */
+    private final long[] insertionTimestamps;
+
+    /*
+        Counts are only written while holding the lock anyway, no need for atomics
+     */
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private volatile long expirationMillis;
+
+    public DuplicatePayloadFilter(@NonNull Scheduler scheduler) {
+        this(DEFAULT_CAPACITY, DEFAULT_EXPIRATION_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param capacity  the maximum amount of stored entries, will be rounded up to a power of two
+     *                  (and at least {@link #WAYS})
+     * @param scheduler provides the current time
+     */
+    public DuplicatePayloadFilter(int capacity, long expiration, @NonNull TimeUnit expirationTimeUnit, @NonNull Scheduler scheduler) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int slotCount = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.scheduler = scheduler;
+        this.setMask = slotCount / WAYS - 1;
+        this.deviceIdHashCodes = new int[slotCount];
+        this.payloadIds = new int[slotCount];
+        this.fingerprints = new long[slotCount];
+        this.insertionTimestamps = new long[slotCount];
+        Arrays.fill(insertionTimestamps, EMPTY);
+        setExpiration(expiration, expirationTimeUnit);
+    }
+
+    /**
+     * Returns false if the specified payload is a repeat of a payload that has been received
+     * within the expiration duration. Otherwise, the payload will be stored and true is returned.
+     */
+    @Override
+    public boolean test(@NonNull TransportPayload transportPayload) {
+        int deviceIdHashCode = transportPayload.getDeviceIdHashCode();
+        int payloadId = transportPayload.getId();
+        long fingerprint = PayloadFingerprint.calculate(transportPayload.getData());
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        long expiredTimestamp = now - expirationMillis;
+
+        int hash = 31 * (31 * deviceIdHashCode + payloadId) + (int) (fingerprint ^ (fingerprint >>> 32));
+        int firstSlot = ((hash ^ (hash >>> 16)) & setMask) * WAYS;
+
+        synchronized (this) {
+            int oldestSlot = firstSlot;
+            for (int slot = firstSlot; slot < firstSlot + WAYS; slot++) {
+                long insertionTimestamp = insertionTimestamps[slot];
+                boolean live = insertionTimestamp != EMPTY && insertionTimestamp > expiredTimestamp;
+                if (live && fingerprints[slot] == fingerprint
+                        && deviceIdHashCodes[slot] == deviceIdHashCode && payloadIds[slot] == payloadId) {
+                    hitCount++;
+                    return false;
+                }
+                if (!live) {
+                    insertionTimestamps[slot] = EMPTY;
+                }
+                if (insertionTimestamps[slot] < insertionTimestamps[oldestSlot]) {
+                    oldestSlot = slot;
+                }
+            }
+
+            if (insertionTimestamps[oldestSlot] != EMPTY) {
+                evictionCount++;
+            }
+            deviceIdHashCodes[oldestSlot] = deviceIdHashCode;
+            payloadIds[oldestSlot] = payloadId;
+            fingerprints[oldestSlot] = fingerprint;
+            insertionTimestamps[oldestSlot] = now;
+            missCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all entries, so that the next payloads will pass regardless of previous ones.
+     */
+    public synchronized void clear() {
+        Arrays.fill(insertionTimestamps, EMPTY);
+    }
+
+    /**
+     * Changes the duration after which a payload will be passed again, even if it's a repeat.
+     */
+    public void setExpiration(long expiration, @NonNull TimeUnit expirationTimeUnit) {
+        this.expirationMillis = expirationTimeUnit.toMillis(expiration);
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    /**
+     * The maximum amount of stored entries.
+     */
+    public int getCapacity() {
+        return insertionTimestamps.length;
+    }
+
+    /**
+     * The amount of payloads that have been dropped because they were repeats.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The amount of payloads that have been passed, because they haven't been received within the
+     * expiration duration.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The amount of entries that have been removed before they expired, because too many
+     * different payloads have been received.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+}
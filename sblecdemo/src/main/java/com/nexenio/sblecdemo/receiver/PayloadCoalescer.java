@@ -0,0 +1,143 @@
+package com.nexenio.sblecdemo.receiver;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.BiFunction;
+
+/**
+ * Coalesces emissions over a configurable time window and only emits the newest item (as
+ * determined by the specified {@link Comparator}) of each window. Alternatively, all items of a
+ * window can be merged into one using a reducer.
+ *
+ * A window is opened by the first item that arrives while no window is open and closed after the
+ * window duration, so no timer is running while nothing is received.
+ *
+ * This reduces the amount of work for subscribers that only care about the latest state, e.g.
+ * a {@link com.nexenio.sblecdemo.DemoView} that would otherwise render multiple updates per
+ * frame.
+ */
+public class PayloadCoalescer<T> implements ObservableTransformer<T, T>, FlowableTransformer<T, T> {
+
+    private final BiFunction<T, T, T> reducer;
+
+    private final Scheduler scheduler;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+
+    private final AtomicLong emittedCount = new AtomicLong();
+
+    private volatile long windowDuration;
+
+    private volatile TimeUnit windowTimeUnit;
+
+    public PayloadCoalescer(@NonNull Comparator<? super T> comparator, long windowDuration, @NonNull TimeUnit windowTimeUnit, @NonNull Scheduler scheduler) {
+        this(createNewerSelector(comparator), windowDuration, windowTimeUnit, scheduler);
+    }
+
+    private PayloadCoalescer(@NonNull BiFunction<T, T, T> reducer, long windowDuration, @NonNull TimeUnit windowTimeUnit, @NonNull Scheduler scheduler) {
+        this.reducer = reducer;
+        this.windowDuration = windowDuration;
+        this.windowTimeUnit = windowTimeUnit;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Creates a coalescer that merges all items of a window into one, instead of selecting the
+     * newest one.
+     *
+     * @param reducer combines two items of the same window (in order of emission) into one
+     */
+    @NonNull
+    public static <T> PayloadCoalescer<T> merging(@NonNull BiFunction<T, T, T> reducer, long windowDuration, @NonNull TimeUnit windowTimeUnit, @NonNull Scheduler scheduler) {
+        return new PayloadCoalescer<>(reducer, windowDuration, windowTimeUnit, scheduler);
+    }
+
+    @NonNull
+    private static <T> BiFunction<T, T, T> createNewerSelector(@NonNull Comparator<? super T> comparator) {
+        return (first, second) -> comparator.compare(second, first) > 0 ? second : first;
+    }
+
+    @Override
+    public ObservableSource<T> apply(Observable<T> upstream) {
+        long windowDuration = this.windowDuration;
+        TimeUnit windowTimeUnit = this.windowTimeUnit;
+        return upstream
+                .doOnNext(item -> receivedCount.incrementAndGet())
+                .publish(items -> items.window(items
+                        // the first item of a window closes it after the window duration
+                        .throttleFirst(windowDuration, windowTimeUnit, scheduler)
+                        .delay(windowDuration, windowTimeUnit, scheduler)))
+                .flatMapMaybe(window -> window.reduce(reducer))
+                .doOnNext(item -> emittedCount.incrementAndGet());
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        long windowDuration = this.windowDuration;
+        TimeUnit windowTimeUnit = this.windowTimeUnit;
+        return upstream
+                .doOnNext(item -> receivedCount.incrementAndGet())
+                .publish(items -> items.window(items
+                        .throttleFirst(windowDuration, windowTimeUnit, scheduler)
+                        .delay(windowDuration, windowTimeUnit, scheduler)))
+                .flatMapMaybe(window -> window.reduce(reducer))
+                .doOnNext(item -> emittedCount.incrementAndGet());
+    }
+
+    /**
+     * Changes the window duration. Will be applied to streams composed after this call.
+     */
+    public void setWindow(long windowDuration, @NonNull TimeUnit windowTimeUnit) {
+        this.windowDuration = windowDuration;
+        this.windowTimeUnit = windowTimeUnit;
+    }
+
+    public long getWindowDuration() {
+        return windowDuration;
+    }
+
+    @NonNull
+    public TimeUnit getWindowTimeUnit() {
+        return windowTimeUnit;
+    }
+
+    /**
+     * The amount of items that have been passed to this coalescer.
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * The amount of items that have been emitted by this coalescer, i.e. the newest item of each
+     * window.
+     */
+    public long getEmittedCount() {
+        return emittedCount.get();
+    }
+
+    /**
+     * The amount of items that have been dropped because a newer one has been received within the
+     * same window (or because they have been merged into another one).
+     */
+    public long getCoalescedCount() {
+        return getReceivedCount() - getEmittedCount();
+    }
+
+    public void resetCounts() {
+        receivedCount.set(0);
+        emittedCount.set(0);
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Routes received {@link TransportPayload}s to subscribers of their {@link TransportPayload#getId()
+ * ID}, so that the transport only needs to be subscribed once for all payload types.
+ *
+ * Routes are stored in a table indexed by the payload ID, the cost of dispatching a payload
+ * doesn't depend on the amount of payload types. Payloads without a subscribed route are dropped.
+ */
+public class PayloadDispatcher {
+
+    /**
+     * The highest payload ID that can be routed. IDs in range [0, 9] are reserved for the SBLEC
+     * protocol, but are accepted anyway.
+     */
+    public static final int MAXIMUM_ID = 255;
+
+    private final AtomicReferenceArray<Subject<TransportPayload>> routes = new AtomicReferenceArray<>(MAXIMUM_ID + 1);
+
+    private final AtomicLong dispatchedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Emits received payloads with the specified ID, as long as the {@link
+     * #dispatch(Observable)} subscription is active. Errors of the transport are only emitted by
+     * the latter.
+     */
+    @NonNull
+    public Observable<TransportPayload> getPayloads(int id) {
+        if (id < 0 || id > MAXIMUM_ID) {
+            throw new IllegalArgumentException("Payload ID out of range: " + id);
+        }
+        Subject<TransportPayload> route = routes.get(id);
+        if (route == null) {
+            routes.compareAndSet(id, null, PublishSubject.create());
+            route = routes.get(id);
+        }
+        return route.hide();
+    }
+
+    /**
+     * Emits received payloads with the specified ID, decoded using the specified function.
+     */
+    @NonNull
+    public <T> Observable<T> getPayloads(int id, @NonNull Function<TransportPayload, T> decoder) {
+        return getPayloads(id).map(decoder);
+    }
+
+    /**
+     * Subscribes to the specified payloads and routes each one to the subscribers of its ID. Routes
+     * should be subscribed before, payloads received in between will be dropped.
+     */
+    @NonNull
+    public Completable dispatch(@NonNull Observable<TransportPayload> transportPayloads) {
+        return transportPayloads
+                .doOnNext(this::route)
+                .ignoreElements();
+    }
+
+    private void route(@NonNull TransportPayload transportPayload) {
+        int id = transportPayload.getId();
+        Subject<TransportPayload> route = id >= 0 && id <= MAXIMUM_ID ? routes.get(id) : null;
+        if (route == null || !route.hasObservers()) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        dispatchedCount.incrementAndGet();
+        route.onNext(transportPayload);
+    }
+
+    /**
+     * The amount of payloads that have been passed to a subscribed route.
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    /**
+     * The amount of payloads that have been dropped because no route was subscribed for their ID.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public void resetCounts() {
+        dispatchedCount.set(0);
+        droppedCount.set(0);
+    }
+
+}
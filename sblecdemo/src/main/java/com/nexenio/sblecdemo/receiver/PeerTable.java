@@ -0,0 +1,350 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Scheduler;
+
+/**
+ * Keeps track of nearby devices (peers), keyed by the hash code of their device ID. For each peer,
+ * the latest received {@link TransportPayload}, the time it has last been seen and the amount of
+ * received payloads are stored.
+ *
+ * Peers are stored in an open addressing hash table with linear probing, using primitive arrays
+ * instead of boxed keys. Peers that haven't been seen within a configurable duration (time to
+ * live) are removed, either incrementally while other peers get updated or by calling {@link
+ * #evictStalePeers()}. Updates take constant time, regardless of the amount of peers.
+ */
+public class PeerTable {
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The amount of slots that are checked for stale peers during each update.
+     */
+    private static final int SLOTS_SWEPT_PER_UPDATE = 2;
+
+    private final Scheduler scheduler;
+
+    private int[] deviceIdHashCodes;
+
+    /**
+     * The latest payload of each peer, null if the slot is empty.
+     */
+    private TransportPayload[] latestPayloads;
+
+    private long[] lastSeenTimestamps;
+
+    private long[] receiveCounts;
+
+    private int peerCount;
+
+    private int sweepIndex;
+
+    private long evictionCount;
+
+    private volatile long timeToLiveMillis;
+
+    public PeerTable(@NonNull Scheduler scheduler) {
+        this(DEFAULT_TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param scheduler provides the current time
+     */
+    public PeerTable(long timeToLive, @NonNull TimeUnit timeToLiveTimeUnit, @NonNull Scheduler scheduler) {
+        this.scheduler = scheduler;
+        setTimeToLive(timeToLive, timeToLiveTimeUnit);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        deviceIdHashCodes = new int[capacity];
+        latestPayloads = new TransportPayload[capacity];
+        lastSeenTimestamps = new long[capacity];
+        receiveCounts = new long[capacity];
+    }
+
+    /**
+     * Updates the peer that sent the specified payload, adding it if it's not known yet.
+     */
+    public void onPayloadReceived(@NonNull TransportPayload transportPayload) {
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            int slot = findSlot(transportPayload.getDeviceIdHashCode());
+            if (latestPayloads[slot] == null) {
+                deviceIdHashCodes[slot] = transportPayload.getDeviceIdHashCode();
+                receiveCounts[slot] = 0;
+                peerCount++;
+            }
+            latestPayloads[slot] = transportPayload;
+            lastSeenTimestamps[slot] = now;
+            receiveCounts[slot]++;
+
+            if (peerCount * 2 <= latestPayloads.length) {
+                sweep(now - timeToLiveMillis, SLOTS_SWEPT_PER_UPDATE);
+                return;
+            }
+            // only grow if there are still too many peers after removing the stale ones
+            sweep(now - timeToLiveMillis, latestPayloads.length);
+            if (peerCount * 2 > latestPayloads.length) {
+                resize(latestPayloads.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Adds a peer that has been seen before, e.g. when restoring a persisted snapshot. Peers that
+     * are already known or that would be stale are skipped.
+     *
+     * @return true if the peer has been added
+     */
+    public boolean restorePeer(@NonNull TransportPayload latestPayload, long lastSeenTimestamp, long receiveCount) {
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        if (lastSeenTimestamp < now - timeToLiveMillis) {
+            return false;
+        }
+        synchronized (this) {
+            int slot = findSlot(latestPayload.getDeviceIdHashCode());
+            if (latestPayloads[slot] != null) {
+                return false;
+            }
+            deviceIdHashCodes[slot] = latestPayload.getDeviceIdHashCode();
+            latestPayloads[slot] = latestPayload;
+            lastSeenTimestamps[slot] = Math.min(lastSeenTimestamp, now);
+            receiveCounts[slot] = receiveCount;
+            peerCount++;
+            if (peerCount * 2 > latestPayloads.length) {
+                resize(latestPayloads.length * 2);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Removes all peers that haven't been seen within the time to live.
+     *
+     * @return the amount of removed peers
+     */
+    public synchronized int evictStalePeers() {
+        int previousPeerCount = peerCount;
+        sweep(scheduler.now(TimeUnit.MILLISECONDS) - timeToLiveMillis, latestPayloads.length);
+        return previousPeerCount - peerCount;
+    }
+
+    /**
+     * Checks the specified amount of slots, starting at the {@link #sweepIndex}, and removes peers
+     * that have last been seen before the specified timestamp.
+     */
+    private void sweep(long staleTimestamp, int slotCount) {
+        int mask = latestPayloads.length - 1;
+        int checkedSlotCount = 0;
+        while (checkedSlotCount < slotCount) {
+            int slot = sweepIndex;
+            if (latestPayloads[slot] != null && lastSeenTimestamps[slot] < staleTimestamp) {
+                remove(slot);
+                evictionCount++;
+                // the slot may have been filled by a shifted peer, check it again
+                continue;
+            }
+            sweepIndex = (slot + 1) & mask;
+            checkedSlotCount++;
+        }
+    }
+
+    /**
+     * Returns the slot of the specified peer, or the empty slot where it should be added.
+     */
+    private int findSlot(int deviceIdHashCode) {
+        int mask = latestPayloads.length - 1;
+        int slot = mix(deviceIdHashCode) & mask;
+        while (latestPayloads[slot] != null && deviceIdHashCodes[slot] != deviceIdHashCode) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the specified slot and shifts following peers back, so that lookups don't need to
+     * skip removed entries.
+     */
+    private void remove(int slot) {
+        int mask = latestPayloads.length - 1;
+        int emptySlot = slot;
+        int nextSlot = slot;
+        while (true) {
+            nextSlot = (nextSlot + 1) & mask;
+            if (latestPayloads[nextSlot] == null) {
+                break;
+            }
+            int preferredSlot = mix(deviceIdHashCodes[nextSlot]) & mask;
+            // only move the peer if the empty slot is between its preferred and its current slot
+            if (((nextSlot - preferredSlot) & mask) >= ((nextSlot - emptySlot) & mask)) {
+                deviceIdHashCodes[emptySlot] = deviceIdHashCodes[nextSlot];
+                latestPayloads[emptySlot] = latestPayloads[nextSlot];
+                lastSeenTimestamps[emptySlot] = lastSeenTimestamps[nextSlot];
+                receiveCounts[emptySlot] = receiveCounts[nextSlot];
+                emptySlot = nextSlot;
+            }
+        }
+        latestPayloads[emptySlot] = null;
+        peerCount--;
+    }
+
+    private void resize(int capacity) {
+        int[] previousDeviceIdHashCodes = deviceIdHashCodes;
+        TransportPayload[] previousLatestPayloads = latestPayloads;
+        long[] previousLastSeenTimestamps = lastSeenTimestamps;
+        long[] previousReceiveCounts = receiveCounts;
+        allocate(capacity);
+        sweepIndex = 0;
+        for (int i = 0; i < previousLatestPayloads.length; i++) {
+            if (previousLatestPayloads[i] == null) {
+                continue;
+            }
+            int slot = findSlot(previousDeviceIdHashCodes[i]);
+            deviceIdHashCodes[slot] = previousDeviceIdHashCodes[i];
+            latestPayloads[slot] = previousLatestPayloads[i];
+            lastSeenTimestamps[slot] = previousLastSeenTimestamps[i];
+            receiveCounts[slot] = previousReceiveCounts[i];
+        }
+    }
+
+    /**
+     * Spreads the bits of device ID hash codes, which may only differ in their upper bits.
+     */
+    private static int mix(int hashCode) {
+        int mixed = hashCode * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    /**
+     * The latest payload received from the specified peer, or null if the peer is unknown or has
+     * been evicted.
+     */
+    @Nullable
+    public synchronized TransportPayload getLatestPayload(int deviceIdHashCode) {
+        return latestPayloads[findSlot(deviceIdHashCode)];
+    }
+
+    /**
+     * The time at which the specified peer has last been seen, or -1 if it's unknown.
+     */
+    public synchronized long getLastSeenTimestamp(int deviceIdHashCode) {
+        int slot = findSlot(deviceIdHashCode);
+        return latestPayloads[slot] != null ? lastSeenTimestamps[slot] : -1;
+    }
+
+    /**
+     * The amount of payloads received from the specified peer, or 0 if it's unknown.
+     */
+    public synchronized long getReceiveCount(int deviceIdHashCode) {
+        int slot = findSlot(deviceIdHashCode);
+        return latestPayloads[slot] != null ? receiveCounts[slot] : 0;
+    }
+
+    /**
+     * The amount of currently known peers. Stale peers are included until they get evicted.
+     */
+    public synchronized int getPeerCount() {
+        return peerCount;
+    }
+
+    /**
+     * The amount of peers that have been removed because they became stale.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Creates a copy of all currently known peers, e.g. for diagnostics.
+     */
+    @NonNull
+    public synchronized List<Peer> getPeers() {
+        List<Peer> peers = new ArrayList<>(peerCount);
+        for (int slot = 0; slot < latestPayloads.length; slot++) {
+            if (latestPayloads[slot] != null) {
+                peers.add(new Peer(deviceIdHashCodes[slot], latestPayloads[slot], lastSeenTimestamps[slot], receiveCounts[slot]));
+            }
+        }
+        return peers;
+    }
+
+    /**
+     * Removes all peers.
+     */
+    public synchronized void clear() {
+        Arrays.fill(latestPayloads, null);
+        peerCount = 0;
+    }
+
+    /**
+     * Changes the duration after which peers that haven't been seen will be removed.
+     */
+    public void setTimeToLive(long timeToLive, @NonNull TimeUnit timeToLiveTimeUnit) {
+        this.timeToLiveMillis = timeToLiveTimeUnit.toMillis(timeToLive);
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    /**
+     * An immutable copy of the information about a peer.
+     */
+    public static final class Peer {
+
+        private final int deviceIdHashCode;
+
+        @NonNull
+        private final TransportPayload latestPayload;
+
+        private final long lastSeenTimestamp;
+
+        private final long receiveCount;
+
+        Peer(int deviceIdHashCode, @NonNull TransportPayload latestPayload, long lastSeenTimestamp, long receiveCount) {
+            this.deviceIdHashCode = deviceIdHashCode;
+            this.latestPayload = latestPayload;
+            this.lastSeenTimestamp = lastSeenTimestamp;
+            this.receiveCount = receiveCount;
+        }
+
+        public int getDeviceIdHashCode() {
+            return deviceIdHashCode;
+        }
+
+        @NonNull
+        public TransportPayload getLatestPayload() {
+            return latestPayload;
+        }
+
+        public long getLastSeenTimestamp() {
+            return lastSeenTimestamp;
+        }
+
+        public long getReceiveCount() {
+            return receiveCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Peer{" +
+                    "deviceIdHashCode=" + deviceIdHashCode +
+                    ", lastSeenTimestamp=" + lastSeenTimestamp +
+                    ", receiveCount=" + receiveCount +
+                    '}';
+        }
+
+    }
+
+}
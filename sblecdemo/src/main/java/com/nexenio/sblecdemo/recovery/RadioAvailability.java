@@ -0,0 +1,18 @@
+package com.nexenio.sblecdemo.recovery;
+
+import io.reactivex.Observable;
+
+/**
+ * Provides whether the radio required for sending and receiving payloads can currently be used,
+ * e.g. whether Bluetooth and location services are enabled.
+ */
+public interface RadioAvailability {
+
+    boolean isAvailable();
+
+    /**
+     * Emits the current availability when subscribed and whenever it changes afterwards.
+     */
+    Observable<Boolean> getAvailabilityChanges();
+
+}
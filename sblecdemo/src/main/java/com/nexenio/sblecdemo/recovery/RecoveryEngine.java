@@ -0,0 +1,281 @@
+package com.nexenio.sblecdemo.recovery;
+
+import com.nexenio.sblecdemo.metrics.LatencyHistogram;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+
+/**
+ * Resubscribes to send and receive streams that failed, instead of leaving them terminated until
+ * the user intervenes.
+ *
+ * Failures while the radio is {@link RadioAvailability available} are considered transient and
+ * retried with a jittered exponential backoff, as configured by the {@link RecoveryPolicy}. If
+ * the radio is unavailable (e.g. Bluetooth has been disabled), the circuit is opened: no retries
+ * are attempted until the radio becomes available again, at which point the stream is
+ * resubscribed immediately.
+ *
+ * For each outage (the time from the first failure until the stream recovered), the duration and
+ * the time to recover (the part of the outage during which the radio was available) are recorded.
+ * The same engine can be used for multiple streams, each one recovers independently.
+ */
+public class RecoveryEngine {
+
+    private final RecoveryPolicy policy;
+
+    private final RadioAvailability radioAvailability;
+
+    private final Scheduler scheduler;
+
+    private final Random random;
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final AtomicLong outageCount = new AtomicLong();
+
+    private final AtomicLong recoveredCount = new AtomicLong();
+
+    private final AtomicLong circuitOpenCount = new AtomicLong();
+
+    private final LatencyHistogram outageDurationMillis = new LatencyHistogram();
+
+    private final LatencyHistogram timeToRecoverMillis = new LatencyHistogram();
+
+    public RecoveryEngine(@NonNull RecoveryPolicy policy, @NonNull RadioAvailability radioAvailability, @NonNull Scheduler scheduler) {
+        this(policy, radioAvailability, scheduler, new Random());
+    }
+
+    /**
+     * @param scheduler used for delaying retries and checking whether streams are stable
+     * @param random    used for jittering the retry delays
+     */
+    public RecoveryEngine(@NonNull RecoveryPolicy policy, @NonNull RadioAvailability radioAvailability, @NonNull Scheduler scheduler, @NonNull Random random) {
+        this.policy = policy;
+        this.radioAvailability = radioAvailability;
+        this.scheduler = scheduler;
+        this.random = random;
+    }
+
+    /**
+     * Resubscribes to the specified stream whenever it fails. The returned {@link Observable}
+     * only terminates if the stream completes or the subscription gets disposed.
+     */
+    @NonNull
+    public <T> Observable<T> recover(@NonNull Observable<T> upstream) {
+        return Observable.defer(() -> {
+            Outage outage = new Outage();
+            Completable stable = Completable.defer(() -> Completable.timer(policy.getStableDurationMillis(), TimeUnit.MILLISECONDS, scheduler))
+                    .doOnComplete(() -> onStable(outage));
+            return upstream
+                    .doOnSubscribe(disposable -> outage.onSubscribed(scheduler.now(TimeUnit.MILLISECONDS)))
+                    .doOnNext(item -> onStable(outage))
+                    // not merged as Completable, which wouldn't dispose the timer when failing
+                    .mergeWith(stable.<T>toObservable())
+                    .retryWhen(failures -> failures.concatMap(throwable -> onFailure(outage, throwable)));
+        });
+    }
+
+    /**
+     * Resubscribes to the specified stream whenever it fails, see {@link #recover(Observable)}.
+     */
+    @NonNull
+    public Completable recover(@NonNull Completable upstream) {
+        return recover(upstream.toObservable()).ignoreElements();
+    }
+
+    /**
+     * Decides when the stream of the specified outage should be resubscribed.
+     *
+     * @return emits once the stream should be resubscribed
+     */
+    @NonNull
+    private Observable<?> onFailure(@NonNull Outage outage, @NonNull Throwable throwable) {
+        failureCount.incrementAndGet();
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        int consecutiveFailureCount = outage.onFailure(now);
+        if (consecutiveFailureCount == 1) {
+            outageCount.incrementAndGet();
+        }
+
+        if (!radioAvailability.isAvailable()) {
+            // retrying is pointless until the radio is available again
+            circuitOpenCount.incrementAndGet();
+            return radioAvailability.getAvailabilityChanges()
+                    .filter(available -> available)
+                    .take(1)
+                    .doOnNext(available -> {
+                        retryCount.incrementAndGet();
+                        outage.onRadioAvailable(scheduler.now(TimeUnit.MILLISECONDS));
+                    });
+        }
+
+        return Observable.timer(getRetryDelayMillis(consecutiveFailureCount), TimeUnit.MILLISECONDS, scheduler)
+                .doOnNext(tick -> retryCount.incrementAndGet());
+    }
+
+    private void onStable(@NonNull Outage outage) {
+        Outage.Recovery recovery = outage.onStable();
+        if (recovery == null) {
+            return;
+        }
+        recoveredCount.incrementAndGet();
+        outageDurationMillis.record(recovery.outageDurationMillis);
+        timeToRecoverMillis.record(recovery.timeToRecoverMillis);
+    }
+
+    /**
+     * The jittered delay before resubscribing after the specified amount of consecutive failures.
+     */
+    public long getRetryDelayMillis(int consecutiveFailureCount) {
+        double delay = policy.getInitialRetryDelayMillis() * Math.pow(policy.getRetryDelayMultiplier(), Math.max(0, consecutiveFailureCount - 1));
+        delay = Math.min(delay, policy.getMaximumRetryDelayMillis());
+        double jitter = Math.max(0, Math.min(1, policy.getRetryDelayJitter()));
+        return Math.round(delay * (1 - jitter * random.nextDouble()));
+    }
+
+    @NonNull
+    public RecoveryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * The amount of times a stream failed.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * The amount of times a failed stream has been resubscribed.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * The amount of outages, i.e. failures of streams that were stable before.
+     */
+    public long getOutageCount() {
+        return outageCount.get();
+    }
+
+    /**
+     * The amount of outages that ended because the stream recovered.
+     */
+    public long getRecoveredCount() {
+        return recoveredCount.get();
+    }
+
+    /**
+     * The amount of times retrying has been paused because the radio was unavailable.
+     */
+    public long getCircuitOpenCount() {
+        return circuitOpenCount.get();
+    }
+
+    /**
+     * The durations of recovered outages, from the first failure until the stream has been
+     * resubscribed successfully.
+     */
+    @NonNull
+    public LatencyHistogram.Snapshot getOutageDurationMillis() {
+        return outageDurationMillis.getSnapshot();
+    }
+
+    /**
+     * The durations from the radio being available until the stream has been resubscribed
+     * successfully. Equal to the outage duration if the radio has been available all the time.
+     */
+    @NonNull
+    public LatencyHistogram.Snapshot getTimeToRecoverMillis() {
+        return timeToRecoverMillis.getSnapshot();
+    }
+
+    public void resetCounts() {
+        failureCount.set(0);
+        retryCount.set(0);
+        outageCount.set(0);
+        recoveredCount.set(0);
+        circuitOpenCount.set(0);
+        outageDurationMillis.reset();
+        timeToRecoverMillis.reset();
+    }
+
+    /**
+     * The state of a single recovered stream. Only one outage can be active at a time.
+     */
+    private static final class Outage {
+
+        private int consecutiveFailureCount;
+
+        private long failureTimestamp;
+
+        /**
+         * The time since which the radio has been available during the current outage.
+         */
+        private long availableTimestamp;
+
+        private long subscribedTimestamp;
+
+        synchronized void onSubscribed(long timestamp) {
+            subscribedTimestamp = timestamp;
+        }
+
+        /**
+         * @return the amount of consecutive failures, including this one
+         */
+        synchronized int onFailure(long timestamp) {
+            if (consecutiveFailureCount == 0) {
+                failureTimestamp = timestamp;
+                availableTimestamp = timestamp;
+            }
+            return ++consecutiveFailureCount;
+        }
+
+        synchronized void onRadioAvailable(long timestamp) {
+            availableTimestamp = timestamp;
+            // the previous failures were caused by the radio, back off from scratch
+            consecutiveFailureCount = 1;
+        }
+
+        /**
+         * Ends the current outage, if any, because the stream has been working since it has last
+         * been subscribed.
+         *
+         * @return the recovered outage or null if there was none
+         */
+        synchronized Recovery onStable() {
+            if (consecutiveFailureCount == 0) {
+                return null;
+            }
+            consecutiveFailureCount = 0;
+            return new Recovery(
+                    subscribedTimestamp - failureTimestamp,
+                    Math.max(0, subscribedTimestamp - availableTimestamp)
+            );
+        }
+
+        private static final class Recovery {
+
+            private final long outageDurationMillis;
+
+            private final long timeToRecoverMillis;
+
+            private Recovery(long outageDurationMillis, long timeToRecoverMillis) {
+                this.outageDurationMillis = outageDurationMillis;
+                this.timeToRecoverMillis = timeToRecoverMillis;
+            }
+
+        }
+
+    }
+
+}
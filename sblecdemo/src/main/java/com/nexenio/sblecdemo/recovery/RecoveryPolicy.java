@@ -0,0 +1,86 @@
+package com.nexenio.sblecdemo.recovery;
+
+/**
+ * The parameters of a {@link RecoveryEngine}.
+ *
+ * Failed streams are resubscribed after a delay that starts at the {@link
+ * #getInitialRetryDelayMillis() initial retry delay} and is multiplied with each consecutive
+ * failure, up to the {@link #getMaximumRetryDelayMillis() maximum retry delay}. A random part of
+ * each delay (the {@link #getRetryDelayJitter() jitter}) is skipped, so that streams that failed
+ * at the same time don't retry in lockstep. A stream counts as recovered once it emitted an item
+ * or stayed subscribed for the {@link #getStableDurationMillis() stable duration}.
+ */
+public class RecoveryPolicy {
+
+    public static final long DEFAULT_INITIAL_RETRY_DELAY_MILLIS = 250;
+    public static final long DEFAULT_MAXIMUM_RETRY_DELAY_MILLIS = 30_000;
+    public static final double DEFAULT_RETRY_DELAY_MULTIPLIER = 2;
+    public static final double DEFAULT_RETRY_DELAY_JITTER = 0.5;
+    public static final long DEFAULT_STABLE_DURATION_MILLIS = 2_000;
+
+    private volatile long initialRetryDelayMillis = DEFAULT_INITIAL_RETRY_DELAY_MILLIS;
+
+    private volatile long maximumRetryDelayMillis = DEFAULT_MAXIMUM_RETRY_DELAY_MILLIS;
+
+    private volatile double retryDelayMultiplier = DEFAULT_RETRY_DELAY_MULTIPLIER;
+
+    private volatile double retryDelayJitter = DEFAULT_RETRY_DELAY_JITTER;
+
+    private volatile long stableDurationMillis = DEFAULT_STABLE_DURATION_MILLIS;
+
+    public long getInitialRetryDelayMillis() {
+        return initialRetryDelayMillis;
+    }
+
+    /**
+     * Sets the delay before the first retry, i.e. how long a brief hiccup interrupts a stream.
+     */
+    public void setInitialRetryDelayMillis(long initialRetryDelayMillis) {
+        this.initialRetryDelayMillis = initialRetryDelayMillis;
+    }
+
+    public long getMaximumRetryDelayMillis() {
+        return maximumRetryDelayMillis;
+    }
+
+    public void setMaximumRetryDelayMillis(long maximumRetryDelayMillis) {
+        this.maximumRetryDelayMillis = maximumRetryDelayMillis;
+    }
+
+    public double getRetryDelayMultiplier() {
+        return retryDelayMultiplier;
+    }
+
+    /**
+     * Sets the factor that the retry delay grows by with each consecutive failure. Use 1 for a
+     * constant delay.
+     */
+    public void setRetryDelayMultiplier(double retryDelayMultiplier) {
+        this.retryDelayMultiplier = retryDelayMultiplier;
+    }
+
+    public double getRetryDelayJitter() {
+        return retryDelayJitter;
+    }
+
+    /**
+     * Sets the maximum share (in range [0, 1]) of each retry delay that is randomly skipped. Use 0
+     * to disable jitter.
+     */
+    public void setRetryDelayJitter(double retryDelayJitter) {
+        this.retryDelayJitter = retryDelayJitter;
+    }
+
+    public long getStableDurationMillis() {
+        return stableDurationMillis;
+    }
+
+    /**
+     * Sets how long a resubscribed stream that doesn't emit items (e.g. an advertisement) needs to
+     * stay subscribed before it counts as recovered and the retry delay is reset.
+     */
+    public void setStableDurationMillis(long stableDurationMillis) {
+        this.stableDurationMillis = stableDurationMillis;
+    }
+
+}
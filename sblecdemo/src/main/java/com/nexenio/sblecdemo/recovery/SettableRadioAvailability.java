@@ -0,0 +1,34 @@
+package com.nexenio.sblecdemo.recovery;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
+
+/**
+ * A {@link RadioAvailability} that is changed manually, e.g. for transports that don't depend on
+ * the device's radio or for tests.
+ */
+public class SettableRadioAvailability implements RadioAvailability {
+
+    private final BehaviorSubject<Boolean> availabilityChanges;
+
+    public SettableRadioAvailability(boolean available) {
+        availabilityChanges = BehaviorSubject.createDefault(available);
+    }
+
+    public synchronized void setAvailable(boolean available) {
+        if (available != isAvailable()) {
+            availabilityChanges.onNext(available);
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return availabilityChanges.getValue();
+    }
+
+    @Override
+    public Observable<Boolean> getAvailabilityChanges() {
+        return availabilityChanges.hide();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.nexenio.sblecdemo.relay;
+
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes and decodes relayed payloads. A relayed payload wraps the original payload with the
+ * hash code of the device that originally sent it and the amount of remaining hops:
+ *
+ * <pre>
+ * | origin device ID hash code (4) | remaining hops (1) | payload ID (1) | data (0..21) |
+ * </pre>
+ *
+ * Payloads sent by their origin are not wrapped, so that devices without relay support can still
+ * receive them.
+ *
+ * Like the {@link com.nexenio.sblecdemo.payload.DemoPayloadCodec}, readers use absolute indices
+ * and never modify the buffer position.
+ */
+public final class RelayCodec {
+
+    /**
+     * The ID of relayed payloads. IDs in range [0, 9] are reserved for the SBLEC protocol.
+     */
+    public static final int PAYLOAD_ID = 16;
+
+    public static final int HEADER_LENGTH = 6;
+
+    /**
+     * The maximum data length of a payload that can be relayed.
+     */
+    public static final int MAXIMUM_DATA_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH - HEADER_LENGTH;
+
+    public static final int MAXIMUM_HOP_COUNT = 0xFF;
+
+    private static final int ORIGIN_INDEX = 0;
+    private static final int REMAINING_HOP_COUNT_INDEX = 4;
+    private static final int PAYLOAD_ID_INDEX = 5;
+
+    private RelayCodec() {
+    }
+
+    public static boolean isValid(@NonNull ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_LENGTH && buffer.limit() <= AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH;
+    }
+
+    public static int getOriginDeviceIdHashCode(@NonNull ByteBuffer buffer) {
+        return buffer.getInt(ORIGIN_INDEX);
+    }
+
+    public static int getRemainingHopCount(@NonNull ByteBuffer buffer) {
+        return buffer.get(REMAINING_HOP_COUNT_INDEX) & 0xFF;
+    }
+
+    public static int getPayloadId(@NonNull ByteBuffer buffer) {
+        return buffer.get(PAYLOAD_ID_INDEX) & 0xFF;
+    }
+
+    /**
+     * Unwraps the original payload, sent by its origin. The data is a read-only view on the
+     * specified buffer.
+     */
+    @NonNull
+    public static TransportPayload decode(@NonNull ByteBuffer buffer) {
+        ByteBuffer data = buffer.asReadOnlyBuffer();
+        data.position(HEADER_LENGTH);
+        return new TransportPayload(getPayloadId(buffer), getOriginDeviceIdHashCode(buffer), data.slice());
+    }
+
+    /**
+     * Wraps the remaining bytes of the specified payload, which has been sent by its {@link
+     * TransportPayload#getDeviceIdHashCode() origin}.
+     */
+    @NonNull
+    public static ByteBuffer encode(@NonNull TransportPayload transportPayload, int remainingHopCount) {
+        ByteBuffer data = transportPayload.getData();
+        if (data.remaining() > MAXIMUM_DATA_LENGTH) {
+            throw new IllegalArgumentException("Payload too long: " + transportPayload);
+        }
+        if (remainingHopCount < 0 || remainingHopCount > MAXIMUM_HOP_COUNT) {
+            throw new IllegalArgumentException("Hop count out of range: " + remainingHopCount);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + data.remaining());
+        buffer.putInt(transportPayload.getDeviceIdHashCode());
+        buffer.put((byte) remainingHopCount);
+        buffer.put((byte) transportPayload.getId());
+        for (int i = data.position(); i < data.limit(); i++) {
+            buffer.put(data.get(i));
+        }
+        buffer.rewind();
+        return buffer;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.nexenio.sblecdemo.relay;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+/**
+ * The parameters of a {@link RelayingPayloadTransport}.
+ *
+ * A received payload is relayed at most {@link #getMaximumHopCount() a few hops} away from its
+ * origin. Each device only relays it with a {@link #getRelayProbability() certain probability},
+ * after a random {@link #getAssessmentDelayMillis() delay} and only if it didn't hear {@link
+ * #getSuppressionThreshold() enough} other devices relaying it in the meantime. The amount of
+ * relayed payloads of each origin is {@link #getMaximumRelayCountPerOrigin() limited}, so that a
+ * single device can't flood the mesh. Relayed payloads are sent with a {@link
+ * #getRelayPriority() low priority}, so that they don't delay the payloads of this device.
+ */
+public class RelayPolicy {
+
+    public static final int DEFAULT_MAXIMUM_HOP_COUNT = 8;
+    public static final double DEFAULT_RELAY_PROBABILITY = 1;
+    public static final int DEFAULT_SUPPRESSION_THRESHOLD = 3;
+    public static final long DEFAULT_ASSESSMENT_DELAY_MILLIS = 300;
+    public static final long DEFAULT_RELAY_DURATION_MILLIS = 1_000;
+    public static final int DEFAULT_MAXIMUM_RELAY_COUNT_PER_ORIGIN = 5;
+    public static final long DEFAULT_RATE_LIMIT_WINDOW_MILLIS = 10_000;
+    public static final double DEFAULT_RELAY_PRIORITY = TransportPayload.MINIMUM_PRIORITY;
+
+    private volatile int maximumHopCount = DEFAULT_MAXIMUM_HOP_COUNT;
+
+    private volatile double relayProbability = DEFAULT_RELAY_PROBABILITY;
+
+    private volatile int suppressionThreshold = DEFAULT_SUPPRESSION_THRESHOLD;
+
+    private volatile long assessmentDelayMillis = DEFAULT_ASSESSMENT_DELAY_MILLIS;
+
+    private volatile long relayDurationMillis = DEFAULT_RELAY_DURATION_MILLIS;
+
+    private volatile int maximumRelayCountPerOrigin = DEFAULT_MAXIMUM_RELAY_COUNT_PER_ORIGIN;
+
+    private volatile long rateLimitWindowMillis = DEFAULT_RATE_LIMIT_WINDOW_MILLIS;
+
+    private volatile double relayPriority = DEFAULT_RELAY_PRIORITY;
+
+    public int getMaximumHopCount() {
+        return maximumHopCount;
+    }
+
+    /**
+     * Sets how many times a payload may be relayed, i.e. how many hops away from its origin it may
+     * be received. Use 0 to disable relaying.
+     */
+    public void setMaximumHopCount(int maximumHopCount) {
+        this.maximumHopCount = maximumHopCount;
+    }
+
+    public double getRelayProbability() {
+        return relayProbability;
+    }
+
+    /**
+     * Sets the probability (in range [0, 1]) that a received payload will be considered for
+     * relaying at all.
+     */
+    public void setRelayProbability(double relayProbability) {
+        this.relayProbability = relayProbability;
+    }
+
+    public int getSuppressionThreshold() {
+        return suppressionThreshold;
+    }
+
+    /**
+     * Sets the amount of distinct devices that need to be heard relaying the same payload before
+     * this device cancels or stops relaying it. Use 0 to never suppress relaying.
+     */
+    public void setSuppressionThreshold(int suppressionThreshold) {
+        this.suppressionThreshold = suppressionThreshold;
+    }
+
+    public long getAssessmentDelayMillis() {
+        return assessmentDelayMillis;
+    }
+
+    /**
+     * Sets the maximum random delay before a received payload is relayed, during which relays of
+     * other devices are counted.
+     */
+    public void setAssessmentDelayMillis(long assessmentDelayMillis) {
+        this.assessmentDelayMillis = assessmentDelayMillis;
+    }
+
+    public long getRelayDurationMillis() {
+        return relayDurationMillis;
+    }
+
+    /**
+     * Sets how long a relayed payload is advertised. Should cover a few advertising intervals.
+     */
+    public void setRelayDurationMillis(long relayDurationMillis) {
+        this.relayDurationMillis = relayDurationMillis;
+    }
+
+    public int getMaximumRelayCountPerOrigin() {
+        return maximumRelayCountPerOrigin;
+    }
+
+    /**
+     * Sets the amount of payloads of the same origin that may be relayed within the {@link
+     * #getRateLimitWindowMillis() rate limit window}. Use 0 to disable the limit.
+     */
+    public void setMaximumRelayCountPerOrigin(int maximumRelayCountPerOrigin) {
+        this.maximumRelayCountPerOrigin = maximumRelayCountPerOrigin;
+    }
+
+    public long getRateLimitWindowMillis() {
+        return rateLimitWindowMillis;
+    }
+
+    public void setRateLimitWindowMillis(long rateLimitWindowMillis) {
+        this.rateLimitWindowMillis = rateLimitWindowMillis;
+    }
+
+    public double getRelayPriority() {
+        return relayPriority;
+    }
+
+    /**
+     * Sets the sending priority of relayed payloads, see {@link
+     * com.nexenio.sblecdemo.sender.SendSchedulingPolicy}.
+     */
+    public void setRelayPriority(double relayPriority) {
+        this.relayPriority = relayPriority;
+    }
+
+}
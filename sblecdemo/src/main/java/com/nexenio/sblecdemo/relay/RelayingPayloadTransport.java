@@ -0,0 +1,352 @@
+package com.nexenio.sblecdemo.relay;
+
+import com.nexenio.sblecdemo.transport.PayloadFingerprint;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * A {@link PayloadTransport} that rebroadcasts received payloads, so that they reach devices
+ * which are out of range of the device that originally sent them. Relaying is disabled unless a
+ * {@link RelayPolicy} has been {@link #setRelayPolicy(RelayPolicy) set}, received relayed
+ * payloads are unwrapped either way.
+ *
+ * Payloads sent by this device are passed to the underlying transport unchanged. Relayed copies
+ * are wrapped (see {@link RelayCodec}) with their origin and the amount of remaining hops,
+ * subscribers of {@link #receive()} get the original payload as if it was received from its
+ * origin. Only payloads that are new, i.e. that differ from the last one received from the same
+ * origin with the same ID, are relayed. Payloads that are too long to be wrapped are never
+ * relayed.
+ *
+ * Flooding is suppressed by counting: every device waits a random delay before relaying a
+ * payload and cancels (or stops) relaying it once enough other devices have been heard relaying
+ * the same payload. In dense networks, only a few devices per area end up relaying.
+ *
+ * Relaying happens while {@link #receive()} is subscribed, which should only be done once.
+ */
+public class RelayingPayloadTransport implements PayloadTransport {
+
+    /**
+     * The amount of (origin, payload ID) combinations that are tracked, older ones are discarded.
+     */
+    public static final int MAXIMUM_TRACKED_PAYLOAD_COUNT = 1024;
+
+    /**
+     * The amount of previous payloads per origin and ID that are remembered, so that delayed
+     * relayed copies of them are not mistaken for new ones.
+     */
+    private static final int FINGERPRINT_HISTORY_LENGTH = 4;
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    private final Random random;
+
+    private final AtomicLong relayedCount = new AtomicLong();
+
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+
+    @Nullable
+    private volatile RelayPolicy relayPolicy;
+
+    /**
+     * Guarded by {@code this}, like all following fields.
+     */
+    private final LinkedHashMap<Long, TrackedPayload> trackedPayloads;
+
+    private final Map<Integer, RateLimit> rateLimits = new HashMap<>();
+
+    public RelayingPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this(payloadTransport, scheduler, new Random());
+    }
+
+    /**
+     * @param scheduler used for delaying relays and expiring rate limits
+     * @param random    used for the relay delays and probabilities
+     */
+    public RelayingPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler, @NonNull Random random) {
+        this.payloadTransport = payloadTransport;
+        this.scheduler = scheduler;
+        this.random = random;
+        this.trackedPayloads = new LinkedHashMap<>(MAXIMUM_TRACKED_PAYLOAD_COUNT * 2, 0.75f, true);
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return payloadTransport.send(transportPayload);
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadTransport.receive()
+                .concatMapMaybe(transportPayload -> Maybe.fromCallable(() -> onPayloadReceived(transportPayload)))
+                .doFinally(this::stopRelaying);
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    /**
+     * Unwraps the specified payload if it has been relayed and decides if it should be relayed by
+     * this device.
+     *
+     * @return the original payload, or null if it should be dropped
+     */
+    @Nullable
+    private synchronized TransportPayload onPayloadReceived(@NonNull TransportPayload transportPayload) {
+        TransportPayload originalPayload;
+        int relayerDeviceIdHashCode;
+        int remainingHopCount;
+        RelayPolicy relayPolicy = this.relayPolicy;
+        if (transportPayload.getId() == RelayCodec.PAYLOAD_ID) {
+            if (!RelayCodec.isValid(transportPayload.getData())) {
+                return null;
+            }
+            originalPayload = RelayCodec.decode(transportPayload.getData());
+            relayerDeviceIdHashCode = transportPayload.getDeviceIdHashCode();
+            remainingHopCount = RelayCodec.getRemainingHopCount(transportPayload.getData());
+        } else {
+            originalPayload = transportPayload;
+            relayerDeviceIdHashCode = 0;
+            remainingHopCount = relayPolicy != null ? relayPolicy.getMaximumHopCount() : 0;
+        }
+
+        if (originalPayload.getDeviceIdHashCode() == getDeviceIdHashCode()) {
+            // relayed copy of a payload sent by this device
+            return null;
+        }
+        if (relayPolicy == null || originalPayload.getData().remaining() > RelayCodec.MAXIMUM_DATA_LENGTH) {
+            return originalPayload;
+        }
+
+        long key = getKey(originalPayload);
+        long fingerprint = PayloadFingerprint.calculate(originalPayload.getData());
+        TrackedPayload trackedPayload = trackedPayloads.get(key);
+        if (trackedPayload == null) {
+            trackedPayload = new TrackedPayload();
+            trackedPayloads.put(key, trackedPayload);
+            discardEldestTrackedPayloads();
+        } else if (trackedPayload.fingerprint == fingerprint) {
+            if (relayerDeviceIdHashCode != 0) {
+                onRelayReceived(trackedPayload, relayerDeviceIdHashCode, relayPolicy);
+            }
+            return originalPayload;
+        } else if (trackedPayload.isOutdated(fingerprint)) {
+            return null;
+        }
+
+        trackedPayload.replace(fingerprint);
+        if (relayerDeviceIdHashCode != 0) {
+            trackedPayload.relayerDeviceIdHashCodes.add(relayerDeviceIdHashCode);
+        }
+        if (remainingHopCount > 0 && random.nextDouble() < relayPolicy.getRelayProbability()) {
+            if (isRateLimited(originalPayload.getDeviceIdHashCode(), relayPolicy)) {
+                rateLimitedCount.incrementAndGet();
+            } else {
+                relay(trackedPayload, originalPayload, remainingHopCount - 1, relayPolicy);
+            }
+        }
+        return originalPayload;
+    }
+
+    private void onRelayReceived(@NonNull TrackedPayload trackedPayload, int relayerDeviceIdHashCode, @NonNull RelayPolicy relayPolicy) {
+        trackedPayload.relayerDeviceIdHashCodes.add(relayerDeviceIdHashCode);
+        int suppressionThreshold = relayPolicy.getSuppressionThreshold();
+        Disposable relayDisposable = trackedPayload.relayDisposable;
+        if (relayDisposable == null || relayDisposable.isDisposed() || suppressionThreshold <= 0) {
+            return;
+        }
+        if (trackedPayload.relayerDeviceIdHashCodes.size() >= suppressionThreshold) {
+            trackedPayload.stopRelaying();
+            suppressedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Advertises the specified payload after a random delay, unless it gets suppressed in between.
+     */
+    private void relay(@NonNull TrackedPayload trackedPayload, @NonNull TransportPayload originalPayload, int remainingHopCount, @NonNull RelayPolicy relayPolicy) {
+        TransportPayload relayedPayload = new TransportPayload(RelayCodec.PAYLOAD_ID, getDeviceIdHashCode(),
+                relayPolicy.getRelayPriority(), RelayCodec.encode(originalPayload, remainingHopCount));
+        long delayMillis = (long) (random.nextDouble() * relayPolicy.getAssessmentDelayMillis());
+        trackedPayload.relayDisposable = Completable.timer(delayMillis, TimeUnit.MILLISECONDS, scheduler)
+                .andThen(Completable.defer(() -> {
+                    relayedCount.incrementAndGet();
+                    return payloadTransport.send(relayedPayload);
+                }))
+                .ambWith(Completable.timer(delayMillis + relayPolicy.getRelayDurationMillis(), TimeUnit.MILLISECONDS, scheduler))
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    /**
+     * Limits the amount of relayed payloads per origin within fixed windows.
+     */
+    private boolean isRateLimited(int originDeviceIdHashCode, @NonNull RelayPolicy relayPolicy) {
+        int maximumRelayCount = relayPolicy.getMaximumRelayCountPerOrigin();
+        if (maximumRelayCount <= 0) {
+            return false;
+        }
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        RateLimit rateLimit = rateLimits.get(originDeviceIdHashCode);
+        if (rateLimit == null) {
+            rateLimit = new RateLimit();
+            rateLimits.put(originDeviceIdHashCode, rateLimit);
+        }
+        if (now - rateLimit.windowStartTimestamp >= relayPolicy.getRateLimitWindowMillis()) {
+            rateLimit.windowStartTimestamp = now;
+            rateLimit.relayCount = 0;
+        }
+        if (rateLimit.relayCount >= maximumRelayCount) {
+            return true;
+        }
+        rateLimit.relayCount++;
+        return false;
+    }
+
+    private void discardEldestTrackedPayloads() {
+        Iterator<TrackedPayload> iterator = trackedPayloads.values().iterator();
+        while (trackedPayloads.size() > MAXIMUM_TRACKED_PAYLOAD_COUNT && iterator.hasNext()) {
+            iterator.next().stopRelaying();
+            iterator.remove();
+        }
+        if (rateLimits.size() > MAXIMUM_TRACKED_PAYLOAD_COUNT) {
+            rateLimits.clear();
+        }
+    }
+
+    private synchronized void stopRelaying() {
+        for (TrackedPayload trackedPayload : trackedPayloads.values()) {
+            trackedPayload.stopRelaying();
+        }
+        trackedPayloads.clear();
+        rateLimits.clear();
+    }
+
+    private static long getKey(@NonNull TransportPayload transportPayload) {
+        return (long) transportPayload.getDeviceIdHashCode() << 32 | transportPayload.getId();
+    }
+
+    @Nullable
+    public RelayPolicy getRelayPolicy() {
+        return relayPolicy;
+    }
+
+    /**
+     * Enables relaying using the specified policy, or disables it if null. Payloads that are
+     * currently being relayed are not affected.
+     */
+    public void setRelayPolicy(@Nullable RelayPolicy relayPolicy) {
+        this.relayPolicy = relayPolicy;
+    }
+
+    /**
+     * The amount of received payloads that this device started advertising.
+     */
+    public long getRelayedCount() {
+        return relayedCount.get();
+    }
+
+    /**
+     * The amount of relays that have been cancelled or stopped, because enough other devices
+     * relayed the same payload.
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * The amount of received payloads that have not been relayed because their origin exceeded the
+     * rate limit.
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    public void resetCounts() {
+        relayedCount.set(0);
+        suppressedCount.set(0);
+        rateLimitedCount.set(0);
+    }
+
+    /**
+     * The relay state of the payloads received from one origin with one ID.
+     */
+    private static final class TrackedPayload {
+
+        private final long[] previousFingerprints = new long[FINGERPRINT_HISTORY_LENGTH];
+
+        private final Set<Integer> relayerDeviceIdHashCodes = new HashSet<>();
+
+        private long fingerprint;
+
+        private boolean hasFingerprint;
+
+        private int previousFingerprintCount;
+
+        private int nextPreviousFingerprintIndex;
+
+        @Nullable
+        private Disposable relayDisposable;
+
+        private boolean isOutdated(long fingerprint) {
+            for (int i = 0; i < previousFingerprintCount; i++) {
+                if (previousFingerprints[i] == fingerprint) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void replace(long fingerprint) {
+            if (hasFingerprint) {
+                previousFingerprints[nextPreviousFingerprintIndex] = this.fingerprint;
+                nextPreviousFingerprintIndex = (nextPreviousFingerprintIndex + 1) % FINGERPRINT_HISTORY_LENGTH;
+                previousFingerprintCount = Math.min(previousFingerprintCount + 1, FINGERPRINT_HISTORY_LENGTH);
+            }
+            this.fingerprint = fingerprint;
+            hasFingerprint = true;
+            relayerDeviceIdHashCodes.clear();
+            stopRelaying();
+        }
+
+        private void stopRelaying() {
+            if (relayDisposable != null) {
+                relayDisposable.dispose();
+                relayDisposable = null;
+            }
+        }
+
+    }
+
+    private static final class RateLimit {
+
+        private long windowStartTimestamp = Long.MIN_VALUE / 2;
+
+        private int relayCount;
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.nexenio.sblecdemo.sender;
+
+/**
+ * The parameters of an {@link AdaptiveSendSession}.
+ *
+ * After a change, a payload is advertised continuously for the {@link
+ * #getInitialSendDurationMillis() initial send duration}. Afterwards, it will be advertised in
+ * short bursts, separated by pauses that grow exponentially from the {@link
+ * #getMinimumPauseMillis() minimum} to the {@link #getMaximumPauseMillis() maximum pause}.
+ * Advertising stops once the {@link #getRequiredEchoCount() required amount} of peers has been
+ * heard advertising the same state, which requires them to {@link #setEchoReceivedStates(boolean)
+ * echo received states}.
+ */
+public class AdaptiveSendPolicy {
+
+    public static final long DEFAULT_INITIAL_SEND_DURATION_MILLIS = 1_000;
+    public static final long DEFAULT_SEND_DURATION_MILLIS = 300;
+    public static final long DEFAULT_MINIMUM_PAUSE_MILLIS = 500;
+    public static final long DEFAULT_MAXIMUM_PAUSE_MILLIS = 30_000;
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+    public static final int DEFAULT_REQUIRED_ECHO_COUNT = 3;
+
+    private volatile long initialSendDurationMillis = DEFAULT_INITIAL_SEND_DURATION_MILLIS;
+
+    private volatile long sendDurationMillis = DEFAULT_SEND_DURATION_MILLIS;
+
+    private volatile long minimumPauseMillis = DEFAULT_MINIMUM_PAUSE_MILLIS;
+
+    private volatile long maximumPauseMillis = DEFAULT_MAXIMUM_PAUSE_MILLIS;
+
+    private volatile double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+
+    private volatile int requiredEchoCount = DEFAULT_REQUIRED_ECHO_COUNT;
+
+    private volatile boolean echoReceivedStates;
+
+    /**
+     * The pause after the specified amount of previous pauses.
+     */
+    public long getPauseMillis(int previousPauseCount) {
+        double pause = minimumPauseMillis * Math.pow(backoffMultiplier, previousPauseCount);
+        return (long) Math.min(pause, maximumPauseMillis);
+    }
+
+    public long getInitialSendDurationMillis() {
+        return initialSendDurationMillis;
+    }
+
+    /**
+     * Sets the duration of continuous advertising after a change or after a peer with an outdated
+     * state has been detected.
+     */
+    public void setInitialSendDurationMillis(long initialSendDurationMillis) {
+        this.initialSendDurationMillis = initialSendDurationMillis;
+    }
+
+    public long getSendDurationMillis() {
+        return sendDurationMillis;
+    }
+
+    /**
+     * Sets the duration of the advertising bursts between pauses. Should cover a few advertising
+     * intervals, otherwise a burst may end before the first advertisement.
+     */
+    public void setSendDurationMillis(long sendDurationMillis) {
+        this.sendDurationMillis = sendDurationMillis;
+    }
+
+    public long getMinimumPauseMillis() {
+        return minimumPauseMillis;
+    }
+
+    public void setMinimumPauseMillis(long minimumPauseMillis) {
+        this.minimumPauseMillis = minimumPauseMillis;
+    }
+
+    public long getMaximumPauseMillis() {
+        return maximumPauseMillis;
+    }
+
+    public void setMaximumPauseMillis(long maximumPauseMillis) {
+        this.maximumPauseMillis = maximumPauseMillis;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    /**
+     * Sets the factor by which each pause is longer than the previous one.
+     */
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    public int getRequiredEchoCount() {
+        return requiredEchoCount;
+    }
+
+    /**
+     * Sets the amount of distinct peers that need to advertise the same state before advertising
+     * stops. Use 0 to never stop.
+     */
+    public void setRequiredEchoCount(int requiredEchoCount) {
+        this.requiredEchoCount = requiredEchoCount;
+    }
+
+    public boolean isEchoReceivedStates() {
+        return echoReceivedStates;
+    }
+
+    /**
+     * Sets whether received states should be advertised (using this policy) as well. Disabled by
+     * default, so that only devices that changed the state advertise it.
+     *
+     * Echoes speed up the propagation to peers that missed the original sender and allow it to
+     * stop once enough peers have been heard, but every receiver occupies the channel for a while
+     * after each change. Without echoes, the original sender never hears the required amount of
+     * peers and keeps advertising bursts at the maximum pause, and peers that are out of its
+     * range only converge if relaying is enabled.
+     */
+    public void setEchoReceivedStates(boolean echoReceivedStates) {
+        this.echoReceivedStates = echoReceivedStates;
+    }
+
+}
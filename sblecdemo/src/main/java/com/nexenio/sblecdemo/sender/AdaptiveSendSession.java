@@ -0,0 +1,145 @@
+package com.nexenio.sblecdemo.sender;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.CompletableSource;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Limits the advertising of a single state according to an {@link AdaptiveSendPolicy}.
+ *
+ * Applied to a {@link Completable} that advertises until disposed (like {@link
+ * com.nexenio.sblecdemo.transport.PayloadTransport#send(com.nexenio.sblecdemo.transport.TransportPayload)}),
+ * it will repeatedly subscribe to and dispose it. The resulting {@link Completable} completes
+ * once enough echoes have been {@link #onEchoReceived(int) received}.
+ */
+public class AdaptiveSendSession implements CompletableTransformer {
+
+    private final AdaptiveSendPolicy policy;
+
+    private final Scheduler scheduler;
+
+    private final CompletableSubject echoesReceived = CompletableSubject.create();
+
+    private final Subject<Object> resets = PublishSubject.create().toSerialized();
+
+    /**
+     * The device ID hash codes of peers that advertised the same state, guarded by {@code this}.
+     */
+    private final int[] echoingDeviceIdHashCodes;
+
+    private int echoCount;
+
+    private int pauseCount;
+
+    private boolean initialSend = true;
+
+    private long advertisingStartTimestamp;
+
+    private long advertisingDurationMillis;
+
+    public AdaptiveSendSession(@NonNull AdaptiveSendPolicy policy, @NonNull Scheduler scheduler) {
+        this.policy = policy;
+        this.scheduler = scheduler;
+        this.echoingDeviceIdHashCodes = new int[Math.max(0, policy.getRequiredEchoCount())];
+    }
+
+    @Override
+    public CompletableSource apply(Completable advertising) {
+        return Completable.defer(() -> createSendCycle(advertising))
+                .repeat()
+                .ambWith(echoesReceived);
+    }
+
+    /**
+     * Advertises for the current send duration, followed by a pause.
+     */
+    private Completable createSendCycle(@NonNull Completable advertising) {
+        long sendDurationMillis;
+        synchronized (this) {
+            sendDurationMillis = initialSend ? policy.getInitialSendDurationMillis() : policy.getSendDurationMillis();
+            initialSend = false;
+        }
+
+        Completable sending = advertising
+                .doOnSubscribe(disposable -> onAdvertisingStarted())
+                .doFinally(this::onAdvertisingStopped)
+                .ambWith(Completable.timer(sendDurationMillis, TimeUnit.MILLISECONDS, scheduler));
+
+        Completable pause = Completable.defer(() -> Completable.timer(getNextPauseMillis(), TimeUnit.MILLISECONDS, scheduler))
+                .ambWith(resets.firstElement().ignoreElement());
+
+        return sending.andThen(pause);
+    }
+
+    private synchronized long getNextPauseMillis() {
+        return policy.getPauseMillis(pauseCount++);
+    }
+
+    /**
+     * Should be called when a peer has been heard advertising the same state.
+     */
+    public void onEchoReceived(int deviceIdHashCode) {
+        synchronized (this) {
+            if (echoCount >= echoingDeviceIdHashCodes.length) {
+                return;
+            }
+            for (int i = 0; i < echoCount; i++) {
+                if (echoingDeviceIdHashCodes[i] == deviceIdHashCode) {
+                    return;
+                }
+            }
+            echoingDeviceIdHashCodes[echoCount++] = deviceIdHashCode;
+            if (echoCount < echoingDeviceIdHashCodes.length) {
+                return;
+            }
+        }
+        echoesReceived.onComplete();
+    }
+
+    /**
+     * Should be called when a peer has been heard advertising an outdated state. Ends the
+     * current pause and restarts the backoff, so that the peer receives the current state soon.
+     */
+    public void onOutdatedStateReceived() {
+        synchronized (this) {
+            initialSend = true;
+            pauseCount = 0;
+        }
+        resets.onNext(this);
+    }
+
+    /**
+     * Whether the required amount of echoes has been received, i.e. advertising has stopped.
+     */
+    public boolean isCompleted() {
+        return echoesReceived.hasComplete();
+    }
+
+    public synchronized int getEchoCount() {
+        return echoCount;
+    }
+
+    /**
+     * The total duration of advertising so far, which would be the whole duration of the
+     * session when advertising continuously.
+     */
+    public synchronized long getAdvertisingDurationMillis() {
+        return advertisingDurationMillis;
+    }
+
+    private synchronized void onAdvertisingStarted() {
+        advertisingStartTimestamp = scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onAdvertisingStopped() {
+        advertisingDurationMillis += scheduler.now(TimeUnit.MILLISECONDS) - advertisingStartTimestamp;
+    }
+
+}
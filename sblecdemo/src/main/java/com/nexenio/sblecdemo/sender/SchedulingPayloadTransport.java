@@ -0,0 +1,398 @@
+package com.nexenio.sblecdemo.sender;
+
+import com.nexenio.sblecdemo.metrics.LatencyHistogram;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * A {@link PayloadTransport} that decides which of the payloads being sent at the same time gets
+ * advertised, instead of letting the underlying transport advertise them in turns regardless of
+ * their priority. Scheduling is disabled unless a {@link SendSchedulingPolicy} has been {@link
+ * #setSendSchedulingPolicy(SendSchedulingPolicy) set}, payloads are passed to the underlying
+ * transport directly in that case.
+ *
+ * The underlying transport only advertises a single payload at a time. Advertising slots are
+ * assigned using weighted fair queuing: every payload has a virtual start time, and the payload
+ * with the lowest virtual finish time (start time plus the inverse of its {@link
+ * SendSchedulingPolicy#getWeight(double, long) weight}) gets the next slot, which moves its start
+ * time to that finish time. Payloads are added at the current virtual time (the start time of the
+ * payload that got the last slot), so they neither lose nor gain slots by arriving late. Weights
+ * grow while payloads are waiting, so every payload gets a slot within a bounded time. Urgent
+ * payloads get all slots while they are urgent and end the current slot right away when added,
+ * unless another urgent payload is being advertised.
+ *
+ * A single payload is advertised without interruption until another one is added, so that the
+ * underlying transport isn't restarted needlessly.
+ */
+public class SchedulingPayloadTransport implements PayloadTransport {
+
+    /**
+     * Payloads with less than the {@link TransportPayload#DEFAULT_PRIORITY default priority},
+     * e.g. relayed ones.
+     */
+    public static final int PRIORITY_CLASS_BACKGROUND = 0;
+
+    /**
+     * Payloads with at least the default priority, which are not urgent.
+     */
+    public static final int PRIORITY_CLASS_NORMAL = 1;
+
+    /**
+     * Payloads with at least the {@link SendSchedulingPolicy#getUrgentPriority() urgent
+     * priority}.
+     */
+    public static final int PRIORITY_CLASS_URGENT = 2;
+
+    public static final int PRIORITY_CLASS_COUNT = 3;
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    private final AtomicLong slotCount = new AtomicLong();
+
+    private final AtomicLong advertisementCount = new AtomicLong();
+
+    private final AtomicLong preemptedCount = new AtomicLong();
+
+    private final LatencyHistogram[] slotLatencyMillis = new LatencyHistogram[PRIORITY_CLASS_COUNT];
+
+    @Nullable
+    private volatile SendSchedulingPolicy sendSchedulingPolicy;
+
+    /**
+     * The payloads that are currently being sent, in the order of their subscription. Guarded by
+     * {@code this}, like all following fields.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    @Nullable
+    private Entry advertisedEntry;
+
+    @Nullable
+    private Disposable advertisingDisposable;
+
+    @Nullable
+    private Disposable slotDisposable;
+
+    /**
+     * The entry of which the advertisement is currently being subscribed to, which may terminate
+     * right away.
+     */
+    @Nullable
+    private Entry subscribingEntry;
+
+    private double virtualTime;
+
+    public SchedulingPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this.payloadTransport = payloadTransport;
+        this.scheduler = scheduler;
+        for (int priorityClass = 0; priorityClass < PRIORITY_CLASS_COUNT; priorityClass++) {
+            slotLatencyMillis[priorityClass] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return Completable.defer(() -> {
+            SendSchedulingPolicy sendSchedulingPolicy = this.sendSchedulingPolicy;
+            if (sendSchedulingPolicy == null) {
+                return payloadTransport.send(transportPayload);
+            }
+            return Completable.create(emitter -> {
+                Entry entry = new Entry(transportPayload, sendSchedulingPolicy, emitter);
+                emitter.setCancellable(() -> removeEntry(entry));
+                addEntry(entry);
+            });
+        });
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadTransport.receive();
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    private synchronized void addEntry(@NonNull Entry entry) {
+        if (entry.emitter.isDisposed()) {
+            // disposed before it could be added
+            return;
+        }
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        entry.addedTimestamp = now;
+        entry.lastSlotTimestamp = now;
+        entry.virtualStartTime = virtualTime;
+        entries.add(entry);
+
+        Entry advertisedEntry = this.advertisedEntry;
+        if (advertisedEntry == null) {
+            startNextSlot();
+        } else if (entry.isUrgent(now) && !advertisedEntry.isUrgent(now)) {
+            preemptedCount.incrementAndGet();
+            startNextSlot();
+        } else if (slotDisposable == null) {
+            // the advertised payload had the air to itself so far
+            scheduleSlotEnd(advertisedEntry.sendSchedulingPolicy);
+        }
+    }
+
+    private synchronized void removeEntry(@NonNull Entry entry) {
+        if (!entries.remove(entry)) {
+            return;
+        }
+        if (entry == advertisedEntry) {
+            stopAdvertising();
+            startNextSlot();
+        }
+    }
+
+    private synchronized void onSlotEnded() {
+        slotDisposable = null;
+        startNextSlot();
+    }
+
+    /**
+     * Assigns the next slot to the entry with the lowest virtual finish time, preferring urgent
+     * ones, and advertises it if it's not being advertised already. Repeated if advertising the
+     * entry terminates right away.
+     */
+    private void startNextSlot() {
+        if (slotDisposable != null) {
+            slotDisposable.dispose();
+            slotDisposable = null;
+        }
+
+        Entry nextEntry;
+        do {
+            if (entries.isEmpty()) {
+                stopAdvertising();
+                return;
+            }
+            nextEntry = assignNextSlot();
+            if (nextEntry != advertisedEntry) {
+                stopAdvertising();
+                advertise(nextEntry);
+            }
+        } while (advertisedEntry == null);
+
+        if (entries.size() > 1) {
+            scheduleSlotEnd(nextEntry.sendSchedulingPolicy);
+        }
+    }
+
+    @NonNull
+    private Entry assignNextSlot() {
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        Entry nextEntry = null;
+        boolean nextEntryUrgent = false;
+        double nextEntryFinishTime = Double.MAX_VALUE;
+        for (Entry entry : entries) {
+            boolean urgent = entry.isUrgent(now);
+            double finishTime = entry.getVirtualFinishTime(now, entry == advertisedEntry);
+            if (nextEntry == null || (urgent && !nextEntryUrgent) || (urgent == nextEntryUrgent && finishTime < nextEntryFinishTime)) {
+                nextEntry = entry;
+                nextEntryUrgent = urgent;
+                nextEntryFinishTime = finishTime;
+            }
+        }
+
+        if (!nextEntry.hasHadSlot) {
+            slotLatencyMillis[nextEntry.priorityClass].record(now - nextEntry.addedTimestamp);
+            nextEntry.hasHadSlot = true;
+        }
+        virtualTime = Math.max(virtualTime, nextEntry.virtualStartTime);
+        nextEntry.virtualStartTime = nextEntryFinishTime;
+        nextEntry.lastSlotTimestamp = now;
+        slotCount.incrementAndGet();
+        return nextEntry;
+    }
+
+    private void scheduleSlotEnd(@NonNull SendSchedulingPolicy sendSchedulingPolicy) {
+        slotDisposable = scheduler.scheduleDirect(this::onSlotEnded, sendSchedulingPolicy.getSlotDurationMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void advertise(@NonNull Entry entry) {
+        advertisedEntry = entry;
+        advertisementCount.incrementAndGet();
+        subscribingEntry = entry;
+        Disposable disposable = payloadTransport.send(entry.transportPayload)
+                .subscribe(
+                        () -> onAdvertisingTerminated(entry, null),
+                        throwable -> onAdvertisingTerminated(entry, throwable)
+                );
+        subscribingEntry = null;
+        if (advertisedEntry == entry) {
+            advertisingDisposable = disposable;
+        }
+    }
+
+    private void stopAdvertising() {
+        if (advertisingDisposable != null) {
+            advertisingDisposable.dispose();
+            advertisingDisposable = null;
+        }
+        advertisedEntry = null;
+    }
+
+    /**
+     * Removes the entry of a terminated advertisement and forwards the termination to the payload
+     * that it contained.
+     */
+    private void onAdvertisingTerminated(@NonNull Entry entry, @Nullable Throwable throwable) {
+        boolean subscribing;
+        synchronized (this) {
+            subscribing = entry == subscribingEntry;
+            if (entries.remove(entry) && entry == advertisedEntry) {
+                advertisingDisposable = null;
+                advertisedEntry = null;
+                if (!subscribing) {
+                    startNextSlot();
+                }
+            }
+        }
+        if (subscribing) {
+            // the slot that is being started continues with the next entry, downstream shouldn't
+            // be able to add or remove entries in the meantime
+            scheduler.scheduleDirect(() -> entry.terminate(throwable));
+        } else {
+            entry.terminate(throwable);
+        }
+    }
+
+    @Nullable
+    public SendSchedulingPolicy getSendSchedulingPolicy() {
+        return sendSchedulingPolicy;
+    }
+
+    /**
+     * Enables scheduling using the specified policy, or disables it if null. Payloads that are
+     * currently being sent are not affected.
+     */
+    public void setSendSchedulingPolicy(@Nullable SendSchedulingPolicy sendSchedulingPolicy) {
+        this.sendSchedulingPolicy = sendSchedulingPolicy;
+    }
+
+    /**
+     * The amount of payloads that are currently waiting for or occupying a slot.
+     */
+    public synchronized int getScheduledPayloadCount() {
+        return entries.size();
+    }
+
+    /**
+     * The amount of assigned slots, including consecutive ones of the same payload.
+     */
+    public long getSlotCount() {
+        return slotCount.get();
+    }
+
+    /**
+     * The amount of times the underlying transport started advertising a payload.
+     */
+    public long getAdvertisementCount() {
+        return advertisementCount.get();
+    }
+
+    /**
+     * The amount of slots that have been ended early, because an urgent payload has been added.
+     */
+    public long getPreemptedCount() {
+        return preemptedCount.get();
+    }
+
+    /**
+     * The durations from adding a payload of the specified priority class (e.g. {@link
+     * #PRIORITY_CLASS_URGENT}) until it got its first slot.
+     */
+    @NonNull
+    public LatencyHistogram.Snapshot getSlotLatencyMillis(int priorityClass) {
+        return slotLatencyMillis[priorityClass].getSnapshot();
+    }
+
+    public void resetCounts() {
+        slotCount.set(0);
+        advertisementCount.set(0);
+        preemptedCount.set(0);
+        for (LatencyHistogram latencyHistogram : slotLatencyMillis) {
+            latencyHistogram.reset();
+        }
+    }
+
+    /**
+     * The priority class of payloads with the specified priority, according to the specified
+     * policy.
+     */
+    public static int getPriorityClass(double priority, @NonNull SendSchedulingPolicy sendSchedulingPolicy) {
+        if (sendSchedulingPolicy.isUrgent(priority)) {
+            return PRIORITY_CLASS_URGENT;
+        }
+        return priority < TransportPayload.DEFAULT_PRIORITY ? PRIORITY_CLASS_BACKGROUND : PRIORITY_CLASS_NORMAL;
+    }
+
+    private static final class Entry {
+
+        private final TransportPayload transportPayload;
+
+        private final SendSchedulingPolicy sendSchedulingPolicy;
+
+        private final CompletableEmitter emitter;
+
+        private final int priorityClass;
+
+        private long addedTimestamp;
+
+        private long lastSlotTimestamp;
+
+        private double virtualStartTime;
+
+        private boolean hasHadSlot;
+
+        private Entry(@NonNull TransportPayload transportPayload, @NonNull SendSchedulingPolicy sendSchedulingPolicy, @NonNull CompletableEmitter emitter) {
+            this.transportPayload = transportPayload;
+            this.sendSchedulingPolicy = sendSchedulingPolicy;
+            this.emitter = emitter;
+            this.priorityClass = getPriorityClass(transportPayload.getPriority(), sendSchedulingPolicy);
+        }
+
+        private void terminate(@Nullable Throwable throwable) {
+            if (throwable != null) {
+                emitter.tryOnError(throwable);
+            } else {
+                emitter.onComplete();
+            }
+        }
+
+        private boolean isUrgent(long now) {
+            return sendSchedulingPolicy.isUrgent(transportPayload.getPriority())
+                    && now - addedTimestamp < sendSchedulingPolicy.getUrgentDurationMillis();
+        }
+
+        /**
+         * The virtual time at which the next slot of this entry would end. The advertised entry
+         * isn't waiting, so it doesn't age.
+         */
+        private double getVirtualFinishTime(long now, boolean advertised) {
+            long waitingMillis = advertised ? 0 : now - lastSlotTimestamp;
+            return virtualStartTime + 1 / sendSchedulingPolicy.getWeight(transportPayload.getPriority(), waitingMillis);
+        }
+
+    }
+
+}
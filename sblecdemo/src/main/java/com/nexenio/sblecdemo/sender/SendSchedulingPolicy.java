@@ -0,0 +1,115 @@
+package com.nexenio.sblecdemo.sender;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+/**
+ * The parameters of a {@link SchedulingPayloadTransport}.
+ *
+ * Payloads that are sent at the same time share the advertising {@link #getSlotDurationMillis()
+ * slots} in proportion to their weight, which grows linearly with their priority from 1 to the
+ * {@link #getMaximumWeight() maximum weight}. While a payload waits for a slot, its priority is
+ * raised until it reaches the maximum priority after the {@link #getAgingDurationMillis() aging
+ * duration}, so that low priority payloads are not starved. Payloads with at least the {@link
+ * #getUrgentPriority() urgent priority} preempt all other payloads for the {@link
+ * #getUrgentDurationMillis() urgent duration}.
+ */
+public class SendSchedulingPolicy {
+
+    public static final long DEFAULT_SLOT_DURATION_MILLIS = 100;
+    public static final double DEFAULT_MAXIMUM_WEIGHT = 4;
+    public static final long DEFAULT_AGING_DURATION_MILLIS = 2_000;
+    public static final double DEFAULT_URGENT_PRIORITY = 0.75;
+    public static final long DEFAULT_URGENT_DURATION_MILLIS = 500;
+
+    private volatile long slotDurationMillis = DEFAULT_SLOT_DURATION_MILLIS;
+
+    private volatile double maximumWeight = DEFAULT_MAXIMUM_WEIGHT;
+
+    private volatile long agingDurationMillis = DEFAULT_AGING_DURATION_MILLIS;
+
+    private volatile double urgentPriority = DEFAULT_URGENT_PRIORITY;
+
+    private volatile long urgentDurationMillis = DEFAULT_URGENT_DURATION_MILLIS;
+
+    /**
+     * The weight of a payload with the specified priority that has been waiting for a slot for
+     * the specified duration.
+     */
+    public double getWeight(double priority, long waitingMillis) {
+        double agedPriority = priority;
+        if (agingDurationMillis > 0 && waitingMillis > 0) {
+            double priorityRange = TransportPayload.MAXIMUM_PRIORITY - TransportPayload.MINIMUM_PRIORITY;
+            agedPriority += priorityRange * waitingMillis / agingDurationMillis;
+        }
+        agedPriority = Math.max(TransportPayload.MINIMUM_PRIORITY, Math.min(agedPriority, TransportPayload.MAXIMUM_PRIORITY));
+        return 1 + (maximumWeight - 1) * (agedPriority - TransportPayload.MINIMUM_PRIORITY);
+    }
+
+    /**
+     * Whether payloads with the specified priority preempt all other payloads.
+     */
+    public boolean isUrgent(double priority) {
+        return priority >= urgentPriority;
+    }
+
+    public long getSlotDurationMillis() {
+        return slotDurationMillis;
+    }
+
+    /**
+     * Sets how long a payload is advertised before the next one gets its turn. Should match the
+     * advertising interval, so that every slot carries a single advertisement.
+     */
+    public void setSlotDurationMillis(long slotDurationMillis) {
+        this.slotDurationMillis = slotDurationMillis;
+    }
+
+    public double getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Sets the weight of payloads with the maximum priority, relative to the weight of 1 of
+     * payloads with the minimum priority.
+     */
+    public void setMaximumWeight(double maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public long getAgingDurationMillis() {
+        return agingDurationMillis;
+    }
+
+    /**
+     * Sets the waiting time after which payloads with the minimum priority are weighted like
+     * payloads with the maximum priority. Use 0 to disable aging.
+     */
+    public void setAgingDurationMillis(long agingDurationMillis) {
+        this.agingDurationMillis = agingDurationMillis;
+    }
+
+    public double getUrgentPriority() {
+        return urgentPriority;
+    }
+
+    /**
+     * Sets the priority from which on payloads preempt all other payloads. Use a value above the
+     * maximum priority to disable preemption.
+     */
+    public void setUrgentPriority(double urgentPriority) {
+        this.urgentPriority = urgentPriority;
+    }
+
+    public long getUrgentDurationMillis() {
+        return urgentDurationMillis;
+    }
+
+    /**
+     * Sets how long urgent payloads are preferred after they have been added, afterwards they
+     * share the slots according to their weight.
+     */
+    public void setUrgentDurationMillis(long urgentDurationMillis) {
+        this.urgentDurationMillis = urgentDurationMillis;
+    }
+
+}
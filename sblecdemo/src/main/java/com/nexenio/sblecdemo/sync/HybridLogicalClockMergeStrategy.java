@@ -0,0 +1,37 @@
+package com.nexenio.sblecdemo.sync;
+
+/**
+ * Uses a hybrid logical clock for timestamps: the current time of the device, unless the
+ * current state has a timestamp that is not older. In that case, the timestamp of the current
+ * state will be incremented by one.
+ *
+ * This guarantees that a local change always wins against the state it has been based on, even
+ * if the clock of the device is running behind. Timestamps stay close to the physical time, so
+ * they can still be encoded in formats that truncate them relative to the current time.
+ */
+public class HybridLogicalClockMergeStrategy extends LastWriterWinsMergeStrategy {
+
+    public HybridLogicalClockMergeStrategy() {
+    }
+
+    /**
+     * @param format the format used for sending, see {@link
+     *               LastWriterWinsMergeStrategy#LastWriterWinsMergeStrategy(int)}
+     */
+    public HybridLogicalClockMergeStrategy(int format) {
+        super(format);
+    }
+
+    @Override
+    protected long createTimestamp(long currentTimestamp, long lastTimestamp) {
+        return getNextTimestamp(currentTimestamp, lastTimestamp);
+    }
+
+    /**
+     * @return a timestamp that is newer than the last one and not older than the current one
+     */
+    public static long getNextTimestamp(long currentTimestamp, long lastTimestamp) {
+        return lastTimestamp < currentTimestamp ? currentTimestamp : lastTimestamp + 1;
+    }
+
+}
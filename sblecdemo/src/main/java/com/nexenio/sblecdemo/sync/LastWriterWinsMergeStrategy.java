@@ -0,0 +1,108 @@
+package com.nexenio.sblecdemo.sync;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Treats the whole state as a single register: the state with the newest timestamp wins, the
+ * other one is discarded entirely. Subclasses decide how timestamps are created.
+ *
+ * The formats used by this strategy don't contain the device that created a state, and the
+ * device ID hash code of a payload is the one of the last device that advertised it (which may
+ * just echo a received state). Ties are therefore broken by the icon and color index instead.
+ */
+public abstract class LastWriterWinsMergeStrategy implements MergeStrategy {
+
+    private final int format;
+
+    /**
+     * Sends the {@link DemoPayloadWrapper#DEFAULT_FORMAT default format}, which can be decoded by
+     * all devices.
+     */
+    protected LastWriterWinsMergeStrategy() {
+        this(DemoPayloadWrapper.DEFAULT_FORMAT);
+    }
+
+    /**
+     * @param format {@link DemoPayloadCodec#FORMAT_LEGACY} or {@link
+     *               DemoPayloadCodec#FORMAT_COMPACT}, which is less than half the size but can't
+     *               be decoded by devices running older versions
+     */
+    protected LastWriterWinsMergeStrategy(int format) {
+        if (format != DemoPayloadCodec.FORMAT_LEGACY && format != DemoPayloadCodec.FORMAT_COMPACT) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        this.format = format;
+    }
+
+    @Override
+    public int getFormat() {
+        return format;
+    }
+
+    @Override
+    public void onLocalChange(@NonNull DemoPayloadWrapper changedDemoPayloadWrapper, @Nullable DemoPayloadWrapper currentDemoPayloadWrapper, long currentTimestamp) {
+        long lastTimestamp = currentDemoPayloadWrapper != null ? currentDemoPayloadWrapper.getTimestamp() : Long.MIN_VALUE;
+        long timestamp = createTimestamp(currentTimestamp, lastTimestamp);
+        int deviceIdHashCode = changedDemoPayloadWrapper.getDeviceIdHashCode();
+
+        changedDemoPayloadWrapper.setTimestamp(timestamp);
+        changedDemoPayloadWrapper.setIconTimestamp(timestamp);
+        changedDemoPayloadWrapper.setIconDeviceIdHashCode(deviceIdHashCode);
+        changedDemoPayloadWrapper.setColorTimestamp(timestamp);
+        changedDemoPayloadWrapper.setColorDeviceIdHashCode(deviceIdHashCode);
+    }
+
+    /**
+     * @param lastTimestamp the timestamp of the current state or {@link Long#MIN_VALUE} if there
+     *                      is none
+     */
+    protected abstract long createTimestamp(long currentTimestamp, long lastTimestamp);
+
+    @Override
+    public int compare(@NonNull TransportPayload transportPayload, long referenceTimestamp, @NonNull DemoPayloadWrapper currentDemoPayloadWrapper) {
+        ByteBuffer data = transportPayload.getData();
+        return compare(
+                DemoPayloadCodec.readTimestamp(data, referenceTimestamp),
+                DemoPayloadCodec.readIconIndex(data),
+                DemoPayloadCodec.readColorIndex(data),
+                currentDemoPayloadWrapper
+        );
+    }
+
+    @NonNull
+    @Override
+    public DemoPayloadWrapper merge(@NonNull DemoPayloadWrapper currentDemoPayloadWrapper, @NonNull DemoPayloadWrapper receivedDemoPayloadWrapper) {
+        int comparison = compare(
+                receivedDemoPayloadWrapper.getTimestamp(),
+                receivedDemoPayloadWrapper.getIconIndex(),
+                receivedDemoPayloadWrapper.getColorIndex(),
+                currentDemoPayloadWrapper
+        );
+        return comparison > 0 ? receivedDemoPayloadWrapper : currentDemoPayloadWrapper;
+    }
+
+    /**
+     * Compares the timestamps first. States with equal timestamps are ordered by their indices,
+     * so that all devices pick the same one.
+     */
+    private static int compare(long timestamp, int iconIndex, int colorIndex, @NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        if (timestamp != demoPayloadWrapper.getTimestamp()) {
+            return timestamp > demoPayloadWrapper.getTimestamp() ? 1 : -1;
+        }
+        if (iconIndex != demoPayloadWrapper.getIconIndex()) {
+            return iconIndex > demoPayloadWrapper.getIconIndex() ? 1 : -1;
+        }
+        if (colorIndex != demoPayloadWrapper.getColorIndex()) {
+            return colorIndex > demoPayloadWrapper.getColorIndex() ? 1 : -1;
+        }
+        return 0;
+    }
+
+}
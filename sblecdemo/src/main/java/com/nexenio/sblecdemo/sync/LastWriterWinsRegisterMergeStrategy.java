@@ -0,0 +1,101 @@
+package com.nexenio.sblecdemo.sync;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Treats the icon and color index as separate last-writer-wins registers (a state-based CRDT).
+ * Each index has its own {@link Versions version}, created by a hybrid logical clock, so
+ * concurrent changes of different indices on different devices will both be preserved.
+ *
+ * Requires the {@link DemoPayloadCodec#FORMAT_REGISTERS registers format}. Payloads in other
+ * formats are treated as if both indices had been changed by the sender.
+ */
+public class LastWriterWinsRegisterMergeStrategy implements MergeStrategy {
+
+    @Override
+    public int getFormat() {
+        return DemoPayloadCodec.FORMAT_REGISTERS;
+    }
+
+    @Override
+    public void onLocalChange(@NonNull DemoPayloadWrapper changedDemoPayloadWrapper, @Nullable DemoPayloadWrapper currentDemoPayloadWrapper, long currentTimestamp) {
+        long lastTimestamp = currentDemoPayloadWrapper != null ? currentDemoPayloadWrapper.getTimestamp() : Long.MIN_VALUE;
+        long timestamp = HybridLogicalClockMergeStrategy.getNextTimestamp(currentTimestamp, lastTimestamp);
+        int deviceIdHashCode = changedDemoPayloadWrapper.getDeviceIdHashCode();
+
+        if (currentDemoPayloadWrapper == null || changedDemoPayloadWrapper.getIconIndex() != currentDemoPayloadWrapper.getIconIndex()) {
+            changedDemoPayloadWrapper.setIconTimestamp(timestamp);
+            changedDemoPayloadWrapper.setIconDeviceIdHashCode(deviceIdHashCode);
+        }
+        if (currentDemoPayloadWrapper == null || changedDemoPayloadWrapper.getColorIndex() != currentDemoPayloadWrapper.getColorIndex()) {
+            changedDemoPayloadWrapper.setColorTimestamp(timestamp);
+            changedDemoPayloadWrapper.setColorDeviceIdHashCode(deviceIdHashCode);
+        }
+        changedDemoPayloadWrapper.setTimestamp(Math.max(changedDemoPayloadWrapper.getIconTimestamp(), changedDemoPayloadWrapper.getColorTimestamp()));
+    }
+
+    @Override
+    public int compare(@NonNull TransportPayload transportPayload, long referenceTimestamp, @NonNull DemoPayloadWrapper currentDemoPayloadWrapper) {
+        ByteBuffer data = transportPayload.getData();
+        int senderDeviceIdHashCode = transportPayload.getDeviceIdHashCode();
+        int iconComparison = Versions.compare(
+                DemoPayloadCodec.readIconTimestamp(data, referenceTimestamp),
+                DemoPayloadCodec.readIconDeviceIdHashCode(data, senderDeviceIdHashCode),
+                currentDemoPayloadWrapper.getIconTimestamp(),
+                currentDemoPayloadWrapper.getIconDeviceIdHashCode()
+        );
+        if (iconComparison > 0) {
+            return 1;
+        }
+        int colorComparison = Versions.compare(
+                DemoPayloadCodec.readColorTimestamp(data, referenceTimestamp),
+                DemoPayloadCodec.readColorDeviceIdHashCode(data, senderDeviceIdHashCode),
+                currentDemoPayloadWrapper.getColorTimestamp(),
+                currentDemoPayloadWrapper.getColorDeviceIdHashCode()
+        );
+        if (colorComparison > 0) {
+            return 1;
+        }
+        return iconComparison == 0 && colorComparison == 0 ? 0 : -1;
+    }
+
+    @NonNull
+    @Override
+    public DemoPayloadWrapper merge(@NonNull DemoPayloadWrapper currentDemoPayloadWrapper, @NonNull DemoPayloadWrapper receivedDemoPayloadWrapper) {
+        int iconComparison = Versions.compare(
+                receivedDemoPayloadWrapper.getIconTimestamp(), receivedDemoPayloadWrapper.getIconDeviceIdHashCode(),
+                currentDemoPayloadWrapper.getIconTimestamp(), currentDemoPayloadWrapper.getIconDeviceIdHashCode()
+        );
+        int colorComparison = Versions.compare(
+                receivedDemoPayloadWrapper.getColorTimestamp(), receivedDemoPayloadWrapper.getColorDeviceIdHashCode(),
+                currentDemoPayloadWrapper.getColorTimestamp(), currentDemoPayloadWrapper.getColorDeviceIdHashCode()
+        );
+
+        if (iconComparison <= 0 && colorComparison <= 0) {
+            return currentDemoPayloadWrapper;
+        } else if (iconComparison >= 0 && colorComparison >= 0) {
+            return receivedDemoPayloadWrapper;
+        }
+
+        DemoPayloadWrapper iconSource = iconComparison > 0 ? receivedDemoPayloadWrapper : currentDemoPayloadWrapper;
+        DemoPayloadWrapper colorSource = colorComparison > 0 ? receivedDemoPayloadWrapper : currentDemoPayloadWrapper;
+
+        DemoPayloadWrapper mergedDemoPayloadWrapper = new DemoPayloadWrapper(iconSource.getIconIndex(), colorSource.getColorIndex());
+        mergedDemoPayloadWrapper.setIconTimestamp(iconSource.getIconTimestamp());
+        mergedDemoPayloadWrapper.setIconDeviceIdHashCode(iconSource.getIconDeviceIdHashCode());
+        mergedDemoPayloadWrapper.setColorTimestamp(colorSource.getColorTimestamp());
+        mergedDemoPayloadWrapper.setColorDeviceIdHashCode(colorSource.getColorDeviceIdHashCode());
+        mergedDemoPayloadWrapper.setTimestamp(Math.max(iconSource.getIconTimestamp(), colorSource.getColorTimestamp()));
+        mergedDemoPayloadWrapper.setDeviceIdHashCode(currentDemoPayloadWrapper.getDeviceIdHashCode());
+        mergedDemoPayloadWrapper.setFormat(getFormat());
+        return mergedDemoPayloadWrapper;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.nexenio.sblecdemo.sync;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Decides which state nearby devices should converge to, if they receive conflicting {@link
+ * DemoPayloadWrapper}s.
+ *
+ * Implementations need to be deterministic and must not depend on the order in which payloads
+ * are received, otherwise devices may end up with different states. They shouldn't hold any
+ * mutable state, so that a single instance can be shared.
+ */
+public interface MergeStrategy {
+
+    /**
+     * The {@link com.nexenio.sblecdemo.payload.DemoPayloadCodec} format that should be used for
+     * sending, as it needs to contain all values required for merging.
+     */
+    int getFormat();
+
+    /**
+     * Assigns the version (e.g. the timestamp) of a locally changed state, before it gets sent.
+     *
+     * @param changedDemoPayloadWrapper a copy of the current state (or a new one) with the
+     *                                  changes already applied
+     * @param currentDemoPayloadWrapper the state before the change, if any
+     * @param currentTimestamp          the current time of this device
+     */
+    void onLocalChange(@NonNull DemoPayloadWrapper changedDemoPayloadWrapper, @Nullable DemoPayloadWrapper currentDemoPayloadWrapper, long currentTimestamp);
+
+    /**
+     * Compares the state of the specified payload with the current one, without decoding it into
+     * a {@link DemoPayloadWrapper}. Should not allocate any objects, as it will be called for
+     * every received payload.
+     *
+     * @param transportPayload   a payload with {@link com.nexenio.sblecdemo.payload.DemoPayloadCodec#isValid(java.nio.ByteBuffer)
+     *                           valid} data
+     * @param referenceTimestamp the current time of this device, used for restoring truncated
+     *                           timestamps
+     * @return a positive value if the payload may change the current state, 0 if it contains the
+     *         same state (e.g. because another device has received it as well) or a negative
+     *         value if it is outdated
+     */
+    int compare(@NonNull TransportPayload transportPayload, long referenceTimestamp, @NonNull DemoPayloadWrapper currentDemoPayloadWrapper);
+
+    /**
+     * Merges a received state into the current one.
+     *
+     * @return the current instance if the received state doesn't contain any changes, the
+     *         received instance if it contains all of the current changes or a new instance
+     *         combining changes of both
+     */
+    @NonNull
+    DemoPayloadWrapper merge(@NonNull DemoPayloadWrapper currentDemoPayloadWrapper, @NonNull DemoPayloadWrapper receivedDemoPayloadWrapper);
+
+}
@@ -0,0 +1,27 @@
+package com.nexenio.sblecdemo.sync;
+
+/**
+ * Compares versions consisting of a timestamp and the device ID hash code of the device that
+ * created the version. The device ID hash code breaks ties, so that all devices agree on the same
+ * order, even for changes with identical timestamps.
+ */
+public final class Versions {
+
+    private Versions() {
+    }
+
+    /**
+     * @return a positive value if the first version is newer than the second one, a negative
+     *         value if it's older and 0 if both are equal
+     */
+    public static int compare(long timestamp, int deviceIdHashCode, long otherTimestamp, int otherDeviceIdHashCode) {
+        if (timestamp != otherTimestamp) {
+            return timestamp > otherTimestamp ? 1 : -1;
+        }
+        if (deviceIdHashCode != otherDeviceIdHashCode) {
+            return deviceIdHashCode > otherDeviceIdHashCode ? 1 : -1;
+        }
+        return 0;
+    }
+
+}
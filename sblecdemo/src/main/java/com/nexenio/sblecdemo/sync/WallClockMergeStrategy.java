@@ -0,0 +1,28 @@
+package com.nexenio.sblecdemo.sync;
+
+/**
+ * Uses the current time of the device that changed the state as timestamp.
+ *
+ * This only works well if the clocks of all devices are in sync. A device with a clock running
+ * behind will lose against older changes of other devices, so its own changes get reverted as
+ * soon as it receives their payloads.
+ */
+public class WallClockMergeStrategy extends LastWriterWinsMergeStrategy {
+
+    public WallClockMergeStrategy() {
+    }
+
+    /**
+     * @param format the format used for sending, see {@link
+     *               LastWriterWinsMergeStrategy#LastWriterWinsMergeStrategy(int)}
+     */
+    public WallClockMergeStrategy(int format) {
+        super(format);
+    }
+
+    @Override
+    protected long createTimestamp(long currentTimestamp, long lastTimestamp) {
+        return currentTimestamp;
+    }
+
+}
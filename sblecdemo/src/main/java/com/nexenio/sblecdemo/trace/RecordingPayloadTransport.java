@@ -0,0 +1,72 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+
+/**
+ * A {@link PayloadTransport} that records all received payloads using a {@link TraceRecorder}, if
+ * one has been {@link #setTraceRecorder(TraceRecorder) set}. Payloads are passed through
+ * unchanged, sent payloads are not recorded.
+ */
+public class RecordingPayloadTransport implements PayloadTransport {
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    @Nullable
+    private volatile TraceRecorder traceRecorder;
+
+    /**
+     * @param scheduler provides the arrival time of received payloads
+     */
+    public RecordingPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this.payloadTransport = payloadTransport;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return payloadTransport.send(transportPayload);
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadTransport.receive()
+                .doOnNext(this::onPayloadReceived);
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    private void onPayloadReceived(@NonNull TransportPayload transportPayload) {
+        TraceRecorder traceRecorder = this.traceRecorder;
+        if (traceRecorder != null) {
+            traceRecorder.record(transportPayload, scheduler.now(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Nullable
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * Starts recording received payloads using the specified recorder, or stops it if null. The
+     * recorder is not closed when it gets replaced.
+     */
+    public void setTraceRecorder(@Nullable TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Encodes and decodes the traces written by the {@link TraceRecorder}. A trace starts with a
+ * header, followed by the received payloads in the order of their arrival:
+ *
+ * <pre>
+ * | magic (4) | version (1) | start timestamp (8) | records |
+ * </pre>
+ *
+ * Each record is encoded as:
+ *
+ * <pre>
+ * | payload length + 1 (1) | payload ID (1) | device ID hash code (4) |
+ * | milliseconds since the previous record (varint, 1..5) | payload (0..254) |
+ * </pre>
+ *
+ * The first byte of a record is never 0, the trace ends at the first 0 byte (or at the end of the
+ * buffer). This allows the file to be longer than the trace, and the first byte is written last,
+ * so that a record that has only been partially written (e.g. because the app crashed) is ignored.
+ */
+public final class TraceCodec {
+
+    public static final int MAGIC = 0x53424C54; // "SBLT"
+
+    public static final byte VERSION = 1;
+
+    public static final int HEADER_LENGTH = 4 + 1 + 8;
+
+    public static final int MAXIMUM_PAYLOAD_ID = 0xFF;
+
+    public static final int MAXIMUM_PAYLOAD_LENGTH = 0xFE;
+
+    /**
+     * Longer intervals between records are recorded as this value.
+     */
+    public static final long MAXIMUM_INTERVAL_MILLIS = (1L << 35) - 1;
+
+    private static final int VARINT_MAXIMUM_LENGTH = 5;
+
+    public static final int MAXIMUM_RECORD_LENGTH = 1 + 1 + 4 + VARINT_MAXIMUM_LENGTH + MAXIMUM_PAYLOAD_LENGTH;
+
+    private static final int END_OF_TRACE = 0;
+
+    private TraceCodec() {
+    }
+
+    public static void writeHeader(@NonNull ByteBuffer buffer, long startTimestamp) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(startTimestamp);
+    }
+
+    /**
+     * @return the start timestamp
+     * @throws IllegalArgumentException if the buffer doesn't start with a valid header
+     */
+    public static long readHeader(@NonNull ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Trace truncated: " + buffer.remaining());
+        }
+        int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Not a trace: " + Integer.toHexString(magic));
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown version: " + version);
+        }
+        return buffer.getLong();
+    }
+
+    /**
+     * @return true if the specified payload can be recorded
+     */
+    public static boolean isRecordable(@NonNull TransportPayload transportPayload) {
+        int id = transportPayload.getId();
+        return id >= 0 && id <= MAXIMUM_PAYLOAD_ID && transportPayload.getData().limit() <= MAXIMUM_PAYLOAD_LENGTH;
+    }
+
+    /**
+     * Writes a record of the specified payload at the position of the buffer, which must have at
+     * least {@link #MAXIMUM_RECORD_LENGTH} bytes remaining. The first byte is written last.
+     *
+     * @param intervalMillis the time since the previous record, or since the start of the trace
+     */
+    public static void writeRecord(@NonNull ByteBuffer buffer, @NonNull TransportPayload transportPayload, long intervalMillis) {
+        ByteBuffer data = transportPayload.getData();
+        int length = data.limit();
+        int recordIndex = buffer.position();
+        buffer.position(recordIndex + 1);
+        buffer.put((byte) transportPayload.getId());
+        buffer.putInt(transportPayload.getDeviceIdHashCode());
+        writeVarint(buffer, Math.max(0, Math.min(intervalMillis, MAXIMUM_INTERVAL_MILLIS)));
+        for (int index = 0; index < length; index++) {
+            buffer.put(data.get(index));
+        }
+        buffer.put(recordIndex, (byte) (length + 1));
+    }
+
+    /**
+     * Reads the record at the position of the buffer. The data of the returned payload is a
+     * read-only view on the buffer.
+     *
+     * @param previousTimestamp the timestamp of the previous record, or the start timestamp
+     * @return the record, or null if the trace ends at the position of the buffer
+     */
+    @Nullable
+    public static TraceRecord readRecord(@NonNull ByteBuffer buffer, long previousTimestamp) {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        int recordIndex = buffer.position();
+        int lengthByte = buffer.get(recordIndex) & 0xFF;
+        if (lengthByte == END_OF_TRACE) {
+            return null;
+        }
+        int length = lengthByte - 1;
+        if (buffer.remaining() < 1 + 1 + 4 + 1 + length) {
+            // truncated, e.g. because the file has been copied while recording
+            return null;
+        }
+        buffer.position(recordIndex + 1);
+        int id = buffer.get() & 0xFF;
+        int deviceIdHashCode = buffer.getInt();
+        long interval = readVarint(buffer);
+        if (interval < 0 || buffer.remaining() < length) {
+            buffer.position(recordIndex);
+            return null;
+        }
+        ByteBuffer data = buffer.duplicate();
+        data.limit(data.position() + length);
+        buffer.position(buffer.position() + length);
+        return new TraceRecord(previousTimestamp + interval, new TransportPayload(id, deviceIdHashCode, data.slice().asReadOnlyBuffer()));
+    }
+
+    private static void writeVarint(@NonNull ByteBuffer buffer, long value) {
+        while (value >= 0x80) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * @return the value, or -1 if it is truncated or too long
+     */
+    private static long readVarint(@NonNull ByteBuffer buffer) {
+        long value = 0;
+        for (int index = 0; index < VARINT_MAXIMUM_LENGTH; index++) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << (7 * index);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+}
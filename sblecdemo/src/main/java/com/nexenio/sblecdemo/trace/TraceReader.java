@@ -0,0 +1,108 @@
+package com.nexenio.sblecdemo.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Reads the records of a trace written by the {@link TraceRecorder}, in the order they have been
+ * recorded. The data of the read payloads is a read-only view on the trace, nothing is copied.
+ */
+public class TraceReader {
+
+    private final ByteBuffer buffer;
+
+    private final long startTimestamp;
+
+    private long previousTimestamp;
+
+    private int recordCount;
+
+    /**
+     * Maps the specified file, which can be closed (or even be appended to) afterwards.
+     *
+     * @throws IOException if the file can't be read or isn't a trace
+     */
+    public TraceReader(@NonNull File file) throws IOException {
+        this(mapFile(file));
+    }
+
+    /**
+     * @throws IOException if the file can't be read or isn't a trace
+     */
+    TraceReader(@NonNull FileChannel fileChannel) throws IOException {
+        this(readHeader(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size())));
+    }
+
+    /**
+     * @param buffer a trace, starting at the position of the buffer
+     * @throws IllegalArgumentException if the buffer doesn't contain a trace
+     */
+    public TraceReader(@NonNull ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        startTimestamp = TraceCodec.readHeader(this.buffer);
+        previousTimestamp = startTimestamp;
+    }
+
+    @NonNull
+    private static ByteBuffer mapFile(@NonNull File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel fileChannel = randomAccessFile.getChannel();
+            return readHeader(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+        }
+    }
+
+    /**
+     * Checks the header without consuming it, so that malformed files are reported as
+     * {@link IOException}s.
+     */
+    @NonNull
+    private static ByteBuffer readHeader(@NonNull ByteBuffer buffer) throws IOException {
+        try {
+            TraceCodec.readHeader(buffer.duplicate());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unable to read trace", e);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the next record, or null if the end of the trace has been reached
+     */
+    @Nullable
+    public TraceRecord next() {
+        TraceRecord traceRecord = TraceCodec.readRecord(buffer, previousTimestamp);
+        if (traceRecord != null) {
+            previousTimestamp = traceRecord.getTimestamp();
+            recordCount++;
+        }
+        return traceRecord;
+    }
+
+    /**
+     * The time the trace started at, in milliseconds.
+     */
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    /**
+     * The amount of records that have been read so far.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * The offset of the next record within the trace.
+     */
+    public long getPosition() {
+        return buffer.position();
+    }
+
+}
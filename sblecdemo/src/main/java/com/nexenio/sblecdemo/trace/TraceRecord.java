@@ -0,0 +1,42 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A received payload and the time it arrived at, as recorded in a trace.
+ */
+public class TraceRecord {
+
+    private final long timestamp;
+
+    @NonNull
+    private final TransportPayload transportPayload;
+
+    public TraceRecord(long timestamp, @NonNull TransportPayload transportPayload) {
+        this.timestamp = timestamp;
+        this.transportPayload = transportPayload;
+    }
+
+    /**
+     * The time the payload arrived at, in milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @NonNull
+    public TransportPayload getTransportPayload() {
+        return transportPayload;
+    }
+
+    @Override
+    public String toString() {
+        return "TraceRecord{" +
+                "timestamp=" + timestamp +
+                ", transportPayload=" + transportPayload +
+                '}';
+    }
+
+}
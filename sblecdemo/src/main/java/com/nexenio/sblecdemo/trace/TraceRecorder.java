@@ -0,0 +1,185 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Appends received payloads to a trace file (see {@link TraceCodec}), so that they can be replayed
+ * later on using the {@link TraceReplayTransport}.
+ *
+ * The file is memory mapped in segments of {@link #SEGMENT_LENGTH} bytes, recording a payload
+ * only copies it into the page cache and never blocks on I/O (except for mapping the next
+ * segment). Records survive crashes of the app, as the operating system writes them back
+ * eventually. The file is only extended, so it may end with up to one segment of unused bytes.
+ *
+ * Recording stops once the trace reached its maximum length or if the file can't be written,
+ * payloads are counted as dropped from then on. Existing traces are appended to.
+ */
+public class TraceRecorder implements Closeable {
+
+    /**
+     * Enough for more than 12 hours of receiving 20 devices once per second, with the usual demo
+     * payload length of 7 bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_LENGTH = 16 * 1024 * 1024;
+
+    public static final int SEGMENT_LENGTH = 256 * 1024;
+
+    private final File file;
+
+    private final long maximumLength;
+
+    private final RandomAccessFile randomAccessFile;
+
+    private final FileChannel fileChannel;
+
+    /**
+     * Guarded by {@code this}, like all following fields.
+     */
+    private MappedByteBuffer segment;
+
+    /**
+     * The file offset of the {@link #segment}.
+     */
+    private long segmentOffset;
+
+    private long previousTimestamp;
+
+    private boolean stopped;
+
+    private long recordedCount;
+
+    private long droppedCount;
+
+    public TraceRecorder(@NonNull File file, long startTimestamp) throws IOException {
+        this(file, startTimestamp, DEFAULT_MAXIMUM_LENGTH);
+    }
+
+    /**
+     * @param startTimestamp the time the trace starts at, only used if the file is empty
+     * @param maximumLength  the maximum length of the trace in bytes
+     * @throws IOException if the file can't be opened or isn't a trace
+     */
+    public TraceRecorder(@NonNull File file, long startTimestamp, long maximumLength) throws IOException {
+        this.file = file;
+        this.maximumLength = maximumLength;
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        fileChannel = randomAccessFile.getChannel();
+        try {
+            long traceLength;
+            if (fileChannel.size() == 0) {
+                segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_LENGTH);
+                TraceCodec.writeHeader(segment, startTimestamp);
+                traceLength = TraceCodec.HEADER_LENGTH;
+                previousTimestamp = startTimestamp;
+            } else {
+                // find the end of the existing trace
+                TraceReader traceReader = new TraceReader(fileChannel);
+                previousTimestamp = traceReader.getStartTimestamp();
+                TraceRecord traceRecord;
+                while ((traceRecord = traceReader.next()) != null) {
+                    previousTimestamp = traceRecord.getTimestamp();
+                }
+                traceLength = traceReader.getPosition();
+                mapSegment(traceLength);
+            }
+            segment.position((int) (traceLength - segmentOffset));
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the specified payload to the trace, unless recording stopped or the payload can't
+     * be recorded (see {@link TraceCodec#isRecordable(TransportPayload)}).
+     *
+     * @param timestamp the time the payload arrived at, in milliseconds
+     * @return true if the payload has been recorded
+     */
+    public synchronized boolean record(@NonNull TransportPayload transportPayload, long timestamp) {
+        if (stopped || !TraceCodec.isRecordable(transportPayload)) {
+            droppedCount++;
+            return false;
+        }
+        long traceLength = segmentOffset + segment.position();
+        if (traceLength + TraceCodec.MAXIMUM_RECORD_LENGTH > maximumLength) {
+            stopped = true;
+            droppedCount++;
+            return false;
+        }
+        if (segment.remaining() < TraceCodec.MAXIMUM_RECORD_LENGTH) {
+            try {
+                mapSegment(traceLength);
+            } catch (IOException e) {
+                stopped = true;
+                droppedCount++;
+                return false;
+            }
+        }
+        TraceCodec.writeRecord(segment, transportPayload, timestamp - previousTimestamp);
+        previousTimestamp = Math.max(previousTimestamp, timestamp);
+        recordedCount++;
+        return true;
+    }
+
+    private void mapSegment(long offset) throws IOException {
+        segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, offset, SEGMENT_LENGTH);
+        segmentOffset = offset;
+    }
+
+    /**
+     * Writes the recorded payloads to the storage device, which is only required to protect them
+     * against crashes of the operating system.
+     */
+    public synchronized void flush() {
+        segment.force();
+    }
+
+    /**
+     * Stops recording and closes the file. The recorded payloads remain readable.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        stopped = true;
+        segment.force();
+        randomAccessFile.close();
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * The amount of bytes used by the trace, excluding unused bytes at the end of the file.
+     */
+    public synchronized long getLength() {
+        return segmentOffset + segment.position();
+    }
+
+    public synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    public synchronized long getRecordedCount() {
+        return recordedCount;
+    }
+
+    /**
+     * The amount of payloads that have not been recorded, because they were too long, recording
+     * stopped or the file couldn't be written.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+}
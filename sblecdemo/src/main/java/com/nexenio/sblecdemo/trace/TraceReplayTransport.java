@@ -0,0 +1,145 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.Scheduler;
+
+/**
+ * A {@link PayloadTransport} that replays the payloads of a trace recorded by the {@link
+ * TraceRecorder}, as if they were received from nearby devices. Intended for reproducing field
+ * problems and for benchmarking the receive pipeline with real-world traces.
+ *
+ * Each subscription of {@link #receive()} replays the whole trace, starting with the first record
+ * right away and keeping the original intervals between records, divided by the speed. The
+ * stream completes at the end of the trace. Sent payloads are discarded, sending never
+ * completes (like advertising).
+ */
+public class TraceReplayTransport implements PayloadTransport {
+
+    /**
+     * Replays all records right away, ignoring the original intervals.
+     */
+    public static final double MAXIMUM_SPEED = Double.POSITIVE_INFINITY;
+
+    private final File traceFile;
+
+    private final double speed;
+
+    private final Scheduler scheduler;
+
+    private final int deviceIdHashCode;
+
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    /**
+     * @param speed            the factor to speed up the replay by, 1 for the original speed
+     * @param scheduler        used for timing the replayed payloads, which are emitted on it
+     * @param deviceIdHashCode the hash code of the device ID of the replaying device
+     */
+    public TraceReplayTransport(@NonNull File traceFile, double speed, @NonNull Scheduler scheduler, int deviceIdHashCode) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Invalid speed: " + speed);
+        }
+        this.traceFile = traceFile;
+        this.speed = speed;
+        this.scheduler = scheduler;
+        this.deviceIdHashCode = deviceIdHashCode;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return Completable.never();
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return Observable.create(emitter -> {
+            TraceReader traceReader = new TraceReader(traceFile);
+            Scheduler.Worker worker = scheduler.createWorker();
+            emitter.setDisposable(worker);
+            worker.schedule(new Replay(traceReader, emitter, worker));
+        });
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * The amount of payloads that have been replayed by all subscriptions.
+     */
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    /**
+     * Emits the records of a trace, rescheduling itself until the next record is due.
+     */
+    private final class Replay implements Runnable {
+
+        private final TraceReader traceReader;
+
+        private final ObservableEmitter<TransportPayload> emitter;
+
+        private final Scheduler.Worker worker;
+
+        private final long replayStartTimestamp;
+
+        private long traceStartTimestamp = -1;
+
+        @Nullable
+        private TraceRecord nextTraceRecord;
+
+        private Replay(@NonNull TraceReader traceReader, @NonNull ObservableEmitter<TransportPayload> emitter, @NonNull Scheduler.Worker worker) {
+            this.traceReader = traceReader;
+            this.emitter = emitter;
+            this.worker = worker;
+            this.replayStartTimestamp = worker.now(TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            while (!emitter.isDisposed()) {
+                if (nextTraceRecord == null) {
+                    nextTraceRecord = traceReader.next();
+                    if (nextTraceRecord == null) {
+                        emitter.onComplete();
+                        return;
+                    }
+                    if (traceStartTimestamp < 0) {
+                        traceStartTimestamp = nextTraceRecord.getTimestamp();
+                    }
+                }
+                long delay = getReplayTimestamp(nextTraceRecord) - worker.now(TimeUnit.MILLISECONDS);
+                if (delay > 0) {
+                    worker.schedule(this, delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                replayedCount.incrementAndGet();
+                emitter.onNext(nextTraceRecord.getTransportPayload());
+                nextTraceRecord = null;
+            }
+        }
+
+        private long getReplayTimestamp(@NonNull TraceRecord traceRecord) {
+            return replayStartTimestamp + (long) ((traceRecord.getTimestamp() - traceStartTimestamp) / speed);
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.nexenio.sblecdemo.transport;
+
+/**
+ * Estimates the air time of legacy BLE advertisements (1M PHY) carrying a payload as
+ * manufacturer specific data.
+ *
+ * Only the link layer and AD structure overhead is taken into account, any framing added by the
+ * transport itself has to be included in the specified payload length.
+ */
+public final class AdvertisingAirTime {
+
+    /**
+     * Preamble (1 byte), access address (4 bytes), PDU header (2 bytes), advertiser address (6
+     * bytes) and CRC (3 bytes).
+     */
+    public static final int LINK_LAYER_OVERHEAD_LENGTH = 1 + 4 + 2 + 6 + 3;
+
+    /**
+     * AD structure length (1 byte), AD type (1 byte) and company ID (2 bytes).
+     */
+    public static final int MANUFACTURER_DATA_OVERHEAD_LENGTH = 1 + 1 + 2;
+
+    /**
+     * The maximum length of advertising data in a legacy advertisement.
+     */
+    public static final int MAXIMUM_ADVERTISING_DATA_LENGTH = 31;
+
+    /**
+     * The maximum length of a payload that fits into a single advertisement.
+     */
+    public static final int MAXIMUM_PAYLOAD_LENGTH = MAXIMUM_ADVERTISING_DATA_LENGTH - MANUFACTURER_DATA_OVERHEAD_LENGTH;
+
+    /**
+     * The duration of transmitting a single byte on the 1M PHY.
+     */
+    public static final int MICROS_PER_BYTE = 8;
+
+    /**
+     * Every advertising event is transmitted on all three primary advertising channels.
+     */
+    public static final int ADVERTISING_CHANNEL_COUNT = 3;
+
+    private static final long MICROS_PER_SECOND = 1_000_000;
+
+    private AdvertisingAirTime() {
+    }
+
+    /**
+     * The amount of bytes on air for a single transmission of the specified payload.
+     */
+    public static int getOnAirLength(int payloadLength) {
+        if (payloadLength < 0 || payloadLength > MAXIMUM_PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Payload doesn't fit into an advertisement: " + payloadLength);
+        }
+        return LINK_LAYER_OVERHEAD_LENGTH + MANUFACTURER_DATA_OVERHEAD_LENGTH + payloadLength;
+    }
+
+    /**
+     * The time in microseconds that a single advertising event (on all channels) carrying the
+     * specified payload occupies the air.
+     */
+    public static long getAirTimeMicros(int payloadLength) {
+        return (long) getOnAirLength(payloadLength) * MICROS_PER_BYTE * ADVERTISING_CHANNEL_COUNT;
+    }
+
+    /**
+     * The theoretical upper bound of advertising events per second carrying the specified
+     * payload, if they were the only transmissions on air.
+     */
+    public static double getMaximumPayloadsPerSecond(int payloadLength) {
+        return (double) MICROS_PER_SECOND / getAirTimeMicros(payloadLength);
+    }
+
+}
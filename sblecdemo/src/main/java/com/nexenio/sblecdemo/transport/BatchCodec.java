@@ -0,0 +1,125 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Encodes multiple small payloads into a single batch payload, so that one advertisement carries
+ * several of them. Each entry consists of the payload ID, the data length and the data:
+ *
+ * <pre>
+ * | version (1) | ID (1) | length (1) | data | ID (1) | length (1) | data | ...
+ * </pre>
+ *
+ * Like the {@link com.nexenio.sblecdemo.payload.DemoPayloadCodec}, readers use absolute indices
+ * and never modify the buffer position.
+ */
+public final class BatchCodec {
+
+    /**
+     * The ID of batch payloads. IDs in range [0, 9] are reserved for the SBLEC protocol.
+     */
+    public static final int PAYLOAD_ID = 15;
+
+    public static final byte VERSION = 1;
+
+    public static final int HEADER_LENGTH = 1;
+
+    public static final int ENTRY_HEADER_LENGTH = 2;
+
+    public static final int MAXIMUM_LENGTH = AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH;
+
+    /**
+     * The maximum data length of a payload that can be part of a batch.
+     */
+    public static final int MAXIMUM_ENTRY_DATA_LENGTH = MAXIMUM_LENGTH - HEADER_LENGTH - ENTRY_HEADER_LENGTH;
+
+    private BatchCodec() {
+    }
+
+    /**
+     * The amount of bytes that the specified payload requires within a batch.
+     */
+    public static int getEntryLength(@NonNull TransportPayload transportPayload) {
+        return ENTRY_HEADER_LENGTH + transportPayload.getData().remaining();
+    }
+
+    /**
+     * Checks if the specified buffer contains a well-formed batch, i.e. if the entries exactly
+     * fill the buffer.
+     */
+    public static boolean isValid(@NonNull ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < HEADER_LENGTH || length > MAXIMUM_LENGTH || buffer.get(0) != VERSION) {
+            return false;
+        }
+        int offset = HEADER_LENGTH;
+        while (offset + ENTRY_HEADER_LENGTH <= length) {
+            offset += ENTRY_HEADER_LENGTH + (buffer.get(offset + 1) & 0xFF);
+        }
+        return offset == length;
+    }
+
+    /**
+     * Encodes the remaining bytes of the specified payloads. The payload buffers will not be
+     * modified.
+     */
+    @NonNull
+    public static ByteBuffer encode(@NonNull List<TransportPayload> transportPayloads) {
+        int length = HEADER_LENGTH;
+        for (TransportPayload transportPayload : transportPayloads) {
+            if (transportPayload.getData().remaining() > MAXIMUM_ENTRY_DATA_LENGTH) {
+                throw new IllegalArgumentException("Payload too long: " + transportPayload);
+            }
+            length += getEntryLength(transportPayload);
+        }
+        if (length > MAXIMUM_LENGTH) {
+            throw new IllegalArgumentException("Batch too long: " + length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(VERSION);
+        for (TransportPayload transportPayload : transportPayloads) {
+            ByteBuffer data = transportPayload.getData();
+            buffer.put((byte) transportPayload.getId());
+            buffer.put((byte) data.remaining());
+            for (int i = data.position(); i < data.limit(); i++) {
+                buffer.put(data.get(i));
+            }
+        }
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Unpacks all entries of the specified batch in a single pass. The data of each returned
+     * payload is a read-only view on the batch data, the sender is the sender of the batch.
+     *
+     * @return the entries or an empty list if the batch is not {@link #isValid(ByteBuffer) valid}
+     */
+    @NonNull
+    public static List<TransportPayload> decode(@NonNull TransportPayload batchPayload) {
+        ByteBuffer buffer = batchPayload.getData();
+        if (!isValid(buffer)) {
+            return Collections.emptyList();
+        }
+        List<TransportPayload> transportPayloads = new ArrayList<>(4);
+        int offset = HEADER_LENGTH;
+        while (offset < buffer.limit()) {
+            int id = buffer.get(offset) & 0xFF;
+            int dataLength = buffer.get(offset + 1) & 0xFF;
+            offset += ENTRY_HEADER_LENGTH;
+            ByteBuffer data = buffer.asReadOnlyBuffer();
+            data.limit(offset + dataLength);
+            data.position(offset);
+            transportPayloads.add(new TransportPayload(id, batchPayload.getDeviceIdHashCode(), data.slice()));
+            offset += dataLength;
+        }
+        return transportPayloads;
+    }
+
+}
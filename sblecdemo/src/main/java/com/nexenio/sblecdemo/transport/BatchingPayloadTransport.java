@@ -0,0 +1,220 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * A {@link PayloadTransport} that packs payloads which are being sent at the same time into as
+ * few advertisements as possible (see {@link BatchCodec}), so that each advertising interval
+ * delivers several of them. Received batches are unpacked, subscribers of {@link #receive()} only
+ * get the contained payloads.
+ *
+ * Changes of the sent payloads are applied asynchronously, after an optional batching window, so
+ * that multiple changes (e.g. a payload being replaced by a newer one) only restart the
+ * advertising once. Payloads that are too long for a batch are passed to the underlying transport
+ * directly, as are batches with a single payload.
+ */
+public class BatchingPayloadTransport implements PayloadTransport {
+
+    /**
+     * Only changes that happen at the same time are applied together by default, as a longer
+     * window delays the advertising of every change.
+     */
+    public static final long DEFAULT_BATCHING_WINDOW_MILLIS = 0;
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    private final long batchingWindowMillis;
+
+    private final AtomicLong advertisementCount = new AtomicLong();
+
+    private final AtomicLong batchedPayloadCount = new AtomicLong();
+
+    private final AtomicLong receivedBatchCount = new AtomicLong();
+
+    /**
+     * The payloads that are currently being sent, in the order of their subscription. Guarded by
+     * {@code this}, like all following fields.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final List<Disposable> advertisingDisposables = new ArrayList<>();
+
+    @Nullable
+    private Disposable scheduledUpdateDisposable;
+
+    public BatchingPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this(payloadTransport, DEFAULT_BATCHING_WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param scheduler used for delaying the update of advertisements by the batching window
+     */
+    public BatchingPayloadTransport(@NonNull PayloadTransport payloadTransport, long batchingWindow, @NonNull TimeUnit batchingWindowTimeUnit, @NonNull Scheduler scheduler) {
+        this.payloadTransport = payloadTransport;
+        this.batchingWindowMillis = batchingWindowTimeUnit.toMillis(batchingWindow);
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        if (transportPayload.getData().remaining() > BatchCodec.MAXIMUM_ENTRY_DATA_LENGTH) {
+            return payloadTransport.send(transportPayload);
+        }
+        return Completable.create(emitter -> {
+            Entry entry = new Entry(transportPayload, emitter);
+            addEntry(entry);
+            emitter.setCancellable(() -> removeEntry(entry));
+        });
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return payloadTransport.receive()
+                .concatMapIterable(transportPayload -> {
+                    if (transportPayload.getId() != BatchCodec.PAYLOAD_ID) {
+                        return Collections.singletonList(transportPayload);
+                    }
+                    receivedBatchCount.incrementAndGet();
+                    return BatchCodec.decode(transportPayload);
+                });
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    private synchronized void addEntry(@NonNull Entry entry) {
+        entries.add(entry);
+        scheduleUpdate();
+    }
+
+    private synchronized void removeEntry(@NonNull Entry entry) {
+        if (entries.remove(entry)) {
+            scheduleUpdate();
+        }
+    }
+
+    private void scheduleUpdate() {
+        if (scheduledUpdateDisposable == null) {
+            scheduledUpdateDisposable = scheduler.scheduleDirect(this::updateAdvertisements, batchingWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Replaces the current advertisements with new ones for the current entries. Entries are
+     * packed in their order, each one into the first batch that has enough space left.
+     */
+    private synchronized void updateAdvertisements() {
+        scheduledUpdateDisposable = null;
+        for (Disposable advertisingDisposable : advertisingDisposables) {
+            advertisingDisposable.dispose();
+        }
+        advertisingDisposables.clear();
+
+        List<List<Entry>> batches = new ArrayList<>();
+        List<Integer> batchLengths = new ArrayList<>();
+        for (Entry entry : entries) {
+            int entryLength = BatchCodec.getEntryLength(entry.transportPayload);
+            int batchIndex = 0;
+            while (batchIndex < batches.size() && batchLengths.get(batchIndex) + entryLength > BatchCodec.MAXIMUM_LENGTH) {
+                batchIndex++;
+            }
+            if (batchIndex == batches.size()) {
+                batches.add(new ArrayList<>());
+                batchLengths.add(BatchCodec.HEADER_LENGTH);
+            }
+            batches.get(batchIndex).add(entry);
+            batchLengths.set(batchIndex, batchLengths.get(batchIndex) + entryLength);
+        }
+
+        for (List<Entry> batch : batches) {
+            advertise(batch);
+        }
+    }
+
+    private void advertise(@NonNull List<Entry> batch) {
+        TransportPayload advertisedPayload;
+        if (batch.size() == 1) {
+            advertisedPayload = batch.get(0).transportPayload;
+        } else {
+            List<TransportPayload> transportPayloads = new ArrayList<>(batch.size());
+            double priority = 0;
+            for (Entry entry : batch) {
+                transportPayloads.add(entry.transportPayload);
+                priority = Math.max(priority, entry.transportPayload.getPriority());
+            }
+            advertisedPayload = new TransportPayload(BatchCodec.PAYLOAD_ID, getDeviceIdHashCode(), priority, BatchCodec.encode(transportPayloads));
+            batchedPayloadCount.addAndGet(batch.size());
+        }
+        advertisementCount.incrementAndGet();
+        advertisingDisposables.add(payloadTransport.send(advertisedPayload)
+                .subscribe(
+                        () -> onAdvertisingTerminated(batch, null),
+                        throwable -> onAdvertisingTerminated(batch, throwable)
+                ));
+    }
+
+    /**
+     * Forwards the termination of an advertisement to all payloads that it contained.
+     */
+    private void onAdvertisingTerminated(@NonNull List<Entry> batch, @Nullable Throwable throwable) {
+        for (Entry entry : batch) {
+            if (throwable != null) {
+                entry.emitter.tryOnError(throwable);
+            } else {
+                entry.emitter.onComplete();
+            }
+        }
+    }
+
+    /**
+     * The amount of advertisements that have been started.
+     */
+    public long getAdvertisementCount() {
+        return advertisementCount.get();
+    }
+
+    /**
+     * The amount of payloads that have been sent as part of a batch, counted once per
+     * advertisement.
+     */
+    public long getBatchedPayloadCount() {
+        return batchedPayloadCount.get();
+    }
+
+    /**
+     * The amount of received batches that have been unpacked.
+     */
+    public long getReceivedBatchCount() {
+        return receivedBatchCount.get();
+    }
+
+    private static final class Entry {
+
+        private final TransportPayload transportPayload;
+
+        private final CompletableEmitter emitter;
+
+        private Entry(@NonNull TransportPayload transportPayload, @NonNull CompletableEmitter emitter) {
+            this.transportPayload = transportPayload;
+            this.emitter = emitter;
+        }
+
+    }
+
+}
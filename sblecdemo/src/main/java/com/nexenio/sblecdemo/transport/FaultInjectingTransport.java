@@ -0,0 +1,123 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * A {@link PayloadTransport} that passes everything to another transport, but can be told to fail
+ * like a real radio does: {@link #injectFault(Throwable)} terminates all current send and receive
+ * streams (like a brief hiccup of the Bluetooth stack) and while {@link #setFailing(boolean)
+ * failing}, new streams fail right away (like a disabled Bluetooth adapter).
+ *
+ * Intended for testing how consumers recover from transport errors.
+ */
+public class FaultInjectingTransport implements PayloadTransport {
+
+    private final PayloadTransport payloadTransport;
+
+    private final Subject<Throwable> faults = PublishSubject.<Throwable>create().toSerialized();
+
+    private final AtomicLong subscriptionCount = new AtomicLong();
+
+    private final AtomicLong injectedFaultCount = new AtomicLong();
+
+    private final AtomicLong rejectedSubscriptionCount = new AtomicLong();
+
+    private volatile boolean failing;
+
+    public FaultInjectingTransport(@NonNull PayloadTransport payloadTransport) {
+        this.payloadTransport = payloadTransport;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return Completable.defer(() -> {
+            if (!onSubscribe()) {
+                return Completable.error(createUnavailableException());
+            }
+            return payloadTransport.send(transportPayload)
+                    .ambWith(faults.firstElement().flatMapCompletable(Completable::error));
+        });
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return Observable.defer(() -> {
+            if (!onSubscribe()) {
+                return Observable.error(createUnavailableException());
+            }
+            return payloadTransport.receive()
+                    .mergeWith(faults.firstElement().flatMapCompletable(Completable::error));
+        });
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    /**
+     * @return false if the subscription should fail because the transport is failing
+     */
+    private boolean onSubscribe() {
+        subscriptionCount.incrementAndGet();
+        if (failing) {
+            rejectedSubscriptionCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @NonNull
+    private static IllegalStateException createUnavailableException() {
+        return new IllegalStateException("Transport unavailable");
+    }
+
+    /**
+     * Terminates all current send and receive streams with the specified error.
+     */
+    public void injectFault(@NonNull Throwable throwable) {
+        injectedFaultCount.incrementAndGet();
+        faults.onNext(throwable);
+    }
+
+    /**
+     * Enables or disables failing all new send and receive streams right away. If enabled, all
+     * current streams are terminated as well.
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+        if (failing) {
+            injectFault(createUnavailableException());
+        }
+    }
+
+    public boolean isFailing() {
+        return failing;
+    }
+
+    /**
+     * The amount of send and receive streams that have been subscribed, including rejected ones.
+     */
+    public long getSubscriptionCount() {
+        return subscriptionCount.get();
+    }
+
+    public long getInjectedFaultCount() {
+        return injectedFaultCount.get();
+    }
+
+    /**
+     * The amount of send and receive streams that failed right away, because the transport was
+     * failing.
+     */
+    public long getRejectedSubscriptionCount() {
+        return rejectedSubscriptionCount.get();
+    }
+
+}
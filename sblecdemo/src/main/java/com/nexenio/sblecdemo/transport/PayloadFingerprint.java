@@ -0,0 +1,31 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tells apart the data of different payloads without copying or decoding it.
+ */
+public final class PayloadFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private PayloadFingerprint() {
+    }
+
+    /**
+     * Calculates the 64 bit FNV-1a hash of the remaining bytes of the specified buffer, using
+     * absolute indices so that its position is not changed.
+     */
+    public static long calculate(@NonNull ByteBuffer data) {
+        long fingerprint = FNV_OFFSET_BASIS;
+        for (int i = data.position(); i < data.limit(); i++) {
+            fingerprint ^= data.get(i) & 0xFF;
+            fingerprint *= FNV_PRIME;
+        }
+        return fingerprint;
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.nexenio.sblecdemo.transport;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+
+/**
+ * Sends and receives {@link TransportPayload}s to and from nearby devices.
+ *
+ * The default implementation uses the SBLEC library, other implementations (like the {@link
+ * SimulatedMesh}) allow running the same logic without any radios.
+ */
+public interface PayloadTransport {
+
+    /**
+     * Starts advertising the specified payload. The advertising will continue until the returned
+     * {@link Completable} gets disposed or an error occurs.
+     */
+    Completable send(@NonNull TransportPayload transportPayload);
+
+    /**
+     * Emits payloads received from nearby devices until disposed or an error occurs.
+     */
+    Observable<TransportPayload> receive();
+
+    /**
+     * The hash code of the ID of this device, as it will be received by other devices.
+     */
+    int getDeviceIdHashCode();
+
+}
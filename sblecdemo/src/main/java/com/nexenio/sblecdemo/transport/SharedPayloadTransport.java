@@ -0,0 +1,165 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+
+/**
+ * A {@link PayloadTransport} that can be used by multiple receivers at the same time, e.g. by
+ * the presenters of several views. The underlying transport is only subscribed once, while at
+ * least one receiver is subscribed to {@link #receive()}, and every received payload is passed to
+ * all of them.
+ *
+ * The latest payload of each device and payload ID is kept for a short replay window. Receivers
+ * that subscribe later (e.g. after the view has been recreated on rotation) get these payloads
+ * first, instead of waiting until nearby devices advertise them again.
+ */
+public class SharedPayloadTransport implements PayloadTransport {
+
+    public static final long DEFAULT_REPLAY_WINDOW_MILLIS = 5_000;
+
+    /**
+     * The maximum amount of payloads kept for replaying, older ones are discarded.
+     */
+    public static final int MAXIMUM_REPLAYED_PAYLOAD_COUNT = 256;
+
+    private final PayloadTransport payloadTransport;
+
+    private final Scheduler scheduler;
+
+    private final long replayWindowMillis;
+
+    private final Observable<TransportPayload> sharedPayloads;
+
+    private final AtomicInteger receiverCount = new AtomicInteger();
+
+    private final AtomicLong upstreamSubscriptionCount = new AtomicLong();
+
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    /**
+     * The latest payloads, keyed by device ID hash code and payload ID, in the order they have
+     * been received. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<Long, ReplayedPayload> latestPayloads = new LinkedHashMap<>();
+
+    public SharedPayloadTransport(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler) {
+        this(payloadTransport, DEFAULT_REPLAY_WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    /**
+     * @param replayWindow the maximum age of payloads that get replayed, use 0 to disable
+     *                     replaying
+     * @param scheduler    provides the current time
+     */
+    public SharedPayloadTransport(@NonNull PayloadTransport payloadTransport, long replayWindow, @NonNull TimeUnit replayWindowTimeUnit, @NonNull Scheduler scheduler) {
+        this.payloadTransport = payloadTransport;
+        this.replayWindowMillis = replayWindowTimeUnit.toMillis(replayWindow);
+        this.scheduler = scheduler;
+        this.sharedPayloads = Observable.defer(() -> {
+            upstreamSubscriptionCount.incrementAndGet();
+            return payloadTransport.receive();
+        })
+                .doOnNext(this::onPayloadReceived)
+                .publish()
+                .refCount();
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return payloadTransport.send(transportPayload);
+    }
+
+    /**
+     * Emits the payloads within the replay window, followed by payloads received by the shared
+     * subscription of the underlying transport.
+     */
+    @Override
+    public Observable<TransportPayload> receive() {
+        return Observable.defer(() -> Observable.fromIterable(getReplayedPayloads()).concatWith(sharedPayloads))
+                .doOnSubscribe(disposable -> receiverCount.incrementAndGet())
+                .doFinally(receiverCount::decrementAndGet);
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return payloadTransport.getDeviceIdHashCode();
+    }
+
+    private void onPayloadReceived(@NonNull TransportPayload transportPayload) {
+        if (replayWindowMillis <= 0) {
+            return;
+        }
+        long key = (long) transportPayload.getDeviceIdHashCode() << 32 | transportPayload.getId();
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            // re-inserted, so that the iteration order matches the receive order
+            latestPayloads.remove(key);
+            latestPayloads.put(key, new ReplayedPayload(transportPayload, now));
+            if (latestPayloads.size() > MAXIMUM_REPLAYED_PAYLOAD_COUNT) {
+                Iterator<ReplayedPayload> iterator = latestPayloads.values().iterator();
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    @NonNull
+    private synchronized List<TransportPayload> getReplayedPayloads() {
+        long oldestTimestamp = scheduler.now(TimeUnit.MILLISECONDS) - replayWindowMillis;
+        Iterator<ReplayedPayload> iterator = latestPayloads.values().iterator();
+        while (iterator.hasNext() && iterator.next().receivedTimestamp < oldestTimestamp) {
+            iterator.remove();
+        }
+        List<TransportPayload> replayedPayloads = new ArrayList<>(latestPayloads.size());
+        for (ReplayedPayload replayedPayload : latestPayloads.values()) {
+            replayedPayloads.add(replayedPayload.transportPayload);
+        }
+        replayedCount.addAndGet(replayedPayloads.size());
+        return replayedPayloads;
+    }
+
+    /**
+     * The amount of currently subscribed receivers.
+     */
+    public int getReceiverCount() {
+        return receiverCount.get();
+    }
+
+    /**
+     * The amount of times the underlying transport has been subscribed.
+     */
+    public long getUpstreamSubscriptionCount() {
+        return upstreamSubscriptionCount.get();
+    }
+
+    /**
+     * The amount of payloads that have been replayed to receivers that subscribed later.
+     */
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    private static final class ReplayedPayload {
+
+        private final TransportPayload transportPayload;
+
+        private final long receivedTimestamp;
+
+        private ReplayedPayload(@NonNull TransportPayload transportPayload, long receivedTimestamp) {
+            this.transportPayload = transportPayload;
+            this.receivedTimestamp = receivedTimestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+
+/**
+ * An in-process network of {@link SimulatedTransport}s, which can be used instead of actual
+ * radios. Every transmitted payload may reach every other transport of the mesh that is {@link
+ * #setRange(double) in range}, after a random latency and only if it doesn't get lost.
+ *
+ * All timing is based on the specified {@link Scheduler}, so using a {@link
+ * io.reactivex.schedulers.TestScheduler} allows simulating large networks in virtual time.
+ */
+public class SimulatedMesh {
+
+    public static final long DEFAULT_ADVERTISING_INTERVAL_MILLIS = 100;
+
+    private final Scheduler scheduler;
+
+    private final Random random;
+
+    private final List<SimulatedTransport> transports = new CopyOnWriteArrayList<>();
+
+    private final Set<Integer> deviceIdHashCodes = new HashSet<>();
+
+    private final AtomicLong transmittedCount = new AtomicLong();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private final AtomicLong lostCount = new AtomicLong();
+
+    private final AtomicLong transmittedAirTimeMicros = new AtomicLong();
+
+    private volatile double lossProbability;
+
+    private volatile long minimumLatencyMillis;
+
+    private volatile long maximumLatencyMillis;
+
+    private volatile long advertisingIntervalMillis = DEFAULT_ADVERTISING_INTERVAL_MILLIS;
+
+    private volatile double range;
+
+    /**
+     * @param seed used for all random decisions (e.g. losses), making simulations reproducible
+     *             when using a {@link io.reactivex.schedulers.TestScheduler}
+     */
+    public SimulatedMesh(@NonNull Scheduler scheduler, long seed) {
+        this.scheduler = scheduler;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Creates a new transport with a unique device ID hash code and adds it to this mesh.
+     */
+    @NonNull
+    public SimulatedTransport createTransport() {
+        int deviceIdHashCode;
+        synchronized (deviceIdHashCodes) {
+            do {
+                deviceIdHashCode = random.nextInt();
+            } while (!deviceIdHashCodes.add(deviceIdHashCode));
+        }
+        SimulatedTransport transport = new SimulatedTransport(this, deviceIdHashCode);
+        transports.add(transport);
+        return transport;
+    }
+
+    /**
+     * Removes the specified transport from this mesh. It will no longer receive any payloads and
+     * its transmissions will not reach any other transport.
+     */
+    public void removeTransport(@NonNull SimulatedTransport transport) {
+        transports.remove(transport);
+    }
+
+    @NonNull
+    public List<SimulatedTransport> getTransports() {
+        return transports;
+    }
+
+    /**
+     * Called by a transport whenever it advertises a payload.
+     */
+    void transmit(@NonNull SimulatedTransport sender, @NonNull TransportPayload transportPayload) {
+        if (!transports.contains(sender)) {
+            return;
+        }
+        transmittedCount.incrementAndGet();
+        transmittedAirTimeMicros.addAndGet(getAirTimeMicros(transportPayload));
+        for (SimulatedTransport receiver : transports) {
+            if (receiver == sender || !isInRange(sender, receiver)) {
+                continue;
+            }
+            if (random.nextDouble() < lossProbability) {
+                lostCount.incrementAndGet();
+                continue;
+            }
+            scheduler.scheduleDirect(() -> {
+                deliveredCount.incrementAndGet();
+                receiver.deliver(transportPayload);
+            }, getRandomLatency(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean isInRange(@NonNull SimulatedTransport sender, @NonNull SimulatedTransport receiver) {
+        double range = this.range;
+        if (range <= 0) {
+            return true;
+        }
+        double deltaX = sender.getX() - receiver.getX();
+        double deltaY = sender.getY() - receiver.getY();
+        return deltaX * deltaX + deltaY * deltaY <= range * range;
+    }
+
+    /**
+     * Longer payloads would need to be fragmented, which is not simulated. They are accounted
+     * like payloads with the maximum length.
+     */
+    private static long getAirTimeMicros(@NonNull TransportPayload transportPayload) {
+        int payloadLength = Math.min(transportPayload.getData().limit(), AdvertisingAirTime.MAXIMUM_PAYLOAD_LENGTH);
+        return AdvertisingAirTime.getAirTimeMicros(payloadLength);
+    }
+
+    private long getRandomLatency() {
+        long latencyRange = maximumLatencyMillis - minimumLatencyMillis;
+        if (latencyRange <= 0) {
+            return minimumLatencyMillis;
+        }
+        return minimumLatencyMillis + (long) (random.nextDouble() * latencyRange);
+    }
+
+    /**
+     * A random delay before the first advertisement of a transport, so that transports don't
+     * advertise in lockstep.
+     */
+    long getRandomAdvertisingOffset() {
+        return (long) (random.nextDouble() * advertisingIntervalMillis);
+    }
+
+    @NonNull
+    Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public double getLossProbability() {
+        return lossProbability;
+    }
+
+    /**
+     * Sets the probability (in range [0, 1]) that a transmitted payload doesn't reach a receiver.
+     */
+    public void setLossProbability(double lossProbability) {
+        this.lossProbability = lossProbability;
+    }
+
+    public long getMinimumLatencyMillis() {
+        return minimumLatencyMillis;
+    }
+
+    public long getMaximumLatencyMillis() {
+        return maximumLatencyMillis;
+    }
+
+    /**
+     * Sets the range of the delay between transmitting and receiving a payload.
+     */
+    public void setLatency(long minimumLatencyMillis, long maximumLatencyMillis) {
+        this.minimumLatencyMillis = minimumLatencyMillis;
+        this.maximumLatencyMillis = maximumLatencyMillis;
+    }
+
+    public long getAdvertisingIntervalMillis() {
+        return advertisingIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in which every transport advertises one of its payloads. Will be applied
+     * when a transport (re-)starts advertising.
+     */
+    public void setAdvertisingIntervalMillis(long advertisingIntervalMillis) {
+        this.advertisingIntervalMillis = advertisingIntervalMillis;
+    }
+
+    public double getRange() {
+        return range;
+    }
+
+    /**
+     * Sets the maximum distance between the {@link SimulatedTransport#setPosition(double, double)
+     * positions} of two transports that can reach each other. Use 0 (the default) to let all
+     * transports reach each other.
+     */
+    public void setRange(double range) {
+        this.range = range;
+    }
+
+    /**
+     * The amount of advertisements of all transports.
+     */
+    public long getTransmittedCount() {
+        return transmittedCount.get();
+    }
+
+    /**
+     * The amount of payloads that reached a receiver.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * The amount of payloads that didn't reach a receiver.
+     */
+    public long getLostCount() {
+        return lostCount.get();
+    }
+
+    /**
+     * The estimated time that the advertisements of all transports occupied the air, see {@link
+     * AdvertisingAirTime}.
+     */
+    public long getTransmittedAirTimeMicros() {
+        return transmittedAirTimeMicros.get();
+    }
+
+    /**
+     * The share of the specified duration that the advertisements of all transports occupied the
+     * air, in range [0, 1] unless the channel is overloaded.
+     */
+    public double getChannelOccupancy(long durationMillis) {
+        return durationMillis > 0 ? transmittedAirTimeMicros.get() / (durationMillis * 1000d) : 0;
+    }
+
+    public void resetCounts() {
+        transmittedCount.set(0);
+        transmittedAirTimeMicros.set(0);
+        deliveredCount.set(0);
+        lostCount.set(0);
+    }
+
+}
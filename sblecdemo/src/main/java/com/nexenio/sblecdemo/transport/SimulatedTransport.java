@@ -0,0 +1,141 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * A {@link PayloadTransport} of a virtual device within a {@link SimulatedMesh}.
+ *
+ * Like a real advertiser, it has a single advertising slot per interval. If multiple payloads are
+ * being sent at the same time, they will be advertised in turns.
+ */
+public class SimulatedTransport implements PayloadTransport {
+
+    private final SimulatedMesh mesh;
+
+    private final int deviceIdHashCode;
+
+    private final Subject<TransportPayload> receivedPayloads = PublishSubject.<TransportPayload>create().toSerialized();
+
+    /**
+     * The payloads that are currently being advertised, in the order of their next turn. Guarded
+     * by {@code this}.
+     */
+    private final List<TransportPayload> advertisedPayloads = new ArrayList<>();
+
+    private volatile double x;
+
+    private volatile double y;
+
+    @Nullable
+    private Disposable advertisingDisposable;
+
+    SimulatedTransport(@NonNull SimulatedMesh mesh, int deviceIdHashCode) {
+        this.mesh = mesh;
+        this.deviceIdHashCode = deviceIdHashCode;
+    }
+
+    @Override
+    public Completable send(@NonNull TransportPayload transportPayload) {
+        return Completable.defer(() -> {
+            TransportPayload advertisedPayload = createAdvertisedPayload(transportPayload);
+            return Completable.never()
+                    .doOnSubscribe(disposable -> startAdvertising(advertisedPayload))
+                    .doOnDispose(() -> stopAdvertising(advertisedPayload));
+        });
+    }
+
+    @Override
+    public Observable<TransportPayload> receive() {
+        return receivedPayloads.hide();
+    }
+
+    @Override
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    /**
+     * Creates the payload as it will be received by other devices, with a read-only view on the
+     * data that can be shared by all receivers.
+     */
+    private TransportPayload createAdvertisedPayload(@NonNull TransportPayload transportPayload) {
+        ByteBuffer data = transportPayload.getData().asReadOnlyBuffer();
+        data.rewind();
+        return new TransportPayload(transportPayload.getId(), deviceIdHashCode, transportPayload.getPriority(), data);
+    }
+
+    private synchronized void startAdvertising(@NonNull TransportPayload transportPayload) {
+        advertisedPayloads.add(transportPayload);
+        if (advertisingDisposable == null) {
+            long interval = mesh.getAdvertisingIntervalMillis();
+            advertisingDisposable = mesh.getScheduler().schedulePeriodicallyDirect(
+                    this::advertiseNextPayload, mesh.getRandomAdvertisingOffset(), interval, TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    private synchronized void stopAdvertising(@NonNull TransportPayload transportPayload) {
+        advertisedPayloads.remove(transportPayload);
+        if (advertisedPayloads.isEmpty() && advertisingDisposable != null) {
+            advertisingDisposable.dispose();
+            advertisingDisposable = null;
+        }
+    }
+
+    private void advertiseNextPayload() {
+        TransportPayload transportPayload;
+        synchronized (this) {
+            if (advertisedPayloads.isEmpty()) {
+                return;
+            }
+            // rotating instead of indexing, so that added and removed payloads don't skip turns
+            transportPayload = advertisedPayloads.remove(0);
+            advertisedPayloads.add(transportPayload);
+        }
+        mesh.transmit(this, transportPayload);
+    }
+
+    /**
+     * Called by the {@link SimulatedMesh} when a payload from another transport has been
+     * received.
+     */
+    void deliver(@NonNull TransportPayload transportPayload) {
+        receivedPayloads.onNext(transportPayload);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Moves this transport to the specified position, only relevant if the {@link
+     * SimulatedMesh#setRange(double) range} of the mesh is limited.
+     */
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * The amount of payloads that are currently being advertised.
+     */
+    public synchronized int getAdvertisedPayloadCount() {
+        return advertisedPayloads.size();
+    }
+
+}
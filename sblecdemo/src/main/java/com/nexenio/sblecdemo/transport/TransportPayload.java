@@ -0,0 +1,88 @@
+package com.nexenio.sblecdemo.transport;
+
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A payload as handled by a {@link PayloadTransport}, consisting of an ID, the data and the hash
+ * code of the device ID of the sender.
+ */
+public class TransportPayload {
+
+    /**
+     * The priority used if none has been specified, equal to {@code PayloadPriorities.MEDIUM}.
+     */
+    public static final double DEFAULT_PRIORITY = 0.5;
+
+    /**
+     * The lowest priority, equal to {@code PayloadPriorities.MINIMUM}.
+     */
+    public static final double MINIMUM_PRIORITY = 0;
+
+    /**
+     * The highest priority, equal to {@code PayloadPriorities.MAXIMUM}.
+     */
+    public static final double MAXIMUM_PRIORITY = 1;
+
+    private final int id;
+
+    private final int deviceIdHashCode;
+
+    private final double priority;
+
+    @NonNull
+    private final ByteBuffer data;
+
+    public TransportPayload(int id, int deviceIdHashCode, @NonNull ByteBuffer data) {
+        this(id, deviceIdHashCode, DEFAULT_PRIORITY, data);
+    }
+
+    public TransportPayload(int id, int deviceIdHashCode, double priority, @NonNull ByteBuffer data) {
+        this.id = id;
+        this.deviceIdHashCode = deviceIdHashCode;
+        this.priority = priority;
+        this.data = data;
+    }
+
+    /**
+     * The ID of the payload, used to distinguish different payload types.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The hash code of the ID of the device that sent this payload.
+     */
+    public int getDeviceIdHashCode() {
+        return deviceIdHashCode;
+    }
+
+    /**
+     * The sending priority, only relevant for outgoing payloads.
+     */
+    public double getPriority() {
+        return priority;
+    }
+
+    /**
+     * The encoded payload data. Readers should use absolute indices and not modify the buffer, as
+     * it may be shared between multiple subscribers.
+     */
+    @NonNull
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportPayload{" +
+                "id=" + id +
+                ", deviceIdHashCode=" + deviceIdHashCode +
+                ", priority=" + priority +
+                ", length=" + data.limit() +
+                '}';
+    }
+
+}
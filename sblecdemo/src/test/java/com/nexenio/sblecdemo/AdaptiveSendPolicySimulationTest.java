@@ -0,0 +1,91 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.sender.AdaptiveSendPolicy;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import androidx.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the channel occupancy of sending payloads until a newer one is received with an
+ * {@link AdaptiveSendPolicy}, on a lossy {@link SimulatedMesh}.
+ */
+public class AdaptiveSendPolicySimulationTest {
+
+    private static final int DEVICE_COUNT = 50;
+    private static final int CHANGE_COUNT = 10;
+    private static final long CHANGE_INTERVAL_MILLIS = 3_000;
+    private static final long IDLE_DURATION_MILLIS = 60_000;
+
+    @Test
+    public void adaptiveSendPolicy_changesAndIdle_reducesChannelOccupancy() {
+        Result continuousResult = run(null);
+        Result adaptiveResult = run(new AdaptiveSendPolicy());
+
+        assertEquals(CHANGE_COUNT, continuousResult.convergedCount);
+        assertEquals(CHANGE_COUNT, adaptiveResult.convergedCount);
+        assertTrue(adaptiveResult.airTimeMicros < continuousResult.airTimeMicros / 2);
+    }
+
+    @Test
+    public void adaptiveSendPolicy_echoReceivedStates_stopsAdvertising() {
+        Result adaptiveResult = run(new AdaptiveSendPolicy());
+        AdaptiveSendPolicy echoingPolicy = new AdaptiveSendPolicy();
+        echoingPolicy.setEchoReceivedStates(true);
+        Result echoingResult = run(echoingPolicy);
+
+        assertEquals(CHANGE_COUNT, echoingResult.convergedCount);
+        assertEquals(0, echoingResult.advertisingDeviceCount);
+        // the receivers occupy the channel for a while after each change
+        assertTrue(echoingResult.airTimeMicros > adaptiveResult.airTimeMicros);
+    }
+
+    private static Result run(@Nullable AdaptiveSendPolicy adaptiveSendPolicy) {
+        DemoSimulation simulation = new DemoSimulation(DEVICE_COUNT, 42);
+        for (DemoPresenter<FakeDemoView> presenter : simulation.getPresenters()) {
+            presenter.setAdaptiveSendPolicy(adaptiveSendPolicy);
+        }
+        SimulatedMesh mesh = simulation.getMesh();
+        mesh.setLossProbability(0.3);
+        mesh.setLatency(5, 30);
+        simulation.start();
+
+        Random random = new Random(42);
+        Result result = new Result();
+        try {
+            for (int i = 0; i < CHANGE_COUNT; i++) {
+                long changeTime = simulation.getCurrentTimeMillis();
+                simulation.changeIcon(random.nextInt(DEVICE_COUNT));
+                if (simulation.advanceTimeUntilConverged(CHANGE_INTERVAL_MILLIS) >= 0) {
+                    result.convergedCount++;
+                }
+                simulation.advanceTimeBy(changeTime + CHANGE_INTERVAL_MILLIS - simulation.getCurrentTimeMillis());
+            }
+            simulation.advanceTimeBy(IDLE_DURATION_MILLIS);
+
+            result.airTimeMicros = mesh.getTransmittedAirTimeMicros();
+            for (SimulatedTransport transport : mesh.getTransports()) {
+                result.advertisingDeviceCount += transport.getAdvertisedPayloadCount() > 0 ? 1 : 0;
+            }
+        } finally {
+            simulation.stop();
+        }
+        return result;
+    }
+
+    private static final class Result {
+
+        private int convergedCount;
+        private long airTimeMicros;
+        private int advertisingDeviceCount;
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes that the receive filter of a {@link DemoPresenter} allocates for every
+ * received payload, which should be none, no matter if the payload gets dropped or not.
+ */
+public class DemoPresenterAllocationTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * Upper bound for the bytes allocated by the measurement itself.
+     */
+    private static final long MEASUREMENT_OVERHEAD = 1024;
+
+    private DemoPresenter<FakeDemoView> presenter;
+
+    private TransportPayload newerTransportPayload;
+
+    private TransportPayload outdatedTransportPayload;
+
+    @Before
+    public void setUp() {
+        TestScheduler scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        presenter = new DemoPresenter<>(new FakeDemoView(), mesh.createTransport(), new DemoSchedulers(scheduler, scheduler));
+        presenter.onViewStarted();
+        presenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        newerTransportPayload = createTransportPayload(Long.MAX_VALUE);
+        outdatedTransportPayload = createTransportPayload(Long.MIN_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        presenter.onViewStopped();
+    }
+
+    @Test
+    public void isNewerThanLastDemoPayload_receivedPayloads_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int newerPayloads = 0;
+
+        // warm up, so that class loading and compilation don't end up in the measurement
+        for (int i = 0; i < ITERATIONS; i++) {
+            newerPayloads += presenter.isNewerThanLastDemoPayload(newerTransportPayload) ? 1 : 0;
+            newerPayloads += presenter.isNewerThanLastDemoPayload(outdatedTransportPayload) ? 1 : 0;
+        }
+
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            newerPayloads += presenter.isNewerThanLastDemoPayload(newerTransportPayload) ? 1 : 0;
+            newerPayloads += presenter.isNewerThanLastDemoPayload(outdatedTransportPayload) ? 1 : 0;
+        }
+        allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        assertEquals(2 * ITERATIONS, newerPayloads);
+        assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < MEASUREMENT_OVERHEAD);
+    }
+
+    @Test
+    public void isNewerThanLastDemoPayload_invalidPayload_returnsFalse() {
+        TransportPayload transportPayload = new TransportPayload(DemoPayloadWrapper.ID, 1, ByteBuffer.allocate(3));
+
+        assertFalse(presenter.isNewerThanLastDemoPayload(transportPayload));
+    }
+
+    private static TransportPayload createTransportPayload(long timestamp) {
+        ByteBuffer byteBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_LEGACY, 1, 2, timestamp);
+        return new TransportPayload(DemoPayloadWrapper.ID, 1, byteBuffer);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(sunThreadMXBean.isThreadAllocatedMemorySupported());
+        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadMXBean;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.ambient.AmbientMode;
+import com.nexenio.sblecdemo.ambient.AmbientPolicy;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Puts a {@link DemoPresenter} into ambient mode while a peer keeps changing its state.
+ */
+public class DemoPresenterAmbientTest {
+
+    private TestScheduler scheduler;
+
+    private FakeDemoView peerView;
+
+    private DemoPresenter<FakeDemoView> peerPresenter;
+
+    private SimulatedTransport transport;
+
+    private FakeDemoView view;
+
+    private DemoPresenter<FakeDemoView> presenter;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        peerView = new FakeDemoView();
+        peerPresenter = new DemoPresenter<>(peerView, mesh.createTransport(), schedulers);
+        peerPresenter.onViewStarted();
+
+        transport = mesh.createTransport();
+        view = new FakeDemoView();
+        presenter = new DemoPresenter<>(view, transport, schedulers);
+        // advertise continuously, so that suspended sending can be observed
+        presenter.setAdaptiveSendPolicy(null);
+        presenter.onViewStarted();
+    }
+
+    @Test
+    public void onAmbientModeEntered_localChange_suspendsSending() {
+        presenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(1, transport.getAdvertisedPayloadCount());
+
+        presenter.onAmbientModeEntered();
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        assertEquals(0, transport.getAdvertisedPayloadCount());
+
+        presenter.onAmbientModeExited();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(1, transport.getAdvertisedPayloadCount());
+    }
+
+    @Test
+    public void onAmbientModeEntered_frequentPeerChanges_throttlesRedraws() {
+        presenter.onAmbientModeEntered();
+        int visualizedCount = view.getVisualizedCount();
+
+        // the peer changes its state every 5 seconds for 10 minutes
+        for (int i = 0; i < 120; i++) {
+            peerPresenter.onColorChangeInvoked();
+            scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        }
+
+        AmbientMode ambientMode = presenter.getAmbientMode();
+        long maximumRedrawCount = TimeUnit.MINUTES.toMillis(10) / AmbientPolicy.DEFAULT_MINIMUM_REDRAW_INTERVAL_MILLIS;
+        assertTrue(view.getVisualizedCount() - visualizedCount <= maximumRedrawCount);
+        assertTrue(view.getVisualizedCount() - visualizedCount > 0);
+        assertTrue(ambientMode.getSkippedRedrawCount() > 0);
+        assertTrue(ambientMode.getSavedReceiveMillisPerHour() > TimeUnit.MINUTES.toMillis(30));
+
+        presenter.onAmbientModeExited();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        // the latest state is shown right away
+        assertEquals(peerView.getLastVisualizedDemoPayloadWrapper().getColorIndex(), view.getLastVisualizedDemoPayloadWrapper().getColorIndex());
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.crypto.AuthenticatingPayloadTransport;
+import com.nexenio.sblecdemo.crypto.PayloadCipher;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.sync.HybridLogicalClockMergeStrategy;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lets a device without the group key broadcast a demo payload with a future timestamp, which
+ * would otherwise win against all following changes.
+ */
+public class DemoPresenterAuthenticationTest {
+
+    private static final byte[] GROUP_KEY = Arrays.copyOf("sblecdemo group key".getBytes(), 16);
+
+    private TestScheduler scheduler;
+
+    private FakeDemoView peerView;
+
+    private DemoPresenter<FakeDemoView> peerPresenter;
+
+    private SimulatedTransport attackerTransport;
+
+    private FakeDemoView view;
+
+    private DemoPresenter<FakeDemoView> presenter;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        peerView = new FakeDemoView();
+        peerPresenter = new DemoPresenter<>(peerView, createTransportStack(mesh), schedulers, null, new SettableRadioAvailability(true));
+        attackerTransport = mesh.createTransport();
+        view = new FakeDemoView();
+        presenter = new DemoPresenter<>(view, createTransportStack(mesh), schedulers, null, new SettableRadioAvailability(true));
+    }
+
+    private DemoTransportStack createTransportStack(SimulatedMesh mesh) {
+        return new DemoTransportStack.Builder(mesh.createTransport(), scheduler)
+                .enableAuthentication()
+                .build();
+    }
+
+    @Test
+    public void receivePayloads_withoutCipher_acceptsForgedPayload() {
+        startPresenters();
+        int forgedIconIndex = sendForgedPayload();
+
+        peerPresenter.onColorChangeInvoked();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        assertEquals(forgedIconIndex, view.getLastVisualizedDemoPayloadWrapper().getIconIndex());
+    }
+
+    @Test
+    public void receivePayloads_withCipher_rejectsForgedPayload() {
+        peerPresenter.setMergeStrategy(new HybridLogicalClockMergeStrategy(DemoPayloadCodec.FORMAT_COMPACT));
+        peerPresenter.getTransportStack().setPayloadCipher(new PayloadCipher(GROUP_KEY));
+        presenter.setMergeStrategy(new HybridLogicalClockMergeStrategy(DemoPayloadCodec.FORMAT_COMPACT));
+        presenter.getTransportStack().setPayloadCipher(new PayloadCipher(GROUP_KEY));
+        startPresenters();
+        int forgedIconIndex = sendForgedPayload();
+
+        peerPresenter.onColorChangeInvoked();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        int iconIndex = view.getLastVisualizedDemoPayloadWrapper().getIconIndex();
+        assertNotEquals(forgedIconIndex, iconIndex);
+        assertEquals(peerView.getLastVisualizedDemoPayloadWrapper().getIconIndex(), iconIndex);
+        assertEquals(peerView.getLastVisualizedDemoPayloadWrapper().getColorIndex(), view.getLastVisualizedDemoPayloadWrapper().getColorIndex());
+        AuthenticatingPayloadTransport authenticatingPayloadTransport = presenter.getTransportStack().getAuthenticatingPayloadTransport();
+        assertTrue(authenticatingPayloadTransport.getRejectedCount() > 0);
+        assertTrue(authenticatingPayloadTransport.getOpenedCount() > 0);
+        assertTrue(peerPresenter.getTransportStack().getAuthenticatingPayloadTransport().getSealedCount() > 0);
+    }
+
+    private void startPresenters() {
+        peerPresenter.onViewStarted();
+        presenter.onViewStarted();
+        peerPresenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sends a demo payload that claims to be from the future, like a device with a wrong clock
+     * or an attacker would.
+     *
+     * @return the icon index of the forged payload
+     */
+    private int sendForgedPayload() {
+        DemoPayloadWrapper forgedPayloadWrapper = new DemoPayloadWrapper(peerView.getLastVisualizedDemoPayloadWrapper());
+        forgedPayloadWrapper.setIconIndex(forgedPayloadWrapper.getIconIndex() == 0 ? 1 : 0);
+        forgedPayloadWrapper.setTimestamp(scheduler.now(TimeUnit.MILLISECONDS) + TimeUnit.DAYS.toMillis(1));
+        forgedPayloadWrapper.setDeviceIdHashCode(attackerTransport.getDeviceIdHashCode());
+        ByteBuffer data = forgedPayloadWrapper.writeToBuffer().blockingGet();
+        attackerTransport.send(new TransportPayload(DemoPayloadWrapper.ID, attackerTransport.getDeviceIdHashCode(), data)).subscribe();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+        return forgedPayloadWrapper.getIconIndex();
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.recovery.RecoveryEngine;
+import com.nexenio.sblecdemo.recovery.RecoveryPolicy;
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.transport.FaultInjectingTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Injects faults into the transport of a {@link DemoPresenter} and checks that it keeps receiving
+ * payloads of a peer once the transport works again.
+ */
+public class DemoPresenterRecoveryTest {
+
+    private TestScheduler scheduler;
+
+    private FakeDemoView peerView;
+
+    private DemoPresenter<FakeDemoView> peerPresenter;
+
+    private FaultInjectingTransport faultInjectingTransport;
+
+    private SettableRadioAvailability radioAvailability;
+
+    private FakeDemoView view;
+
+    private DemoPresenter<FakeDemoView> presenter;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        peerView = new FakeDemoView();
+        peerPresenter = new DemoPresenter<>(peerView, mesh.createTransport(), schedulers);
+        peerPresenter.onViewStarted();
+
+        faultInjectingTransport = new FaultInjectingTransport(mesh.createTransport());
+        radioAvailability = new SettableRadioAvailability(true);
+        view = new FakeDemoView();
+        presenter = new DemoPresenter<>(view, faultInjectingTransport, schedulers, null, radioAvailability);
+        presenter.onViewStarted();
+        scheduler.advanceTimeBy(RecoveryPolicy.DEFAULT_STABLE_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void onViewStarted_transientFault_resumesReceiving() {
+        faultInjectingTransport.injectFault(new IOException("Scan failed"));
+        scheduler.advanceTimeBy(RecoveryPolicy.DEFAULT_INITIAL_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        peerPresenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertVisualizedPeerState();
+        RecoveryEngine recoveryEngine = presenter.getRecoveryEngine();
+        assertTrue(view.getErrorCount() > 0);
+        assertEquals(1, recoveryEngine.getOutageCount());
+        scheduler.advanceTimeBy(RecoveryPolicy.DEFAULT_STABLE_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(1, recoveryEngine.getRecoveredCount());
+        assertTrue(recoveryEngine.getOutageDurationMillis().getMaximum() <= RecoveryPolicy.DEFAULT_INITIAL_RETRY_DELAY_MILLIS);
+    }
+
+    @Test
+    public void onViewStarted_radioDisabled_resumesReceivingWhenEnabled() {
+        radioAvailability.setAvailable(false);
+        faultInjectingTransport.setFailing(true);
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        // no retries while the radio is disabled
+        assertEquals(0, faultInjectingTransport.getRejectedSubscriptionCount());
+        assertEquals(1, presenter.getRecoveryEngine().getCircuitOpenCount());
+
+        faultInjectingTransport.setFailing(false);
+        radioAvailability.setAvailable(true);
+        peerPresenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertVisualizedPeerState();
+        scheduler.advanceTimeBy(RecoveryPolicy.DEFAULT_STABLE_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+        RecoveryEngine recoveryEngine = presenter.getRecoveryEngine();
+        assertEquals(1, recoveryEngine.getRecoveredCount());
+        assertEquals(0, recoveryEngine.getTimeToRecoverMillis().getMaximum());
+        assertTrue(recoveryEngine.getOutageDurationMillis().getMaximum() >= TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    public void onIconChangeInvoked_failingTransport_showsErrorOnViewScheduler() {
+        TestScheduler viewScheduler = new TestScheduler();
+        FaultInjectingTransport failingTransport = new FaultInjectingTransport(new SimulatedMesh(scheduler, 42).createTransport());
+        FakeDemoView failingView = new FakeDemoView();
+        DemoPresenter<FakeDemoView> failingPresenter = new DemoPresenter<>(failingView, failingTransport, new DemoSchedulers(scheduler, viewScheduler),
+                null, radioAvailability);
+        failingPresenter.onViewStarted();
+        viewScheduler.triggerActions();
+        failingTransport.setFailing(true);
+        int errorCount = failingView.getErrorCount();
+
+        failingPresenter.onIconChangeInvoked();
+        // retries happen on the processing scheduler
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        assertEquals(errorCount, failingView.getErrorCount());
+        viewScheduler.triggerActions();
+        assertTrue(failingView.getErrorCount() > errorCount);
+        failingPresenter.onViewStopped();
+    }
+
+    private void assertVisualizedPeerState() {
+        DemoPayloadWrapper sentDemoPayloadWrapper = peerView.getLastVisualizedDemoPayloadWrapper();
+        DemoPayloadWrapper receivedDemoPayloadWrapper = view.getLastVisualizedDemoPayloadWrapper();
+        assertNotNull(sentDemoPayloadWrapper);
+        assertNotNull(receivedDemoPayloadWrapper);
+        assertEquals(sentDemoPayloadWrapper.getIconIndex(), receivedDemoPayloadWrapper.getIconIndex());
+        assertEquals(sentDemoPayloadWrapper.getTimestamp(), receivedDemoPayloadWrapper.getTimestamp());
+    }
+
+}
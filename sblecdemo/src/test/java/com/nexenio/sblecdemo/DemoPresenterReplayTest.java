@@ -0,0 +1,97 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.trace.TraceRecorder;
+import com.nexenio.sblecdemo.trace.TraceReplayTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records the payloads a {@link DemoPresenter} receives in a crowd of changing peers and replays
+ * them into new presenters, which should end up in the same state.
+ */
+public class DemoPresenterReplayTest {
+
+    private static final int PEER_COUNT = 10;
+
+    private static final long RECORDING_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final double REPLAY_SPEED = 10;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void receive_replayedTrace_reproducesRecordedState() throws IOException {
+        File traceFile = temporaryFolder.newFile();
+        TestScheduler scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        mesh.setLossProbability(0.3);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        List<DemoPresenter<FakeDemoView>> peerPresenters = new ArrayList<>();
+        for (int i = 0; i < PEER_COUNT; i++) {
+            DemoPresenter<FakeDemoView> peerPresenter = new DemoPresenter<>(new FakeDemoView(), mesh.createTransport(), schedulers);
+            peerPresenter.onViewStarted();
+            peerPresenters.add(peerPresenter);
+        }
+        FakeDemoView recordingView = new FakeDemoView();
+        DemoTransportStack recordingTransportStack = new DemoTransportStack.Builder(mesh.createTransport(), scheduler)
+                .enableTraceRecording()
+                .build();
+        DemoPresenter<FakeDemoView> recordingPresenter = new DemoPresenter<>(recordingView, recordingTransportStack, schedulers, null,
+                new SettableRadioAvailability(true));
+        TraceRecorder traceRecorder = new TraceRecorder(traceFile, scheduler.now(TimeUnit.MILLISECONDS));
+        recordingPresenter.getTransportStack().setTraceRecorder(traceRecorder);
+        recordingPresenter.onViewStarted();
+
+        Random random = new Random(42);
+        for (long elapsed = 0; elapsed < RECORDING_DURATION_MILLIS; elapsed += 5000) {
+            peerPresenters.get(random.nextInt(PEER_COUNT)).onIconChangeInvoked();
+            scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        }
+        recordingPresenter.onViewStopped();
+        traceRecorder.close();
+        assertTrue(traceRecorder.getRecordedCount() > 0);
+        assertEquals(0, traceRecorder.getDroppedCount());
+
+        FakeDemoView firstReplayView = replay(traceFile);
+        FakeDemoView secondReplayView = replay(traceFile);
+
+        assertNotNull(firstReplayView.getLastVisualizedDemoPayloadWrapper());
+        assertEquals(recordingView.getLastVisualizedDemoPayloadWrapper().getIconIndex(), firstReplayView.getLastVisualizedDemoPayloadWrapper().getIconIndex());
+        assertEquals(recordingView.getLastVisualizedDemoPayloadWrapper().getColorIndex(), firstReplayView.getLastVisualizedDemoPayloadWrapper().getColorIndex());
+        // replays are deterministic
+        assertEquals(firstReplayView.getVisualizedCount(), secondReplayView.getVisualizedCount());
+        assertEquals(firstReplayView.getLastVisualizedTimestamp(), secondReplayView.getLastVisualizedTimestamp());
+    }
+
+    private static FakeDemoView replay(File traceFile) {
+        TestScheduler scheduler = new TestScheduler();
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        TraceReplayTransport traceReplayTransport = new TraceReplayTransport(traceFile, REPLAY_SPEED, scheduler, 42);
+        FakeDemoView view = new FakeDemoView();
+        DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, traceReplayTransport, schedulers);
+        presenter.onViewStarted();
+        scheduler.advanceTimeBy((long) (RECORDING_DURATION_MILLIS / REPLAY_SPEED) + TimeUnit.SECONDS.toMillis(2), TimeUnit.MILLISECONDS);
+        presenter.onViewStopped();
+        assertTrue(traceReplayTransport.getReplayedCount() > 0);
+        return view;
+    }
+
+}
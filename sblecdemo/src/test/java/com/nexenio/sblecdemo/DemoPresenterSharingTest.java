@@ -0,0 +1,77 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.transport.SharedPayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Attaches multiple {@link DemoPresenter}s to the same {@link SharedPayloadTransport}, like
+ * multiple views embedded in the same app.
+ */
+public class DemoPresenterSharingTest {
+
+    private static final int VIEW_COUNT = 3;
+
+    @Test
+    public void onViewStarted_multiplePresenters_shareReceiveSubscription() {
+        TestScheduler scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        DemoPresenter<FakeDemoView> peerPresenter = new DemoPresenter<>(new FakeDemoView(), mesh.createTransport(), schedulers);
+        peerPresenter.onViewStarted();
+
+        SharedPayloadTransport sharedPayloadTransport = new SharedPayloadTransport(mesh.createTransport(), scheduler);
+        List<DemoPresenter<FakeDemoView>> presenters = new ArrayList<>();
+        List<FakeDemoView> views = new ArrayList<>();
+        for (int i = 0; i < VIEW_COUNT; i++) {
+            FakeDemoView view = new FakeDemoView();
+            DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, sharedPayloadTransport, schedulers);
+            presenter.onViewStarted();
+            presenters.add(presenter);
+            views.add(view);
+        }
+
+        peerPresenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        assertNotNull(views.get(0).getLastVisualizedDemoPayloadWrapper());
+        int iconIndex = views.get(0).getLastVisualizedDemoPayloadWrapper().getIconIndex();
+        for (FakeDemoView view : views) {
+            assertNotNull(view.getLastVisualizedDemoPayloadWrapper());
+            assertEquals(iconIndex, view.getLastVisualizedDemoPayloadWrapper().getIconIndex());
+        }
+        assertEquals(1, sharedPayloadTransport.getUpstreamSubscriptionCount());
+        assertEquals(VIEW_COUNT, sharedPayloadTransport.getReceiverCount());
+
+        // a recreated view gets the latest state replayed
+        presenters.get(0).onViewStopped();
+        FakeDemoView recreatedView = new FakeDemoView();
+        DemoPresenter<FakeDemoView> recreatedPresenter = new DemoPresenter<>(recreatedView, sharedPayloadTransport, schedulers);
+        recreatedPresenter.onViewStarted();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertNotNull(recreatedView.getLastVisualizedDemoPayloadWrapper());
+        assertEquals(iconIndex, recreatedView.getLastVisualizedDemoPayloadWrapper().getIconIndex());
+        assertTrue(sharedPayloadTransport.getReplayedCount() > 0);
+        assertEquals(1, sharedPayloadTransport.getUpstreamSubscriptionCount());
+
+        recreatedPresenter.onViewStopped();
+        for (int i = 1; i < VIEW_COUNT; i++) {
+            presenters.get(i).onViewStopped();
+        }
+        peerPresenter.onViewStopped();
+        assertEquals(0, sharedPayloadTransport.getReceiverCount());
+    }
+
+}
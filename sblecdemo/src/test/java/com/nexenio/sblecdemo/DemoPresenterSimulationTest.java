@@ -0,0 +1,122 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.metrics.PipelineMetricsSnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs hundreds of {@link DemoPresenter}s on a lossy {@link com.nexenio.sblecdemo.transport.SimulatedMesh}
+ * and measures how long it takes until all of them visualize the same state.
+ */
+public class DemoPresenterSimulationTest {
+
+    private static final int DEVICE_COUNT = 200;
+    private static final int CHANGE_COUNT = 10;
+    private static final long CHANGE_INTERVAL_MILLIS = 250;
+    private static final long CONVERGENCE_TIMEOUT_MILLIS = 30_000;
+    private static final long MAXIMUM_CONVERGENCE_MILLIS = 2_000;
+
+    private DemoSimulation simulation;
+
+    @Before
+    public void setUp() {
+        simulation = new DemoSimulation(DEVICE_COUNT, 42);
+        simulation.getMesh().setLossProbability(0.3);
+        simulation.getMesh().setLatency(5, 30);
+        simulation.start();
+    }
+
+    @After
+    public void tearDown() {
+        simulation.stop();
+    }
+
+    @Test
+    public void concurrentChanges_lossyMesh_converges() {
+        for (int i = 0; i < CHANGE_COUNT; i++) {
+            simulation.scheduleIconChange(i * DEVICE_COUNT / CHANGE_COUNT, i * CHANGE_INTERVAL_MILLIS);
+        }
+        simulation.advanceTimeBy(CHANGE_COUNT * CHANGE_INTERVAL_MILLIS);
+
+        long convergenceTime = simulation.advanceTimeUntilConverged(CONVERGENCE_TIMEOUT_MILLIS);
+
+        PipelineMetricsSnapshot metricsSnapshot = simulation.getPresenters().get(0).getPipelineMetrics().getSnapshot();
+
+        assertTrue("Not converged", convergenceTime >= 0);
+        assertTrue("Converged after " + convergenceTime + " ms", convergenceTime <= MAXIMUM_CONVERGENCE_MILLIS);
+        for (FakeDemoView view : simulation.getViews()) {
+            assertEquals(0, view.getErrorCount());
+        }
+        assertTrue(metricsSnapshot.getReceivedCount() > 0);
+        assertTrue(metricsSnapshot.getProcessedCount() <= metricsSnapshot.getReceivedCount());
+        // repeated advertisements of the same state are dropped before decoding
+        assertTrue(metricsSnapshot.getFilterDropRatio() > 0);
+        assertTrue(metricsSnapshot.getVisualizedCount() > 0);
+        assertTrue(metricsSnapshot.getEndToEndLatencyMillis().getValueAtPercentile(50) <= MAXIMUM_CONVERGENCE_MILLIS);
+        assertTrue(metricsSnapshot.getSendErrorCounts().isEmpty());
+    }
+
+    @Test
+    public void textMessage_lossyMesh_shownOnceOnOtherDevices() {
+        simulation.scheduleIconChange(0, 0);
+        simulation.advanceTimeBy(1_000);
+
+        simulation.getPresenters().get(0).onTextMessageInvoked("Hello");
+        simulation.advanceTimeBy(10_000);
+
+        int senderIdHashCode = simulation.getMesh().getTransports().get(0).getDeviceIdHashCode();
+        for (int i = 1; i < DEVICE_COUNT; i++) {
+            FakeDemoView view = simulation.getViews().get(i);
+            assertEquals(1, view.getShownTextMessages().size());
+            TextPayloadWrapper textPayloadWrapper = view.getShownTextMessages().get(0);
+            assertEquals("Hello", textPayloadWrapper.getText());
+            assertEquals(senderIdHashCode, textPayloadWrapper.getDeviceIdHashCode());
+        }
+        assertEquals(0, simulation.getViews().get(0).getShownTextMessages().size());
+        assertTrue(simulation.isConverged());
+    }
+
+    @Test
+    public void longTextMessage_lossyMesh_reassembledOnOtherDevices() {
+        assertTrue(sendLongTextMessage() > 0);
+    }
+
+    @Test
+    public void longTextMessage_forwardErrorCorrection_reassembledOnAllDevices() {
+        simulation.getPresenters().get(0).setForwardErrorCorrectionEnabled(true);
+        assertEquals(DEVICE_COUNT - 1, sendLongTextMessage());
+    }
+
+    /**
+     * Sends a text message of the maximum length from the first device.
+     *
+     * @return the amount of other devices that reassembled it within the send duration
+     */
+    private int sendLongTextMessage() {
+        StringBuilder textBuilder = new StringBuilder();
+        while (textBuilder.length() < TextPayloadWrapper.MAXIMUM_LENGTH) {
+            textBuilder.append("Hello from a nearby device! ");
+        }
+        String text = textBuilder.substring(0, TextPayloadWrapper.MAXIMUM_LENGTH);
+
+        simulation.getPresenters().get(0).onTextMessageInvoked(text);
+        simulation.advanceTimeBy(10_000);
+
+        int shownCount = 0;
+        for (int i = 1; i < DEVICE_COUNT; i++) {
+            FakeDemoView view = simulation.getViews().get(i);
+            assertTrue(view.getShownTextMessages().size() <= 1);
+            if (!view.getShownTextMessages().isEmpty()) {
+                assertEquals(text, view.getShownTextMessages().get(0).getText());
+                shownCount++;
+            }
+        }
+        return shownCount;
+    }
+
+}
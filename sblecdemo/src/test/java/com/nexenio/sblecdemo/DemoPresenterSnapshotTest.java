@@ -0,0 +1,103 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.persistence.SnapshotStore;
+import com.nexenio.sblecdemo.sender.AdaptiveSendPolicy;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Recreates a {@link DemoPresenter} with the same {@link SnapshotStore} and checks that the last
+ * state is restored without being sent again.
+ */
+public class DemoPresenterSnapshotTest {
+
+    private TestScheduler scheduler;
+
+    private SimulatedMesh mesh;
+
+    private byte[] persistedSnapshot;
+
+    private SnapshotStore snapshotStore;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        mesh = new SimulatedMesh(scheduler, 42);
+        snapshotStore = new SnapshotStore() {
+            @Nullable
+            @Override
+            public byte[] read() {
+                return persistedSnapshot;
+            }
+
+            @Override
+            public void write(@NonNull byte[] snapshot) {
+                persistedSnapshot = snapshot;
+            }
+        };
+    }
+
+    @Test
+    public void onViewStarted_persistedState_restoresStateWithoutSending() {
+        SimulatedTransport peerTransport = mesh.createTransport();
+        DemoPresenter<FakeDemoView> peerPresenter = new DemoPresenter<>(new FakeDemoView(), peerTransport, new DemoSchedulers(scheduler, scheduler));
+        AdaptiveSendPolicy echoingPolicy = new AdaptiveSendPolicy();
+        echoingPolicy.setEchoReceivedStates(true);
+        peerPresenter.setAdaptiveSendPolicy(echoingPolicy);
+        peerPresenter.onViewStarted();
+
+        SimulatedTransport transport = mesh.createTransport();
+        FakeDemoView view = new FakeDemoView();
+        DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, transport, new DemoSchedulers(scheduler, scheduler), snapshotStore);
+        presenter.onViewStarted();
+        presenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        presenter.onViewStopped();
+        scheduler.triggerActions();
+        DemoPayloadWrapper sentDemoPayloadWrapper = view.getLastVisualizedDemoPayloadWrapper();
+        assertNotNull(persistedSnapshot);
+        assertEquals(1, peerPresenter.getPeerTable().getPeerCount());
+
+        FakeDemoView restartedView = new FakeDemoView();
+        DemoPresenter<FakeDemoView> restartedPresenter = new DemoPresenter<>(restartedView, transport, new DemoSchedulers(scheduler, scheduler), snapshotStore);
+        mesh.resetCounts();
+        restartedPresenter.onViewStarted();
+        scheduler.triggerActions();
+
+        DemoPayloadWrapper restoredDemoPayloadWrapper = restartedView.getLastVisualizedDemoPayloadWrapper();
+        assertNotNull(restoredDemoPayloadWrapper);
+        assertEquals(sentDemoPayloadWrapper.getIconIndex(), restoredDemoPayloadWrapper.getIconIndex());
+        assertEquals(sentDemoPayloadWrapper.getColorIndex(), restoredDemoPayloadWrapper.getColorIndex());
+        assertEquals(sentDemoPayloadWrapper.getTimestamp(), restoredDemoPayloadWrapper.getTimestamp());
+        assertEquals(1, restartedPresenter.getPeerTable().getPeerCount());
+        assertEquals(0, mesh.getTransmittedCount());
+
+        restartedPresenter.onViewStopped();
+        peerPresenter.onViewStopped();
+    }
+
+    @Test
+    public void onViewStarted_noPersistedState_showsNothing() {
+        FakeDemoView view = new FakeDemoView();
+        DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, mesh.createTransport(), new DemoSchedulers(scheduler, scheduler), snapshotStore);
+        presenter.onViewStarted();
+        scheduler.triggerActions();
+
+        assertNull(view.getLastVisualizedDemoPayloadWrapper());
+        presenter.onViewStopped();
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.nexenio.sblecdemo;
+
+import android.content.Context;
+
+import com.nexenio.sblecdemo.metrics.LatencyHistogram;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Injects synthetic payloads at a fixed rate into the receive pipeline of a {@link DemoPresenter}
+ * with a slow view, to verify that processing happens off the view thread and that the view only
+ * gets the newest payloads without falling behind. Like on Android, payloads are received on the
+ * view thread, which should only be blocked for handing them over.
+ */
+public class DemoPresenterStressTest {
+
+    private static final int PAYLOADS_PER_SECOND = 2000;
+    private static final int PAYLOAD_COUNT = 4000;
+    private static final long RENDER_DURATION_MILLIS = 5;
+    private static final long MAXIMUM_MEDIAN_EMITTING_MICROS = 50;
+
+    private ExecutorService viewExecutor;
+    private Thread viewThread;
+
+    private TransportPayload[] transportPayloads;
+
+    private final AtomicBoolean processedOnViewThread = new AtomicBoolean();
+    private final AtomicBoolean visualizedOffViewThread = new AtomicBoolean();
+    private final AtomicInteger visualizedCount = new AtomicInteger();
+    private final AtomicLong lastVisualizedTimestamp = new AtomicLong();
+    private final LatencyHistogram emittingMicros = new LatencyHistogram();
+
+    private DemoPresenter<DemoView> presenter;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        viewExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            viewThread = new Thread(runnable, "view");
+            return viewThread;
+        });
+        viewExecutor.submit(() -> {
+        }).get();
+        Scheduler viewScheduler = Schedulers.from(viewExecutor);
+
+        transportPayloads = new TransportPayload[PAYLOAD_COUNT];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            transportPayloads[i] = createTransportPayload(i + 1);
+        }
+
+        DemoView view = mock(DemoView.class);
+        when(view.getContext()).thenReturn(mock(Context.class));
+        doAnswer(invocation -> {
+            DemoPayloadWrapper demoPayloadWrapper = invocation.getArgument(0);
+            if (Thread.currentThread() != viewThread) {
+                visualizedOffViewThread.set(true);
+            }
+            Thread.sleep(RENDER_DURATION_MILLIS);
+            visualizedCount.incrementAndGet();
+            lastVisualizedTimestamp.set(demoPayloadWrapper.getTimestamp());
+            return null;
+        }).when(view).visualizeDemoPayload(any(DemoPayloadWrapper.class));
+
+        PayloadTransport payloadTransport = new PayloadTransport() {
+            @Override
+            public Completable send(@NonNull TransportPayload transportPayload) {
+                return Completable.never();
+            }
+
+            @Override
+            public Observable<TransportPayload> receive() {
+                // like the Bluetooth callbacks on Android, payloads are emitted on the view thread
+                return Observable.create(emitter -> {
+                    AtomicInteger index = new AtomicInteger();
+                    emitter.setDisposable(viewScheduler.schedulePeriodicallyDirect(() -> {
+                        int payloadIndex = index.getAndIncrement();
+                        if (payloadIndex >= PAYLOAD_COUNT) {
+                            emitter.onComplete();
+                            return;
+                        }
+                        long startTime = System.nanoTime();
+                        emitter.onNext(transportPayloads[payloadIndex]);
+                        emittingMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+                    }, 0, TimeUnit.SECONDS.toMicros(1) / PAYLOADS_PER_SECOND, TimeUnit.MICROSECONDS));
+                });
+            }
+
+            @Override
+            public int getDeviceIdHashCode() {
+                return 0;
+            }
+        };
+
+        DemoSchedulers schedulers = new DemoSchedulers(Schedulers.computation(), viewScheduler);
+        presenter = new DemoPresenter<>(view, payloadTransport, schedulers);
+    }
+
+    @After
+    public void tearDown() {
+        presenter.onViewStopped();
+        viewExecutor.shutdownNow();
+    }
+
+    @Test
+    public void receive_fixedRate_visualizesNewestPayloadOnViewThread() throws Exception {
+        presenter.onViewStarted();
+
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (lastVisualizedTimestamp.get() != PAYLOAD_COUNT && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(PAYLOAD_COUNT, lastVisualizedTimestamp.get());
+        assertFalse("Payloads processed on view thread", processedOnViewThread.get());
+        assertFalse("Payloads visualized off view thread", visualizedOffViewThread.get());
+
+        // at most one payload per coalescing window should be visualized
+        assertTrue("Visualized " + visualizedCount.get() + " payloads", visualizedCount.get() <= PAYLOAD_COUNT / 10);
+        assertTrue(presenter.getDemoPayloadCoalescer().getCoalescedCount() > 0);
+
+        // emitting should only hand the payloads over to the processing scheduler
+        LatencyHistogram.Snapshot emittingMicros = this.emittingMicros.getSnapshot();
+        assertTrue("Emitting took " + emittingMicros, emittingMicros.getValueAtPercentile(50) <= MAXIMUM_MEDIAN_EMITTING_MICROS);
+    }
+
+    private TransportPayload createTransportPayload(long timestamp) {
+        ByteBuffer data = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_LEGACY, 1, 2, timestamp);
+
+        return new TransportPayload(DemoPayloadWrapper.ID, 1, data) {
+            @NonNull
+            @Override
+            public ByteBuffer getData() {
+                if (Thread.currentThread() == viewThread) {
+                    processedOnViewThread.set(true);
+                }
+                return super.getData();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.sync.HybridLogicalClockMergeStrategy;
+import com.nexenio.sblecdemo.sync.MergeStrategy;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.TestScheduler;
+
+/**
+ * Runs multiple {@link DemoPresenter}s connected through a {@link SimulatedMesh} in virtual time.
+ *
+ * The clock of each device can be skewed by a random offset, which affects the timestamps of
+ * created payloads but not the timing of the simulation.
+ */
+public class DemoSimulation {
+
+    /**
+     * Creates the {@link DemoTransportStack} of each simulated device.
+     */
+    public interface TransportStackFactory {
+
+        @NonNull
+        DemoTransportStack create(@NonNull PayloadTransport payloadTransport, @NonNull Scheduler scheduler);
+
+    }
+
+    private static final long STEP_MILLIS = 10;
+
+    private final TestScheduler scheduler = new TestScheduler();
+
+    private final SimulatedMesh mesh;
+
+    private final List<DemoPresenter<FakeDemoView>> presenters = new ArrayList<>();
+
+    private final List<FakeDemoView> views = new ArrayList<>();
+
+    public DemoSimulation(int deviceCount, long seed) {
+        this(deviceCount, seed, (payloadTransport, scheduler) -> DemoTransportStack.createDefault(payloadTransport));
+    }
+
+    public DemoSimulation(int deviceCount, long seed, @NonNull TransportStackFactory transportStackFactory) {
+        this(deviceCount, seed, new HybridLogicalClockMergeStrategy(), 0, transportStackFactory);
+    }
+
+    public DemoSimulation(int deviceCount, long seed, @NonNull MergeStrategy mergeStrategy, long maximumClockSkewMillis) {
+        this(deviceCount, seed, mergeStrategy, maximumClockSkewMillis, (payloadTransport, scheduler) -> DemoTransportStack.createDefault(payloadTransport));
+    }
+
+    /**
+     * @param maximumClockSkewMillis the maximum amount of time that the clock of a device may be
+     *                               ahead of the simulation time
+     * @param transportStackFactory  decides which decorators the transports of the devices use
+     */
+    public DemoSimulation(int deviceCount, long seed, @NonNull MergeStrategy mergeStrategy, long maximumClockSkewMillis,
+                          @NonNull TransportStackFactory transportStackFactory) {
+        mesh = new SimulatedMesh(scheduler, seed);
+        Random random = new Random(seed);
+        for (int i = 0; i < deviceCount; i++) {
+            long clockSkewMillis = (long) (random.nextDouble() * maximumClockSkewMillis);
+            DemoSchedulers schedulers = new DemoSchedulers(scheduler, new SkewedScheduler(scheduler, clockSkewMillis));
+            FakeDemoView view = new FakeDemoView();
+            views.add(view);
+            DemoTransportStack transportStack = transportStackFactory.create(mesh.createTransport(), scheduler);
+            DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, transportStack, schedulers, null, new SettableRadioAvailability(true));
+            presenter.setMergeStrategy(mergeStrategy);
+            presenters.add(presenter);
+        }
+    }
+
+    public void start() {
+        for (DemoPresenter<FakeDemoView> presenter : presenters) {
+            presenter.onViewStarted();
+        }
+    }
+
+    public void stop() {
+        for (DemoPresenter<FakeDemoView> presenter : presenters) {
+            presenter.onViewStopped();
+        }
+    }
+
+    /**
+     * Lets the presenter with the specified index change its icon after the specified delay.
+     */
+    public void scheduleIconChange(int presenterIndex, long delayMillis) {
+        DemoPresenter<FakeDemoView> presenter = presenters.get(presenterIndex);
+        scheduler.scheduleDirect(presenter::onIconChangeInvoked, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lets the presenter with the specified index change its icon now.
+     */
+    public void changeIcon(int presenterIndex) {
+        presenters.get(presenterIndex).onIconChangeInvoked();
+    }
+
+    /**
+     * Lets the presenter with the specified index change its color now.
+     */
+    public void changeColor(int presenterIndex) {
+        presenters.get(presenterIndex).onColorChangeInvoked();
+    }
+
+    public void advanceTimeBy(long durationMillis) {
+        scheduler.advanceTimeBy(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Advances the virtual time until all views visualize the same state.
+     *
+     * @return the virtual time in milliseconds it took to converge or -1 if the timeout elapsed
+     */
+    public long advanceTimeUntilConverged(long timeoutMillis) {
+        long startTime = getCurrentTimeMillis();
+        while (getCurrentTimeMillis() - startTime < timeoutMillis) {
+            if (isConverged()) {
+                return getCurrentTimeMillis() - startTime;
+            }
+            advanceTimeBy(STEP_MILLIS);
+        }
+        return isConverged() ? getCurrentTimeMillis() - startTime : -1;
+    }
+
+    public boolean isConverged() {
+        DemoPayloadWrapper demoPayloadWrapper = views.get(0).getLastVisualizedDemoPayloadWrapper();
+        if (demoPayloadWrapper == null) {
+            return false;
+        }
+        for (FakeDemoView view : views) {
+            DemoPayloadWrapper otherDemoPayloadWrapper = view.getLastVisualizedDemoPayloadWrapper();
+            if (otherDemoPayloadWrapper == null
+                    || otherDemoPayloadWrapper.getTimestamp() != demoPayloadWrapper.getTimestamp()
+                    || otherDemoPayloadWrapper.getIconIndex() != demoPayloadWrapper.getIconIndex()
+                    || otherDemoPayloadWrapper.getColorIndex() != demoPayloadWrapper.getColorIndex()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCurrentTimeMillis() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    public SimulatedMesh getMesh() {
+        return mesh;
+    }
+
+    public List<DemoPresenter<FakeDemoView>> getPresenters() {
+        return presenters;
+    }
+
+    public List<FakeDemoView> getViews() {
+        return views;
+    }
+
+    /**
+     * Delegates to the simulation scheduler, but reports a time that is offset by the clock skew.
+     */
+    private static final class SkewedScheduler extends Scheduler {
+
+        private final Scheduler scheduler;
+
+        private final long clockSkewMillis;
+
+        SkewedScheduler(@NonNull Scheduler scheduler, long clockSkewMillis) {
+            this.scheduler = scheduler;
+            this.clockSkewMillis = clockSkewMillis;
+        }
+
+        @NonNull
+        @Override
+        public Worker createWorker() {
+            return scheduler.createWorker();
+        }
+
+        @Override
+        public long now(@NonNull TimeUnit unit) {
+            return scheduler.now(unit) + unit.convert(clockSkewMillis, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.recovery.SettableRadioAvailability;
+import com.nexenio.sblecdemo.relay.RelayPolicy;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DemoTransportStackTest {
+
+    @Test
+    public void build_nothingEnabled_usesTransportDirectly() {
+        TestScheduler scheduler = new TestScheduler();
+        PayloadTransport payloadTransport = new SimulatedMesh(scheduler, 42).createTransport();
+
+        DemoTransportStack transportStack = new DemoTransportStack.Builder(payloadTransport, scheduler).build();
+
+        assertSame(payloadTransport, transportStack.getPayloadTransport());
+        assertNull(transportStack.getRecordingPayloadTransport());
+        assertNull(transportStack.getSchedulingPayloadTransport());
+        assertNull(transportStack.getBatchingPayloadTransport());
+        assertNull(transportStack.getRelayingPayloadTransport());
+        assertNull(transportStack.getAuthenticatingPayloadTransport());
+    }
+
+    @Test
+    public void build_someEnabled_stacksOnlyThose() {
+        TestScheduler scheduler = new TestScheduler();
+        PayloadTransport payloadTransport = new SimulatedMesh(scheduler, 42).createTransport();
+
+        DemoTransportStack transportStack = new DemoTransportStack.Builder(payloadTransport, scheduler)
+                .enableRelaying()
+                .enableBatching()
+                .build();
+
+        assertNotNull(transportStack.getBatchingPayloadTransport());
+        assertNotNull(transportStack.getRelayingPayloadTransport());
+        assertSame(transportStack.getRelayingPayloadTransport(), transportStack.getPayloadTransport());
+        assertNull(transportStack.getSchedulingPayloadTransport());
+        assertNull(transportStack.getAuthenticatingPayloadTransport());
+    }
+
+    @Test
+    public void demoPresenter_withoutDecorators_receivesStateOfDefaultPresenter() {
+        TestScheduler scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        DemoSchedulers schedulers = new DemoSchedulers(scheduler, scheduler);
+        FakeDemoView peerView = new FakeDemoView();
+        DemoPresenter<FakeDemoView> peerPresenter = new DemoPresenter<>(peerView, mesh.createTransport(), schedulers);
+        peerPresenter.onViewStarted();
+        FakeDemoView view = new FakeDemoView();
+        DemoTransportStack transportStack = new DemoTransportStack.Builder(mesh.createTransport(), scheduler).build();
+        DemoPresenter<FakeDemoView> presenter = new DemoPresenter<>(view, transportStack, schedulers, null, new SettableRadioAvailability(true));
+        presenter.onViewStarted();
+
+        peerPresenter.onIconChangeInvoked();
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        assertNotNull(view.getLastVisualizedDemoPayloadWrapper());
+        assertEquals(peerView.getLastVisualizedDemoPayloadWrapper().getIconIndex(), view.getLastVisualizedDemoPayloadWrapper().getIconIndex());
+        assertNull(presenter.getTransportStack().getRelayingPayloadTransport());
+        presenter.onViewStopped();
+        peerPresenter.onViewStopped();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setRelayPolicy_relayingNotEnabled_throwsException() {
+        TestScheduler scheduler = new TestScheduler();
+        DemoTransportStack transportStack = new DemoTransportStack.Builder(new SimulatedMesh(scheduler, 42).createTransport(), scheduler).build();
+
+        transportStack.setRelayPolicy(new RelayPolicy());
+    }
+
+}
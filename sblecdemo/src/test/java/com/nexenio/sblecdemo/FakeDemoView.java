@@ -0,0 +1,134 @@
+package com.nexenio.sblecdemo;
+
+import android.app.Activity;
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * A {@link DemoView} without any UI, recording the visualized payloads.
+ */
+public class FakeDemoView implements DemoView<DemoPresenter> {
+
+    private static final Context CONTEXT = mock(Context.class);
+
+    @Nullable
+    private DemoPayloadWrapper lastVisualizedDemoPayloadWrapper;
+
+    private int visualizedCount;
+
+    private final List<TextPayloadWrapper> shownTextMessages = new ArrayList<>();
+
+    private int errorCount;
+
+    @Override
+    public void visualizeDemoPayload(@NonNull DemoPayloadWrapper demoPayloadWrapper) {
+        lastVisualizedDemoPayloadWrapper = demoPayloadWrapper;
+        visualizedCount++;
+    }
+
+    @Override
+    public void showTextMessage(@NonNull TextPayloadWrapper textPayloadWrapper) {
+        shownTextMessages.add(textPayloadWrapper);
+    }
+
+    @NonNull
+    public List<TextPayloadWrapper> getShownTextMessages() {
+        return shownTextMessages;
+    }
+
+    @Nullable
+    public DemoPayloadWrapper getLastVisualizedDemoPayloadWrapper() {
+        return lastVisualizedDemoPayloadWrapper;
+    }
+
+    public long getLastVisualizedTimestamp() {
+        return lastVisualizedDemoPayloadWrapper != null ? lastVisualizedDemoPayloadWrapper.getTimestamp() : 0;
+    }
+
+    public int getVisualizedCount() {
+        return visualizedCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public void showMissingPermissionsError() {
+        errorCount++;
+    }
+
+    @Override
+    public void hideMissingPermissionsError() {
+    }
+
+    @Override
+    public void showBluetoothDisabledError() {
+        errorCount++;
+    }
+
+    @Override
+    public void hideBluetoothDisabledError() {
+    }
+
+    @Override
+    public void showLocationServicesDisabledError() {
+        errorCount++;
+    }
+
+    @Override
+    public void hideLocationServicesDisabledError() {
+    }
+
+    @Override
+    public void showSendingFailedError(@NonNull Throwable throwable) {
+        errorCount++;
+    }
+
+    @Override
+    public void hideSendingFailedError() {
+    }
+
+    @Override
+    public void showReceivingFailedError(@NonNull Throwable throwable) {
+        errorCount++;
+    }
+
+    @Override
+    public void hideReceivingFailedError() {
+    }
+
+    @Override
+    public void onViewStarted() {
+    }
+
+    @Override
+    public void onViewStopped() {
+    }
+
+    @NonNull
+    @Override
+    public Context getContext() {
+        return CONTEXT;
+    }
+
+    @NonNull
+    @Override
+    public Activity getActivity() {
+        throw new UnsupportedOperationException();
+    }
+
+    @NonNull
+    @Override
+    public DemoPresenter createPresenter() {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.sync.HybridLogicalClockMergeStrategy;
+import com.nexenio.sblecdemo.sync.LastWriterWinsRegisterMergeStrategy;
+import com.nexenio.sblecdemo.sync.MergeStrategy;
+import com.nexenio.sblecdemo.sync.WallClockMergeStrategy;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares {@link MergeStrategy}s on a lossy {@link SimulatedMesh} with skewed device clocks,
+ * asserting that all devices converge and which strategies lose changes on the way.
+ */
+public class MergeStrategySimulationTest {
+
+    private static final int DEVICE_COUNT = 50;
+    private static final int CHANGE_COUNT = 20;
+    private static final long MAXIMUM_CLOCK_SKEW_MILLIS = 5_000;
+    private static final long CONVERGENCE_TIMEOUT_MILLIS = 30_000;
+    private static final double MAXIMUM_MEAN_ROUND_COUNT = 10;
+
+    @Test
+    public void sequentialChanges_skewedClocks_hybridLogicalClockKeepsAllChanges() {
+        Result wallClockResult = runSequentialChanges(new WallClockMergeStrategy());
+        Result hybridLogicalClockResult = runSequentialChanges(new HybridLogicalClockMergeStrategy());
+        Result registerResult = runSequentialChanges(new LastWriterWinsRegisterMergeStrategy());
+
+        assertEquals(0, wallClockResult.notConvergedCount);
+        assertEquals(0, hybridLogicalClockResult.notConvergedCount);
+        assertEquals(0, registerResult.notConvergedCount);
+        assertEquals(0, hybridLogicalClockResult.lostChangeCount);
+        assertEquals(0, registerResult.lostChangeCount);
+        assertTrue(wallClockResult.lostChangeCount > 0);
+        assertTrue(hybridLogicalClockResult.getMeanRoundCount() <= wallClockResult.getMeanRoundCount());
+        assertTrue(hybridLogicalClockResult.getMeanMessageCount() <= wallClockResult.getMeanMessageCount());
+        assertTrue(registerResult.getMeanRoundCount() <= MAXIMUM_MEAN_ROUND_COUNT);
+    }
+
+    @Test
+    public void concurrentChanges_differentFields_registersKeepBothChanges() {
+        Result hybridLogicalClockResult = runConcurrentChanges(new HybridLogicalClockMergeStrategy());
+        Result registerResult = runConcurrentChanges(new LastWriterWinsRegisterMergeStrategy());
+
+        assertEquals(0, hybridLogicalClockResult.notConvergedCount);
+        assertEquals(0, registerResult.notConvergedCount);
+        assertEquals(0, registerResult.lostChangeCount);
+        assertTrue(hybridLogicalClockResult.lostChangeCount > 0);
+        assertTrue(registerResult.getMeanRoundCount() <= MAXIMUM_MEAN_ROUND_COUNT);
+    }
+
+    /**
+     * Lets random devices change the icon, one after another. A change is lost if the devices
+     * converge to a different state than the one that the changing device visualized.
+     */
+    private static Result runSequentialChanges(MergeStrategy mergeStrategy) {
+        DemoSimulation simulation = createSimulation(mergeStrategy);
+        Random random = new Random(42);
+        Result result = new Result();
+        try {
+            for (int i = 0; i < CHANGE_COUNT; i++) {
+                int presenterIndex = random.nextInt(DEVICE_COUNT);
+                simulation.getMesh().resetCounts();
+                simulation.changeIcon(presenterIndex);
+                DemoPayloadWrapper intendedDemoPayloadWrapper = simulation.getViews().get(presenterIndex).getLastVisualizedDemoPayloadWrapper();
+
+                long convergenceTime = simulation.advanceTimeUntilConverged(CONVERGENCE_TIMEOUT_MILLIS);
+                DemoPayloadWrapper convergedDemoPayloadWrapper = simulation.getViews().get(0).getLastVisualizedDemoPayloadWrapper();
+                result.add(simulation.getMesh(), convergenceTime, 1,
+                        convergedDemoPayloadWrapper.getIconIndex() == intendedDemoPayloadWrapper.getIconIndex() ? 0 : 1);
+            }
+        } finally {
+            simulation.stop();
+        }
+        return result;
+    }
+
+    /**
+     * Lets two random devices change the icon and the color at the same time. Changes are lost if
+     * the devices converge to a state that doesn't contain both of them.
+     */
+    private static Result runConcurrentChanges(MergeStrategy mergeStrategy) {
+        DemoSimulation simulation = createSimulation(mergeStrategy);
+        Random random = new Random(42);
+        Result result = new Result();
+        try {
+            for (int i = 0; i < CHANGE_COUNT; i++) {
+                int iconPresenterIndex = random.nextInt(DEVICE_COUNT);
+                int colorPresenterIndex = (iconPresenterIndex + 1 + random.nextInt(DEVICE_COUNT - 1)) % DEVICE_COUNT;
+                simulation.getMesh().resetCounts();
+                simulation.changeIcon(iconPresenterIndex);
+                simulation.changeColor(colorPresenterIndex);
+                int intendedIconIndex = simulation.getViews().get(iconPresenterIndex).getLastVisualizedDemoPayloadWrapper().getIconIndex();
+                int intendedColorIndex = simulation.getViews().get(colorPresenterIndex).getLastVisualizedDemoPayloadWrapper().getColorIndex();
+
+                long convergenceTime = simulation.advanceTimeUntilConverged(CONVERGENCE_TIMEOUT_MILLIS);
+                DemoPayloadWrapper convergedDemoPayloadWrapper = simulation.getViews().get(0).getLastVisualizedDemoPayloadWrapper();
+                int lostChangeCount = (convergedDemoPayloadWrapper.getIconIndex() == intendedIconIndex ? 0 : 1)
+                        + (convergedDemoPayloadWrapper.getColorIndex() == intendedColorIndex ? 0 : 1);
+                result.add(simulation.getMesh(), convergenceTime, 2, lostChangeCount);
+            }
+        } finally {
+            simulation.stop();
+        }
+        return result;
+    }
+
+    private static DemoSimulation createSimulation(MergeStrategy mergeStrategy) {
+        DemoSimulation simulation = new DemoSimulation(DEVICE_COUNT, 42, mergeStrategy, MAXIMUM_CLOCK_SKEW_MILLIS);
+        simulation.getMesh().setLossProbability(0.3);
+        simulation.getMesh().setLatency(5, 30);
+        simulation.start();
+
+        // establish a common state first
+        simulation.changeIcon(0);
+        simulation.advanceTimeUntilConverged(CONVERGENCE_TIMEOUT_MILLIS);
+        return simulation;
+    }
+
+    private static final class Result {
+
+        private int changeCount;
+        private int lostChangeCount;
+        private int notConvergedCount;
+        private long totalRoundCount;
+        private long totalMessageCount;
+
+        private void add(SimulatedMesh mesh, long convergenceTime, int changeCount, int lostChangeCount) {
+            this.changeCount += changeCount;
+            this.lostChangeCount += lostChangeCount;
+            if (convergenceTime < 0) {
+                notConvergedCount++;
+                return;
+            }
+            long advertisingIntervalMillis = mesh.getAdvertisingIntervalMillis();
+            totalRoundCount += (convergenceTime + advertisingIntervalMillis - 1) / advertisingIntervalMillis;
+            totalMessageCount += mesh.getTransmittedCount();
+        }
+
+        private double getMeanRoundCount() {
+            return (double) totalRoundCount / Math.max(1, CHANGE_COUNT - notConvergedCount);
+        }
+
+        private double getMeanMessageCount() {
+            return (double) totalMessageCount / Math.max(1, CHANGE_COUNT - notConvergedCount);
+        }
+
+    }
+
+}
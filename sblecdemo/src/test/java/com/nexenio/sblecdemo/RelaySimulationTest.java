@@ -0,0 +1,134 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.relay.RelayPolicy;
+import com.nexenio.sblecdemo.relay.RelayingPayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import androidx.annotation.Nullable;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares how many devices receive a text message and how many transmissions that takes, with
+ * and without relaying, on {@link SimulatedMesh}es of increasing size. The density stays the same,
+ * so larger networks span more hops.
+ */
+public class RelaySimulationTest {
+
+    private static final int[] DEVICE_COUNTS = {50, 100, 200, 400};
+
+    /**
+     * The range of every device, with one device per area unit on average each one has about 10
+     * devices in range.
+     */
+    private static final double RANGE = 1.8;
+
+    private static final long WARM_UP_DURATION_MILLIS = 30_000;
+    private static final long MESSAGE_DURATION_MILLIS = 15_000;
+
+    @Test
+    public void relayPolicy_growingNetwork_extendsCoverageWithoutFlooding() {
+        for (int deviceCount : DEVICE_COUNTS) {
+            Result directResult = run(deviceCount, null);
+            Result floodingResult = run(deviceCount, createFloodingRelayPolicy());
+            Result suppressedResult = run(deviceCount, createRelayPolicy());
+
+            assertTrue(suppressedResult.coverage > 2 * directResult.coverage);
+            assertTrue(suppressedResult.coverage > 0.8);
+            assertTrue(suppressedResult.suppressedCount > 0);
+            assertTrue(suppressedResult.relayedCount < floodingResult.relayedCount);
+            assertTrue(suppressedResult.transmittedCount < floodingResult.transmittedCount);
+        }
+    }
+
+    private static RelayPolicy createRelayPolicy() {
+        RelayPolicy relayPolicy = new RelayPolicy();
+        relayPolicy.setMaximumHopCount(16);
+        return relayPolicy;
+    }
+
+    private static RelayPolicy createFloodingRelayPolicy() {
+        RelayPolicy relayPolicy = createRelayPolicy();
+        relayPolicy.setSuppressionThreshold(0);
+        return relayPolicy;
+    }
+
+    private static Result run(int deviceCount, @Nullable RelayPolicy relayPolicy) {
+        // seeded, so that the relay delays and probabilities are the same in every run
+        Random relayingRandom = new Random(42);
+        DemoSimulation simulation = new DemoSimulation(deviceCount, 42, (payloadTransport, scheduler) -> {
+            DemoTransportStack.Builder builder = new DemoTransportStack.Builder(payloadTransport, scheduler);
+            if (relayPolicy != null) {
+                builder.enableRelaying(relayingRandom);
+            }
+            return builder.build();
+        });
+        SimulatedMesh mesh = simulation.getMesh();
+        mesh.setLossProbability(0.3);
+        mesh.setLatency(5, 30);
+        mesh.setRange(RANGE);
+
+        double side = Math.sqrt(deviceCount);
+        Random random = new Random(42);
+        List<SimulatedTransport> transports = mesh.getTransports();
+        int senderIndex = 0;
+        double senderDistance = Double.MAX_VALUE;
+        for (int i = 0; i < deviceCount; i++) {
+            double x = random.nextDouble() * side;
+            double y = random.nextDouble() * side;
+            transports.get(i).setPosition(x, y);
+            double distance = Math.hypot(x - side / 2, y - side / 2);
+            if (distance < senderDistance) {
+                senderIndex = i;
+                senderDistance = distance;
+            }
+            simulation.getPresenters().get(i).getTransportStack().setRelayPolicy(relayPolicy);
+        }
+
+        simulation.start();
+        Result result = new Result();
+        try {
+            simulation.advanceTimeBy(WARM_UP_DURATION_MILLIS);
+            mesh.resetCounts();
+            simulation.getPresenters().get(senderIndex).onTextMessageInvoked("Hello");
+            simulation.advanceTimeBy(MESSAGE_DURATION_MILLIS);
+
+            int receivedCount = 0;
+            List<FakeDemoView> views = simulation.getViews();
+            for (int i = 0; i < deviceCount; i++) {
+                if (i != senderIndex && !views.get(i).getShownTextMessages().isEmpty()) {
+                    receivedCount++;
+                }
+            }
+            result.coverage = (double) receivedCount / (deviceCount - 1);
+            result.transmittedCount = mesh.getTransmittedCount();
+            for (DemoPresenter<FakeDemoView> presenter : simulation.getPresenters()) {
+                RelayingPayloadTransport relayingPayloadTransport = presenter.getTransportStack().getRelayingPayloadTransport();
+                if (relayingPayloadTransport == null) {
+                    continue;
+                }
+                result.relayedCount += relayingPayloadTransport.getRelayedCount();
+                result.suppressedCount += relayingPayloadTransport.getSuppressedCount();
+            }
+        } finally {
+            simulation.stop();
+        }
+        return result;
+    }
+
+    private static final class Result {
+
+        private double coverage;
+        private long transmittedCount;
+        private long relayedCount;
+        private long suppressedCount;
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.nexenio.sblecdemo;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransportPayloadWrapperTest {
+
+    @Test
+    public void writeToBuffer_consumedBuffer_doesNotAffectPayloadData() {
+        ByteBuffer data = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        TransportPayloadWrapper wrapper = new TransportPayloadWrapper(new TransportPayload(11, 42, data));
+
+        ByteBuffer writtenData = wrapper.writeToBuffer().blockingGet();
+        writtenData.get(new byte[3]);
+
+        assertTrue(writtenData.isReadOnly());
+        assertEquals(0, data.position());
+        assertEquals(3, wrapper.writeToBuffer().blockingGet().remaining());
+    }
+
+    @Test
+    public void readFromBuffer_newData_replacesData() {
+        TransportPayloadWrapper wrapper = new TransportPayloadWrapper(new TransportPayload(11, 42, ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+        wrapper.readFromBuffer(ByteBuffer.wrap(new byte[]{4, 5})).blockingAwait();
+
+        assertEquals(ByteBuffer.wrap(new byte[]{4, 5}), wrapper.writeToBuffer().blockingGet());
+        assertEquals(11, wrapper.getId());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.nexenio.sblecdemo.ambient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+public class AmbientModeTest {
+
+    private TestScheduler scheduler;
+
+    private AmbientPolicy policy;
+
+    private AmbientMode ambientMode;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        policy = new AmbientPolicy();
+        ambientMode = new AmbientMode(policy, scheduler);
+    }
+
+    @Test
+    public void dutyCycle_ambientForOneHour_receivesDuringWindowsOnly() {
+        AtomicInteger subscriptionCount = new AtomicInteger();
+        Observable<Long> upstream = Observable.interval(100, TimeUnit.MILLISECONDS, scheduler)
+                .doOnSubscribe(disposable -> subscriptionCount.incrementAndGet());
+
+        ambientMode.enter();
+        Disposable disposable = ambientMode.dutyCycle(upstream).subscribe();
+        // stop right before the window of the next hour starts
+        scheduler.advanceTimeBy(TimeUnit.HOURS.toMillis(1) - 1, TimeUnit.MILLISECONDS);
+        disposable.dispose();
+
+        long intervalCount = TimeUnit.HOURS.toMillis(1) / policy.getReceiveIntervalMillis();
+        assertEquals(intervalCount, subscriptionCount.get());
+        assertEquals(intervalCount * policy.getReceiveWindowMillis(), ambientMode.getReceiveMillis());
+        double expectedSavedMillisPerHour = TimeUnit.HOURS.toMillis(1) * (1 - policy.getReceiveDutyCycle());
+        assertEquals(expectedSavedMillisPerHour, ambientMode.getSavedReceiveMillisPerHour(), 10);
+    }
+
+    @Test
+    public void getRedrawDelayMillis_ambient_throttlesRedraws() {
+        assertEquals(0, ambientMode.getRedrawDelayMillis());
+
+        ambientMode.enter();
+        assertEquals(policy.getMinimumRedrawIntervalMillis(), ambientMode.getRedrawDelayMillis());
+
+        scheduler.advanceTimeBy(policy.getMinimumRedrawIntervalMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(0, ambientMode.getRedrawDelayMillis());
+        ambientMode.onRedrawn();
+        assertEquals(policy.getMinimumRedrawIntervalMillis(), ambientMode.getRedrawDelayMillis());
+
+        ambientMode.exit();
+        assertEquals(0, ambientMode.getRedrawDelayMillis());
+    }
+
+}
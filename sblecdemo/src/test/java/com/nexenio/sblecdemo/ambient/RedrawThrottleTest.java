@@ -0,0 +1,82 @@
+package com.nexenio.sblecdemo.ambient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedrawThrottleTest {
+
+    private TestScheduler scheduler;
+
+    private AmbientPolicy policy;
+
+    private AmbientMode ambientMode;
+
+    private List<Integer> renderedValues;
+
+    private RedrawThrottle<Integer> redrawThrottle;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        policy = new AmbientPolicy();
+        ambientMode = new AmbientMode(policy, scheduler);
+        renderedValues = new ArrayList<>();
+        redrawThrottle = new RedrawThrottle<>(ambientMode, renderedValues::add, scheduler);
+    }
+
+    @Test
+    public void render_notAmbient_rendersEveryValue() {
+        redrawThrottle.render(1);
+        redrawThrottle.render(2);
+
+        assertEquals(Arrays.asList(1, 2), renderedValues);
+    }
+
+    @Test
+    public void render_ambient_rendersLatestValueOnceAllowed() {
+        ambientMode.enter();
+
+        redrawThrottle.render(1);
+        redrawThrottle.render(2);
+        assertEquals(Collections.emptyList(), renderedValues);
+
+        scheduler.advanceTimeBy(policy.getMinimumRedrawIntervalMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList(2), renderedValues);
+        assertEquals(1, ambientMode.getSkippedRedrawCount());
+    }
+
+    @Test
+    public void flush_ambient_rendersPendingValueRightAway() {
+        ambientMode.enter();
+        redrawThrottle.render(1);
+
+        redrawThrottle.flush();
+        scheduler.advanceTimeBy(policy.getMinimumRedrawIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        assertEquals(Collections.singletonList(1), renderedValues);
+    }
+
+    @Test
+    public void cancel_ambient_rendersPendingValueWithNextRender() {
+        ambientMode.enter();
+        redrawThrottle.render(1);
+
+        redrawThrottle.cancel();
+        scheduler.advanceTimeBy(policy.getMinimumRedrawIntervalMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(Collections.emptyList(), renderedValues);
+
+        redrawThrottle.render(2);
+        assertEquals(Collections.singletonList(2), renderedValues);
+    }
+
+}
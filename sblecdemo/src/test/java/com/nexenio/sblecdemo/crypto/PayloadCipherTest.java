@@ -0,0 +1,166 @@
+package com.nexenio.sblecdemo.crypto;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.persistence.SnapshotStore;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadCipherTest {
+
+    private static final byte[] GROUP_KEY = createKey(1);
+
+    private final PayloadCipher payloadCipher = new PayloadCipher(GROUP_KEY);
+
+    @Test
+    public void open_sealedPayload_returnsOriginalPayload() {
+        for (int length = 0; length <= PayloadCipher.MAXIMUM_DATA_LENGTH; length++) {
+            TransportPayload transportPayload = createPayload(length);
+            TransportPayload sealedPayload = payloadCipher.seal(transportPayload);
+            assertEquals(length + PayloadCipher.OVERHEAD_LENGTH, sealedPayload.getData().limit());
+
+            TransportPayload openedPayload = new PayloadCipher(GROUP_KEY).open(readOnly(sealedPayload));
+
+            assertNotNull(openedPayload);
+            assertEquals(transportPayload.getId(), openedPayload.getId());
+            assertEquals(transportPayload.getDeviceIdHashCode(), openedPayload.getDeviceIdHashCode());
+            assertEquals(transportPayload.getData(), openedPayload.getData());
+        }
+    }
+
+    @Test
+    public void seal_samePayload_usesDifferentNonces() {
+        TransportPayload transportPayload = createPayload(7);
+
+        assertNotEquals(payloadCipher.seal(transportPayload).getData(), payloadCipher.seal(transportPayload).getData());
+    }
+
+    @Test
+    public void seal_restartedWithNonceStore_continuesAfterReservedNonces() throws Exception {
+        SnapshotStore nonceStore = new SnapshotStore() {
+
+            private byte[] snapshot;
+
+            @Nullable
+            @Override
+            public byte[] read() {
+                return snapshot;
+            }
+
+            @Override
+            public void write(@NonNull byte[] snapshot) {
+                this.snapshot = snapshot;
+            }
+        };
+        Set<Integer> sealedPayloadIds = Collections.singleton(DemoPayloadWrapper.ID);
+        TransportPayload transportPayload = createPayload(7);
+
+        PayloadCipher firstPayloadCipher = new PayloadCipher(GROUP_KEY, sealedPayloadIds, nonceStore);
+        Set<Integer> nonces = new HashSet<>();
+        int firstNonce = getNonce(firstPayloadCipher.seal(transportPayload));
+        nonces.add(firstNonce);
+        for (int i = 1; i < PayloadCipher.NONCE_RESERVATION_LENGTH + 10; i++) {
+            assertTrue(nonces.add(getNonce(firstPayloadCipher.seal(transportPayload))));
+        }
+
+        PayloadCipher restartedPayloadCipher = new PayloadCipher(GROUP_KEY, sealedPayloadIds, nonceStore);
+        int restartedNonce = getNonce(restartedPayloadCipher.seal(transportPayload));
+        assertEquals(firstNonce + 2 * PayloadCipher.NONCE_RESERVATION_LENGTH, restartedNonce);
+        assertFalse(nonces.contains(restartedNonce));
+    }
+
+    @Test
+    public void open_modifiedPayload_returnsNull() {
+        TransportPayload sealedPayload = payloadCipher.seal(createPayload(7));
+        int sealedLength = sealedPayload.getData().limit();
+        for (int index = 0; index < sealedLength; index++) {
+            ByteBuffer data = copy(sealedPayload.getData());
+            data.put(index, (byte) (data.get(index) ^ 1));
+            assertNull(payloadCipher.open(new TransportPayload(sealedPayload.getId(), sealedPayload.getDeviceIdHashCode(), data)));
+        }
+
+        ByteBuffer truncatedData = copy(sealedPayload.getData());
+        truncatedData.limit(sealedLength - 1);
+        assertNull(payloadCipher.open(new TransportPayload(sealedPayload.getId(), sealedPayload.getDeviceIdHashCode(), truncatedData)));
+    }
+
+    @Test
+    public void open_differentSender_returnsNull() {
+        TransportPayload sealedPayload = payloadCipher.seal(createPayload(7));
+
+        assertNull(payloadCipher.open(new TransportPayload(sealedPayload.getId(), 43, sealedPayload.getData())));
+        assertNull(payloadCipher.open(new TransportPayload(12, sealedPayload.getDeviceIdHashCode(), sealedPayload.getData())));
+    }
+
+    @Test
+    public void open_differentKey_returnsNull() {
+        TransportPayload sealedPayload = new PayloadCipher(createKey(2)).seal(createPayload(7));
+
+        assertFalse(payloadCipher.verify(sealedPayload));
+        assertNull(payloadCipher.open(sealedPayload));
+    }
+
+    @Test
+    public void open_unsealedPayload_returnsNull() {
+        assertNull(payloadCipher.open(createPayload(7)));
+        assertNull(payloadCipher.open(createPayload(15)));
+    }
+
+    @Test
+    public void isSealed_defaultIds_onlyIncludesDemoPayloads() {
+        assertTrue(payloadCipher.isSealed(DemoPayloadWrapper.ID));
+        assertFalse(payloadCipher.isSealed(12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seal_tooLongPayload_throwsException() {
+        payloadCipher.seal(createPayload(PayloadCipher.MAXIMUM_DATA_LENGTH + 1));
+    }
+
+    private static TransportPayload createPayload(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return new TransportPayload(DemoPayloadWrapper.ID, 42, ByteBuffer.wrap(data));
+    }
+
+    private static int getNonce(TransportPayload sealedPayload) {
+        return sealedPayload.getData().getInt(0);
+    }
+
+    private static TransportPayload readOnly(TransportPayload transportPayload) {
+        return new TransportPayload(transportPayload.getId(), transportPayload.getDeviceIdHashCode(), transportPayload.getData().asReadOnlyBuffer());
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.limit()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(i);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] createKey(int seed) {
+        byte[] key = new byte[PayloadCipher.MINIMUM_GROUP_KEY_LENGTH];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+
+}
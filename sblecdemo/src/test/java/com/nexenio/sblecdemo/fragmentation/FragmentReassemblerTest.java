@@ -0,0 +1,238 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FragmentReassemblerTest {
+
+    private static final int DEVICE_ID_HASH_CODE = 42;
+    private static final int PAYLOAD_ID = 12;
+
+    private TestScheduler scheduler;
+
+    private FragmentReassembler fragmentReassembler;
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        fragmentReassembler = new FragmentReassembler(2, 1, TimeUnit.SECONDS, scheduler);
+        random = new Random(0);
+    }
+
+    @Test
+    public void encode_lastFragment_containsRemainingBytes() {
+        byte[] message = createMessage(50);
+        ByteBuffer fragment = FragmentCodec.encode(PAYLOAD_ID, 7, 2, ByteBuffer.wrap(message));
+
+        assertTrue(FragmentCodec.isValid(fragment));
+        assertEquals(PAYLOAD_ID, FragmentCodec.getPayloadId(fragment));
+        assertEquals(7, FragmentCodec.getMessageId(fragment));
+        assertEquals(2, FragmentCodec.getFragmentIndex(fragment));
+        assertEquals(3, FragmentCodec.getFragmentCount(fragment));
+        assertEquals(50 - 2 * FragmentCodec.FRAGMENT_DATA_LENGTH, FragmentCodec.getDataLength(fragment));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_messageTooLong_throwsException() {
+        FragmentCodec.encode(PAYLOAD_ID, 0, 0, ByteBuffer.allocate(FragmentCodec.MAXIMUM_MESSAGE_LENGTH + 1));
+    }
+
+    @Test
+    public void onFragmentReceived_outOfOrder_reassemblesMessage() {
+        byte[] message = createMessage(1000);
+        List<TransportPayload> fragments = createFragments(1, message);
+        Collections.shuffle(fragments, random);
+
+        TransportPayload reassembledPayload = null;
+        for (int i = 0; i < fragments.size(); i++) {
+            reassembledPayload = fragmentReassembler.onFragmentReceived(fragments.get(i));
+            assertEquals(i == fragments.size() - 1, reassembledPayload != null);
+        }
+
+        assertNotNull(reassembledPayload);
+        assertEquals(PAYLOAD_ID, reassembledPayload.getId());
+        assertEquals(DEVICE_ID_HASH_CODE, reassembledPayload.getDeviceIdHashCode());
+        assertArrayEquals(message, toArray(reassembledPayload.getData()));
+        assertEquals(1, fragmentReassembler.getCompletedCount());
+    }
+
+    @Test
+    public void onFragmentReceived_lossAndRepeats_reassemblesMessageOnce() {
+        byte[] message = createMessage(500);
+        List<TransportPayload> fragments = createFragments(1, message);
+
+        List<TransportPayload> reassembledPayloads = new ArrayList<>();
+        for (int cycle = 0; cycle < 20; cycle++) {
+            for (TransportPayload fragment : fragments) {
+                if (random.nextDouble() < 0.5) {
+                    continue;
+                }
+                TransportPayload reassembledPayload = fragmentReassembler.onFragmentReceived(fragment);
+                if (reassembledPayload != null) {
+                    reassembledPayloads.add(reassembledPayload);
+                }
+            }
+            scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(1, reassembledPayloads.size());
+        assertArrayEquals(message, toArray(reassembledPayloads.get(0).getData()));
+        assertTrue(fragmentReassembler.getDuplicateFragmentCount() > 0);
+    }
+
+    @Test
+    public void onFragmentReceived_noFragmentWithinTimeout_dropsPartialMessage() {
+        List<TransportPayload> fragments = createFragments(1, createMessage(100));
+        fragmentReassembler.onFragmentReceived(fragments.get(0));
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(1, fragmentReassembler.evictExpiredMessages());
+
+        for (int i = 1; i < fragments.size(); i++) {
+            assertNull(fragmentReassembler.onFragmentReceived(fragments.get(i)));
+        }
+        assertEquals(1, fragmentReassembler.getTimedOutCount());
+        assertEquals(0, fragmentReassembler.getCompletedCount());
+    }
+
+    @Test
+    public void onFragmentReceived_tooManyMessages_dropsLeastRecentlyUpdated() {
+        List<TransportPayload> firstFragments = createFragments(1, createMessage(100));
+        List<TransportPayload> secondFragments = createFragments(2, createMessage(100));
+        List<TransportPayload> thirdFragments = createFragments(3, createMessage(100));
+
+        fragmentReassembler.onFragmentReceived(firstFragments.get(0));
+        fragmentReassembler.onFragmentReceived(secondFragments.get(0));
+        fragmentReassembler.onFragmentReceived(firstFragments.get(1));
+        fragmentReassembler.onFragmentReceived(thirdFragments.get(0));
+
+        assertEquals(2, fragmentReassembler.getPartialMessageCount());
+        assertEquals(1, fragmentReassembler.getDroppedCount());
+    }
+
+    @Test
+    public void onFragmentReceived_multipleMessages_reusesBuffers() {
+        for (int messageId = 0; messageId < 10; messageId++) {
+            for (TransportPayload fragment : createFragments(messageId, createMessage(100))) {
+                fragmentReassembler.onFragmentReceived(fragment);
+            }
+        }
+
+        assertEquals(10, fragmentReassembler.getCompletedCount());
+        assertEquals(1, fragmentReassembler.getBufferPool().getAllocatedCount());
+        assertEquals(9, fragmentReassembler.getBufferPool().getReusedCount());
+    }
+
+    @Test
+    public void onFragmentReceived_invalidFragment_isIgnored() {
+        TransportPayload fragment = new TransportPayload(FragmentCodec.PAYLOAD_ID, DEVICE_ID_HASH_CODE, ByteBuffer.wrap(new byte[]{PAYLOAD_ID, 0, 0, 3, 2}));
+
+        assertNull(fragmentReassembler.onFragmentReceived(fragment));
+        assertEquals(1, fragmentReassembler.getInvalidFragmentCount());
+        assertFalse(FragmentCodec.isValid(fragment.getData()));
+    }
+
+    @Test
+    public void galoisField_inverse_multipliesToOne() {
+        for (int value = 1; value < 256; value++) {
+            assertEquals(1, GaloisField.multiply(value, GaloisField.inverse(value)));
+        }
+    }
+
+    @Test
+    public void onFragmentReceived_codedFragmentsWithLoss_decodesMessageFromAnySubset() {
+        for (int messageLength : new int[]{0, 19, 20, 1000, FountainCodec.MAXIMUM_MESSAGE_LENGTH}) {
+            byte[] message = createMessage(messageLength);
+            int sourceSymbolCount = FountainCodec.getSourceSymbolCount(messageLength);
+
+            TransportPayload reassembledPayload = null;
+            int receivedCount = 0;
+            for (int fragmentIndex = 0; reassembledPayload == null; fragmentIndex++) {
+                if (random.nextDouble() < 0.5) {
+                    continue;
+                }
+                receivedCount++;
+                reassembledPayload = fragmentReassembler.onFragmentReceived(createCodedFragment(messageLength, fragmentIndex, message));
+            }
+
+            assertArrayEquals(message, toArray(reassembledPayload.getData()));
+            assertEquals(PAYLOAD_ID, reassembledPayload.getId());
+            // linearly dependent repair symbols are possible, but rare
+            assertTrue(receivedCount <= sourceSymbolCount + 2);
+        }
+    }
+
+    @Test
+    public void onFragmentReceived_repeatedCodedFragment_isRedundant() {
+        byte[] message = createMessage(100);
+        TransportPayload fragment = createCodedFragment(1, 10, message);
+
+        assertNull(fragmentReassembler.onFragmentReceived(fragment));
+        assertNull(fragmentReassembler.onFragmentReceived(fragment));
+
+        assertEquals(1, fragmentReassembler.getDuplicateFragmentCount());
+    }
+
+    @Test
+    public void apply_fragments_emitsReassembledPayloads() {
+        PublishSubject<TransportPayload> fragments = PublishSubject.create();
+        TestObserver<TransportPayload> observer = fragments.compose(fragmentReassembler).test();
+
+        for (TransportPayload fragment : createFragments(1, createMessage(30))) {
+            fragments.onNext(fragment);
+        }
+
+        observer.assertValueCount(1);
+    }
+
+    private byte[] createMessage(int length) {
+        byte[] message = new byte[length];
+        random.nextBytes(message);
+        return message;
+    }
+
+    private static List<TransportPayload> createFragments(int messageId, byte[] message) {
+        List<TransportPayload> fragments = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        int fragmentCount = FragmentCodec.getFragmentCount(message.length);
+        for (int fragmentIndex = 0; fragmentIndex < fragmentCount; fragmentIndex++) {
+            ByteBuffer data = FragmentCodec.encode(PAYLOAD_ID, messageId, fragmentIndex, buffer).asReadOnlyBuffer();
+            fragments.add(new TransportPayload(FragmentCodec.PAYLOAD_ID, DEVICE_ID_HASH_CODE, data));
+        }
+        return fragments;
+    }
+
+    private static TransportPayload createCodedFragment(int messageId, int fragmentIndex, byte[] message) {
+        ByteBuffer data = FountainCodec.encode(PAYLOAD_ID, messageId, fragmentIndex, ByteBuffer.wrap(message)).asReadOnlyBuffer();
+        return new TransportPayload(FountainCodec.PAYLOAD_ID, DEVICE_ID_HASH_CODE, data);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.nexenio.sblecdemo.fragmentation;
+
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends fragmented messages through a lossy {@link SimulatedMesh} and measures how long it takes
+ * until all receivers reassembled them, with and without forward error correction.
+ */
+public class FragmentTransferSimulationTest {
+
+    private static final int RECEIVER_COUNT = 20;
+    private static final long STEP_MILLIS = 10;
+    private static final long TIMEOUT_MILLIS = 300_000;
+    private static final double[] LOSS_PROBABILITIES = {0, 0.1, 0.3, 0.5};
+
+    private TestScheduler scheduler;
+
+    private SimulatedMesh mesh;
+
+    private CompositeDisposable compositeDisposable;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        compositeDisposable = new CompositeDisposable();
+    }
+
+    @After
+    public void tearDown() {
+        compositeDisposable.dispose();
+    }
+
+    @Test
+    public void send_smallMessageWithoutLoss_reassembledByAllReceivers() {
+        measureTransfer(1024, 0, false);
+    }
+
+    @Test
+    public void send_smallMessageWithLoss_reassembledByAllReceivers() {
+        measureTransfer(1024, 0.3, false);
+    }
+
+    @Test
+    public void send_largeMessageWithLoss_reassembledByAllReceivers() {
+        measureTransfer(4096, 0.3, false);
+    }
+
+    @Test
+    public void send_forwardErrorCorrection_fasterThanRepetition() {
+        for (double lossProbability : LOSS_PROBABILITIES) {
+            long repetitionTime = measureTransfer(1024, lossProbability, false);
+            long forwardErrorCorrectionTime = measureTransfer(1024, lossProbability, true);
+            if (lossProbability > 0) {
+                assertTrue(forwardErrorCorrectionTime < repetitionTime);
+            } else {
+                // repair fragments carry less data, which should only cost a few cycles
+                assertTrue(forwardErrorCorrectionTime <= repetitionTime * 1.2);
+            }
+        }
+    }
+
+    @Test
+    public void send_largeMessageWithForwardErrorCorrection_reassembledByAllReceivers() {
+        measureTransfer(4096, 0.3, true);
+    }
+
+    /**
+     * @return the time until all receivers reassembled the message
+     */
+    private long measureTransfer(int messageLength, double lossProbability, boolean forwardErrorCorrectionEnabled) {
+        mesh = new SimulatedMesh(scheduler, 42);
+        mesh.setLatency(5, 30);
+        mesh.setLossProbability(lossProbability);
+        SimulatedTransport senderTransport = mesh.createTransport();
+        List<TestObserver<TransportPayload>> observers = new ArrayList<>();
+        for (int i = 0; i < RECEIVER_COUNT; i++) {
+            TestObserver<TransportPayload> observer = mesh.createTransport().receive()
+                    .filter(transportPayload -> transportPayload.getId() == FragmentCodec.PAYLOAD_ID
+                            || transportPayload.getId() == FountainCodec.PAYLOAD_ID)
+                    .compose(new FragmentReassembler(scheduler))
+                    .test();
+            observers.add(observer);
+            compositeDisposable.add(observer);
+        }
+
+        byte[] message = new byte[messageLength];
+        new Random(0).nextBytes(message);
+        FragmentSender fragmentSender = new FragmentSender(senderTransport, scheduler);
+        fragmentSender.setForwardErrorCorrectionEnabled(forwardErrorCorrectionEnabled);
+        Disposable sendDisposable = fragmentSender.send(12, ByteBuffer.wrap(message)).subscribe();
+        compositeDisposable.add(sendDisposable);
+        long startTime = scheduler.now(TimeUnit.MILLISECONDS);
+
+        long completionTime = -1;
+        while (scheduler.now(TimeUnit.MILLISECONDS) - startTime < TIMEOUT_MILLIS) {
+            scheduler.advanceTimeBy(STEP_MILLIS, TimeUnit.MILLISECONDS);
+            if (isReassembledByAll(observers)) {
+                completionTime = scheduler.now(TimeUnit.MILLISECONDS) - startTime;
+                break;
+            }
+        }
+
+        sendDisposable.dispose();
+
+        assertTrue("Not reassembled", completionTime >= 0);
+        for (TestObserver<TransportPayload> observer : observers) {
+            observer.assertValueCount(1);
+            ByteBuffer data = observer.values().get(0).getData();
+            byte[] reassembledMessage = new byte[data.remaining()];
+            data.get(reassembledMessage);
+            assertArrayEquals(message, reassembledMessage);
+        }
+        return completionTime;
+    }
+
+    private static boolean isReassembledByAll(List<TestObserver<TransportPayload>> observers) {
+        for (TestObserver<TransportPayload> observer : observers) {
+            if (observer.valueCount() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
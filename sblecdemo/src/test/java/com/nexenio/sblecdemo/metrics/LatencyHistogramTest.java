@@ -0,0 +1,81 @@
+package com.nexenio.sblecdemo.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void getBucketIndex_smallValues_areExact() {
+        for (int value = 0; value < 2 * LatencyHistogram.SUB_BUCKET_COUNT; value++) {
+            int bucketIndex = LatencyHistogram.getBucketIndex(value);
+            assertEquals(value, LatencyHistogram.getBucketUpperBound(bucketIndex));
+        }
+    }
+
+    @Test
+    public void getBucketIndex_largeValues_withinRelativeError() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucketIndex = LatencyHistogram.getBucketIndex(value);
+            long upperBound = LatencyHistogram.getBucketUpperBound(bucketIndex);
+            assertTrue(bucketIndex < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(upperBound >= value);
+            assertTrue(upperBound - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+            // the bucket starts right after the previous one ends
+            assertTrue(bucketIndex == 0 || LatencyHistogram.getBucketUpperBound(bucketIndex - 1) < value);
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile_uniformValues_matchesSortedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMaximum());
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9, 100}) {
+            long expected = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long actual = snapshot.getValueAtPercentile(percentile);
+            assertEquals(expected, actual, expected / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+    }
+
+    @Test
+    public void record_concurrently_countsAllValues() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threadCount = 4;
+        int valueCount = 100_000;
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(() -> {
+                for (int value = 0; value < valueCount; value++) {
+                    histogram.record(value % 100);
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(threadCount * valueCount, snapshot.getCount());
+        assertEquals(49.5, snapshot.getMean(), 0.001);
+        assertEquals(99, snapshot.getMaximum());
+        assertEquals(49, snapshot.getValueAtPercentile(50));
+    }
+
+}
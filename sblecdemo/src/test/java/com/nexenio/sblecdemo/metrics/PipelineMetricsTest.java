@@ -0,0 +1,83 @@
+package com.nexenio.sblecdemo.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PipelineMetricsTest {
+
+    private TestScheduler scheduler;
+
+    private PipelineMetrics pipelineMetrics;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        scheduler.advanceTimeTo(10_000, TimeUnit.MILLISECONDS);
+        pipelineMetrics = new PipelineMetrics(scheduler);
+    }
+
+    @Test
+    public void getSnapshot_receivedPayloads_calculatesRateAndDropRatio() {
+        for (int i = 0; i < 100; i++) {
+            pipelineMetrics.onPayloadReceived();
+        }
+        for (int i = 0; i < 25; i++) {
+            pipelineMetrics.onPayloadDecoded(1000);
+        }
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        PipelineMetricsSnapshot snapshot = pipelineMetrics.getSnapshot();
+        assertEquals(2000, snapshot.getDurationMillis());
+        assertEquals(50, snapshot.getReceivedPerSecond(), 0.001);
+        assertEquals(0.75, snapshot.getFilterDropRatio(), 0.001);
+        assertEquals(25, snapshot.getDecodeLatencyNanos().getCount());
+        assertEquals(1000, snapshot.getDecodeLatencyNanos().getValueAtPercentile(50), 1000 / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+
+    @Test
+    public void onPayloadVisualized_payloadTimestamp_recordsEndToEndLatency() {
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        pipelineMetrics.onPayloadVisualized(now - 40);
+        pipelineMetrics.onPayloadVisualized(now - 60);
+
+        PipelineMetricsSnapshot snapshot = pipelineMetrics.getSnapshot();
+        assertEquals(2, snapshot.getVisualizedCount());
+        assertEquals(50, snapshot.getEndToEndLatencyMillis().getMean(), 0.001);
+        assertEquals(60, snapshot.getEndToEndLatencyMillis().getMaximum());
+    }
+
+    @Test
+    public void onSendError_differentErrors_countsByType() {
+        pipelineMetrics.onSendError(new IOException());
+        pipelineMetrics.onSendError(new IOException());
+        pipelineMetrics.onSendError(new IllegalStateException());
+
+        PipelineMetricsSnapshot snapshot = pipelineMetrics.getSnapshot();
+        assertEquals(2, (long) snapshot.getSendErrorCounts().get("IOException"));
+        assertEquals(1, (long) snapshot.getSendErrorCounts().get("IllegalStateException"));
+    }
+
+    @Test
+    public void reset_recordedValues_clearsValues() {
+        pipelineMetrics.onPayloadReceived();
+        pipelineMetrics.onPayloadSent();
+        pipelineMetrics.onSendError(new IOException());
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        pipelineMetrics.reset();
+
+        PipelineMetricsSnapshot snapshot = pipelineMetrics.getSnapshot();
+        assertEquals(0, snapshot.getDurationMillis());
+        assertEquals(0, snapshot.getReceivedCount());
+        assertEquals(0, snapshot.getSentCount());
+        assertTrue(snapshot.getSendErrorCounts().isEmpty());
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.nexenio.sblecdemo.payload;
+
+import com.nexenio.sblec.receiver.ReceiverPayload;
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.sync.HybridLogicalClockMergeStrategy;
+import com.nexenio.sblecdemo.transport.AdvertisingAirTime;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DemoPayloadCodecTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * Upper bound for the bytes allocated by the measurement itself.
+     */
+    private static final long MEASUREMENT_OVERHEAD = 1024;
+
+    private static final long TIMESTAMP = 1556617029000L;
+
+    private ByteBuffer byteBuffer;
+
+    @Before
+    public void setUp() {
+        byteBuffer = ByteBuffer.allocate(DemoPayloadCodec.LEGACY_BUFFER_LENGTH);
+        byteBuffer.putInt(42);
+        byteBuffer.putInt(23);
+        byteBuffer.putLong(1337L);
+    }
+
+    @Test
+    public void read_validBuffer_returnsEncodedValues() {
+        assertTrue(DemoPayloadCodec.isValid(byteBuffer));
+        assertEquals(42, DemoPayloadCodec.readIconIndex(byteBuffer));
+        assertEquals(23, DemoPayloadCodec.readColorIndex(byteBuffer));
+        assertEquals(1337L, DemoPayloadCodec.readTimestamp(byteBuffer));
+    }
+
+    @Test
+    public void isValid_unexpectedLength_returnsFalse() {
+        assertFalse(DemoPayloadCodec.isValid(ByteBuffer.allocate(DemoPayloadCodec.LEGACY_BUFFER_LENGTH - 1)));
+        assertFalse(DemoPayloadCodec.isValid(ByteBuffer.allocate(DemoPayloadCodec.LEGACY_BUFFER_LENGTH + 1)));
+    }
+
+    @Test
+    public void decode_reusedWrapper_updatesFields() {
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(0, 0);
+        demoPayloadWrapper.decode(byteBuffer);
+
+        assertEquals(42, demoPayloadWrapper.getIconIndex());
+        assertEquals(23, demoPayloadWrapper.getColorIndex());
+        assertEquals(1337L, demoPayloadWrapper.getTimestamp());
+    }
+
+    @Test
+    public void encode_compactFormat_restoresValues() {
+        ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 42, 23, TIMESTAMP);
+
+        assertEquals(DemoPayloadCodec.FORMAT_COMPACT, DemoPayloadCodec.getFormat(compactBuffer));
+        assertEquals(42, DemoPayloadCodec.readIconIndex(compactBuffer));
+        assertEquals(23, DemoPayloadCodec.readColorIndex(compactBuffer));
+        assertEquals(TIMESTAMP, DemoPayloadCodec.readTimestamp(compactBuffer, TIMESTAMP + 5000));
+        assertEquals(TIMESTAMP, DemoPayloadCodec.readTimestamp(compactBuffer, TIMESTAMP - 5000));
+    }
+
+    @Test
+    public void encode_compactFormat_usesSevenBytesForSmallIndices() {
+        assertEquals(7, DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 99, 99, TIMESTAMP).limit());
+        assertEquals(7, DemoPayloadCodec.getEncodedLength(DemoPayloadCodec.FORMAT_COMPACT, 0, 127));
+        assertEquals(8, DemoPayloadCodec.getEncodedLength(DemoPayloadCodec.FORMAT_COMPACT, 0, 128));
+    }
+
+    @Test
+    public void encode_compactFormat_supportsAllIndices() {
+        int[] indices = {0, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int index : indices) {
+            ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, index, index, TIMESTAMP);
+            assertTrue(compactBuffer.limit() <= DemoPayloadCodec.MAXIMUM_COMPACT_BUFFER_LENGTH);
+            assertEquals(index, DemoPayloadCodec.readIconIndex(compactBuffer));
+            assertEquals(index, DemoPayloadCodec.readColorIndex(compactBuffer));
+        }
+    }
+
+    @Test
+    public void restoreTimestamp_acrossWraparound_returnsClosestTimestamp() {
+        long wraparoundTimestamp = 0x1_0000_0000L * 363;
+        for (long offset = -3; offset <= 3; offset++) {
+            long timestamp = wraparoundTimestamp + offset;
+            assertEquals(timestamp, DemoPayloadCodec.restoreTimestamp((int) timestamp, wraparoundTimestamp - 10));
+            assertEquals(timestamp, DemoPayloadCodec.restoreTimestamp((int) timestamp, wraparoundTimestamp + 10));
+        }
+    }
+
+    @Test
+    public void getFormat_legacyBuffer_returnsLegacyFormat() {
+        assertEquals(DemoPayloadCodec.FORMAT_LEGACY, DemoPayloadCodec.getFormat(byteBuffer));
+
+        ByteBuffer legacyBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_LEGACY, 42, 23, TIMESTAMP);
+        assertEquals(DemoPayloadCodec.LEGACY_BUFFER_LENGTH, legacyBuffer.limit());
+        assertEquals(TIMESTAMP, DemoPayloadCodec.readTimestamp(legacyBuffer, 0));
+    }
+
+    @Test
+    public void getFormat_invalidCompactBuffer_returnsUnknownFormat() {
+        ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 42, 23, TIMESTAMP);
+
+        ByteBuffer truncatedBuffer = ByteBuffer.allocate(compactBuffer.limit() - 1);
+        truncatedBuffer.put(compactBuffer.array(), 0, truncatedBuffer.limit());
+        assertEquals(DemoPayloadCodec.FORMAT_UNKNOWN, DemoPayloadCodec.getFormat(truncatedBuffer));
+
+        compactBuffer.put(0, (byte) (DemoPayloadCodec.COMPACT_VERSION + 1));
+        assertEquals(DemoPayloadCodec.FORMAT_UNKNOWN, DemoPayloadCodec.getFormat(compactBuffer));
+    }
+
+    @Test
+    public void readFromBuffer_bothFormats_detectsFormat() {
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(0, 0);
+
+        demoPayloadWrapper.readFromBuffer(byteBuffer).blockingAwait();
+        assertEquals(DemoPayloadCodec.FORMAT_LEGACY, demoPayloadWrapper.getFormat());
+        assertEquals(42, demoPayloadWrapper.getIconIndex());
+
+        long now = System.currentTimeMillis();
+        ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 7, 8, now);
+        demoPayloadWrapper.readFromBuffer(compactBuffer).blockingAwait();
+        assertEquals(DemoPayloadCodec.FORMAT_COMPACT, demoPayloadWrapper.getFormat());
+        assertEquals(7, demoPayloadWrapper.getIconIndex());
+        assertEquals(8, demoPayloadWrapper.getColorIndex());
+        assertEquals(now, demoPayloadWrapper.getTimestamp());
+    }
+
+    @Test
+    public void receiverPayload_compactFormat_restoresValuesAndSender() {
+        ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 7, 8, System.currentTimeMillis());
+        ReceiverPayload receiverPayload = mock(ReceiverPayload.class);
+        when(receiverPayload.getData()).thenReturn(compactBuffer);
+        when(receiverPayload.getDeviceIdHashCode()).thenReturn(1337);
+
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(receiverPayload);
+
+        assertEquals(DemoPayloadCodec.FORMAT_COMPACT, demoPayloadWrapper.getFormat());
+        assertEquals(7, demoPayloadWrapper.getIconIndex());
+        assertEquals(8, demoPayloadWrapper.getColorIndex());
+        assertEquals(1337, demoPayloadWrapper.getDeviceIdHashCode());
+        assertEquals(1337, demoPayloadWrapper.getIconDeviceIdHashCode());
+        assertEquals(1337, demoPayloadWrapper.getColorDeviceIdHashCode());
+        assertSame(receiverPayload, demoPayloadWrapper.getReceiverPayload());
+        // decoded only once
+        verify(receiverPayload).getData();
+    }
+
+    @Test
+    public void writeToBuffer_defaultFormat_isLegacy() {
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(42, 23);
+        demoPayloadWrapper.setTimestamp(TIMESTAMP);
+
+        ByteBuffer legacyBuffer = demoPayloadWrapper.writeToBuffer().blockingGet();
+        assertEquals(DemoPayloadCodec.FORMAT_LEGACY, DemoPayloadCodec.getFormat(legacyBuffer));
+
+        demoPayloadWrapper.setFormat(DemoPayloadCodec.FORMAT_COMPACT);
+        ByteBuffer compactBuffer = demoPayloadWrapper.writeToBuffer().blockingGet();
+        assertEquals(DemoPayloadCodec.FORMAT_COMPACT, DemoPayloadCodec.getFormat(compactBuffer));
+    }
+
+    @Test
+    public void airTime_defaultMergeStrategy_sendsLegacyFormat() {
+        int format = new HybridLogicalClockMergeStrategy().getFormat();
+
+        assertEquals(DemoPayloadCodec.FORMAT_LEGACY, format);
+        assertEquals(36, AdvertisingAirTime.getOnAirLength(DemoPayloadCodec.getEncodedLength(format, 99, 99)));
+    }
+
+    @Test
+    public void airTime_compactFormatEnabled_fitsMorePayloadsPerSecond() {
+        int legacyLength = DemoPayloadCodec.getEncodedLength(new HybridLogicalClockMergeStrategy().getFormat(), 99, 99);
+        int compactLength = DemoPayloadCodec.getEncodedLength(new HybridLogicalClockMergeStrategy(DemoPayloadCodec.FORMAT_COMPACT).getFormat(), 99, 99);
+        double legacyPayloadsPerSecond = AdvertisingAirTime.getMaximumPayloadsPerSecond(legacyLength);
+        double compactPayloadsPerSecond = AdvertisingAirTime.getMaximumPayloadsPerSecond(compactLength);
+        double gain = compactPayloadsPerSecond / legacyPayloadsPerSecond - 1;
+
+        assertEquals(36, AdvertisingAirTime.getOnAirLength(legacyLength));
+        assertEquals(27, AdvertisingAirTime.getOnAirLength(compactLength));
+        assertEquals(0.33, gain, 0.01);
+    }
+
+    @Test
+    public void decode_reusedWrapper_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(0, 0);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            demoPayloadWrapper.decode(byteBuffer);
+        }
+
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            demoPayloadWrapper.decode(byteBuffer);
+        }
+        allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        assertEquals(1337L, demoPayloadWrapper.getTimestamp());
+        assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < MEASUREMENT_OVERHEAD);
+    }
+
+    @Test
+    public void decode_compactFormat_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        ByteBuffer compactBuffer = DemoPayloadCodec.encode(DemoPayloadCodec.FORMAT_COMPACT, 42, 23, TIMESTAMP);
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(0, 0);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            demoPayloadWrapper.decode(compactBuffer, TIMESTAMP);
+        }
+
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            demoPayloadWrapper.decode(compactBuffer, TIMESTAMP);
+        }
+        allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        assertEquals(TIMESTAMP, demoPayloadWrapper.getTimestamp());
+        assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < MEASUREMENT_OVERHEAD);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(sunThreadMXBean.isThreadAllocatedMemorySupported());
+        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadMXBean;
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.nexenio.sblecdemo.persistence;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SnapshotWriterTest {
+
+    private static final long DELAY_MILLIS = 1000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private TestScheduler scheduler;
+
+    private List<byte[]> writtenSnapshots;
+
+    private int snapshotCount;
+
+    private SnapshotWriter snapshotWriter;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        writtenSnapshots = new ArrayList<>();
+        SnapshotStore snapshotStore = new SnapshotStore() {
+            @Nullable
+            @Override
+            public byte[] read() {
+                return writtenSnapshots.isEmpty() ? null : writtenSnapshots.get(writtenSnapshots.size() - 1);
+            }
+
+            @Override
+            public void write(@NonNull byte[] snapshot) {
+                writtenSnapshots.add(snapshot);
+            }
+        };
+        snapshotWriter = new SnapshotWriter(snapshotStore, () -> new byte[]{(byte) ++snapshotCount}, DELAY_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    @Test
+    public void requestWrite_frequentRequests_writesLatestSnapshotOnce() {
+        for (int i = 0; i < 10; i++) {
+            snapshotWriter.requestWrite();
+            scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0, writtenSnapshots.size());
+
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, writtenSnapshots.size());
+        assertEquals(10, snapshotWriter.getRequestedCount());
+        assertEquals(1, snapshotWriter.getWrittenCount());
+    }
+
+    @Test
+    public void requestWrite_afterWrite_schedulesNextWrite() {
+        snapshotWriter.requestWrite();
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        snapshotWriter.requestWrite();
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, writtenSnapshots.size());
+        assertArrayEquals(new byte[]{2}, writtenSnapshots.get(1));
+    }
+
+    @Test
+    public void flush_pendingWrite_writesWithoutDelay() {
+        snapshotWriter.requestWrite();
+        snapshotWriter.flush();
+        scheduler.triggerActions();
+
+        assertEquals(1, writtenSnapshots.size());
+
+        // the delayed write has been replaced
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(1, writtenSnapshots.size());
+    }
+
+    @Test
+    public void flush_noPendingWrite_doesNothing() {
+        snapshotWriter.flush();
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, writtenSnapshots.size());
+    }
+
+    @Test
+    public void requestWrite_failingStore_countsFailure() {
+        SnapshotStore failingSnapshotStore = new SnapshotStore() {
+            @Nullable
+            @Override
+            public byte[] read() {
+                return null;
+            }
+
+            @Override
+            public void write(@NonNull byte[] snapshot) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        snapshotWriter = new SnapshotWriter(failingSnapshotStore, () -> new byte[1], DELAY_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+
+        snapshotWriter.requestWrite();
+        scheduler.advanceTimeBy(DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, snapshotWriter.getWrittenCount());
+        assertEquals(1, snapshotWriter.getFailedCount());
+    }
+
+    @Test
+    public void fileSnapshotStore_write_replacesPreviousSnapshot() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "snapshot.bin");
+        FileSnapshotStore fileSnapshotStore = new FileSnapshotStore(file);
+        assertNull(fileSnapshotStore.read());
+
+        fileSnapshotStore.write(new byte[]{1, 2, 3});
+        fileSnapshotStore.write(new byte[]{4, 5});
+
+        assertArrayEquals(new byte[]{4, 5}, fileSnapshotStore.read());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+}
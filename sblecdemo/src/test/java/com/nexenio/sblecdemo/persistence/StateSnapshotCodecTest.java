@@ -0,0 +1,83 @@
+package com.nexenio.sblecdemo.persistence;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StateSnapshotCodecTest {
+
+    @Test
+    public void decode_encodedSnapshot_restoresAllValues() {
+        ByteBuffer demoPayloadData = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        TransportPayload peerPayload = new TransportPayload(11, 42, ByteBuffer.wrap(new byte[]{8, 9}));
+        StateSnapshot stateSnapshot = new StateSnapshot(123456789L, 7, demoPayloadData,
+                Collections.singletonList(new StateSnapshot.Peer(peerPayload, 123456000L, 5)));
+
+        StateSnapshot decodedStateSnapshot = StateSnapshotCodec.decode(StateSnapshotCodec.encode(stateSnapshot));
+
+        assertEquals(123456789L, decodedStateSnapshot.getTimestamp());
+        assertEquals(7, decodedStateSnapshot.getDeviceIdHashCode());
+        assertEquals(demoPayloadData, decodedStateSnapshot.getDemoPayloadData());
+        assertEquals(1, decodedStateSnapshot.getPeers().size());
+        StateSnapshot.Peer decodedPeer = decodedStateSnapshot.getPeers().get(0);
+        assertEquals(11, decodedPeer.getLatestPayload().getId());
+        assertEquals(42, decodedPeer.getLatestPayload().getDeviceIdHashCode());
+        assertEquals(peerPayload.getData(), decodedPeer.getLatestPayload().getData());
+        assertEquals(123456000L, decodedPeer.getLastSeenTimestamp());
+        assertEquals(5, decodedPeer.getReceiveCount());
+    }
+
+    @Test
+    public void decode_snapshotWithoutState_returnsNullDemoPayload() {
+        StateSnapshot stateSnapshot = new StateSnapshot(1, 7, null, Collections.<StateSnapshot.Peer>emptyList());
+
+        StateSnapshot decodedStateSnapshot = StateSnapshotCodec.decode(StateSnapshotCodec.encode(stateSnapshot));
+
+        assertNull(decodedStateSnapshot.getDemoPayloadData());
+        assertEquals(0, decodedStateSnapshot.getPeers().size());
+    }
+
+    @Test
+    public void encode_tooManyPeers_keepsMostRecentlySeenPeers() {
+        List<StateSnapshot.Peer> peers = new ArrayList<>();
+        for (int i = 0; i < StateSnapshotCodec.MAXIMUM_PEER_COUNT + 10; i++) {
+            TransportPayload peerPayload = new TransportPayload(11, i, ByteBuffer.allocate(7));
+            peers.add(new StateSnapshot.Peer(peerPayload, i, 1));
+        }
+        StateSnapshot stateSnapshot = new StateSnapshot(1, 7, null, peers);
+
+        StateSnapshot decodedStateSnapshot = StateSnapshotCodec.decode(StateSnapshotCodec.encode(stateSnapshot));
+
+        assertEquals(StateSnapshotCodec.MAXIMUM_PEER_COUNT, decodedStateSnapshot.getPeers().size());
+        for (StateSnapshot.Peer peer : decodedStateSnapshot.getPeers()) {
+            assertTrue(peer.getLastSeenTimestamp() >= 10);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unknownVersion_throwsException() {
+        byte[] snapshot = StateSnapshotCodec.encode(new StateSnapshot(1, 7, null, Collections.<StateSnapshot.Peer>emptyList()));
+        snapshot[0] = StateSnapshotCodec.VERSION + 1;
+
+        StateSnapshotCodec.decode(snapshot);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_truncatedSnapshot_throwsException() {
+        ByteBuffer demoPayloadData = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        byte[] snapshot = StateSnapshotCodec.encode(new StateSnapshot(1, 7, demoPayloadData, Collections.<StateSnapshot.Peer>emptyList()));
+
+        StateSnapshotCodec.decode(Arrays.copyOf(snapshot, snapshot.length - 3));
+    }
+
+}
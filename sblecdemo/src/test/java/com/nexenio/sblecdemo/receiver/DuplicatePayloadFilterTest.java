@@ -0,0 +1,97 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DuplicatePayloadFilterTest {
+
+    private static final int PAYLOAD_ID = 1;
+
+    private TestScheduler scheduler;
+
+    private DuplicatePayloadFilter filter;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        filter = new DuplicatePayloadFilter(16, 1000, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    @Test
+    public void test_repeatedPayload_dropsRepeats() {
+        assertTrue(filter.test(createPayload(42, 7)));
+        assertFalse(filter.test(createPayload(42, 7)));
+        assertFalse(filter.test(createPayload(42, 7)));
+
+        assertEquals(1, filter.getMissCount());
+        assertEquals(2, filter.getHitCount());
+    }
+
+    @Test
+    public void test_differentSenderIdOrData_passes() {
+        assertTrue(filter.test(createPayload(42, 7)));
+        assertTrue(filter.test(createPayload(43, 7)));
+        assertTrue(filter.test(createPayload(42, 8)));
+        assertTrue(filter.test(new TransportPayload(PAYLOAD_ID + 1, 42, createData(7))));
+
+        assertEquals(4, filter.getMissCount());
+        assertEquals(0, filter.getHitCount());
+    }
+
+    @Test
+    public void test_expiredPayload_passesAgain() {
+        assertTrue(filter.test(createPayload(42, 7)));
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+        assertFalse(filter.test(createPayload(42, 7)));
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertTrue(filter.test(createPayload(42, 7)));
+
+        assertEquals(0, filter.getEvictionCount());
+    }
+
+    @Test
+    public void test_moreDevicesThanCapacity_evictsOldestEntries() {
+        int deviceCount = 1000;
+        for (int i = 0; i < deviceCount; i++) {
+            scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+            assertTrue(filter.test(createPayload(i, 7)));
+        }
+
+        assertEquals(16, filter.getCapacity());
+        assertEquals(deviceCount, filter.getMissCount());
+        assertEquals(deviceCount - filter.getCapacity(), filter.getEvictionCount(), filter.getCapacity());
+        // the most recent payload is still stored
+        assertFalse(filter.test(createPayload(deviceCount - 1, 7)));
+    }
+
+    @Test
+    public void clear_storedPayload_passesAgain() {
+        assertTrue(filter.test(createPayload(42, 7)));
+        filter.clear();
+        assertTrue(filter.test(createPayload(42, 7)));
+    }
+
+    private static TransportPayload createPayload(int deviceIdHashCode, int value) {
+        return new TransportPayload(PAYLOAD_ID, deviceIdHashCode, createData(value));
+    }
+
+    private static ByteBuffer createData(int value) {
+        ByteBuffer data = ByteBuffer.allocate(9);
+        data.put((byte) 1);
+        data.putLong(value);
+        data.flip();
+        return data.asReadOnlyBuffer();
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.nexenio.sblecdemo.receiver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadCoalescerTest {
+
+    private static final long WINDOW_MILLIS = 16;
+
+    private TestScheduler testScheduler;
+
+    private CountingScheduler scheduler;
+
+    private PublishSubject<Integer> items;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        scheduler = new CountingScheduler(testScheduler);
+        items = PublishSubject.create();
+    }
+
+    @Test
+    public void apply_itemsWithinWindow_mergesIntoSingleEmission() {
+        PayloadCoalescer<Integer> coalescer = PayloadCoalescer.merging(Integer::sum, WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+        TestObserver<Integer> observer = items.compose(coalescer).test();
+
+        items.onNext(1);
+        advanceTimeBy(5);
+        items.onNext(2);
+        advanceTimeBy(5);
+        items.onNext(3);
+        advanceTimeBy(WINDOW_MILLIS - 11);
+        observer.assertNoValues();
+
+        advanceTimeBy(1);
+        observer.assertValue(6);
+        assertEquals(3, coalescer.getReceivedCount());
+        assertEquals(1, coalescer.getEmittedCount());
+        assertEquals(2, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void apply_comparator_emitsNewestItem() {
+        PayloadCoalescer<Integer> coalescer = new PayloadCoalescer<>(Comparator.naturalOrder(), WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+        TestObserver<Integer> observer = items.compose(coalescer).test();
+
+        items.onNext(2);
+        items.onNext(7);
+        items.onNext(3);
+        advanceTimeBy(WINDOW_MILLIS);
+
+        observer.assertValue(7);
+    }
+
+    @Test
+    public void apply_windowsWithoutItems_emitNothing() {
+        PayloadCoalescer<Integer> coalescer = PayloadCoalescer.merging(Integer::sum, WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+        TestObserver<Integer> observer = items.compose(coalescer).test();
+
+        items.onNext(1);
+        advanceTimeBy(100 * WINDOW_MILLIS + 3);
+        observer.assertValue(1);
+
+        // the next window starts with the next item, not aligned to the previous one
+        items.onNext(2);
+        advanceTimeBy(WINDOW_MILLIS - 1);
+        observer.assertValueCount(1);
+        advanceTimeBy(1);
+        observer.assertValues(1, 2);
+        assertEquals(2, coalescer.getEmittedCount());
+    }
+
+    @Test
+    public void apply_idle_schedulesNoWork() {
+        PayloadCoalescer<Integer> coalescer = PayloadCoalescer.merging(Integer::sum, WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+        TestObserver<Integer> observer = items.compose(coalescer).test();
+
+        advanceTimeBy(TimeUnit.MINUTES.toMillis(1));
+        assertEquals(0, scheduler.getScheduledCount());
+
+        items.onNext(1);
+        items.onNext(2);
+        advanceTimeBy(WINDOW_MILLIS);
+        observer.assertValue(3);
+        int scheduledCount = scheduler.getScheduledCount();
+
+        advanceTimeBy(TimeUnit.MINUTES.toMillis(1));
+        assertEquals(scheduledCount, scheduler.getScheduledCount());
+    }
+
+    @Test
+    public void apply_flowable_mergesItemsOfWindow() {
+        PayloadCoalescer<Integer> coalescer = PayloadCoalescer.merging(Integer::sum, WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+        PublishProcessor<Integer> processor = PublishProcessor.create();
+        TestSubscriber<Integer> subscriber = processor.compose(coalescer).test();
+
+        processor.onNext(1);
+        processor.onNext(2);
+        advanceTimeBy(WINDOW_MILLIS);
+        processor.onNext(3);
+        advanceTimeBy(WINDOW_MILLIS);
+
+        subscriber.assertValues(3, 3);
+    }
+
+    private void advanceTimeBy(long millis) {
+        testScheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts the tasks that have been scheduled on the wrapped scheduler.
+     */
+    private static final class CountingScheduler extends Scheduler {
+
+        private final Scheduler scheduler;
+
+        private final AtomicInteger scheduledCount = new AtomicInteger();
+
+        private CountingScheduler(@NonNull Scheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @NonNull
+        @Override
+        public Worker createWorker() {
+            Worker worker = scheduler.createWorker();
+            return new Worker() {
+                @NonNull
+                @Override
+                public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+                    scheduledCount.incrementAndGet();
+                    return worker.schedule(run, delay, unit);
+                }
+
+                @Override
+                public void dispose() {
+                    worker.dispose();
+                }
+
+                @Override
+                public boolean isDisposed() {
+                    return worker.isDisposed();
+                }
+            };
+        }
+
+        @Override
+        public long now(@NonNull TimeUnit unit) {
+            return scheduler.now(unit);
+        }
+
+        private int getScheduledCount() {
+            return scheduledCount.get();
+        }
+
+    }
+
+}
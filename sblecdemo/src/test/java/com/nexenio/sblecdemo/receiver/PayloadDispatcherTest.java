@@ -0,0 +1,77 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadDispatcherTest {
+
+    private PayloadDispatcher payloadDispatcher;
+
+    private PublishSubject<TransportPayload> transportPayloads;
+
+    @Before
+    public void setUp() {
+        payloadDispatcher = new PayloadDispatcher();
+        transportPayloads = PublishSubject.create();
+    }
+
+    @Test
+    public void dispatch_multipleIds_routesPayloadsById() {
+        TestObserver<TransportPayload> firstObserver = payloadDispatcher.getPayloads(11).test();
+        TestObserver<Integer> secondObserver = payloadDispatcher.getPayloads(12, TransportPayload::getDeviceIdHashCode).test();
+        payloadDispatcher.dispatch(transportPayloads).test();
+
+        TransportPayload firstPayload = createPayload(11, 1);
+        transportPayloads.onNext(firstPayload);
+        transportPayloads.onNext(createPayload(12, 2));
+        transportPayloads.onNext(createPayload(13, 3));
+        transportPayloads.onNext(createPayload(1000, 4));
+
+        firstObserver.assertValues(firstPayload);
+        secondObserver.assertValues(2);
+        assertEquals(2, payloadDispatcher.getDispatchedCount());
+        assertEquals(2, payloadDispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dispatch_routeDisposed_dropsPayloads() {
+        TestObserver<TransportPayload> observer = payloadDispatcher.getPayloads(11).test();
+        payloadDispatcher.dispatch(transportPayloads).test();
+        observer.dispose();
+
+        transportPayloads.onNext(createPayload(11, 1));
+
+        observer.assertNoValues();
+        assertEquals(1, payloadDispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dispatch_transportError_onlyEmittedByDispatch() {
+        TestObserver<TransportPayload> routeObserver = payloadDispatcher.getPayloads(11).test();
+        TestObserver<Void> dispatchObserver = payloadDispatcher.dispatch(transportPayloads).test();
+
+        transportPayloads.onError(new IllegalStateException());
+
+        dispatchObserver.assertError(IllegalStateException.class);
+        routeObserver.assertNoErrors();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPayloads_idOutOfRange_throws() {
+        payloadDispatcher.getPayloads(PayloadDispatcher.MAXIMUM_ID + 1);
+    }
+
+    private static TransportPayload createPayload(int id, int deviceIdHashCode) {
+        return new TransportPayload(id, deviceIdHashCode, ByteBuffer.allocate(0));
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.nexenio.sblecdemo.receiver;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PeerTableTest {
+
+    private static final long TIME_TO_LIVE_MILLIS = 1000;
+
+    private TestScheduler scheduler;
+
+    private PeerTable peerTable;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        peerTable = new PeerTable(TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    @Test
+    public void onPayloadReceived_samePeer_updatesPeer() {
+        TransportPayload firstPayload = createPayload(42);
+        TransportPayload secondPayload = createPayload(42);
+
+        peerTable.onPayloadReceived(firstPayload);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        peerTable.onPayloadReceived(secondPayload);
+
+        assertEquals(1, peerTable.getPeerCount());
+        assertSame(secondPayload, peerTable.getLatestPayload(42));
+        assertEquals(100, peerTable.getLastSeenTimestamp(42));
+        assertEquals(2, peerTable.getReceiveCount(42));
+    }
+
+    @Test
+    public void getLatestPayload_unknownPeer_returnsNull() {
+        peerTable.onPayloadReceived(createPayload(42));
+
+        assertNull(peerTable.getLatestPayload(43));
+        assertEquals(-1, peerTable.getLastSeenTimestamp(43));
+        assertEquals(0, peerTable.getReceiveCount(43));
+    }
+
+    @Test
+    public void evictStalePeers_peersNotSeenWithinTimeToLive_removesPeers() {
+        peerTable.onPayloadReceived(createPayload(1));
+        peerTable.onPayloadReceived(createPayload(2));
+        scheduler.advanceTimeBy(TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS);
+        peerTable.onPayloadReceived(createPayload(2));
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, peerTable.evictStalePeers());
+        assertEquals(1, peerTable.getPeerCount());
+        assertNull(peerTable.getLatestPayload(1));
+        assertEquals(1, peerTable.getEvictionCount());
+    }
+
+    @Test
+    public void onPayloadReceived_manyPeers_evictsStalePeersIncrementally() {
+        for (int i = 0; i < 1000; i++) {
+            peerTable.onPayloadReceived(createPayload(i));
+        }
+        assertEquals(1000, peerTable.getPeerCount());
+
+        scheduler.advanceTimeBy(2 * TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 2000; i++) {
+            peerTable.onPayloadReceived(createPayload(1000 + i % 10));
+        }
+
+        assertEquals(10, peerTable.getPeerCount());
+        assertEquals(1000, peerTable.getEvictionCount());
+    }
+
+    @Test
+    public void onPayloadReceived_randomUpdatesAndEvictions_matchesMap() {
+        Random random = new Random(42);
+        Map<Integer, Long> lastSeenTimestamps = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            scheduler.advanceTimeBy(random.nextInt(3), TimeUnit.MILLISECONDS);
+            long now = scheduler.now(TimeUnit.MILLISECONDS);
+            int deviceIdHashCode = random.nextInt(5000) << 16;
+            peerTable.onPayloadReceived(createPayload(deviceIdHashCode));
+            lastSeenTimestamps.put(deviceIdHashCode, now);
+
+            if (i % 10_000 == 0) {
+                peerTable.evictStalePeers();
+                Iterator<Long> iterator = lastSeenTimestamps.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next() < now - TIME_TO_LIVE_MILLIS) {
+                        iterator.remove();
+                    }
+                }
+                assertEquals(lastSeenTimestamps.size(), peerTable.getPeerCount());
+            }
+        }
+
+        for (Map.Entry<Integer, Long> entry : lastSeenTimestamps.entrySet()) {
+            long lastSeenTimestamp = peerTable.getLastSeenTimestamp(entry.getKey());
+            if (lastSeenTimestamp != -1) {
+                assertEquals((long) entry.getValue(), lastSeenTimestamp);
+            }
+        }
+        assertEquals(peerTable.getPeerCount(), peerTable.getPeers().size());
+    }
+
+    private static TransportPayload createPayload(int deviceIdHashCode) {
+        return new TransportPayload(1, deviceIdHashCode, ByteBuffer.allocate(0));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.nexenio.sblecdemo.recovery;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecoveryEngineTest {
+
+    private TestScheduler scheduler;
+
+    private RecoveryPolicy policy;
+
+    private SettableRadioAvailability radioAvailability;
+
+    private RecoveryEngine recoveryEngine;
+
+    private AtomicInteger subscriptionCount;
+
+    private PublishSubject<Integer> items;
+
+    private Observable<Integer> upstream;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        policy = new RecoveryPolicy();
+        radioAvailability = new SettableRadioAvailability(true);
+        recoveryEngine = new RecoveryEngine(policy, radioAvailability, scheduler, new Random(42));
+        subscriptionCount = new AtomicInteger();
+        upstream = Observable.defer(() -> {
+            subscriptionCount.incrementAndGet();
+            // a terminated subject can't be resubscribed, each subscription needs a new one
+            items = PublishSubject.create();
+            return items;
+        });
+    }
+
+    @Test
+    public void getRetryDelayMillis_consecutiveFailures_growsExponentiallyWithJitter() {
+        for (int failureCount = 1; failureCount <= 20; failureCount++) {
+            long maximumDelay = Math.min(policy.getMaximumRetryDelayMillis(), policy.getInitialRetryDelayMillis() << Math.min(failureCount - 1, 30));
+            long delay = recoveryEngine.getRetryDelayMillis(failureCount);
+            assertTrue(delay <= maximumDelay);
+            assertTrue(delay >= maximumDelay * (1 - policy.getRetryDelayJitter()));
+        }
+    }
+
+    @Test
+    public void recover_transientFailure_resubscribesAfterBackoff() {
+        TestObserver<Integer> testObserver = recoveryEngine.recover(upstream).test();
+        items.onNext(1);
+
+        items.onError(new IOException());
+        assertEquals(1, subscriptionCount.get());
+
+        scheduler.advanceTimeBy(policy.getInitialRetryDelayMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(2, subscriptionCount.get());
+
+        items.onNext(2);
+        testObserver.assertValues(1, 2).assertNoErrors().assertNotComplete();
+        assertEquals(1, recoveryEngine.getOutageCount());
+        assertEquals(1, recoveryEngine.getRecoveredCount());
+        assertTrue(recoveryEngine.getOutageDurationMillis().getMaximum() <= policy.getInitialRetryDelayMillis());
+        assertEquals(recoveryEngine.getOutageDurationMillis().getMaximum(), recoveryEngine.getTimeToRecoverMillis().getMaximum());
+    }
+
+    @Test
+    public void recover_radioUnavailable_pausesRetriesUntilAvailable() {
+        TestObserver<Integer> testObserver = recoveryEngine.recover(upstream).test();
+        scheduler.advanceTimeBy(policy.getStableDurationMillis(), TimeUnit.MILLISECONDS);
+
+        radioAvailability.setAvailable(false);
+        items.onError(new IOException());
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        assertEquals(1, subscriptionCount.get());
+        assertEquals(1, recoveryEngine.getCircuitOpenCount());
+
+        radioAvailability.setAvailable(true);
+        assertEquals(2, subscriptionCount.get());
+
+        scheduler.advanceTimeBy(policy.getStableDurationMillis(), TimeUnit.MILLISECONDS);
+        testObserver.assertNoErrors().assertNotComplete();
+        assertEquals(1, recoveryEngine.getRecoveredCount());
+        assertEquals(TimeUnit.MINUTES.toMillis(1), recoveryEngine.getOutageDurationMillis().getMaximum(), 1000);
+        assertEquals(0, recoveryEngine.getTimeToRecoverMillis().getMaximum());
+    }
+
+    @Test
+    public void recover_repeatedFailures_resetsBackoffAfterRecovery() {
+        policy.setStableDurationMillis(TimeUnit.MINUTES.toMillis(1));
+        recoveryEngine.recover(upstream).test();
+        for (int i = 0; i < 5; i++) {
+            items.onError(new IOException());
+            scheduler.advanceTimeBy(policy.getMaximumRetryDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+        assertEquals(6, subscriptionCount.get());
+        assertEquals(1, recoveryEngine.getOutageCount());
+
+        items.onNext(1);
+        items.onError(new IOException());
+        scheduler.advanceTimeBy(policy.getInitialRetryDelayMillis(), TimeUnit.MILLISECONDS);
+
+        assertEquals(7, subscriptionCount.get());
+        assertEquals(2, recoveryEngine.getOutageCount());
+        assertEquals(6, recoveryEngine.getFailureCount());
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.nexenio.sblecdemo.sender;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveSendSessionTest {
+
+    private TestScheduler scheduler;
+
+    private AdaptiveSendPolicy policy;
+
+    private AdaptiveSendSession session;
+
+    private int advertisingCount;
+
+    private boolean advertising;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        policy = new AdaptiveSendPolicy();
+        policy.setInitialSendDurationMillis(1000);
+        policy.setSendDurationMillis(200);
+        policy.setMinimumPauseMillis(500);
+        policy.setMaximumPauseMillis(2000);
+        policy.setBackoffMultiplier(2);
+        policy.setRequiredEchoCount(2);
+        session = new AdaptiveSendSession(policy, scheduler);
+    }
+
+    @Test
+    public void apply_noEchoes_backsOffExponentially() {
+        TestObserver<Void> testObserver = createAdvertising().compose(session).test();
+
+        assertAdvertising(true, 0);
+        assertAdvertising(false, 1000);
+        assertAdvertising(true, 1500);
+        assertAdvertising(false, 1700);
+        assertAdvertising(true, 2700);
+        assertAdvertising(false, 2900);
+        assertAdvertising(true, 4900);
+        assertAdvertising(false, 5100);
+        // capped by the maximum pause
+        assertAdvertising(true, 7100);
+
+        assertEquals(5, advertisingCount);
+        assertEquals(1000 + 3 * 200, session.getAdvertisingDurationMillis());
+        testObserver.assertNotComplete();
+    }
+
+    @Test
+    public void onEchoReceived_distinctPeers_stopsAdvertising() {
+        TestObserver<Void> testObserver = createAdvertising().compose(session).test();
+        scheduler.advanceTimeTo(100, TimeUnit.MILLISECONDS);
+
+        session.onEchoReceived(1);
+        session.onEchoReceived(1);
+        assertTrue(advertising);
+        assertFalse(session.isCompleted());
+
+        session.onEchoReceived(2);
+        assertFalse(advertising);
+        assertTrue(session.isCompleted());
+        testObserver.assertComplete();
+
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        assertEquals(1, advertisingCount);
+        assertEquals(100, session.getAdvertisingDurationMillis());
+    }
+
+    @Test
+    public void onOutdatedStateReceived_duringPause_restartsBackoff() {
+        createAdvertising().compose(session).test();
+
+        assertAdvertising(true, 1500);
+        assertAdvertising(false, 1700);
+        assertAdvertising(false, 2000);
+
+        session.onOutdatedStateReceived();
+        assertTrue(advertising);
+
+        // initial send duration, followed by the minimum pause
+        assertAdvertising(false, 3000);
+        assertAdvertising(true, 3500);
+    }
+
+    @Test
+    public void getPauseMillis_backoff_isCapped() {
+        assertEquals(500, policy.getPauseMillis(0));
+        assertEquals(1000, policy.getPauseMillis(1));
+        assertEquals(2000, policy.getPauseMillis(2));
+        assertEquals(2000, policy.getPauseMillis(100));
+    }
+
+    private Completable createAdvertising() {
+        return Completable.never()
+                .doOnSubscribe(disposable -> {
+                    advertising = true;
+                    advertisingCount++;
+                })
+                .doOnDispose(() -> advertising = false);
+    }
+
+    private void assertAdvertising(boolean expected, long timestamp) {
+        scheduler.advanceTimeTo(timestamp, TimeUnit.MILLISECONDS);
+        assertEquals("Advertising at " + timestamp, expected, advertising);
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.nexenio.sblecdemo.sender;
+
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.SimulatedTransport;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchedulingPayloadTransportTest {
+
+    private TestScheduler scheduler;
+
+    private SimulatedMesh mesh;
+
+    private SimulatedTransport senderTransport;
+
+    private SchedulingPayloadTransport schedulingPayloadTransport;
+
+    private SendSchedulingPolicy sendSchedulingPolicy;
+
+    private long slotDurationMillis;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        mesh = new SimulatedMesh(scheduler, 42);
+        senderTransport = mesh.createTransport();
+        schedulingPayloadTransport = new SchedulingPayloadTransport(senderTransport, scheduler);
+        sendSchedulingPolicy = new SendSchedulingPolicy();
+        schedulingPayloadTransport.setSendSchedulingPolicy(sendSchedulingPolicy);
+        slotDurationMillis = sendSchedulingPolicy.getSlotDurationMillis();
+    }
+
+    @Test
+    public void send_withoutPolicy_passesPayloadsThrough() {
+        schedulingPayloadTransport.setSendSchedulingPolicy(null);
+        schedulingPayloadTransport.send(createPayload(1, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+        schedulingPayloadTransport.send(createPayload(2, TransportPayload.MAXIMUM_PRIORITY)).subscribe();
+        scheduler.triggerActions();
+
+        assertEquals(2, senderTransport.getAdvertisedPayloadCount());
+        assertEquals(0, schedulingPayloadTransport.getScheduledPayloadCount());
+    }
+
+    @Test
+    public void send_concurrentPayloads_sharesSlotsByWeight() {
+        sendSchedulingPolicy.setAgingDurationMillis(0);
+        sendSchedulingPolicy.setUrgentPriority(Double.MAX_VALUE);
+        TestObserver<TransportPayload> observer = mesh.createTransport().receive().test();
+        schedulingPayloadTransport.send(createPayload(1, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+        schedulingPayloadTransport.send(createPayload(2, TransportPayload.MAXIMUM_PRIORITY)).subscribe();
+        scheduler.triggerActions();
+        assertEquals(1, senderTransport.getAdvertisedPayloadCount());
+
+        scheduler.advanceTimeBy(900 * slotDurationMillis, TimeUnit.MILLISECONDS);
+
+        int[] receivedCounts = countReceivedPayloads(observer, 3);
+        double expectedShare = 1 / (1 + sendSchedulingPolicy.getMaximumWeight());
+        double share = (double) receivedCounts[1] / (receivedCounts[1] + receivedCounts[2]);
+        assertEquals(expectedShare, share, 0.02);
+    }
+
+    @Test
+    public void send_lowPriorityPayload_isNotStarved() {
+        sendSchedulingPolicy.setUrgentPriority(Double.MAX_VALUE);
+        TestObserver<TransportPayload> observer = mesh.createTransport().receive().test();
+        for (int i = 1; i <= 8; i++) {
+            schedulingPayloadTransport.send(createPayload(i, TransportPayload.MAXIMUM_PRIORITY)).subscribe();
+        }
+        scheduler.advanceTimeBy(10 * slotDurationMillis, TimeUnit.MILLISECONDS);
+        schedulingPayloadTransport.send(createPayload(9, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+
+        // with its weight only, it would get one out of 33 slots
+        scheduler.advanceTimeBy(sendSchedulingPolicy.getAgingDurationMillis() / 2, TimeUnit.MILLISECONDS);
+
+        assertTrue(countReceivedPayloads(observer, 10)[9] > 0);
+        assertTrue(schedulingPayloadTransport.getSlotLatencyMillis(SchedulingPayloadTransport.PRIORITY_CLASS_BACKGROUND).getMaximum()
+                < sendSchedulingPolicy.getAgingDurationMillis() / 2);
+    }
+
+    @Test
+    public void send_urgentPayload_preemptsOtherPayloads() {
+        TestObserver<TransportPayload> observer = mesh.createTransport().receive().test();
+        schedulingPayloadTransport.send(createPayload(1, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+        schedulingPayloadTransport.send(createPayload(2, TransportPayload.DEFAULT_PRIORITY)).subscribe();
+        scheduler.advanceTimeBy(10 * slotDurationMillis + slotDurationMillis / 2, TimeUnit.MILLISECONDS);
+
+        schedulingPayloadTransport.send(createPayload(3, TransportPayload.MAXIMUM_PRIORITY)).subscribe();
+        scheduler.triggerActions();
+        assertEquals(1, schedulingPayloadTransport.getPreemptedCount());
+        assertEquals(0, schedulingPayloadTransport.getSlotLatencyMillis(SchedulingPayloadTransport.PRIORITY_CLASS_URGENT).getMaximum());
+
+        observer.values().clear();
+        scheduler.advanceTimeBy(sendSchedulingPolicy.getUrgentDurationMillis() - slotDurationMillis, TimeUnit.MILLISECONDS);
+        int[] receivedCounts = countReceivedPayloads(observer, 4);
+        assertEquals(0, receivedCounts[1] + receivedCounts[2]);
+        assertTrue(receivedCounts[3] > 0);
+
+        // afterwards, the slots are shared again
+        scheduler.advanceTimeBy(20 * slotDurationMillis, TimeUnit.MILLISECONDS);
+        receivedCounts = countReceivedPayloads(observer, 4);
+        assertTrue(receivedCounts[1] > 0);
+        assertTrue(receivedCounts[2] > 0);
+    }
+
+    @Test
+    public void send_disposedAdvertisedPayload_advertisesNextPayload() {
+        Disposable disposable = schedulingPayloadTransport.send(createPayload(1, TransportPayload.MAXIMUM_PRIORITY)).subscribe();
+        schedulingPayloadTransport.send(createPayload(2, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+        scheduler.triggerActions();
+        TestObserver<TransportPayload> observer = mesh.createTransport().receive().test();
+
+        disposable.dispose();
+        scheduler.advanceTimeBy(10 * slotDurationMillis, TimeUnit.MILLISECONDS);
+
+        int[] receivedCounts = countReceivedPayloads(observer, 3);
+        assertEquals(0, receivedCounts[1]);
+        assertEquals(10, receivedCounts[2], 1);
+        assertEquals(1, schedulingPayloadTransport.getScheduledPayloadCount());
+        assertEquals(1, senderTransport.getAdvertisedPayloadCount());
+    }
+
+    @Test
+    public void send_singlePayload_isNotRestarted() {
+        schedulingPayloadTransport.send(createPayload(1, TransportPayload.MINIMUM_PRIORITY)).subscribe();
+        scheduler.advanceTimeBy(100 * slotDurationMillis, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, schedulingPayloadTransport.getAdvertisementCount());
+        assertEquals(1, schedulingPayloadTransport.getSlotCount());
+    }
+
+    @Test
+    public void send_failingTransport_failsPayloadsAndEmptiesQueue() {
+        IllegalStateException exception = new IllegalStateException("Advertising failed");
+        AtomicInteger sendCount = new AtomicInteger();
+        PayloadTransport failingTransport = new PayloadTransport() {
+            @Override
+            public Completable send(@NonNull TransportPayload transportPayload) {
+                sendCount.incrementAndGet();
+                return Completable.error(exception);
+            }
+
+            @Override
+            public Observable<TransportPayload> receive() {
+                return Observable.never();
+            }
+
+            @Override
+            public int getDeviceIdHashCode() {
+                return 0;
+            }
+        };
+        schedulingPayloadTransport = new SchedulingPayloadTransport(failingTransport, scheduler);
+        schedulingPayloadTransport.setSendSchedulingPolicy(sendSchedulingPolicy);
+
+        TestObserver<Void> firstObserver = schedulingPayloadTransport.send(createPayload(1, TransportPayload.MAXIMUM_PRIORITY)).test();
+        TestObserver<Void> secondObserver = schedulingPayloadTransport.send(createPayload(2, TransportPayload.MINIMUM_PRIORITY)).test();
+        scheduler.triggerActions();
+
+        firstObserver.assertError(exception);
+        secondObserver.assertError(exception);
+        assertEquals(2, sendCount.get());
+        assertEquals(0, schedulingPayloadTransport.getScheduledPayloadCount());
+
+        scheduler.advanceTimeBy(10 * slotDurationMillis, TimeUnit.MILLISECONDS);
+        assertEquals(2, sendCount.get());
+    }
+
+    private static int[] countReceivedPayloads(TestObserver<TransportPayload> observer, int payloadCount) {
+        int[] receivedCounts = new int[payloadCount];
+        for (TransportPayload transportPayload : observer.values()) {
+            receivedCounts[transportPayload.getData().get(0)]++;
+        }
+        return receivedCounts;
+    }
+
+    private static TransportPayload createPayload(int index, double priority) {
+        return new TransportPayload(11, 0, priority, ByteBuffer.wrap(new byte[]{(byte) index, 1, 2, 3, 4, 5, 6}));
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.nexenio.sblecdemo.sender;
+
+import com.nexenio.sblecdemo.metrics.LatencyHistogram;
+import com.nexenio.sblecdemo.transport.PayloadTransport;
+import com.nexenio.sblecdemo.transport.SimulatedMesh;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.Nullable;
+import io.reactivex.Completable;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the latency per priority class of advertising concurrent payloads in turns with a
+ * {@link SchedulingPayloadTransport}, on a lossy {@link SimulatedMesh}. A single device keeps
+ * relaying background payloads, while sending its own payloads and occasional urgent changes.
+ */
+public class SendSchedulingSimulationTest {
+
+    private static final long DURATION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The interval in which new payloads of each priority class are sent, and how long they are
+     * sent. On average, 2.5 background, 2 normal and 0.3 urgent payloads are sent at the same
+     * time.
+     */
+    private static final long[] SEND_INTERVAL_MILLIS = {400, 1_000, 3_000};
+    private static final long[] SEND_DURATION_MILLIS = {1_000, 2_000, 1_000};
+    private static final double[] PRIORITIES = {TransportPayload.MINIMUM_PRIORITY, TransportPayload.DEFAULT_PRIORITY, TransportPayload.MAXIMUM_PRIORITY};
+
+    @Test
+    public void sendSchedulingPolicy_concurrentPayloads_reducesUrgentLatency() {
+        Result inTurnsResult = run(null);
+        Result scheduledResult = run(new SendSchedulingPolicy());
+
+        int urgent = SchedulingPayloadTransport.PRIORITY_CLASS_URGENT;
+        int normal = SchedulingPayloadTransport.PRIORITY_CLASS_NORMAL;
+        int background = SchedulingPayloadTransport.PRIORITY_CLASS_BACKGROUND;
+        assertTrue(scheduledResult.getPercentile(urgent, 50) * 3 < inTurnsResult.getPercentile(urgent, 50));
+        assertTrue(scheduledResult.getPercentile(urgent, 99) < inTurnsResult.getPercentile(urgent, 99));
+        assertTrue(scheduledResult.missedCounts[urgent] < inTurnsResult.missedCounts[urgent]);
+        assertTrue(scheduledResult.getPercentile(normal, 50) < inTurnsResult.getPercentile(normal, 50));
+        // not starved, every background payload got a slot while it was being sent
+        assertTrue(scheduledResult.maximumBackgroundSlotLatency < SEND_DURATION_MILLIS[background]);
+        assertTrue(scheduledResult.getMissedShare(background) < 0.3);
+        assertEquals(inTurnsResult.transmittedCount, scheduledResult.transmittedCount, inTurnsResult.transmittedCount / 20);
+    }
+
+    private static Result run(@Nullable SendSchedulingPolicy sendSchedulingPolicy) {
+        TestScheduler scheduler = new TestScheduler();
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        mesh.setLossProbability(0.3);
+        mesh.setLatency(5, 30);
+        SchedulingPayloadTransport senderTransport = new SchedulingPayloadTransport(mesh.createTransport(), scheduler);
+        senderTransport.setSendSchedulingPolicy(sendSchedulingPolicy);
+        PayloadTransport receiverTransport = mesh.createTransport();
+
+        Result result = new Result();
+        Map<Integer, Long> sendTimestamps = new HashMap<>();
+        CompositeDisposable disposables = new CompositeDisposable();
+        disposables.add(receiverTransport.receive().subscribe(transportPayload -> {
+            int sequenceNumber = transportPayload.getData().getInt(0);
+            Long sendTimestamp = sendTimestamps.remove(sequenceNumber);
+            if (sendTimestamp != null) {
+                int priorityClass = transportPayload.getData().get(4);
+                result.latencyHistograms[priorityClass].record(scheduler.now(TimeUnit.MILLISECONDS) - sendTimestamp);
+            }
+        }));
+
+        int sequenceNumber = 0;
+        for (int priorityClass = 0; priorityClass < PRIORITIES.length; priorityClass++) {
+            for (long timestamp = 0; timestamp < DURATION_MILLIS; timestamp += SEND_INTERVAL_MILLIS[priorityClass]) {
+                ByteBuffer data = ByteBuffer.allocate(21);
+                data.putInt(0, sequenceNumber);
+                data.put(4, (byte) priorityClass);
+                TransportPayload transportPayload = new TransportPayload(11, 0, PRIORITIES[priorityClass], data);
+                int currentSequenceNumber = sequenceNumber++;
+                // offset, so that payloads of different classes don't start at the same time
+                long sendTimestamp = timestamp + 50 * priorityClass + 25;
+                disposables.add(Completable.timer(sendTimestamp, TimeUnit.MILLISECONDS, scheduler)
+                        .andThen(Completable.defer(() -> {
+                            sendTimestamps.put(currentSequenceNumber, sendTimestamp);
+                            return senderTransport.send(transportPayload);
+                        }))
+                        .ambWith(Completable.timer(sendTimestamp + SEND_DURATION_MILLIS[priorityClass], TimeUnit.MILLISECONDS, scheduler))
+                        .subscribe());
+                result.sentCounts[priorityClass]++;
+            }
+        }
+
+        scheduler.advanceTimeBy(DURATION_MILLIS + 5_000, TimeUnit.MILLISECONDS);
+        disposables.dispose();
+        for (int priorityClass = 0; priorityClass < PRIORITIES.length; priorityClass++) {
+            result.missedCounts[priorityClass] = result.sentCounts[priorityClass] - result.latencyHistograms[priorityClass].getSnapshot().getCount();
+        }
+        result.transmittedCount = mesh.getTransmittedCount();
+        result.maximumBackgroundSlotLatency = senderTransport.getSlotLatencyMillis(SchedulingPayloadTransport.PRIORITY_CLASS_BACKGROUND).getMaximum();
+        return result;
+    }
+
+    private static final class Result {
+
+        private final LatencyHistogram[] latencyHistograms = new LatencyHistogram[PRIORITIES.length];
+        private final long[] sentCounts = new long[PRIORITIES.length];
+        private final long[] missedCounts = new long[PRIORITIES.length];
+        private long transmittedCount;
+        private long maximumBackgroundSlotLatency;
+
+        private Result() {
+            for (int priorityClass = 0; priorityClass < PRIORITIES.length; priorityClass++) {
+                latencyHistograms[priorityClass] = new LatencyHistogram();
+            }
+        }
+
+        private long getPercentile(int priorityClass, double percentile) {
+            return latencyHistograms[priorityClass].getSnapshot().getValueAtPercentile(percentile);
+        }
+
+        private double getMissedShare(int priorityClass) {
+            return (double) missedCounts[priorityClass] / sentCounts[priorityClass];
+        }
+
+    }
+
+}
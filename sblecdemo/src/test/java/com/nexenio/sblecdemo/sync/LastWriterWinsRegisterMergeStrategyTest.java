@@ -0,0 +1,119 @@
+package com.nexenio.sblecdemo.sync;
+
+import com.nexenio.sblecdemo.DemoPayloadWrapper;
+import com.nexenio.sblecdemo.payload.DemoPayloadCodec;
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LastWriterWinsRegisterMergeStrategyTest {
+
+    private static final long TIMESTAMP = 1556617029000L;
+
+    private MergeStrategy mergeStrategy;
+
+    private DemoPayloadWrapper baseDemoPayloadWrapper;
+
+    @Before
+    public void setUp() {
+        mergeStrategy = new LastWriterWinsRegisterMergeStrategy();
+        baseDemoPayloadWrapper = createDemoPayloadWrapper(1, 1, 1);
+        mergeStrategy.onLocalChange(baseDemoPayloadWrapper, null, TIMESTAMP);
+    }
+
+    @Test
+    public void merge_concurrentChangesOfDifferentIndices_keepsBoth() {
+        DemoPayloadWrapper iconChange = changeIcon(baseDemoPayloadWrapper, 2, 5);
+        DemoPayloadWrapper colorChange = changeColor(baseDemoPayloadWrapper, 3, 7);
+
+        DemoPayloadWrapper first = mergeStrategy.merge(iconChange, colorChange);
+        DemoPayloadWrapper second = mergeStrategy.merge(colorChange, iconChange);
+
+        assertNotSame(iconChange, first);
+        assertNotSame(colorChange, first);
+        for (DemoPayloadWrapper merged : new DemoPayloadWrapper[]{first, second}) {
+            assertEquals(5, merged.getIconIndex());
+            assertEquals(7, merged.getColorIndex());
+            assertEquals(Math.max(iconChange.getTimestamp(), colorChange.getTimestamp()), merged.getTimestamp());
+        }
+    }
+
+    @Test
+    public void merge_concurrentChangesOfSameIndex_deviceIdHashCodeBreaksTie() {
+        DemoPayloadWrapper lowerDeviceChange = changeIcon(baseDemoPayloadWrapper, 2, 5);
+        DemoPayloadWrapper higherDeviceChange = changeIcon(baseDemoPayloadWrapper, 3, 6);
+        assertEquals(lowerDeviceChange.getIconTimestamp(), higherDeviceChange.getIconTimestamp());
+
+        assertSame(higherDeviceChange, mergeStrategy.merge(lowerDeviceChange, higherDeviceChange));
+        assertSame(higherDeviceChange, mergeStrategy.merge(higherDeviceChange, lowerDeviceChange));
+    }
+
+    @Test
+    public void onLocalChange_clockBehind_isNewerThanCurrentState() {
+        DemoPayloadWrapper change = createDemoPayloadWrapper(2, 5, baseDemoPayloadWrapper.getColorIndex());
+        copyVersions(baseDemoPayloadWrapper, change);
+        mergeStrategy.onLocalChange(change, baseDemoPayloadWrapper, TIMESTAMP - 60_000);
+
+        assertEquals(TIMESTAMP + 1, change.getIconTimestamp());
+        assertEquals(baseDemoPayloadWrapper.getColorTimestamp(), change.getColorTimestamp());
+        assertSame(change, mergeStrategy.merge(baseDemoPayloadWrapper, change));
+    }
+
+    @Test
+    public void compare_encodedRegisters_matchesMerge() {
+        DemoPayloadWrapper iconChange = changeIcon(baseDemoPayloadWrapper, 2, 5);
+        ByteBuffer data = iconChange.writeToBuffer().blockingGet();
+        assertEquals(DemoPayloadCodec.FORMAT_REGISTERS, DemoPayloadCodec.getFormat(data));
+
+        TransportPayload transportPayload = new TransportPayload(DemoPayloadWrapper.ID, 2, data);
+        assertTrue(mergeStrategy.compare(transportPayload, TIMESTAMP, baseDemoPayloadWrapper) > 0);
+        assertEquals(0, mergeStrategy.compare(transportPayload, TIMESTAMP, iconChange));
+
+        DemoPayloadWrapper newerIconChange = changeIcon(iconChange, 3, 6);
+        mergeStrategy.onLocalChange(newerIconChange, iconChange, TIMESTAMP);
+        assertTrue(mergeStrategy.compare(transportPayload, TIMESTAMP, newerIconChange) < 0);
+
+        DemoPayloadWrapper decoded = new DemoPayloadWrapper(transportPayload, TIMESTAMP);
+        assertEquals(iconChange.getIconTimestamp(), decoded.getIconTimestamp());
+        assertEquals(iconChange.getIconDeviceIdHashCode(), decoded.getIconDeviceIdHashCode());
+        assertEquals(iconChange.getColorTimestamp(), decoded.getColorTimestamp());
+        assertEquals(iconChange.getColorDeviceIdHashCode(), decoded.getColorDeviceIdHashCode());
+    }
+
+    private DemoPayloadWrapper changeIcon(DemoPayloadWrapper current, int deviceIdHashCode, int iconIndex) {
+        DemoPayloadWrapper change = createDemoPayloadWrapper(deviceIdHashCode, iconIndex, current.getColorIndex());
+        copyVersions(current, change);
+        mergeStrategy.onLocalChange(change, current, TIMESTAMP);
+        return change;
+    }
+
+    private DemoPayloadWrapper changeColor(DemoPayloadWrapper current, int deviceIdHashCode, int colorIndex) {
+        DemoPayloadWrapper change = createDemoPayloadWrapper(deviceIdHashCode, current.getIconIndex(), colorIndex);
+        copyVersions(current, change);
+        mergeStrategy.onLocalChange(change, current, TIMESTAMP);
+        return change;
+    }
+
+    private DemoPayloadWrapper createDemoPayloadWrapper(int deviceIdHashCode, int iconIndex, int colorIndex) {
+        DemoPayloadWrapper demoPayloadWrapper = new DemoPayloadWrapper(iconIndex, colorIndex);
+        demoPayloadWrapper.setDeviceIdHashCode(deviceIdHashCode);
+        demoPayloadWrapper.setFormat(mergeStrategy.getFormat());
+        return demoPayloadWrapper;
+    }
+
+    private static void copyVersions(DemoPayloadWrapper source, DemoPayloadWrapper target) {
+        target.setIconTimestamp(source.getIconTimestamp());
+        target.setIconDeviceIdHashCode(source.getIconDeviceIdHashCode());
+        target.setColorTimestamp(source.getColorTimestamp());
+        target.setColorDeviceIdHashCode(source.getColorDeviceIdHashCode());
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.nexenio.sblecdemo.trace;
+
+import com.nexenio.sblecdemo.transport.TransportPayload;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRecorderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void next_recordedPayloads_returnsAllPayloads() throws IOException {
+        File file = temporaryFolder.newFile();
+        List<TransportPayload> transportPayloads = new ArrayList<>();
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 1000)) {
+            for (int i = 0; i < 100; i++) {
+                TransportPayload transportPayload = createPayload(11 + i % 3, i, i % 28);
+                transportPayloads.add(transportPayload);
+                assertTrue(traceRecorder.record(transportPayload, 1000 + i * 250L));
+            }
+            assertEquals(100, traceRecorder.getRecordedCount());
+        }
+
+        TraceReader traceReader = new TraceReader(file);
+        assertEquals(1000, traceReader.getStartTimestamp());
+        for (int i = 0; i < transportPayloads.size(); i++) {
+            TraceRecord traceRecord = traceReader.next();
+            assertEquals(1000 + i * 250L, traceRecord.getTimestamp());
+            assertPayloadEquals(transportPayloads.get(i), traceRecord.getTransportPayload());
+        }
+        assertNull(traceReader.next());
+    }
+
+    @Test
+    public void record_existingTrace_appendsPayloads() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0)) {
+            traceRecorder.record(createPayload(11, 1, 7), 100);
+            traceRecorder.record(createPayload(11, 2, 7), 200);
+        }
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 5000)) {
+            traceRecorder.record(createPayload(12, 3, 7), TimeUnit.HOURS.toMillis(1));
+        }
+
+        TraceReader traceReader = new TraceReader(file);
+        assertEquals(0, traceReader.getStartTimestamp());
+        assertEquals(100, traceReader.next().getTimestamp());
+        assertEquals(200, traceReader.next().getTimestamp());
+        TraceRecord traceRecord = traceReader.next();
+        assertEquals(TimeUnit.HOURS.toMillis(1), traceRecord.getTimestamp());
+        assertEquals(3, traceRecord.getTransportPayload().getDeviceIdHashCode());
+        assertNull(traceReader.next());
+    }
+
+    @Test
+    public void record_beyondMaximumLength_stopsRecording() throws IOException {
+        File file = temporaryFolder.newFile();
+        int maximumLength = 4 * TraceRecorder.SEGMENT_LENGTH;
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0, maximumLength)) {
+            int recordedCount = 0;
+            while (traceRecorder.record(createPayload(11, recordedCount, 27), recordedCount)) {
+                recordedCount++;
+            }
+
+            assertTrue(traceRecorder.isStopped());
+            assertTrue(traceRecorder.getLength() <= maximumLength);
+            assertEquals(1, traceRecorder.getDroppedCount());
+            assertEquals(recordedCount, countRecords(file));
+            // spans multiple segments
+            assertTrue(recordedCount * 27 > 3 * TraceRecorder.SEGMENT_LENGTH);
+        }
+    }
+
+    @Test
+    public void next_partiallyWrittenRecord_endsTrace() throws IOException {
+        File file = temporaryFolder.newFile();
+        long length;
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0)) {
+            traceRecorder.record(createPayload(11, 1, 7), 100);
+            length = traceRecorder.getLength();
+        }
+        // everything but the first byte of a record, like a crash while recording would leave
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(length + 1);
+            randomAccessFile.write(new byte[]{11, 0, 0, 0, 2, 100, 1, 2, 3});
+        }
+
+        assertEquals(1, countRecords(file));
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0)) {
+            assertEquals(length, traceRecorder.getLength());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void traceRecorder_otherFile_throwsException() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+        }
+        new TraceRecorder(file, 0).close();
+    }
+
+    @Test
+    public void receive_tracePayloads_replaysWithOriginalIntervals() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0)) {
+            traceRecorder.record(createPayload(11, 1, 7), 5000);
+            traceRecorder.record(createPayload(11, 2, 7), 6000);
+            traceRecorder.record(createPayload(11, 3, 7), 6000);
+            traceRecorder.record(createPayload(11, 4, 7), 10000);
+        }
+        TestScheduler scheduler = new TestScheduler();
+        TraceReplayTransport traceReplayTransport = new TraceReplayTransport(file, 2, scheduler, 42);
+
+        TestObserver<TransportPayload> observer = traceReplayTransport.receive().test();
+        scheduler.triggerActions();
+        observer.assertValueCount(1);
+        scheduler.advanceTimeBy(499, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(1);
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(3);
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+        observer.assertValueCount(4);
+        observer.assertComplete();
+        assertEquals(4, observer.values().get(3).getDeviceIdHashCode());
+        assertEquals(4, traceReplayTransport.getReplayedCount());
+    }
+
+    @Test
+    public void receive_maximumSpeed_replaysRightAway() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (TraceRecorder traceRecorder = new TraceRecorder(file, 0)) {
+            for (int i = 0; i < 10; i++) {
+                traceRecorder.record(createPayload(11, i, 7), TimeUnit.MINUTES.toMillis(i));
+            }
+        }
+        TestScheduler scheduler = new TestScheduler();
+
+        TestObserver<TransportPayload> observer = new TraceReplayTransport(file, TraceReplayTransport.MAXIMUM_SPEED, scheduler, 42).receive().test();
+        scheduler.triggerActions();
+
+        observer.assertValueCount(10);
+        observer.assertComplete();
+        assertTrue(observer.values().get(0).getData().isReadOnly());
+    }
+
+    private static int countRecords(File file) throws IOException {
+        TraceReader traceReader = new TraceReader(file);
+        while (traceReader.next() != null) {
+        }
+        return traceReader.getRecordCount();
+    }
+
+    private static void assertPayloadEquals(TransportPayload expected, TransportPayload actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDeviceIdHashCode(), actual.getDeviceIdHashCode());
+        assertEquals(expected.getData(), actual.getData());
+        assertEquals(0, actual.getData().position());
+    }
+
+    private static TransportPayload createPayload(int id, int deviceIdHashCode, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (deviceIdHashCode + i);
+        }
+        return new TransportPayload(id, deviceIdHashCode, ByteBuffer.wrap(data));
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.nexenio.sblecdemo.transport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchingPayloadTransportTest {
+
+    private TestScheduler scheduler;
+
+    private SimulatedMesh mesh;
+
+    private SimulatedTransport senderTransport;
+
+    private BatchingPayloadTransport batchingPayloadTransport;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        mesh = new SimulatedMesh(scheduler, 42);
+        senderTransport = mesh.createTransport();
+        batchingPayloadTransport = new BatchingPayloadTransport(senderTransport, scheduler);
+    }
+
+    @Test
+    public void decode_encodedBatch_returnsAllPayloads() {
+        List<TransportPayload> transportPayloads = Arrays.asList(createPayload(11, 7), createPayload(12, 0), createPayload(13, 10));
+        ByteBuffer data = BatchCodec.encode(transportPayloads).asReadOnlyBuffer();
+
+        List<TransportPayload> decodedPayloads = BatchCodec.decode(new TransportPayload(BatchCodec.PAYLOAD_ID, 42, data));
+
+        assertEquals(3, decodedPayloads.size());
+        for (int i = 0; i < transportPayloads.size(); i++) {
+            assertEquals(transportPayloads.get(i).getId(), decodedPayloads.get(i).getId());
+            assertEquals(transportPayloads.get(i).getData(), decodedPayloads.get(i).getData());
+            assertEquals(0, decodedPayloads.get(i).getData().position());
+            assertEquals(42, decodedPayloads.get(i).getDeviceIdHashCode());
+        }
+    }
+
+    @Test
+    public void decode_truncatedBatch_returnsNoPayloads() {
+        ByteBuffer data = BatchCodec.encode(Arrays.asList(createPayload(11, 7), createPayload(12, 7)));
+        data.limit(data.limit() - 1);
+
+        assertTrue(BatchCodec.decode(new TransportPayload(BatchCodec.PAYLOAD_ID, 42, data)).isEmpty());
+    }
+
+    @Test
+    public void send_concurrentPayloads_sharesAdvertisement() {
+        TestObserver<TransportPayload> observer = new BatchingPayloadTransport(mesh.createTransport(), scheduler).receive().test();
+        batchingPayloadTransport.send(createPayload(11, 7)).subscribe();
+        batchingPayloadTransport.send(createPayload(12, 7)).subscribe();
+        batchingPayloadTransport.send(createPayload(13, 5)).subscribe();
+        scheduler.triggerActions();
+
+        assertEquals(1, senderTransport.getAdvertisedPayloadCount());
+        scheduler.advanceTimeBy(mesh.getAdvertisingIntervalMillis(), TimeUnit.MILLISECONDS);
+        Set<Integer> receivedIds = new HashSet<>();
+        for (TransportPayload transportPayload : observer.values()) {
+            receivedIds.add(transportPayload.getId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(11, 12, 13)), receivedIds);
+        assertEquals(3, batchingPayloadTransport.getBatchedPayloadCount());
+    }
+
+    @Test
+    public void send_tooManyPayloads_usesMultipleAdvertisements() {
+        for (int i = 0; i < 5; i++) {
+            batchingPayloadTransport.send(createPayload(11 + i, 10)).subscribe();
+        }
+        scheduler.triggerActions();
+
+        // two entries of 12 bytes fit into each batch
+        assertEquals(3, senderTransport.getAdvertisedPayloadCount());
+    }
+
+    @Test
+    public void send_singlePayload_notBatched() {
+        TestObserver<TransportPayload> observer = mesh.createTransport().receive().test();
+        batchingPayloadTransport.send(createPayload(11, 7)).subscribe();
+        scheduler.advanceTimeBy(mesh.getAdvertisingIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        assertEquals(11, observer.values().get(0).getId());
+        assertEquals(0, batchingPayloadTransport.getBatchedPayloadCount());
+    }
+
+    @Test
+    public void send_longPayload_passedToTransport() {
+        batchingPayloadTransport.send(createPayload(11, 7)).subscribe();
+        batchingPayloadTransport.send(createPayload(12, BatchCodec.MAXIMUM_ENTRY_DATA_LENGTH + 1)).subscribe();
+        scheduler.triggerActions();
+
+        assertEquals(2, senderTransport.getAdvertisedPayloadCount());
+        assertEquals(1, batchingPayloadTransport.getAdvertisementCount());
+    }
+
+    @Test
+    public void send_disposed_removedFromBatch() {
+        Disposable firstDisposable = batchingPayloadTransport.send(createPayload(11, 7)).subscribe();
+        Disposable secondDisposable = batchingPayloadTransport.send(createPayload(12, 7)).subscribe();
+        scheduler.triggerActions();
+
+        firstDisposable.dispose();
+        scheduler.triggerActions();
+        assertEquals(1, senderTransport.getAdvertisedPayloadCount());
+
+        secondDisposable.dispose();
+        scheduler.triggerActions();
+        assertEquals(0, senderTransport.getAdvertisedPayloadCount());
+        assertEquals(2, batchingPayloadTransport.getAdvertisementCount());
+    }
+
+    @Test
+    public void send_concurrentPayloadsOnLossyMesh_deliveredFaster() {
+        long unbatchedTime = measureDelivery(false);
+        long batchedTime = measureDelivery(true);
+
+        assertTrue(unbatchedTime >= 0);
+        assertTrue(batchedTime >= 0);
+        // each batch carries all three payloads, instead of one payload per advertising interval
+        assertTrue(batchedTime * 2 < unbatchedTime);
+        // the times quoted in the README
+        assertTrue(batchedTime <= 250);
+        assertTrue(unbatchedTime >= 1330);
+    }
+
+    /**
+     * @return the time until all receivers received all sent payloads, or -1 if that took longer
+     *         than a minute
+     */
+    private long measureDelivery(boolean batched) {
+        SimulatedMesh mesh = new SimulatedMesh(scheduler, 42);
+        mesh.setLossProbability(0.3);
+        mesh.setLatency(5, 30);
+        PayloadTransport senderTransport = mesh.createTransport();
+        if (batched) {
+            senderTransport = new BatchingPayloadTransport(senderTransport, scheduler);
+        }
+        List<Set<Integer>> receivedIds = new ArrayList<>();
+        CompositeDisposable compositeDisposable = new CompositeDisposable();
+        for (int i = 0; i < 20; i++) {
+            Set<Integer> ids = new HashSet<>();
+            receivedIds.add(ids);
+            compositeDisposable.add(new BatchingPayloadTransport(mesh.createTransport(), scheduler).receive()
+                    .subscribe(transportPayload -> ids.add(transportPayload.getId())));
+        }
+        compositeDisposable.add(senderTransport.send(createPayload(11, 7)).subscribe());
+        compositeDisposable.add(senderTransport.send(createPayload(12, 7)).subscribe());
+        compositeDisposable.add(senderTransport.send(createPayload(13, 5)).subscribe());
+
+        long startTime = scheduler.now(TimeUnit.MILLISECONDS);
+        try {
+            while (scheduler.now(TimeUnit.MILLISECONDS) - startTime < 60_000) {
+                scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+                boolean allReceived = true;
+                for (Set<Integer> ids : receivedIds) {
+                    allReceived = allReceived && ids.size() == 3;
+                }
+                if (allReceived) {
+                    return scheduler.now(TimeUnit.MILLISECONDS) - startTime;
+                }
+            }
+            return -1;
+        } finally {
+            compositeDisposable.dispose();
+        }
+    }
+
+    private static TransportPayload createPayload(int id, int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) id);
+        return new TransportPayload(id, 1, ByteBuffer.wrap(data));
+    }
+
+}
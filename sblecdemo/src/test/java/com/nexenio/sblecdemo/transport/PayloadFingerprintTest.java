@@ -0,0 +1,30 @@
+package com.nexenio.sblecdemo.transport;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PayloadFingerprintTest {
+
+    @Test
+    public void calculate_sameRemainingBytes_returnsSameFingerprint() {
+        ByteBuffer data = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        ByteBuffer offsetData = ByteBuffer.wrap(new byte[]{9, 1, 2, 3});
+        offsetData.position(1);
+
+        assertEquals(PayloadFingerprint.calculate(data), PayloadFingerprint.calculate(offsetData));
+        assertEquals(1, offsetData.position());
+    }
+
+    @Test
+    public void calculate_differentBytes_returnsDifferentFingerprints() {
+        long fingerprint = PayloadFingerprint.calculate(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertNotEquals(fingerprint, PayloadFingerprint.calculate(ByteBuffer.wrap(new byte[]{1, 3, 2})));
+        assertNotEquals(fingerprint, PayloadFingerprint.calculate(ByteBuffer.wrap(new byte[]{1, 2})));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.nexenio.sblecdemo.transport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedPayloadTransportTest {
+
+    private static final long REPLAY_WINDOW_MILLIS = 1000;
+
+    private TestScheduler scheduler;
+
+    private PublishSubject<TransportPayload> receivedPayloads;
+
+    private SharedPayloadTransport sharedPayloadTransport;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        receivedPayloads = PublishSubject.create();
+        PayloadTransport payloadTransport = new PayloadTransport() {
+            @Override
+            public Completable send(@NonNull TransportPayload transportPayload) {
+                return Completable.never();
+            }
+
+            @Override
+            public Observable<TransportPayload> receive() {
+                return receivedPayloads;
+            }
+
+            @Override
+            public int getDeviceIdHashCode() {
+                return 1;
+            }
+        };
+        sharedPayloadTransport = new SharedPayloadTransport(payloadTransport, REPLAY_WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    @Test
+    public void receive_multipleReceivers_subscribesUpstreamOnce() {
+        TestObserver<TransportPayload> firstObserver = sharedPayloadTransport.receive().test();
+        TestObserver<TransportPayload> secondObserver = sharedPayloadTransport.receive().test();
+        TransportPayload transportPayload = createPayload(42, 11);
+        receivedPayloads.onNext(transportPayload);
+
+        firstObserver.assertValues(transportPayload);
+        secondObserver.assertValues(transportPayload);
+        assertEquals(1, sharedPayloadTransport.getUpstreamSubscriptionCount());
+        assertEquals(2, sharedPayloadTransport.getReceiverCount());
+    }
+
+    @Test
+    public void receive_allReceiversDisposed_unsubscribesUpstream() {
+        TestObserver<TransportPayload> firstObserver = sharedPayloadTransport.receive().test();
+        TestObserver<TransportPayload> secondObserver = sharedPayloadTransport.receive().test();
+
+        firstObserver.dispose();
+        assertTrue(receivedPayloads.hasObservers());
+        secondObserver.dispose();
+
+        assertFalse(receivedPayloads.hasObservers());
+        assertEquals(0, sharedPayloadTransport.getReceiverCount());
+    }
+
+    @Test
+    public void receive_lateReceiver_replaysLatestPayloadOfEachDeviceAndId() {
+        TestObserver<TransportPayload> firstObserver = sharedPayloadTransport.receive().test();
+        TransportPayload outdatedPayload = createPayload(42, 11);
+        TransportPayload latestPayload = createPayload(42, 11);
+        TransportPayload otherIdPayload = createPayload(42, 12);
+        TransportPayload otherDevicePayload = createPayload(43, 11);
+        receivedPayloads.onNext(outdatedPayload);
+        receivedPayloads.onNext(otherIdPayload);
+        receivedPayloads.onNext(latestPayload);
+        receivedPayloads.onNext(otherDevicePayload);
+        firstObserver.dispose();
+
+        TestObserver<TransportPayload> secondObserver = sharedPayloadTransport.receive().test();
+
+        secondObserver.assertValues(otherIdPayload, latestPayload, otherDevicePayload);
+        assertEquals(3, sharedPayloadTransport.getReplayedCount());
+        assertEquals(2, sharedPayloadTransport.getUpstreamSubscriptionCount());
+    }
+
+    @Test
+    public void receive_lateReceiverAfterReplayWindow_replaysNothing() {
+        TestObserver<TransportPayload> firstObserver = sharedPayloadTransport.receive().test();
+        receivedPayloads.onNext(createPayload(42, 11));
+        scheduler.advanceTimeBy(REPLAY_WINDOW_MILLIS / 2, TimeUnit.MILLISECONDS);
+        TransportPayload recentPayload = createPayload(43, 11);
+        receivedPayloads.onNext(recentPayload);
+        firstObserver.dispose();
+
+        scheduler.advanceTimeBy(REPLAY_WINDOW_MILLIS * 3 / 4, TimeUnit.MILLISECONDS);
+        TestObserver<TransportPayload> secondObserver = sharedPayloadTransport.receive().test();
+
+        secondObserver.assertValues(recentPayload);
+    }
+
+    private static TransportPayload createPayload(int deviceIdHashCode, int id) {
+        return new TransportPayload(id, deviceIdHashCode, ByteBuffer.allocate(7));
+    }
+
+}
@@ -37,6 +37,24 @@ public class WearDemoActivity extends WearableActivity {
         super.onStop();
     }
 
+    @Override
+    public void onEnterAmbient(Bundle ambientDetails) {
+        super.onEnterAmbient(ambientDetails);
+        demoLayout.onEnterAmbient();
+    }
+
+    @Override
+    public void onUpdateAmbient() {
+        super.onUpdateAmbient();
+        demoLayout.onUpdateAmbient();
+    }
+
+    @Override
+    public void onExitAmbient() {
+        demoLayout.onExitAmbient();
+        super.onExitAmbient();
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         demoLayout.onRequestPermissionsResult(requestCode, permissions, grantResults);